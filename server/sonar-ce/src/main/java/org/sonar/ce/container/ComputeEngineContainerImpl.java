@@ -54,6 +54,7 @@ import org.sonar.ce.queue.PurgeCeActivities;
 import org.sonar.ce.settings.ProjectConfigurationFactory;
 import org.sonar.ce.taskprocessor.CeProcessingScheduler;
 import org.sonar.ce.taskprocessor.CeTaskProcessorModule;
+import org.sonar.ce.taskprocessor.ClusterCeQueueSubscriber;
 import org.sonar.ce.user.CeUserSession;
 import org.sonar.cluster.ClusterProperties;
 import org.sonar.cluster.localclient.HazelcastLocalClient;
@@ -143,6 +144,7 @@ import org.sonar.server.startup.LogServerId;
 import org.sonar.server.test.index.TestIndexer;
 import org.sonar.server.user.DefaultUserFinder;
 import org.sonar.server.user.DeprecatedUserFinder;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexer;
 import org.sonar.server.util.OkHttpClientProvider;
@@ -346,6 +348,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       DefaultTemplatesResolverImpl.class,
       PermissionTemplateService.class,
       PermissionUpdater.class,
+      PermissionCache.class,
       UserPermissionChanger.class,
       GroupPermissionChanger.class,
 
@@ -418,7 +421,8 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
     if (props.valueAsBoolean(ClusterProperties.CLUSTER_ENABLED)) {
       container.add(
         HazelcastLocalClient.class,
-        CeDistributedInformationImpl.class);
+        CeDistributedInformationImpl.class,
+        ClusterCeQueueSubscriber.class);
     } else {
       container.add(StandaloneCeDistributedInformation.class);
     }
@@ -61,6 +61,29 @@ public interface CEQueueStatus {
    */
   long addError(long processingTime);
 
+  /**
+   * Adds the specified time to the counter of time spent by tasks in the queue before their processing starts.
+   *
+   * @param waitTime duration between the submission of a task and the start of its processing, in ms
+   *
+   * @return the new time spent waiting in the queue
+   *
+   * @see #getWaitTime()
+   *
+   * @throws IllegalArgumentException if waitTime is < 0
+   */
+  long addWaitTime(long waitTime);
+
+  /**
+   * Adds the specified count to the count of tasks which could not be claimed because they had been peeked
+   * concurrently by another worker.
+   *
+   * @return the new count of claim conflicts
+   *
+   * @see #getClaimConflictCount()
+   */
+  long addClaimConflicts(int count);
+
   /**
    * Count of batch reports waiting for processing since startup, including reports received before instance startup.
    */
@@ -85,4 +108,14 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * Time spent by tasks in the queue before their processing started since startup, in milliseconds.
+   */
+  long getWaitTime();
+
+  /**
+   * Count of tasks which could not be claimed because another worker peeked them first, since startup.
+   */
+  long getClaimConflictCount();
 }
@@ -33,6 +33,8 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
+  private final AtomicLong waitTime = new AtomicLong(0);
+  private final AtomicLong claimConflicts = new AtomicLong(0);
 
   public CEQueueStatusImpl(DbClient dbClient) {
     this.dbClient = dbClient;
@@ -57,6 +59,17 @@ public class CEQueueStatusImpl implements CEQueueStatus {
     return success.incrementAndGet();
   }
 
+  @Override
+  public long addWaitTime(long ms) {
+    checkArgument(ms >= 0, "Wait time can not be < 0");
+    return waitTime.addAndGet(ms);
+  }
+
+  @Override
+  public long addClaimConflicts(int count) {
+    return claimConflicts.addAndGet(count);
+  }
+
   private void addProcessingTime(long ms) {
     checkArgument(ms >= 0, "Processing time can not be < 0");
     processingTime.addAndGet(ms);
@@ -88,4 +101,14 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   public long getProcessingTime() {
     return processingTime.get();
   }
+
+  @Override
+  public long getWaitTime() {
+    return waitTime.get();
+  }
+
+  @Override
+  public long getClaimConflictCount() {
+    return claimConflicts.get();
+  }
 }
@@ -48,6 +48,16 @@ public interface CeTasksMBean {
    */
   long getProcessingTime();
 
+  /**
+   * Time spent by tasks in the queue before their processing started since startup, in milliseconds.
+   */
+  long getWaitTime();
+
+  /**
+   * Count of tasks which could not be claimed because another worker peeked them first, since startup.
+   */
+  long getClaimConflictCount();
+
   /**
    * Configured maximum number of workers.
    */
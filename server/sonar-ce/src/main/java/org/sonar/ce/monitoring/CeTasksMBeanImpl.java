@@ -72,6 +72,16 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     return queueStatus.getProcessingTime();
   }
 
+  @Override
+  public long getWaitTime() {
+    return queueStatus.getWaitTime();
+  }
+
+  @Override
+  public long getClaimConflictCount() {
+    return queueStatus.getClaimConflictCount();
+  }
+
   @Override
   public int getWorkerMaxCount() {
     return ceConfiguration.getWorkerMaxCount();
@@ -91,6 +101,8 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     builder.addAttributesBuilder().setKey("Processed With Error").setLongValue(getErrorCount()).build();
     builder.addAttributesBuilder().setKey("Processed With Success").setLongValue(getSuccessCount()).build();
     builder.addAttributesBuilder().setKey("Processing Time (ms)").setLongValue(getProcessingTime()).build();
+    builder.addAttributesBuilder().setKey("Wait Time In Queue (ms)").setLongValue(getWaitTime()).build();
+    builder.addAttributesBuilder().setKey("Claim Conflicts").setLongValue(getClaimConflictCount()).build();
     builder.addAttributesBuilder().setKey("Worker Count").setLongValue(getWorkerCount()).build();
     builder.addAttributesBuilder().setKey("Max Worker Count").setLongValue(getWorkerMaxCount()).build();
     return builder.build();
@@ -23,15 +23,19 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.log4j.Logger;
+import org.sonar.api.Startable;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.ce.container.ComputeEngineStatus;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.core.util.UuidFactory;
@@ -40,6 +44,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.EligibleTaskDto;
 import org.sonar.server.computation.task.projectanalysis.component.VisitException;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
@@ -48,7 +53,7 @@ import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
 @ComputeEngineSide
-public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue {
+public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue, Startable {
   private static final org.sonar.api.utils.log.Logger LOG = Loggers.get(InternalCeQueueImpl.class);
 
   private static final int MAX_EXECUTION_COUNT = 2;
@@ -57,36 +62,141 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
   private final ComputeEngineStatus computeEngineStatus;
+  @Nullable
+  private final CeConfiguration ceConfiguration;
+  private final CeQueueListener[] listeners;
+  // tasks claimed by a worker on behalf of the other workers, oldest first
+  private final Deque<CeQueueDto> claimedTasks = new ArrayDeque<>();
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
     DefaultOrganizationProvider defaultOrganizationProvider, ComputeEngineStatus computeEngineStatus) {
-    super(dbClient, uuidFactory, defaultOrganizationProvider);
+    this(system2, dbClient, uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus, null, new CeQueueListener[0]);
+  }
+
+  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
+    DefaultOrganizationProvider defaultOrganizationProvider, ComputeEngineStatus computeEngineStatus, @Nullable CeConfiguration ceConfiguration,
+    CeQueueListener[] listeners) {
+    super(dbClient, uuidFactory, defaultOrganizationProvider, listeners);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
     this.computeEngineStatus = computeEngineStatus;
+    this.ceConfiguration = ceConfiguration;
+    this.listeners = listeners;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do at startup
+  }
+
+  /**
+   * Workers are stopped before the queue, so tasks claimed on their behalf won't be handed over anymore.
+   */
+  @Override
+  public void stop() {
+    synchronized (claimedTasks) {
+      releaseClaimedTasks();
+    }
   }
 
+  /**
+   * Tasks are claimed from the database for all the idle workers of this Compute Engine at once, and handed over to
+   * them from memory. Only one worker hits the database at a time, so workers don't compete on the same rows.
+   */
   @Override
   public Optional<CeTask> peek(String workerUuid) {
     requireNonNull(workerUuid, "workerUuid can't be null");
 
-    if (computeEngineStatus.getStatus() != ComputeEngineStatus.Status.STARTED) {
+    synchronized (claimedTasks) {
+      if (computeEngineStatus.getStatus() != ComputeEngineStatus.Status.STARTED) {
+        releaseClaimedTasks();
+        return Optional.empty();
+      }
+      try (DbSession dbSession = dbClient.openSession(false)) {
+        Optional<CeQueueDto> dto = takeClaimedTask(dbSession, workerUuid);
+        if (!dto.isPresent()) {
+          dto = claimTasks(dbSession, workerUuid);
+        }
+        CeTask task = null;
+        if (dto.isPresent()) {
+          task = loadTask(dbSession, dto.get());
+          queueStatus.addInProgress();
+          queueStatus.addWaitTime(Math.max(0L, system2.now() - dto.get().getCreatedAt()));
+        }
+        return Optional.ofNullable(task);
+      }
+    }
+  }
+
+  private Optional<CeQueueDto> takeClaimedTask(DbSession dbSession, String workerUuid) {
+    CeQueueDto dto;
+    while ((dto = claimedTasks.poll()) != null) {
+      String claimingWorkerUuid = dto.getWorkerUuid();
+      if (dbClient.ceQueueDao().updateWorkerUuid(dbSession, dto.getUuid(), claimingWorkerUuid, workerUuid)) {
+        dbSession.commit();
+        dto.setWorkerUuid(workerUuid);
+        return Optional.of(dto);
+      }
+      // task has been reset to pending or canceled in the meantime
+      LOG.debug("Task {} claimed by worker {} is not in progress anymore", dto.getUuid(), claimingWorkerUuid);
+    }
+    return Optional.empty();
+  }
+
+  private Optional<CeQueueDto> claimTasks(DbSession dbSession, String workerUuid) {
+    CeQueueDao ceQueueDao = dbClient.ceQueueDao();
+    // no claimed task is waiting in memory, so tasks in progress for this worker can only be left-overs of a failure
+    int i = ceQueueDao.resetToPendingForWorker(dbSession, workerUuid);
+    if (i > 0) {
+      LOG.debug("{} in progress tasks reset for worker uuid {}", i, workerUuid);
+    }
+    List<EligibleTaskDto> eligibles = ceQueueDao.selectEligibleForPeek(dbSession, MAX_EXECUTION_COUNT, getClaimSize());
+    List<CeQueueDto> claimed = ceQueueDao.claim(dbSession, eligibles, workerUuid, MAX_EXECUTION_COUNT);
+    dbSession.commit();
+    queueStatus.addClaimConflicts(eligibles.size() - claimed.size());
+    if (claimed.isEmpty()) {
       return Optional.empty();
     }
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      CeQueueDao ceQueueDao = dbClient.ceQueueDao();
-      int i = ceQueueDao.resetToPendingForWorker(dbSession, workerUuid);
-      if (i > 0) {
-        LOG.debug("{} in progress tasks reset for worker uuid {}", i, workerUuid);
+    claimedTasks.addAll(claimed.subList(1, claimed.size()));
+    notifyClaim(claimed.size() - 1);
+    return Optional.of(claimed.get(0));
+  }
+
+  private void notifyClaim(int claimedTaskCount) {
+    if (claimedTaskCount > 0) {
+      for (CeQueueListener listener : listeners) {
+        try {
+          listener.onClaim(claimedTaskCount);
+        } catch (Exception e) {
+          // claimed tasks are kept in memory anyway, they will be handed over on the next peek of a worker
+          LOG.warn("Failed to notify listener {} of claimed tasks", listener, e);
+        }
       }
-      Optional<CeQueueDto> dto = ceQueueDao.peek(dbSession, workerUuid, MAX_EXECUTION_COUNT);
-      CeTask task = null;
-      if (dto.isPresent()) {
-        task = loadTask(dbSession, dto.get());
-        queueStatus.addInProgress();
+    }
+  }
+
+  /**
+   * One task for the calling worker and one for each of the other workers which are not processing any task.
+   */
+  private int getClaimSize() {
+    if (ceConfiguration == null) {
+      return 1;
+    }
+    long idleWorkerCount = ceConfiguration.getWorkerCount() - queueStatus.getInProgressCount();
+    return (int) Math.max(1L, idleWorkerCount);
+  }
+
+  private void releaseClaimedTasks() {
+    if (claimedTasks.isEmpty()) {
+      return;
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      CeQueueDto dto;
+      while ((dto = claimedTasks.poll()) != null) {
+        dbClient.ceQueueDao().resetToPending(dbSession, dto.getUuid(), dto.getWorkerUuid());
       }
-      return Optional.ofNullable(task);
+      dbSession.commit();
     }
   }
 
@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
@@ -43,11 +44,19 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
   private final TimeUnit timeUnit;
   private final ChainingCallback[] chainingCallbacks;
   private final EnabledCeWorkerController ceWorkerController;
+  private final CeQueueSignal ceQueueSignal;
 
   public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
     CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerFactory ceCeWorkerFactory,
     EnabledCeWorkerController ceWorkerController) {
+    this(ceConfiguration, processingExecutorService, ceCeWorkerFactory, ceWorkerController, new CeQueueSignal());
+  }
+
+  public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
+    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerFactory ceCeWorkerFactory,
+    EnabledCeWorkerController ceWorkerController, CeQueueSignal ceQueueSignal) {
     this.executorService = processingExecutorService;
+    this.ceQueueSignal = ceQueueSignal;
 
     this.delayBetweenEnabledTasks = ceConfiguration.getQueuePollingDelay();
     this.ceWorkerController = ceWorkerController;
@@ -67,6 +76,23 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
       ListenableScheduledFuture<CeWorker.Result> future = executorService.schedule(chainingCallback.worker, delayBetweenEnabledTasks, timeUnit);
       addCallback(future, chainingCallback, executorService);
     }
+    ceQueueSignal.setListener(this::wakeUpIdleWorkers);
+  }
+
+  /**
+   * Runs immediately at most {@code taskCount} workers which are waiting for the next poll of the queue.
+   * Polling stays the fallback when tasks are submitted by another process.
+   */
+  private void wakeUpIdleWorkers(int taskCount) {
+    int remaining = taskCount;
+    for (ChainingCallback chainingCallback : chainingCallbacks) {
+      if (remaining == 0) {
+        return;
+      }
+      if (chainingCallback.wakeUp()) {
+        remaining--;
+      }
+    }
   }
 
   /**
@@ -75,6 +101,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
   @Override
   public void stopScheduling() {
     LOG.debug("Stopping compute engine");
+    ceQueueSignal.setListener(null);
     // Requesting all workers to stop
     for (ChainingCallback chainingCallback : chainingCallbacks) {
       chainingCallback.stop(false);
@@ -109,6 +136,8 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
 
     @CheckForNull
     private ListenableFuture<CeWorker.Result> workerFuture;
+    // true when the worker is waiting for the next poll of the queue. Guarded by this.
+    private boolean idle = false;
 
     public ChainingCallback(CeWorker worker) {
       this.worker = worker;
@@ -135,6 +164,10 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
 
     @Override
     public void onFailure(Throwable t) {
+      if (t instanceof CancellationException) {
+        // worker has been woken up or scheduling has been stopped, next call is already chained if needed
+        return;
+      }
       if (t instanceof Error) {
         LOG.error("Compute Engine execution failed. Scheduled processing interrupted.", t);
       } else {
@@ -142,27 +175,43 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
       }
     }
 
-    private void chainWithoutDelay() {
+    private synchronized void chainWithoutDelay() {
+      idle = false;
       if (keepRunning()) {
         workerFuture = executorService.submit(worker);
       }
       addCallback();
     }
 
-    private void chainWithEnabledTaskDelay() {
+    private synchronized void chainWithEnabledTaskDelay() {
+      idle = keepRunning();
       if (keepRunning()) {
         workerFuture = executorService.schedule(worker, delayBetweenEnabledTasks, timeUnit);
       }
       addCallback();
     }
 
-    private void chainWithDisabledTaskDelay() {
+    private synchronized void chainWithDisabledTaskDelay() {
+      idle = false;
       if (keepRunning()) {
         workerFuture = executorService.schedule(worker, DELAY_BETWEEN_DISABLED_TASKS, timeUnit);
       }
       addCallback();
     }
 
+    /**
+     * Replaces the delayed poll of an idle worker by an immediate one.
+     *
+     * @return {@code false} if the worker is not idle or if the delayed poll has already started
+     */
+    private synchronized boolean wakeUp() {
+      if (!idle || !keepRunning() || workerFuture == null || !workerFuture.cancel(false)) {
+        return false;
+      }
+      chainWithoutDelay();
+      return true;
+    }
+
     private void addCallback() {
       if (workerFuture != null && keepRunning()) {
         Futures.addCallback(workerFuture, this, executorService);
@@ -0,0 +1,59 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.taskprocessor;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import javax.annotation.Nullable;
+import org.sonar.ce.queue.CeQueueListener;
+import org.sonar.ce.queue.CeTask;
+
+/**
+ * Forwards to the {@link CeProcessingScheduler} the number of tasks submitted to the queue, either by
+ * the current process or, in cluster mode, by any node of the cluster (see {@link ClusterCeQueueSubscriber}),
+ * as well as the number of tasks claimed by a worker on behalf of the idle workers, so that idle workers are woken up
+ * without waiting for the next poll of the queue.
+ */
+public class CeQueueSignal implements CeQueueListener {
+
+  private final AtomicReference<IntConsumer> listener = new AtomicReference<>();
+
+  void setListener(@Nullable IntConsumer taskCountConsumer) {
+    listener.set(taskCountConsumer);
+  }
+
+  @Override
+  public void onSubmit(Collection<CeTask> tasks) {
+    signal(tasks.size());
+  }
+
+  @Override
+  public void onClaim(int claimedTaskCount) {
+    signal(claimedTaskCount);
+  }
+
+  public void signal(int taskCount) {
+    IntConsumer consumer = listener.get();
+    if (consumer != null && taskCount > 0) {
+      consumer.accept(taskCount);
+    }
+  }
+}
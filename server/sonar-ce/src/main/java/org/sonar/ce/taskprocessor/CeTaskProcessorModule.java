@@ -29,6 +29,7 @@ public class CeTaskProcessorModule extends Module {
       CeWorkerFactoryImpl.class,
       EnabledCeWorkerControllerImpl.class,
       CeProcessingSchedulerExecutorServiceImpl.class,
+      CeQueueSignal.class,
       CeProcessingSchedulerImpl.class);
   }
 }
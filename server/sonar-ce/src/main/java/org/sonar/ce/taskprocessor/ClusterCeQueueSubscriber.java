@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.taskprocessor;
+
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.cluster.localclient.HazelcastClient;
+
+import static org.sonar.cluster.ClusterObjectKeys.CE_QUEUE_SUBMIT_TOPIC;
+
+/**
+ * Listens to the tasks submitted on any node of the cluster and forwards them to {@link CeQueueSignal}.
+ */
+public class ClusterCeQueueSubscriber implements Startable {
+
+  private final HazelcastClient hazelcastClient;
+  private final CeQueueSignal ceQueueSignal;
+  @CheckForNull
+  private String registrationId;
+
+  public ClusterCeQueueSubscriber(HazelcastClient hazelcastClient, CeQueueSignal ceQueueSignal) {
+    this.hazelcastClient = hazelcastClient;
+    this.ceQueueSignal = ceQueueSignal;
+  }
+
+  @Override
+  public void start() {
+    registrationId = hazelcastClient.<Integer>addMessageListener(CE_QUEUE_SUBMIT_TOPIC, ceQueueSignal::signal);
+  }
+
+  @Override
+  public void stop() {
+    if (registrationId != null) {
+      hazelcastClient.removeMessageListener(CE_QUEUE_SUBMIT_TOPIC, registrationId);
+      registrationId = null;
+    }
+  }
+}
@@ -123,13 +123,13 @@ public class ComputeEngineContainerImplTest {
     assertThat(picoContainer.getComponentAdapters())
       .hasSize(
         CONTAINER_ITSELF
-          + 72 // level 4
+          + 73 // level 4
           + 4 // content of CeConfigurationModule
           + 4 // content of CeQueueModule
           + 4 // content of CeHttpModule
-          + 3 // content of CeTaskCommonsModule
+          + 5 // content of CeTaskCommonsModule
           + 4 // content of ProjectAnalysisTaskModule
-          + 5 // content of CeTaskProcessorModule
+          + 6 // content of CeTaskProcessorModule
           + 3 // CeCleaningModule + its content
           + 1 // CeDistributedInformation
     );
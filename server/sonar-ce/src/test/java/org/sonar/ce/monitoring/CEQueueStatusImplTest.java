@@ -50,6 +50,8 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getErrorCount()).isEqualTo(0);
     assertThat(underTest.getSuccessCount()).isEqualTo(0);
     assertThat(underTest.getProcessingTime()).isEqualTo(0);
+    assertThat(underTest.getWaitTime()).isEqualTo(0);
+    assertThat(underTest.getClaimConflictCount()).isEqualTo(0);
   }
 
   @Test
@@ -133,6 +135,33 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getProcessingTime()).isEqualTo(calls);
   }
 
+  @Test
+  public void addWaitTime_throws_IAE_if_time_is_less_than_0() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Wait time can not be < 0");
+
+    underTest.addWaitTime(-1);
+  }
+
+  @Test
+  public void addWaitTime_increases_WaitTime_only() {
+    assertThat(underTest.addWaitTime(SOME_PROCESSING_TIME)).isEqualTo(SOME_PROCESSING_TIME);
+    assertThat(underTest.addWaitTime(1)).isEqualTo(SOME_PROCESSING_TIME + 1);
+
+    assertThat(underTest.getWaitTime()).isEqualTo(SOME_PROCESSING_TIME + 1);
+    assertThat(underTest.getInProgressCount()).isEqualTo(0);
+    assertThat(underTest.getProcessingTime()).isEqualTo(0);
+  }
+
+  @Test
+  public void addClaimConflicts_increases_ClaimConflictCount() {
+    underTest.addClaimConflicts(0);
+    underTest.addClaimConflicts(3);
+
+    assertThat(underTest.addClaimConflicts(2)).isEqualTo(5);
+    assertThat(underTest.getClaimConflictCount()).isEqualTo(5);
+  }
+
   @Test
   public void count_Pending_from_database() {
     when(dbClient.ceQueueDao().countByStatus(any(DbSession.class), eq(CeQueueDto.Status.PENDING))).thenReturn(42);
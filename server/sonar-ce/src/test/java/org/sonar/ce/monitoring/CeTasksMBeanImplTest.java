@@ -36,6 +36,8 @@ public class CeTasksMBeanImplTest {
   private static final long ERROR_COUNT = 10;
   private static final long SUCCESS_COUNT = 13;
   private static final long PROCESSING_TIME = 987;
+  private static final long WAIT_TIME = 4_321;
+  private static final long CLAIM_CONFLICT_COUNT = 3;
   private static final int WORKER_MAX_COUNT = 666;
   private static final int WORKER_COUNT = 56;
 
@@ -59,6 +61,8 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getErrorCount()).isEqualTo(ERROR_COUNT);
     assertThat(underTest.getSuccessCount()).isEqualTo(SUCCESS_COUNT);
     assertThat(underTest.getProcessingTime()).isEqualTo(PROCESSING_TIME);
+    assertThat(underTest.getWaitTime()).isEqualTo(WAIT_TIME);
+    assertThat(underTest.getClaimConflictCount()).isEqualTo(CLAIM_CONFLICT_COUNT);
   }
 
   @Test
@@ -75,7 +79,7 @@ public class CeTasksMBeanImplTest {
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Tasks");
-    assertThat(section.getAttributesCount()).isEqualTo(7);
+    assertThat(section.getAttributesCount()).isEqualTo(9);
   }
 
   /**
@@ -124,6 +128,26 @@ public class CeTasksMBeanImplTest {
       return PROCESSING_TIME;
     }
 
+    @Override
+    public long addWaitTime(long waitTime) {
+      return methodNotImplemented();
+    }
+
+    @Override
+    public long getWaitTime() {
+      return WAIT_TIME;
+    }
+
+    @Override
+    public long addClaimConflicts(int count) {
+      return methodNotImplemented();
+    }
+
+    @Override
+    public long getClaimConflictCount() {
+      return CLAIM_CONFLICT_COUNT;
+    }
+
     private long methodNotImplemented() {
       throw new UnsupportedOperationException("Not Implemented");
     }
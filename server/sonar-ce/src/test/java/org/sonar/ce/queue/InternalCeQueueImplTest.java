@@ -33,6 +33,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.AlwaysIncreasingSystem2;
+import org.sonar.ce.configuration.CeConfigurationRule;
 import org.sonar.ce.container.ComputeEngineStatus;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.monitoring.CEQueueStatusImpl;
@@ -52,7 +53,11 @@ import org.sonar.server.organization.DefaultOrganizationProvider;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.ce.container.ComputeEngineStatus.Status.STARTED;
 import static org.sonar.ce.container.ComputeEngineStatus.Status.STOPPING;
@@ -308,6 +313,128 @@ public class InternalCeQueueImplTest {
     assertThat(peek.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_claims_one_task_per_idle_worker_and_hands_them_over_from_memory() {
+    InternalCeQueue underTest = newBatchClaimingQueue(3);
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task3 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    CeTask task4 = submit(CeTaskTypes.REPORT, "PROJECT_3");
+    CeTask task5 = submit(CeTaskTypes.REPORT, "PROJECT_4");
+
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(task1.getUuid());
+    // oldest task of each project without task in progress are claimed by worker 1, on behalf of the idle workers
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task3.getUuid()).get().getWorkerUuid()).isEqualTo(WORKER_UUID_1);
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task4.getUuid()).get().getWorkerUuid()).isEqualTo(WORKER_UUID_1);
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get().getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task5.getUuid()).get().getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+
+    assertThat(underTest.peek(WORKER_UUID_2).get().getUuid()).isEqualTo(task3.getUuid());
+    CeQueueDto dto = dbTester.getDbClient().ceQueueDao().selectByUuid(session, task3.getUuid()).get();
+    assertThat(dto.getWorkerUuid()).isEqualTo(WORKER_UUID_2);
+    assertThat(dto.getStatus()).isEqualTo(CeQueueDto.Status.IN_PROGRESS);
+    assertThat(dto.getExecutionCount()).isEqualTo(1);
+    assertThat(underTest.peek("worker uuid 3").get().getUuid()).isEqualTo(task4.getUuid());
+    assertThat(queueStatus.getInProgressCount()).isEqualTo(3);
+    assertThat(queueStatus.getWaitTime()).isPositive();
+  }
+
+  @Test
+  public void peek_skips_claimed_tasks_which_are_not_in_progress_anymore() {
+    InternalCeQueue underTest = newBatchClaimingQueue(2);
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    CeTask task3 = submit(CeTaskTypes.REPORT, "PROJECT_3");
+
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(task1.getUuid());
+    // task 2 is given back to the queue in the meantime
+    dbTester.getDbClient().ceQueueDao().resetToPending(session, task2.getUuid(), WORKER_UUID_1);
+    session.commit();
+
+    assertThat(underTest.peek(WORKER_UUID_2).get().getUuid()).isEqualTo(task2.getUuid());
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get().getWorkerUuid()).isEqualTo(WORKER_UUID_2);
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task3.getUuid()).get().getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+  }
+
+  @Test
+  public void peek_gives_back_claimed_tasks_when_application_status_is_stopping() {
+    InternalCeQueue underTest = newBatchClaimingQueue(2);
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    underTest.peek(WORKER_UUID_1);
+
+    when(computeEngineStatus.getStatus()).thenReturn(STOPPING);
+    assertThat(underTest.peek(WORKER_UUID_2).isPresent()).isFalse();
+
+    CeQueueDto dto = dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get();
+    assertThat(dto.getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+    assertThat(dto.getExecutionCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void stop_gives_back_claimed_tasks() {
+    InternalCeQueueImpl underTest = newBatchClaimingQueue(3);
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    CeTask task3 = submit(CeTaskTypes.REPORT, "PROJECT_3");
+    underTest.peek(WORKER_UUID_1);
+
+    underTest.stop();
+
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task1.getUuid()).get().getStatus()).isEqualTo(CeQueueDto.Status.IN_PROGRESS);
+    for (CeTask task : asList(task2, task3)) {
+      CeQueueDto dto = dbTester.getDbClient().ceQueueDao().selectByUuid(session, task.getUuid()).get();
+      assertThat(dto.getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+      assertThat(dto.getExecutionCount()).isEqualTo(0);
+      assertThat(dto.getStartedAt()).isNull();
+    }
+  }
+
+  @Test
+  public void peek_starts_claimed_task_when_it_is_handed_over() {
+    InternalCeQueue underTest = newBatchClaimingQueue(2);
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    underTest.peek(WORKER_UUID_1);
+    long claimedAt = dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get().getStartedAt();
+
+    underTest.peek(WORKER_UUID_2);
+
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get().getStartedAt()).isGreaterThan(claimedAt);
+  }
+
+  @Test
+  public void peek_notifies_listeners_of_tasks_claimed_for_idle_workers() {
+    CeQueueListener listener = mock(CeQueueListener.class);
+    InternalCeQueue underTest = newBatchClaimingQueue(3, listener);
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    submit(CeTaskTypes.REPORT, "PROJECT_2");
+    submit(CeTaskTypes.REPORT, "PROJECT_3");
+
+    underTest.peek(WORKER_UUID_1);
+    underTest.peek(WORKER_UUID_2);
+
+    verify(listener).onClaim(2);
+    verify(listener, never()).onClaim(0);
+  }
+
+  @Test
+  public void peek_returns_task_and_hands_over_claimed_tasks_even_if_listener_fails() {
+    CeQueueListener listener = mock(CeQueueListener.class);
+    doThrow(new IllegalStateException("BOOM")).when(listener).onClaim(anyInt());
+    InternalCeQueue underTest = newBatchClaimingQueue(2, listener);
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(underTest.peek(WORKER_UUID_2).get().getUuid()).isEqualTo(task2.getUuid());
+
+    verify(listener).onClaim(1);
+    CeQueueDto dto = dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get();
+    assertThat(dto.getStatus()).isEqualTo(CeQueueDto.Status.IN_PROGRESS);
+    assertThat(dto.getWorkerUuid()).isEqualTo(WORKER_UUID_2);
+  }
+
   @Test
   public void peek_peeks_pending_tasks_with_executionCount_equal_to_0_and_increases_it() {
     dbTester.getDbClient().ceQueueDao().insert(session, new CeQueueDto()
@@ -420,6 +547,12 @@ public class InternalCeQueueImplTest {
     assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo("u4");
   }
 
+  private InternalCeQueueImpl newBatchClaimingQueue(int workerCount, CeQueueListener... listeners) {
+    CeConfigurationRule ceConfiguration = new CeConfigurationRule().setWorkerCount(workerCount);
+    return new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus,
+      ceConfiguration, listeners);
+  }
+
   private void verifyResetTask(CeQueueDto originalDto) {
     CeQueueDto dto = dbTester.getDbClient().ceQueueDao().selectByUuid(session, originalDto.getUuid()).get();
     assertThat(dto.getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
@@ -201,6 +201,59 @@ public class CeProcessingSchedulerImplTest {
       regularDelayedPoll);
   }
 
+  @Test
+  public void signal_on_CeQueueSignal_replaces_delayed_polling_of_idle_worker_by_immediate_one() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(NO_TASK)
+      .thenReturn(NO_TASK)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+    CeQueueSignal ceQueueSignal = new CeQueueSignal();
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, new TestCeWorkerFactory(ceWorker), ceWorkerController,
+      ceQueueSignal);
+
+    underTest.startScheduling();
+    // first polling finds no task, worker becomes idle
+    processingExecutorService.futures.poll().get();
+    ceQueueSignal.signal(1);
+
+    int cancelledTaskFutureCount = 0;
+    while (processingExecutorService.futures.peek() != null) {
+      Future<?> future = processingExecutorService.futures.poll();
+      if (future.isCancelled()) {
+        cancelledTaskFutureCount++;
+      } else {
+        future.get();
+      }
+    }
+
+    assertThat(cancelledTaskFutureCount).isEqualTo(1);
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      regularDelayedPoll,
+      notDelayedPoll,
+      regularDelayedPoll);
+  }
+
+  @Test
+  public void signal_on_CeQueueSignal_is_ignored_once_scheduling_is_stopped() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(NO_TASK)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+    CeQueueSignal ceQueueSignal = new CeQueueSignal();
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, new TestCeWorkerFactory(ceWorker), ceWorkerController,
+      ceQueueSignal);
+
+    underTest.startScheduling();
+    processingExecutorService.futures.poll().get();
+    underTest.stopScheduling();
+    ceQueueSignal.signal(1);
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      regularDelayedPoll);
+  }
+
   @Test
   public void when_workerCount_is_more_than_1_as_many_CeWorkerCallable_are_scheduled() throws Exception {
     int workerCount = Math.abs(new Random().nextInt(10)) + 1;
@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.taskprocessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.ce.queue.CeTask;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class CeQueueSignalTest {
+
+  private List<Integer> signals = new ArrayList<>();
+  private CeQueueSignal underTest = new CeQueueSignal();
+
+  @Test
+  public void signal_is_ignored_when_there_is_no_listener() {
+    underTest.signal(2);
+
+    underTest.setListener(signals::add);
+    underTest.setListener(null);
+    underTest.signal(3);
+
+    assertThat(signals).isEmpty();
+  }
+
+  @Test
+  public void onSubmit_forwards_number_of_submitted_tasks_to_listener() {
+    underTest.setListener(signals::add);
+
+    underTest.onSubmit(asList(mock(CeTask.class), mock(CeTask.class)));
+    underTest.onSubmit(emptyList());
+    underTest.signal(5);
+
+    assertThat(signals).containsExactly(2, 5);
+  }
+
+  @Test
+  public void onClaim_forwards_number_of_claimed_tasks_to_listener() {
+    underTest.setListener(signals::add);
+
+    underTest.onClaim(3);
+    underTest.onClaim(0);
+
+    assertThat(signals).containsExactly(3);
+  }
+}
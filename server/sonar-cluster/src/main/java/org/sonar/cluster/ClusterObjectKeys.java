@@ -79,4 +79,12 @@ public final class ClusterObjectKeys {
    * THe key of the replicated map holding the health state information of all SQ nodes.
    */
   public static final String SQ_HEALTH_STATE = "sq_health_state";
+  /**
+   * The key of the topic notified when tasks are submitted to the Compute Engine queue
+   */
+  public static final String CE_QUEUE_SUBMIT_TOPIC = "CE_QUEUE_SUBMIT_TOPIC";
+  /**
+   * The key of the topic notified when permissions cached by the web servers must be invalidated
+   */
+  public static final String PERMISSION_CACHE_INVALIDATION_TOPIC = "PERMISSION_CACHE_INVALIDATION_TOPIC";
 }
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 
 /**
  * The interface Hazelcast client wrapper.
@@ -68,6 +69,23 @@ public interface HazelcastClient {
    */
   Lock getLock(String name);
 
+  /**
+   * Publishes a message to all the listeners of the topic shared by the cluster and identified by name
+   */
+  <E> void publish(String topicName, E message);
+
+  /**
+   * Registers a listener of the messages published on the topic shared by the cluster and identified by name.
+   *
+   * @return the id of the registration, to be used by {@link #removeMessageListener(String, String)}
+   */
+  <E> String addMessageListener(String topicName, Consumer<E> listener);
+
+  /**
+   * Unregisters a listener added by {@link #addMessageListener(String, Consumer)}
+   */
+  void removeMessageListener(String topicName, String registrationId);
+
   /**
    * Retrieves the cluster time which is (alsmost) identical on all members of the cluster.
    */
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import org.picocontainer.Startable;
 import org.sonar.api.config.Configuration;
 import org.sonar.cluster.ClusterObjectKeys;
@@ -108,6 +109,21 @@ public class HazelcastLocalClient implements Startable, HazelcastClient {
     return hzInstance.getLock(name);
   }
 
+  @Override
+  public <E> void publish(String topicName, E message) {
+    hzInstance.<E>getTopic(topicName).publish(message);
+  }
+
+  @Override
+  public <E> String addMessageListener(String topicName, Consumer<E> listener) {
+    return hzInstance.<E>getTopic(topicName).addMessageListener(message -> listener.accept(message.getMessageObject()));
+  }
+
+  @Override
+  public void removeMessageListener(String topicName, String registrationId) {
+    hzInstance.getTopic(topicName).removeMessageListener(registrationId);
+  }
+
   @Override
   public long getClusterTime() {
     return hzInstance.getCluster().getClusterTime();
@@ -37,7 +37,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang.RandomStringUtils;
 import org.assertj.core.api.Assertions;
@@ -230,6 +232,27 @@ public class HazelcastLocalClientTest {
     }
   }
 
+  @Test
+  public void client_must_receive_messages_published_on_topic_until_listener_is_removed() throws InterruptedException {
+    hzClient.start();
+    try {
+      BlockingQueue<Integer> received = new LinkedBlockingQueue<>();
+      String registrationId = hzClient.addMessageListener("TOPIC1", received::add);
+
+      hzCluster.<Integer>getTopic("TOPIC1").publish(3);
+      assertThat(received.poll(10, TimeUnit.SECONDS)).isEqualTo(3);
+
+      hzClient.publish("TOPIC1", 5);
+      assertThat(received.poll(10, TimeUnit.SECONDS)).isEqualTo(5);
+
+      hzClient.removeMessageListener("TOPIC1", registrationId);
+      hzClient.publish("TOPIC1", 7);
+      assertThat(received.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    } finally {
+      hzClient.stop();
+    }
+  }
+
   @Test
   public void configuration_tweaks_of_hazelcast_must_be_present() {
     hzClient.start();
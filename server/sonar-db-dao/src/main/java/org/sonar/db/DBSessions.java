@@ -22,6 +22,12 @@ package org.sonar.db;
 public interface DBSessions {
   DbSession openSession(boolean batch);
 
+  /**
+   * Opens a new batch session which commits every {@code batchSize} statements. Such a session is never shared
+   * with the caller thread, even when caching is enabled.
+   */
+  DbSession openBatchSession(int batchSize);
+
   void enableCaching();
 
   void disableCaching();
@@ -89,6 +89,11 @@ public class DBSessionsImpl implements DBSessions {
     return new NonClosingDbSession(regularDbSession.get().get());
   }
 
+  @Override
+  public DbSession openBatchSession(int batchSize) {
+    return myBatis.openBatchSession(batchSize);
+  }
+
   @Override
   public void disableCaching() {
     close(regularDbSession, "regular");
@@ -191,6 +191,13 @@ public class DbClient {
     return dbSessions.openSession(batch);
   }
 
+  /**
+   * @see DBSessions#openBatchSession(int)
+   */
+  public DbSession openBatchSession(int batchSize) {
+    return dbSessions.openBatchSession(batchSize);
+  }
+
   public Database getDatabase() {
     return database;
   }
@@ -124,6 +124,8 @@ import org.sonar.db.user.UserTokenDto;
 import org.sonar.db.user.UserTokenMapper;
 import org.sonar.db.webhook.WebhookDeliveryMapper;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 public class MyBatis implements Startable {
 
   private final Database database;
@@ -264,6 +266,12 @@ public class MyBatis implements Startable {
     return new DbSessionImpl(session);
   }
 
+  public DbSession openBatchSession(int batchSize) {
+    checkArgument(batchSize > 0, "Batch size must be greater than 0");
+    SqlSession session = sessionFactory.openSession(ExecutorType.BATCH);
+    return new BatchSession(session, batchSize);
+  }
+
   /**
    * Create a PreparedStatement for SELECT requests with scrolling of results
    */
@@ -30,14 +30,11 @@ import org.sonar.db.DbSession;
 import org.sonar.db.Pagination;
 
 import static java.util.Collections.emptyList;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
 import static org.sonar.db.DatabaseUtils.executeLargeUpdates;
-import static org.sonar.db.ce.CeQueueDto.Status.IN_PROGRESS;
-import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
 
 public class CeQueueDao implements Dao {
 
-  private static final Pagination ONE_RESULT_PAGINATION = Pagination.forPage(1).andSize(1);
-
   private final System2 system2;
 
   public CeQueueDao(System2 system2) {
@@ -135,28 +132,49 @@ public class CeQueueDao implements Dao {
     return mapper(dbSession).countByStatusAndComponentUuid(status, componentUuid);
   }
 
-  public Optional<CeQueueDto> peek(DbSession session, String workerUuid, int maxExecutionCount) {
-    List<EligibleTaskDto> eligibles = mapper(session).selectEligibleForPeek(maxExecutionCount, ONE_RESULT_PAGINATION);
+  /**
+   * Selects at most {@code maxCount} tasks which can be peeked, oldest first. At most one task is returned per
+   * component: the oldest pending one, and only if no task is in progress on this component.
+   */
+  public List<EligibleTaskDto> selectEligibleForPeek(DbSession session, int maxExecutionCount, int maxCount) {
+    return mapper(session).selectEligibleForPeek(maxExecutionCount, Pagination.forPage(1).andSize(maxCount));
+  }
+
+  /**
+   * Moves to status IN_PROGRESS and assigns to the specified worker, in a single statement, the tasks of the
+   * specified {@code eligibles} which are still pending.
+   *
+   * @return the tasks actually claimed by the worker, which may be fewer than {@code eligibles} when some of them
+   *         have been peeked concurrently by other workers. Ordered from oldest to newest.
+   */
+  public List<CeQueueDto> claim(DbSession session, List<EligibleTaskDto> eligibles, String workerUuid, int maxExecutionCount) {
     if (eligibles.isEmpty()) {
-      return Optional.empty();
+      return emptyList();
     }
-
-    EligibleTaskDto eligible = eligibles.get(0);
-    return tryToPeek(session, eligible, workerUuid);
+    List<String> uuids = eligibles.stream().map(EligibleTaskDto::getUuid).collect(toList(eligibles.size()));
+    CeQueueMapper mapper = mapper(session);
+    if (mapper.updateToInProgress(uuids, workerUuid, maxExecutionCount, system2.now()) == 0) {
+      return emptyList();
+    }
+    return mapper.selectInProgressByWorkerUuidAndUuids(workerUuid, uuids);
   }
 
-  private Optional<CeQueueDto> tryToPeek(DbSession session, EligibleTaskDto eligible, String workerUuid) {
-    long now = system2.now();
-    int touchedRows = mapper(session).updateIf(eligible.getUuid(),
-      new UpdateIf.NewProperties(IN_PROGRESS, workerUuid, eligible.getExecutionCount() + 1, now, now),
-      new UpdateIf.OldProperties(PENDING, eligible.getExecutionCount()));
-    if (touchedRows != 1) {
-      return Optional.empty();
-    }
+  /**
+   * Hands over an IN_PROGRESS task from a worker to another one. The start date of the task is set to now, as the time
+   * spent waiting for the new worker is not part of the execution.
+   *
+   * @return {@code false} if the task is not IN_PROGRESS for worker {@code oldWorkerUuid} anymore
+   */
+  public boolean updateWorkerUuid(DbSession session, String uuid, String oldWorkerUuid, String newWorkerUuid) {
+    return mapper(session).updateWorkerUuid(uuid, oldWorkerUuid, newWorkerUuid, system2.now()) == 1;
+  }
 
-    CeQueueDto result = mapper(session).selectByUuid(eligible.getUuid());
-    session.commit();
-    return Optional.of(result);
+  /**
+   * Gives back to the queue a task claimed by the specified worker but which processing did not start. The
+   * execution count incremented by the claim is restored.
+   */
+  public boolean resetToPending(DbSession session, String uuid, String workerUuid) {
+    return mapper(session).resetToPendingByUuidAndWorkerUuid(uuid, workerUuid, system2.now()) == 1;
   }
 
   private static CeQueueMapper mapper(DbSession session) {
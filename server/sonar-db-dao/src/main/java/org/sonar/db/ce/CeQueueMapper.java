@@ -65,9 +65,15 @@ public interface CeQueueMapper {
 
   int resetToPendingForWorker(@Param("workerUuid") String workerUuid, @Param("updatedAt") long updatedAt);
 
-  int updateIf(@Param("uuid") String uuid,
-    @Param("new") UpdateIf.NewProperties newProperties,
-    @Param("old") UpdateIf.OldProperties oldProperties);
+  int updateToInProgress(@Param("uuids") List<String> uuids, @Param("workerUuid") String workerUuid,
+    @Param("maxExecutionCount") int maxExecutionCount, @Param("now") long now);
+
+  List<CeQueueDto> selectInProgressByWorkerUuidAndUuids(@Param("workerUuid") String workerUuid, @Param("uuids") List<String> uuids);
+
+  int updateWorkerUuid(@Param("uuid") String uuid, @Param("oldWorkerUuid") String oldWorkerUuid,
+    @Param("newWorkerUuid") String newWorkerUuid, @Param("updatedAt") long updatedAt);
+
+  int resetToPendingByUuidAndWorkerUuid(@Param("uuid") String uuid, @Param("workerUuid") String workerUuid, @Param("updatedAt") long updatedAt);
 
   void deleteByUuid(@Param("uuid") String uuid);
 }
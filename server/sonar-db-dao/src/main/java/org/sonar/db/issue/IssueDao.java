@@ -38,6 +38,7 @@ import org.sonar.db.component.ComponentDto;
 import static com.google.common.collect.FluentIterable.from;
 import static org.sonar.db.DaoDatabaseUtils.buildLikeValue;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class IssueDao implements Dao {
 
@@ -98,6 +99,14 @@ public class IssueDao implements Dao {
     mapper(dbSession).scrollNonClosedByComponentUuid(componentUuid, handler);
   }
 
+  /**
+   * Same as {@link #scrollNonClosedByComponentUuid(DbSession, String, ResultHandler)} for several components.
+   * Issues of different components are not sorted.
+   */
+  public void scrollNonClosedByComponentUuids(DbSession dbSession, Collection<String> componentUuids, ResultHandler<IssueDto> handler) {
+    executeLargeInputsWithoutOutput(componentUuids, partition -> mapper(dbSession).scrollNonClosedByComponentUuids(partition, handler));
+  }
+
   public void scrollNonClosedByModuleOrProject(DbSession dbSession, ComponentDto module, ResultHandler<IssueDto> handler) {
     String likeModuleUuidPath = buildLikeValue(module.moduleUuidPath(), WildcardPosition.AFTER);
     mapper(dbSession).scrollNonClosedByModuleOrProject(module.projectUuid(), likeModuleUuidPath, handler);
@@ -31,6 +31,7 @@ import org.sonar.db.component.ComponentDto;
 
 import static java.util.Collections.emptyList;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class MeasureDao implements Dao {
 
@@ -94,6 +95,15 @@ public class MeasureDao implements Dao {
       ids -> mapper(dbSession).selectPastMeasuresOnSingleAnalysis(componentUuid, analysisUuid, ids));
   }
 
+  /**
+   * Scrolls the measures of all the components of an analysis, for a list of metrics. Measures of developers
+   * and of files (including project copies of views) are excluded, as files of an analysis which is not the last
+   * one are purged. Measures are not sorted.
+   */
+  public void scrollPastMeasures(DbSession dbSession, String analysisUuid, Collection<Integer> metricIds, ResultHandler<PastMeasureDto> resultHandler) {
+    executeLargeInputsWithoutOutput(metricIds, ids -> mapper(dbSession).scrollPastMeasuresOfAnalysis(analysisUuid, ids, resultHandler));
+  }
+
   /**
    * Select measures of:
    * - one component
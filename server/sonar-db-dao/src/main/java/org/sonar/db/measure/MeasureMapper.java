@@ -39,6 +39,8 @@ public interface MeasureMapper {
   List<PastMeasureDto> selectPastMeasuresOnSingleAnalysis(@Param("componentUuid") String componentUuid, @Param("analysisUuid") String analysisUuid,
     @Param("metricIds") List<Integer> metricIds);
 
+  void scrollPastMeasuresOfAnalysis(@Param("analysisUuid") String analysisUuid, @Param("metricIds") List<Integer> metricIds, ResultHandler<PastMeasureDto> resultHandler);
+
   List<MeasureDto> selectPastMeasuresOnSeveralAnalyses(@Param("query") PastMeasureQuery query);
 
   List<MeasureDto> selectProjectMeasuresOfDeveloper(@Param("developerId") long developerId, @Param("metricIds") Collection<Integer> metricIds);
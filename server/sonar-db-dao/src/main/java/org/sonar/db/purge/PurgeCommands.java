@@ -22,6 +22,7 @@ package org.sonar.db.purge;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.sonar.db.DbSession;
 
@@ -36,11 +37,17 @@ class PurgeCommands {
   private final DbSession session;
   private final PurgeMapper purgeMapper;
   private final PurgeProfiler profiler;
+  private final PurgeThrottler throttler;
 
   PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler) {
+    this(session, purgeMapper, profiler, PurgeThrottler.unlimited());
+  }
+
+  PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler, PurgeThrottler throttler) {
     this.session = session;
     this.purgeMapper = purgeMapper;
     this.profiler = profiler;
+    this.throttler = throttler;
   }
 
   @VisibleForTesting
@@ -85,44 +92,46 @@ class PurgeCommands {
     deleteAnalyses(snapshotIds);
   }
 
+  /**
+   * Analyses are deleted by chunks. Each chunk is committed, the snapshots being deleted last, so that the analyses
+   * which are not deleted yet are still selected by the next purge if this one is interrupted.
+   */
   @VisibleForTesting
   void deleteAnalyses(List<IdUuidPair> analysisIdUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisIdUuids), MAX_SNAPSHOTS_PER_QUERY);
+    for (List<String> analysisUuidsPartition : Lists.partition(IdUuidPairs.uuids(analysisIdUuids), throttler.getChunkSize())) {
+      deleteChunkDuplications(analysisUuidsPartition);
 
-    deleteAnalysisDuplications(analysisUuidsPartitions);
+      profiler.start("deleteAnalyses (events)");
+      commitChunk("events", purgeMapper.deleteAnalysisEvents(analysisUuidsPartition));
+      profiler.stop();
 
-    profiler.start("deleteAnalyses (events)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisEvents);
-    session.commit();
-    profiler.stop();
+      profiler.start("deleteAnalyses (project_measures)");
+      commitChunk("project_measures", purgeMapper.deleteAnalysisMeasures(analysisUuidsPartition));
+      profiler.stop();
 
-    profiler.start("deleteAnalyses (project_measures)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisMeasures);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteAnalyses (snapshots)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalyses);
-    session.commit();
-    profiler.stop();
+      profiler.start("deleteAnalyses (snapshots)");
+      commitChunk("snapshots", purgeMapper.deleteAnalyses(analysisUuidsPartition));
+      profiler.stop();
+    }
   }
 
+  /**
+   * Same as {@link #deleteAnalyses(List)}, analyses are flagged as purged chunk after chunk.
+   */
   void purgeAnalyses(List<IdUuidPair> analysisUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisUuids), MAX_SNAPSHOTS_PER_QUERY);
-
-    deleteAnalysisDuplications(analysisUuidsPartitions);
-
-    profiler.start("deleteSnapshotWastedMeasures (project_measures)");
     List<Long> metricIdsWithoutHistoricalData = purgeMapper.selectMetricIdsWithoutHistoricalData();
-    analysisUuidsPartitions
-      .forEach(analysisUuidsPartition -> purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
-    session.commit();
-    profiler.stop();
+    for (List<String> analysisUuidsPartition : Lists.partition(IdUuidPairs.uuids(analysisUuids), throttler.getChunkSize())) {
+      deleteChunkDuplications(analysisUuidsPartition);
 
-    profiler.start("updatePurgeStatusToOne (snapshots)");
-    analysisUuidsPartitions.forEach(purgeMapper::updatePurgeStatusToOne);
-    session.commit();
-    profiler.stop();
+      profiler.start("deleteSnapshotWastedMeasures (project_measures)");
+      commitChunk("project_measures", purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
+      profiler.stop();
+
+      profiler.start("updatePurgeStatusToOne (snapshots)");
+      purgeMapper.updatePurgeStatusToOne(analysisUuidsPartition);
+      session.commit();
+      profiler.stop();
+    }
   }
 
   private void deleteAnalysisDuplications(List<List<String>> snapshotUuidsPartitions) {
@@ -132,6 +141,17 @@ class PurgeCommands {
     profiler.stop();
   }
 
+  private void deleteChunkDuplications(List<String> analysisUuidsPartition) {
+    profiler.start("deleteAnalysisDuplications (duplications_index)");
+    commitChunk("duplications_index", purgeMapper.deleteAnalysisDuplications(analysisUuidsPartition));
+    profiler.stop();
+  }
+
+  private void commitChunk(String table, int deletedRows) {
+    session.commit();
+    throttler.deleted(table, deletedRows);
+  }
+
   void deletePermissions(long rootId) {
     profiler.start("deletePermissions (group_roles)");
     purgeMapper.deleteGroupRolesByComponentId(rootId);
@@ -215,19 +235,35 @@ class PurgeCommands {
       return;
     }
 
-    List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY);
+    List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, throttler.getChunkSize());
     List<List<String>> componentUuidsPartitions = Lists.partition(componentUuids, MAX_RESOURCES_PER_QUERY);
 
     profiler.start("deleteComponentMeasures");
     for (List<String> analysisUuidsPartition : analysisUuidsPartitions) {
       for (List<String> componentUuidsPartition : componentUuidsPartitions) {
-        purgeMapper.deleteComponentMeasures(analysisUuidsPartition, componentUuidsPartition);
+        commitChunk("project_measures", purgeMapper.deleteComponentMeasures(analysisUuidsPartition, componentUuidsPartition));
       }
     }
-    session.commit();
     profiler.stop();
   }
 
+  /**
+   * Deletes issues and their changes by chunks. {@code deletedIssueKeysConsumer} is called after each chunk.
+   */
+  void deleteIssues(List<String> issueKeys, Consumer<List<String>> deletedIssueKeysConsumer) {
+    for (List<String> issueKeysPartition : Lists.partition(issueKeys, throttler.getChunkSize())) {
+      profiler.start("deleteIssues (issue_changes)");
+      commitChunk("issue_changes", purgeMapper.deleteIssueChangesFromIssueKeys(issueKeysPartition));
+      profiler.stop();
+
+      profiler.start("deleteIssues (issues)");
+      commitChunk("issues", purgeMapper.deleteIssuesFromKeys(issueKeysPartition));
+      profiler.stop();
+
+      deletedIssueKeysConsumer.accept(issueKeysPartition);
+    }
+  }
+
   void deleteFileSources(String rootUuid) {
     profiler.start("deleteFileSources (file_sources)");
     purgeMapper.deleteFileSourcesByProjectUuid(rootUuid);
@@ -60,14 +60,23 @@ public class PurgeDao implements Dao {
   }
 
   public void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
+    purgeHistory(session, conf, listener, profiler, PurgeThrottler.unlimited());
+    purgeDisabledComponents(session, conf, listener);
+  }
+
+  /**
+   * Same as {@link #purge(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)} except that disabled
+   * components are not purged. Deletions are committed by chunks paced by {@code throttler}, so that an interrupted
+   * purge is completed by the next one.
+   */
+  public void purgeHistory(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler, PurgeThrottler throttler) {
     PurgeMapper mapper = session.getMapper(PurgeMapper.class);
-    PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
+    PurgeCommands commands = new PurgeCommands(session, mapper, profiler, throttler);
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     deleteAbortedAnalyses(rootUuid, commands);
     deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.scopesWithoutHistoricalData(), commands);
     purgeAnalyses(commands, rootUuid);
-    purgeDisabledComponents(session, conf, listener);
-    deleteOldClosedIssues(conf, mapper, listener);
+    deleteOldClosedIssues(conf, mapper, listener, commands);
     purgeStaleBranches(commands, conf, mapper, rootUuid);
   }
 
@@ -95,19 +104,11 @@ public class PurgeDao implements Dao {
     commands.purgeAnalyses(analysisUuids);
   }
 
-  private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener) {
+  private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener, PurgeCommands commands) {
     Date toDate = conf.maxLiveDateOfClosedIssues();
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     List<String> issueKeys = mapper.selectOldClosedIssueKeys(rootUuid, dateToLong(toDate));
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssueChangesFromIssueKeys(input);
-      return emptyList();
-    });
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssuesFromKeys(input);
-      return emptyList();
-    });
-    listener.onIssuesRemoval(rootUuid, issueKeys);
+    commands.deleteIssues(issueKeys, deletedIssueKeys -> listener.onIssuesRemoval(rootUuid, deletedIssueKeys));
   }
 
   private static void deleteAbortedAnalyses(String rootUuid, PurgeCommands commands) {
@@ -143,7 +144,10 @@ public class PurgeDao implements Dao {
     purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
   }
 
-  private void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
+  /**
+   * Deletes the sources and resolves the issues of the components disabled by the last analysis.
+   */
+  public void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
     PurgeMapper mapper = mapper(session);
     executeLargeInputs(conf.getDisabledComponentUuids(),
       input -> {
@@ -248,7 +252,11 @@ public class PurgeDao implements Dao {
   }
 
   public void deleteAnalyses(DbSession session, PurgeProfiler profiler, List<IdUuidPair> analysisIdUuids) {
-    new PurgeCommands(session, profiler).deleteAnalyses(analysisIdUuids);
+    deleteAnalyses(session, profiler, PurgeThrottler.unlimited(), analysisIdUuids);
+  }
+
+  public void deleteAnalyses(DbSession session, PurgeProfiler profiler, PurgeThrottler throttler, List<IdUuidPair> analysisIdUuids) {
+    new PurgeCommands(session, session.getMapper(PurgeMapper.class), profiler, throttler).deleteAnalyses(analysisIdUuids);
   }
 
   private static PurgeMapper mapper(DbSession session) {
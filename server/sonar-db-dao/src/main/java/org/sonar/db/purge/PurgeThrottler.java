@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Paces the deletions of a purge, so that they don't hold the tables for long while analyses are being persisted.
+ * <p>
+ * Rows are deleted by chunks of at most {@link #getChunkSize()} keys (analyses or issues), each chunk being committed.
+ * After a chunk, the purge sleeps as long as required to delete on average no more than {@code maxRowsPerSecond} rows
+ * per second. Zero means that deletions are not throttled.
+ * </p>
+ * <p>
+ * The number of deleted rows is counted per table.
+ * </p>
+ */
+public class PurgeThrottler {
+
+  static final int UNLIMITED_CHUNK_SIZE = 1000;
+
+  private final int maxRowsPerSecond;
+  private final int chunkSize;
+  private final Clock clock;
+  private final Map<String, Long> deletedRowsByTable = new LinkedHashMap<>();
+  private final long startTime;
+  private long deletedRows = 0L;
+
+  public PurgeThrottler(int maxRowsPerSecond, int chunkSize) {
+    this(maxRowsPerSecond, chunkSize, new Clock());
+  }
+
+  @VisibleForTesting
+  PurgeThrottler(int maxRowsPerSecond, int chunkSize, Clock clock) {
+    checkArgument(maxRowsPerSecond >= 0, "Max number of deleted rows per second must be positive, got %s", maxRowsPerSecond);
+    checkArgument(chunkSize > 0, "Chunk size must be strictly positive, got %s", chunkSize);
+    this.maxRowsPerSecond = maxRowsPerSecond;
+    this.chunkSize = chunkSize;
+    this.clock = clock;
+    this.startTime = clock.now();
+  }
+
+  public static PurgeThrottler unlimited() {
+    return new PurgeThrottler(0, UNLIMITED_CHUNK_SIZE);
+  }
+
+  int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Called once a chunk of deletions has been committed. The number of rows is negative when unknown, for example
+   * when statements are executed in batch mode.
+   */
+  void deleted(String table, int rows) {
+    if (rows < 0) {
+      return;
+    }
+    deletedRowsByTable.merge(table, (long) rows, Long::sum);
+    deletedRows += rows;
+    if (maxRowsPerSecond == 0) {
+      return;
+    }
+    long minDuration = deletedRows * 1_000L / maxRowsPerSecond;
+    long duration = clock.now() - startTime;
+    if (duration < minDuration) {
+      clock.sleep(minDuration - duration);
+    }
+  }
+
+  /**
+   * Number of deleted rows per table, in the order tables have been purged.
+   */
+  public Map<String, Long> getDeletedRowsByTable() {
+    return Collections.unmodifiableMap(deletedRowsByTable);
+  }
+
+  static class Clock {
+    public long now() {
+      return System.currentTimeMillis();
+    }
+
+    public void sleep(long ms) {
+      try {
+        Thread.sleep(ms);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Purge has been interrupted", e);
+      }
+    }
+  }
+}
@@ -32,6 +32,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottler;
 import org.sonar.db.purge.PurgeableAnalysisDto;
 
 public class DefaultPeriodCleaner {
@@ -46,19 +47,27 @@ public class DefaultPeriodCleaner {
   }
 
   public void clean(DbSession session, String rootUuid, Configuration config) {
-    doClean(rootUuid, new Filters(config).all(), session);
+    clean(session, rootUuid, config, PurgeThrottler.unlimited());
+  }
+
+  public void clean(DbSession session, String rootUuid, Configuration config, PurgeThrottler throttler) {
+    doClean(rootUuid, new Filters(config).all(), session, throttler);
   }
 
   @VisibleForTesting
   void doClean(String rootUuid, List<Filter> filters, DbSession session) {
+    doClean(rootUuid, filters, session, PurgeThrottler.unlimited());
+  }
+
+  private void doClean(String rootUuid, List<Filter> filters, DbSession session, PurgeThrottler throttler) {
     List<PurgeableAnalysisDto> history = new ArrayList<>(selectAnalysesOfComponent(rootUuid, session));
     for (Filter filter : filters) {
       filter.log();
-      history.removeAll(delete(rootUuid, filter.filter(history), session));
+      history.removeAll(delete(rootUuid, filter.filter(history), session, throttler));
     }
   }
 
-  private List<PurgeableAnalysisDto> delete(String rootUuid, List<PurgeableAnalysisDto> snapshots, DbSession session) {
+  private List<PurgeableAnalysisDto> delete(String rootUuid, List<PurgeableAnalysisDto> snapshots, DbSession session, PurgeThrottler throttler) {
     if (LOG.isDebugEnabled()) {
       LOG.debug("<- Delete analyses of component {}: {}",
         rootUuid,
@@ -68,7 +77,7 @@ public class DefaultPeriodCleaner {
             .collect(MoreCollectors.toArrayList(snapshots.size()))));
     }
     purgeDao.deleteAnalyses(
-      session, profiler,
+      session, profiler, throttler,
       snapshots.stream().map(DefaultPeriodCleaner::toIdUuidPair).collect(MoreCollectors.toList(snapshots.size())));
     return snapshots;
   }
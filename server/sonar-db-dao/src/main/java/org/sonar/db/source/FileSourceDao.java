@@ -44,6 +44,15 @@ public class FileSourceDao implements Dao {
     return mapper(session).select(fileUuid, Type.SOURCE);
   }
 
+  /**
+   * Same as {@link #selectSourceByFileUuid(DbSession, String)} but only id, file uuid and data hash are loaded. Binary
+   * data is not read.
+   */
+  @CheckForNull
+  public FileSourceDto selectSourceHashByFileUuid(DbSession session, String fileUuid) {
+    return mapper(session).selectHash(fileUuid, Type.SOURCE);
+  }
+
   @CheckForNull
   public FileSourceDto selectTest(DbSession dbSession, String fileUuid) {
     return mapper(dbSession).select(fileUuid, Type.TEST);
@@ -106,6 +115,13 @@ public class FileSourceDao implements Dao {
     mapper(session).update(dto);
   }
 
+  /**
+   * Updates only {@link FileSourceDto#getInputsHash()}, date of update is kept unchanged as sources are unchanged.
+   */
+  public void updateInputsHash(DbSession session, long id, String inputsHash) {
+    mapper(session).updateInputsHash(id, inputsHash);
+  }
+
   private static FileSourceMapper mapper(DbSession session) {
     return session.getMapper(FileSourceMapper.class);
   }
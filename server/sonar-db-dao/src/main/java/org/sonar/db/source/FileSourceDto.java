@@ -23,9 +23,13 @@ import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -36,10 +40,23 @@ import org.sonar.db.protobuf.DbFileSources;
 
 import static java.lang.String.format;
 
+/**
+ * Source data are stored in the column BINARY_DATA by pages of {@link #LINES_PER_PAGE} lines, compressed independently so
+ * that a range of lines can be read without decompressing and deserializing the whole file:
+ * <ul>
+ *   <li>the bytes of {@link #PAGED_DATA_MAGIC}</li>
+ *   <li>the number of pages, then the number of the first line and the size of each page</li>
+ *   <li>each page, a compressed {@link org.sonar.db.protobuf.DbFileSources.Data} message</li>
+ * </ul>
+ * Source data written by previous versions are a single compressed {@link org.sonar.db.protobuf.DbFileSources.Data} message.
+ * They are still read, until the file is analyzed again.
+ */
 public class FileSourceDto {
 
   private static final String SIZE_LIMIT_EXCEEDED_EXCEPTION_MESSAGE = "Protocol message was too large.  May be malicious.  " +
     "Use CodedInputStream.setSizeLimit() to increase the size limit.";
+  private static final byte[] PAGED_DATA_MAGIC = "SQPAGED1".getBytes(StandardCharsets.US_ASCII);
+  static final int LINES_PER_PAGE = 500;
 
   private Long id;
   private String projectUuid;
@@ -52,6 +69,7 @@ public class FileSourceDto {
   private String dataType;
   private String dataHash;
   private String revision;
+  private String inputsHash;
 
   public Long getId() {
     return id;
@@ -95,6 +113,9 @@ public class FileSourceDto {
 
   public DbFileSources.Data decodeSourceData(byte[] binaryData) {
     try {
+      if (isPaged(binaryData)) {
+        return decodePagedSourceData(binaryData);
+      }
       return decodeRegularSourceData(binaryData);
     } catch (IOException e) {
       throw new IllegalStateException(
@@ -103,6 +124,60 @@ public class FileSourceDto {
     }
   }
 
+  /**
+   * Lines of the source data from line {@code from}, at most {@code toInclusive - from + 1} of them. Only the pages
+   * containing these lines are decompressed and deserialized.
+   */
+  public List<DbFileSources.Line> decodeSourceLines(byte[] binaryData, int from, int toInclusive) {
+    try {
+      if (isPaged(binaryData)) {
+        return decodePagedSourceLines(binaryData, from, toInclusive);
+      }
+      return filterLines(decodeRegularSourceData(binaryData).getLinesList(), from, toInclusive, new ArrayList<>());
+    } catch (IOException e) {
+      throw new IllegalStateException(
+        format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
+        e);
+    }
+  }
+
+  private static boolean isPaged(byte[] binaryData) {
+    return binaryData.length >= PAGED_DATA_MAGIC.length
+      && Arrays.equals(PAGED_DATA_MAGIC, Arrays.copyOf(binaryData, PAGED_DATA_MAGIC.length));
+  }
+
+  private static DbFileSources.Data decodePagedSourceData(byte[] binaryData) throws IOException {
+    Pages pages = Pages.read(binaryData);
+    DbFileSources.Data.Builder builder = DbFileSources.Data.newBuilder();
+    for (int page = 0; page < pages.firstLines.length; page++) {
+      builder.addAllLines(pages.decode(binaryData, page).getLinesList());
+    }
+    return builder.build();
+  }
+
+  private static List<DbFileSources.Line> decodePagedSourceLines(byte[] binaryData, int from, int toInclusive) throws IOException {
+    Pages pages = Pages.read(binaryData);
+    List<DbFileSources.Line> res = new ArrayList<>();
+    int page = pages.firstPageOf(from);
+    while (page < pages.firstLines.length && res.size() <= toInclusive - from) {
+      filterLines(pages.decode(binaryData, page).getLinesList(), from, toInclusive, res);
+      page++;
+    }
+    return res;
+  }
+
+  private static List<DbFileSources.Line> filterLines(List<DbFileSources.Line> lines, int from, int toInclusive, List<DbFileSources.Line> res) {
+    for (DbFileSources.Line line : lines) {
+      if (res.size() > toInclusive - from) {
+        break;
+      }
+      if (line.hasLine() && line.getLine() >= from) {
+        res.add(line);
+      }
+    }
+    return res;
+  }
+
   private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData) throws IOException {
     try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
       return DbFileSources.Data.parseFrom(lz4Input);
@@ -124,9 +199,35 @@ public class FileSourceDto {
 
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
-   * in the column BINARY_DATA.
+   * by pages of lines in the column BINARY_DATA.
    */
   public static byte[] encodeSourceData(DbFileSources.Data data) {
+    List<DbFileSources.Line> lines = data.getLinesList();
+    int pageCount = (lines.size() + LINES_PER_PAGE - 1) / LINES_PER_PAGE;
+    List<byte[]> pages = new ArrayList<>(pageCount);
+    for (int page = 0; page < pageCount; page++) {
+      List<DbFileSources.Line> pageLines = lines.subList(page * LINES_PER_PAGE, Math.min(lines.size(), (page + 1) * LINES_PER_PAGE));
+      pages.add(compress(DbFileSources.Data.newBuilder().addAllLines(pageLines).build()));
+    }
+
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(byteOutput)) {
+      output.write(PAGED_DATA_MAGIC);
+      output.writeInt(pageCount);
+      for (int page = 0; page < pageCount; page++) {
+        output.writeInt(lines.get(page * LINES_PER_PAGE).getLine());
+        output.writeInt(pages.get(page).length);
+      }
+      for (byte[] page : pages) {
+        output.write(page);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize and compress source data", e);
+    }
+    return byteOutput.toByteArray();
+  }
+
+  private static byte[] compress(DbFileSources.Data data) {
     ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
     LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
     try {
@@ -212,6 +313,13 @@ public class FileSourceDto {
     return decodeSourceData(binaryData);
   }
 
+  /**
+   * @see #decodeSourceLines(byte[], int, int)
+   */
+  public List<DbFileSources.Line> getSourceLines(int from, int toInclusive) {
+    return decodeSourceLines(binaryData, from, toInclusive);
+  }
+
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
@@ -290,6 +398,20 @@ public class FileSourceDto {
     return this;
   }
 
+  @CheckForNull
+  public String getInputsHash() {
+    return inputsHash;
+  }
+
+  /**
+   * Hash of the data of the analysis report from which {@link #getBinaryData() binary data} are computed.
+   * Sources do not need to be computed again when this hash does not change.
+   */
+  public FileSourceDto setInputsHash(@Nullable String inputsHash) {
+    this.inputsHash = inputsHash;
+    return this;
+  }
+
   public static class Type {
     public static final String SOURCE = "SOURCE";
     public static final String TEST = "TEST";
@@ -298,4 +420,53 @@ public class FileSourceDto {
       // utility class
     }
   }
+
+  /**
+   * Table of the pages of source data
+   */
+  private static class Pages {
+    private final int[] firstLines;
+    private final int[] offsets;
+
+    private Pages(int[] firstLines, int[] offsets) {
+      this.firstLines = firstLines;
+      this.offsets = offsets;
+    }
+
+    private static Pages read(byte[] binaryData) throws IOException {
+      DataInputStream input = new DataInputStream(new ByteArrayInputStream(binaryData));
+      input.skipBytes(PAGED_DATA_MAGIC.length);
+      int pageCount = input.readInt();
+      int[] firstLines = new int[pageCount];
+      int[] offsets = new int[pageCount + 1];
+      offsets[0] = PAGED_DATA_MAGIC.length + 4 + pageCount * 8;
+      for (int page = 0; page < pageCount; page++) {
+        firstLines[page] = input.readInt();
+        offsets[page + 1] = offsets[page] + input.readInt();
+      }
+      if (offsets[pageCount] != binaryData.length) {
+        throw new IOException(format("Invalid size of paged source data: %s bytes expected, got %s", offsets[pageCount], binaryData.length));
+      }
+      return new Pages(firstLines, offsets);
+    }
+
+    /**
+     * The last page starting at or before the specified line
+     */
+    private int firstPageOf(int line) {
+      int index = Arrays.binarySearch(firstLines, line);
+      if (index >= 0) {
+        return index;
+      }
+      return Math.max(0, -index - 2);
+    }
+
+    private DbFileSources.Data decode(byte[] binaryData, int page) throws IOException {
+      try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData, offsets[page], offsets[page + 1] - offsets[page]))) {
+        CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+        input.setSizeLimit(Integer.MAX_VALUE);
+        return DbFileSources.Data.parseFrom(input);
+      }
+    }
+  }
 }
@@ -30,7 +30,12 @@ public interface FileSourceMapper {
   @CheckForNull
   FileSourceDto select(@Param("fileUuid") String fileUuid, @Param("dataType") String dataType);
 
+  @CheckForNull
+  FileSourceDto selectHash(@Param("fileUuid") String fileUuid, @Param("dataType") String dataType);
+
   void insert(FileSourceDto dto);
 
   void update(FileSourceDto dto);
+
+  void updateInputsHash(@Param("id") long id, @Param("inputsHash") String inputsHash);
 }
@@ -70,4 +70,21 @@ public class MyBatisTest {
       assertThat(session.getMapper(RuleMapper.class), notNullValue());
     }
   }
+
+  @Test
+  public void openBatchSession_returns_a_batch_session() {
+    underTest.start();
+
+    try (DbSession session = underTest.openBatchSession(10)) {
+      assertThat(session instanceof BatchSession, Is.is(true));
+      assertThat(session.getMapper(RuleMapper.class), notNullValue());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void openBatchSession_fails_if_batch_size_is_not_positive() {
+    underTest.start();
+
+    underTest.openBatchSession(0);
+  }
 }
@@ -31,6 +31,11 @@ public final class TestDBSessions implements DBSessions {
     return myBatis.openSession(false);
   }
 
+  @Override
+  public DbSession openBatchSession(int batchSize) {
+    return myBatis.openBatchSession(batchSize);
+  }
+
   @Override
   public void enableCaching() {
     // ignored
@@ -229,7 +229,7 @@ public class CeQueueDaoTest {
   @Test
   public void resetAllToPendingStatus_resets_startedAt() {
     assertThat(insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING).getStartedAt()).isNull();
-    assertThat(underTest.peek(db.getSession(), WORKER_UUID_1, MAX_EXECUTION_COUNT).get().getUuid()).isEqualTo(TASK_UUID_1);
+    assertThat(claimOne(WORKER_UUID_1, MAX_EXECUTION_COUNT).get().getUuid()).isEqualTo(TASK_UUID_1);
     assertThat(underTest.selectByUuid(db.getSession(), TASK_UUID_1).get().getStartedAt()).isNotNull();
 
     underTest.resetAllToPendingStatus(db.getSession());
@@ -361,16 +361,16 @@ public class CeQueueDaoTest {
   }
 
   @Test
-  public void peek_none_if_no_pendings() throws Exception {
-    assertThat(underTest.peek(db.getSession(), WORKER_UUID_1, MAX_EXECUTION_COUNT).isPresent()).isFalse();
+  public void claim_none_if_no_pendings() throws Exception {
+    assertThat(claimOne(WORKER_UUID_1, MAX_EXECUTION_COUNT).isPresent()).isFalse();
 
     // not pending, but in progress
     insert(TASK_UUID_1, COMPONENT_UUID_1, IN_PROGRESS);
-    assertThat(underTest.peek(db.getSession(), WORKER_UUID_1, MAX_EXECUTION_COUNT).isPresent()).isFalse();
+    assertThat(claimOne(WORKER_UUID_1, MAX_EXECUTION_COUNT).isPresent()).isFalse();
   }
 
   @Test
-  public void peek_oldest_pending() throws Exception {
+  public void claim_oldest_pending() throws Exception {
     insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
     system2.setNow(INIT_TIME + 3_000_000);
     insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
@@ -378,91 +378,91 @@ public class CeQueueDaoTest {
     assertThat(db.countRowsOfTable("ce_queue")).isEqualTo(2);
     verifyCeQueueStatuses(TASK_UUID_1, PENDING, TASK_UUID_2, PENDING);
 
-    // peek first one
-    Optional<CeQueueDto> peek = underTest.peek(db.getSession(), WORKER_UUID_1, MAX_EXECUTION_COUNT);
-    assertThat(peek).isPresent();
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_1);
-    assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
-    assertThat(peek.get().getWorkerUuid()).isEqualTo(WORKER_UUID_1);
-    assertThat(peek.get().getExecutionCount()).isEqualTo(1);
+    // claim first one
+    Optional<CeQueueDto> claimed = claimOne(WORKER_UUID_1, MAX_EXECUTION_COUNT);
+    assertThat(claimed).isPresent();
+    assertThat(claimed.get().getUuid()).isEqualTo(TASK_UUID_1);
+    assertThat(claimed.get().getStatus()).isEqualTo(IN_PROGRESS);
+    assertThat(claimed.get().getWorkerUuid()).isEqualTo(WORKER_UUID_1);
+    assertThat(claimed.get().getExecutionCount()).isEqualTo(1);
     verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, PENDING);
 
-    // peek second one
-    peek = underTest.peek(db.getSession(), WORKER_UUID_2, MAX_EXECUTION_COUNT);
-    assertThat(peek).isPresent();
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
-    assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
-    assertThat(peek.get().getWorkerUuid()).isEqualTo(WORKER_UUID_2);
-    assertThat(peek.get().getExecutionCount()).isEqualTo(1);
+    // claim second one
+    claimed = claimOne(WORKER_UUID_2, MAX_EXECUTION_COUNT);
+    assertThat(claimed).isPresent();
+    assertThat(claimed.get().getUuid()).isEqualTo(TASK_UUID_2);
+    assertThat(claimed.get().getStatus()).isEqualTo(IN_PROGRESS);
+    assertThat(claimed.get().getWorkerUuid()).isEqualTo(WORKER_UUID_2);
+    assertThat(claimed.get().getExecutionCount()).isEqualTo(1);
     verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, IN_PROGRESS);
 
     // no more pendings
-    assertThat(underTest.peek(db.getSession(), WORKER_UUID_1, MAX_EXECUTION_COUNT).isPresent()).isFalse();
+    assertThat(claimOne(WORKER_UUID_1, MAX_EXECUTION_COUNT).isPresent()).isFalse();
   }
 
   @Test
-  public void do_not_peek_multiple_tasks_on_same_project_at_the_same_time() throws Exception {
+  public void do_not_claim_multiple_tasks_on_same_project_at_the_same_time() throws Exception {
     // two pending tasks on the same project
     insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
     system2.setNow(INIT_TIME + 3_000_000);
     insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
 
-    Optional<CeQueueDto> peek = underTest.peek(db.getSession(), WORKER_UUID_1, MAX_EXECUTION_COUNT);
-    assertThat(peek).isPresent();
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_1);
-    assertThat(peek.get().getWorkerUuid()).isEqualTo(WORKER_UUID_1);
-    assertThat(peek.get().getExecutionCount()).isEqualTo(1);
+    Optional<CeQueueDto> claimed = claimOne(WORKER_UUID_1, MAX_EXECUTION_COUNT);
+    assertThat(claimed).isPresent();
+    assertThat(claimed.get().getUuid()).isEqualTo(TASK_UUID_1);
+    assertThat(claimed.get().getWorkerUuid()).isEqualTo(WORKER_UUID_1);
+    assertThat(claimed.get().getExecutionCount()).isEqualTo(1);
     verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, PENDING);
 
-    // do not peek second task as long as the first one is in progress
-    peek = underTest.peek(db.getSession(), WORKER_UUID_1, MAX_EXECUTION_COUNT);
-    assertThat(peek.isPresent()).isFalse();
+    // do not claim second task as long as the first one is in progress
+    claimed = claimOne(WORKER_UUID_1, MAX_EXECUTION_COUNT);
+    assertThat(claimed.isPresent()).isFalse();
 
     // first one is finished
     underTest.deleteByUuid(db.getSession(), TASK_UUID_1);
-    peek = underTest.peek(db.getSession(), WORKER_UUID_2, MAX_EXECUTION_COUNT);
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
-    assertThat(peek.get().getWorkerUuid()).isEqualTo(WORKER_UUID_2);
-    assertThat(peek.get().getExecutionCount()).isEqualTo(1);
+    claimed = claimOne(WORKER_UUID_2, MAX_EXECUTION_COUNT);
+    assertThat(claimed.get().getUuid()).isEqualTo(TASK_UUID_2);
+    assertThat(claimed.get().getWorkerUuid()).isEqualTo(WORKER_UUID_2);
+    assertThat(claimed.get().getExecutionCount()).isEqualTo(1);
   }
 
   @Test
-  public void peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_0() {
-    peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(0, null);
+  public void claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_0() {
+    claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(0, null);
   }
 
   @Test
-  public void peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_1() {
-    peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(1, "u0");
+  public void claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_1() {
+    claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(1, "u0");
   }
 
   @Test
-  public void peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_2() {
-    peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(2, "u1");
+  public void claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_2() {
+    claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(2, "u1");
   }
 
   @Test
-  public void peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_3() {
-    peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(3, "u2");
+  public void claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_3() {
+    claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(3, "u2");
   }
 
   @Test
-  public void peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_4() {
-    peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(4, "u3");
+  public void claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_4() {
+    claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(4, "u3");
   }
 
   @Test
-  public void peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_more_then_4() {
-    peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(4 + Math.abs(new Random().nextInt(100)), "u3");
+  public void claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_more_then_4() {
+    claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(4 + Math.abs(new Random().nextInt(100)), "u3");
   }
 
-  private void peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(int maxExecutionCount, @Nullable String expected) {
+  private void claim_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(int maxExecutionCount, @Nullable String expected) {
     insert("u3", CeQueueDto.Status.PENDING, 3);
     insert("u2", CeQueueDto.Status.PENDING, 2);
     insert("u1", CeQueueDto.Status.PENDING, 1);
     insert("u0", CeQueueDto.Status.PENDING, 0);
 
-    Optional<CeQueueDto> dto = underTest.peek(db.getSession(), WORKER_UUID_1, maxExecutionCount);
+    Optional<CeQueueDto> dto = claimOne(WORKER_UUID_1, maxExecutionCount);
     if (expected == null) {
       assertThat(dto.isPresent()).isFalse();
     } else {
@@ -470,6 +470,91 @@ public class CeQueueDaoTest {
     }
   }
 
+  @Test
+  public void selectEligibleForPeek_returns_oldest_pending_task_of_each_component_without_task_in_progress() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 1_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 2_000);
+    insert(TASK_UUID_3, COMPONENT_UUID_2, PENDING);
+    system2.setNow(INIT_TIME + 3_000);
+    insert("TASK_4", "PROJECT_3", IN_PROGRESS);
+    system2.setNow(INIT_TIME + 4_000);
+    insert("TASK_5", "PROJECT_3", PENDING);
+
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), MAX_EXECUTION_COUNT, 10))
+      .extracting(EligibleTaskDto::getUuid)
+      .containsExactly(TASK_UUID_1, TASK_UUID_3);
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), MAX_EXECUTION_COUNT, 1))
+      .extracting(EligibleTaskDto::getUuid)
+      .containsExactly(TASK_UUID_1);
+  }
+
+  @Test
+  public void claim_moves_eligible_tasks_to_IN_PROGRESS_for_specified_worker() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 1_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+    system2.setNow(INIT_TIME + 2_000);
+
+    List<CeQueueDto> claimed = underTest.claim(db.getSession(), underTest.selectEligibleForPeek(db.getSession(), MAX_EXECUTION_COUNT, 10),
+      WORKER_UUID_1, MAX_EXECUTION_COUNT);
+
+    assertThat(claimed).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_1, TASK_UUID_2);
+    assertThat(claimed).extracting(CeQueueDto::getWorkerUuid).containsOnly(WORKER_UUID_1);
+    assertThat(claimed).extracting(CeQueueDto::getExecutionCount).containsOnly(1);
+    assertThat(claimed).extracting(CeQueueDto::getStartedAt).containsOnly(INIT_TIME + 2_000);
+    db.commit();
+    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, IN_PROGRESS);
+  }
+
+  @Test
+  public void claim_returns_only_tasks_which_are_still_pending() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 1_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+    List<EligibleTaskDto> eligibles = underTest.selectEligibleForPeek(db.getSession(), MAX_EXECUTION_COUNT, 10);
+
+    // task 1 is peeked concurrently by another worker
+    assertThat(underTest.claim(db.getSession(), eligibles.subList(0, 1), WORKER_UUID_2, MAX_EXECUTION_COUNT)).hasSize(1);
+    List<CeQueueDto> claimed = underTest.claim(db.getSession(), eligibles, WORKER_UUID_1, MAX_EXECUTION_COUNT);
+
+    assertThat(claimed).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_2);
+    assertThat(underTest.selectByUuid(db.getSession(), TASK_UUID_1).get().getWorkerUuid()).isEqualTo(WORKER_UUID_2);
+    assertThat(underTest.claim(db.getSession(), eligibles, WORKER_UUID_1, MAX_EXECUTION_COUNT)).isEmpty();
+    assertThat(underTest.claim(db.getSession(), Collections.emptyList(), WORKER_UUID_1, MAX_EXECUTION_COUNT)).isEmpty();
+  }
+
+  @Test
+  public void updateWorkerUuid_hands_over_in_progress_task_of_specified_worker_only() {
+    insert(TASK_UUID_1, CeQueueDto.Status.IN_PROGRESS, 1, WORKER_UUID_1, INIT_TIME);
+    insert(TASK_UUID_2, CeQueueDto.Status.PENDING, 1, WORKER_UUID_1, null);
+
+    assertThat(underTest.updateWorkerUuid(db.getSession(), TASK_UUID_1, WORKER_UUID_2, "other")).isFalse();
+    assertThat(underTest.updateWorkerUuid(db.getSession(), TASK_UUID_2, WORKER_UUID_1, WORKER_UUID_2)).isFalse();
+    system2.setNow(INIT_TIME + 1_000);
+    assertThat(underTest.updateWorkerUuid(db.getSession(), TASK_UUID_1, WORKER_UUID_1, WORKER_UUID_2)).isTrue();
+
+    assertThat(underTest.selectByUuid(db.getSession(), TASK_UUID_1).get().getWorkerUuid()).isEqualTo(WORKER_UUID_2);
+    assertThat(underTest.selectByUuid(db.getSession(), TASK_UUID_1).get().getStartedAt()).isEqualTo(INIT_TIME + 1_000);
+    assertThat(underTest.selectByUuid(db.getSession(), TASK_UUID_2).get().getWorkerUuid()).isEqualTo(WORKER_UUID_1);
+  }
+
+  @Test
+  public void resetToPending_gives_back_claimed_task_and_restores_executionCount() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    underTest.claim(db.getSession(), underTest.selectEligibleForPeek(db.getSession(), MAX_EXECUTION_COUNT, 1), WORKER_UUID_1, MAX_EXECUTION_COUNT);
+
+    assertThat(underTest.resetToPending(db.getSession(), TASK_UUID_1, WORKER_UUID_2)).isFalse();
+    assertThat(underTest.resetToPending(db.getSession(), TASK_UUID_1, WORKER_UUID_1)).isTrue();
+
+    CeQueueDto dto = underTest.selectByUuid(db.getSession(), TASK_UUID_1).get();
+    assertThat(dto.getStatus()).isEqualTo(PENDING);
+    assertThat(dto.getExecutionCount()).isEqualTo(0);
+    assertThat(dto.getStartedAt()).isNull();
+    assertThat(underTest.resetToPending(db.getSession(), TASK_UUID_1, WORKER_UUID_1)).isFalse();
+  }
+
   @Test
   public void select_by_query() {
     // task status not in query
@@ -597,6 +682,11 @@ public class CeQueueDaoTest {
     assertThat(underTest.countByStatus(db.getSession(), IN_PROGRESS)).isEqualTo(2);
   }
 
+  private Optional<CeQueueDto> claimOne(String workerUuid, int maxExecutionCount) {
+    List<EligibleTaskDto> eligibles = underTest.selectEligibleForPeek(db.getSession(), maxExecutionCount, 1);
+    return underTest.claim(db.getSession(), eligibles, workerUuid, maxExecutionCount).stream().findFirst();
+  }
+
   private void insert(CeQueueDto dto) {
     underTest.insert(db.getSession(), dto);
     db.commit();
@@ -40,6 +40,7 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.resources.Qualifiers.FILE;
 import static org.sonar.api.resources.Qualifiers.UNIT_TEST_FILE;
 import static org.sonar.api.utils.DateUtils.parseDate;
@@ -327,6 +328,35 @@ public class MeasureDaoTest {
     assertThat(result).hasSize(2).extracting(MeasureDto::getData).containsOnly("PROJECT_M1", "PROJECT_M2");
   }
 
+  @Test
+  public void scroll_past_measures_of_all_components_but_files_of_analysis() {
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    insertAnalysis(LAST_ANALYSIS_UUID, project.uuid(), true);
+    insertAnalysis(OTHER_ANALYSIS_UUID, project.uuid(), false);
+    db.components().insertComponent(newFileDto(module).setUuid("C1"));
+    insertMeasure("P_M1", OTHER_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("M_M1", OTHER_ANALYSIS_UUID, module.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("M_M2", OTHER_ANALYSIS_UUID, module.uuid(), COVERAGE_METRIC_ID);
+    insertMeasure("M_M3", OTHER_ANALYSIS_UUID, module.uuid(), COMPLEXITY_METRIC_ID);
+    insertMeasureOnPerson("M_M4", OTHER_ANALYSIS_UUID, module.uuid(), NCLOC_METRIC_ID, A_PERSON_ID);
+    insertMeasure("C1_M1", OTHER_ANALYSIS_UUID, "C1", NCLOC_METRIC_ID);
+    insertMeasure("C1_M2", LAST_ANALYSIS_UUID, "C1", NCLOC_METRIC_ID);
+    db.commit();
+
+    List<PastMeasureDto> result = new ArrayList<>();
+    underTest.scrollPastMeasures(db.getSession(), OTHER_ANALYSIS_UUID, asList(NCLOC_METRIC_ID, COVERAGE_METRIC_ID), context -> result.add(context.getResultObject()));
+
+    assertThat(result).extracting(PastMeasureDto::getComponentUuid, PastMeasureDto::getMetricId).containsOnly(
+      tuple(project.uuid(), NCLOC_METRIC_ID),
+      tuple(module.uuid(), NCLOC_METRIC_ID),
+      tuple(module.uuid(), COVERAGE_METRIC_ID));
+
+    result.clear();
+    underTest.scrollPastMeasures(db.getSession(), OTHER_ANALYSIS_UUID, emptyList(), context -> result.add(context.getResultObject()));
+    assertThat(result).isEmpty();
+  }
+
   @Test
   public void selectByComponentsAndMetrics() {
     ComponentDto project1 = db.components().insertPrivateProject(db.getDefaultOrganization(), "P1");
@@ -63,6 +63,18 @@ public class PurgeCommandsTest {
     dbTester.assertDbUnit(getClass(), "shouldPurgeAnalysis-result.xml", "snapshots", "project_measures", "duplications_index", "events");
   }
 
+  @Test
+  public void purgeAnalyses_counts_deleted_rows() {
+    dbTester.prepareDbUnit(getClass(), "shouldPurgeAnalysis.xml");
+    PurgeThrottler throttler = new PurgeThrottler(0, 1);
+
+    new PurgeCommands(dbTester.getSession(), dbTester.getSession().getMapper(PurgeMapper.class), profiler, throttler)
+      .purgeAnalyses(singletonList(new IdUuidPair(1, "u1")));
+
+    dbTester.assertDbUnit(getClass(), "shouldPurgeAnalysis-result.xml", "snapshots", "project_measures", "duplications_index", "events");
+    assertThat(throttler.getDeletedRowsByTable()).containsOnlyKeys("duplications_index", "project_measures");
+  }
+
   @Test
   public void delete_wasted_measures_when_purging_analysis() {
     dbTester.prepareDbUnit(getClass(), "shouldDeleteWastedMeasuresWhenPurgingAnalysis.xml");
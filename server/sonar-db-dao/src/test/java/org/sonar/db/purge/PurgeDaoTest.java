@@ -103,6 +103,30 @@ public class PurgeDaoTest {
     dbTester.assertDbUnit(getClass(), "shouldPurgeProject-result.xml", "projects", "snapshots");
   }
 
+  @Test
+  public void purgeHistory_purges_project_by_chunks() {
+    dbTester.prepareDbUnit(getClass(), "shouldPurgeProject.xml");
+    PurgeThrottler throttler = new PurgeThrottler(0, 1);
+
+    underTest.purgeHistory(dbSession, newConfigurationWith30Days(), PurgeListener.EMPTY, new PurgeProfiler(), throttler);
+    dbSession.commit();
+
+    dbTester.assertDbUnit(getClass(), "shouldPurgeProject-result.xml", "projects", "snapshots");
+    assertThat(throttler.getDeletedRowsByTable()).containsKeys("duplications_index", "project_measures");
+  }
+
+  @Test
+  public void purgeHistory_does_not_purge_disabled_components() {
+    dbTester.prepareDbUnit(getClass(), "close_issues_clean_index_and_files_sources_of_specified_components.xml");
+    int fileSources = dbTester.countRowsOfTable("file_sources");
+
+    underTest.purgeHistory(dbSession, newConfigurationWith30Days(system2, THE_PROJECT_UUID, "P1", "EFGH", "GHIJ"), PurgeListener.EMPTY, new PurgeProfiler(),
+      PurgeThrottler.unlimited());
+    dbSession.commit();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(fileSources);
+  }
+
   @Test
   public void should_purge_inactive_short_living_branches() {
     when(system2.now()).thenReturn(new Date().getTime());
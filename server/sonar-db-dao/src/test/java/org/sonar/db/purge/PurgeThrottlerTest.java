@@ -0,0 +1,122 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class PurgeThrottlerTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private FakeClock clock = new FakeClock();
+
+  @Test
+  public void count_deleted_rows_per_table() {
+    PurgeThrottler underTest = new PurgeThrottler(0, 10, clock);
+
+    underTest.deleted("snapshots", 3);
+    underTest.deleted("project_measures", 10);
+    underTest.deleted("snapshots", 2);
+
+    assertThat(underTest.getDeletedRowsByTable()).containsExactly(entry("snapshots", 5L), entry("project_measures", 10L));
+    assertThat(clock.sleeps).isEmpty();
+  }
+
+  @Test
+  public void ignore_unknown_number_of_deleted_rows() {
+    PurgeThrottler underTest = new PurgeThrottler(10, 10, clock);
+
+    underTest.deleted("snapshots", -1);
+
+    assertThat(underTest.getDeletedRowsByTable()).isEmpty();
+    assertThat(clock.sleeps).isEmpty();
+  }
+
+  @Test
+  public void sleep_when_deleting_faster_than_max_rows_per_second() {
+    PurgeThrottler underTest = new PurgeThrottler(100, 10, clock);
+
+    underTest.deleted("snapshots", 50);
+    clock.now += 200;
+    underTest.deleted("snapshots", 50);
+
+    assertThat(clock.sleeps).containsExactly(500L, 300L);
+  }
+
+  @Test
+  public void do_not_sleep_when_deleting_slower_than_max_rows_per_second() {
+    PurgeThrottler underTest = new PurgeThrottler(100, 10, clock);
+
+    clock.now += 2_000;
+    underTest.deleted("snapshots", 100);
+
+    assertThat(clock.sleeps).isEmpty();
+  }
+
+  @Test
+  public void unlimited_does_not_throttle() {
+    PurgeThrottler underTest = PurgeThrottler.unlimited();
+
+    underTest.deleted("snapshots", 1_000_000);
+
+    assertThat(underTest.getChunkSize()).isEqualTo(PurgeThrottler.UNLIMITED_CHUNK_SIZE);
+    assertThat(underTest.getDeletedRowsByTable()).containsExactly(entry("snapshots", 1_000_000L));
+  }
+
+  @Test
+  public void fail_if_max_rows_per_second_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Max number of deleted rows per second must be positive, got -1");
+
+    new PurgeThrottler(-1, 10);
+  }
+
+  @Test
+  public void fail_if_chunk_size_is_zero() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Chunk size must be strictly positive, got 0");
+
+    new PurgeThrottler(10, 0);
+  }
+
+  private static class FakeClock extends PurgeThrottler.Clock {
+    private long now = 1_000L;
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Override
+    public long now() {
+      return now;
+    }
+
+    @Override
+    public void sleep(long ms) {
+      sleeps.add(ms);
+      now += ms;
+    }
+  }
+}
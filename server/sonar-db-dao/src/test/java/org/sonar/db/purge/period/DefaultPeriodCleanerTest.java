@@ -31,8 +31,10 @@ import org.sonar.db.DbSession;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottler;
 import org.sonar.db.purge.PurgeableAnalysisDto;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -58,9 +60,9 @@ public class DefaultPeriodCleanerTest {
 
     InOrder inOrder = Mockito.inOrder(dao, filter1, filter2);
     inOrder.verify(filter1).log();
-    inOrder.verify(dao, times(1)).deleteAnalyses(eq(session), eq(profiler), eq(ImmutableList.of(new IdUuidPair(999, "u999"))));
+    inOrder.verify(dao, times(1)).deleteAnalyses(eq(session), eq(profiler), any(PurgeThrottler.class), eq(ImmutableList.of(new IdUuidPair(999, "u999"))));
     inOrder.verify(filter2).log();
-    inOrder.verify(dao, times(1)).deleteAnalyses(eq(session), eq(profiler), eq(ImmutableList.of(new IdUuidPair(456, "u456"))));
+    inOrder.verify(dao, times(1)).deleteAnalyses(eq(session), eq(profiler), any(PurgeThrottler.class), eq(ImmutableList.of(new IdUuidPair(456, "u456"))));
     inOrder.verifyNoMoreInteractions();
   }
 
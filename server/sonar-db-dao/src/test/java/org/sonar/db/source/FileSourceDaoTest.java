@@ -59,6 +59,26 @@ public class FileSourceDaoTest {
     assertThat(fileSourceDto.getRevision()).isEqualTo("123456789");
   }
 
+  @Test
+  public void select_hash_does_not_load_binary_data() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    FileSourceDto fileSourceDto = underTest.selectSourceHashByFileUuid(session, "FILE1_UUID");
+
+    assertThat(fileSourceDto.getId()).isNotNull();
+    assertThat(fileSourceDto.getFileUuid()).isEqualTo("FILE1_UUID");
+    assertThat(fileSourceDto.getDataHash()).isEqualTo("hash");
+    assertThat(fileSourceDto.getBinaryData()).isNull();
+    assertThat(fileSourceDto.getProjectUuid()).isNull();
+  }
+
+  @Test
+  public void select_hash_of_unknown_file() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    assertThat(underTest.selectSourceHashByFileUuid(session, "unknown")).isNull();
+  }
+
   @Test
   public void select_line_hashes() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -103,11 +123,12 @@ public class FileSourceDaoTest {
       .setDataType(Type.SOURCE)
       .setCreatedAt(1500000000000L)
       .setUpdatedAt(1500000000001L)
-      .setRevision("123456789"));
+      .setRevision("123456789")
+      .setInputsHash("FILE2_INPUTS_HASH"));
     session.commit();
 
     dbTester.assertDbUnitTable(getClass(), "insert-result.xml", "file_sources",
-      "project_uuid", "file_uuid", "data_hash", "line_hashes", "src_hash", "created_at", "updated_at", "data_type", "revision");
+      "project_uuid", "file_uuid", "data_hash", "line_hashes", "src_hash", "created_at", "updated_at", "data_type", "revision", "inputs_hash");
   }
 
   @Test
@@ -172,11 +193,25 @@ public class FileSourceDaoTest {
       .setLineHashes("NEW_LINE_HASHES")
       .setDataType(Type.SOURCE)
       .setUpdatedAt(1500000000002L)
-      .setRevision("987654321"));
+      .setRevision("987654321")
+      .setInputsHash("NEW_INPUTS_HASH"));
     session.commit();
 
     dbTester.assertDbUnitTable(getClass(), "update-result.xml", "file_sources",
-      "project_uuid", "file_uuid", "data_hash", "line_hashes", "src_hash", "created_at", "updated_at", "data_type", "revision");
+      "project_uuid", "file_uuid", "data_hash", "line_hashes", "src_hash", "created_at", "updated_at", "data_type", "revision", "inputs_hash");
+  }
+
+  @Test
+  public void updateInputsHash_does_not_change_date_of_update() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    underTest.updateInputsHash(session, 101L, "NEW_INPUTS_HASH");
+    session.commit();
+
+    FileSourceDto dto = underTest.selectSourceByFileUuid(session, "FILE1_UUID");
+    assertThat(dto.getInputsHash()).isEqualTo("NEW_INPUTS_HASH");
+    assertThat(dto.getUpdatedAt()).isEqualTo(1500000000000L);
+    assertThat(dto.getDataHash()).isEqualTo("hash");
   }
 
   private static class ReaderToStringFunction implements Function<Reader, String> {
@@ -19,14 +19,19 @@
  */
 package org.sonar.db.source;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.db.protobuf.DbFileSources;
 
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.source.FileSourceDto.LINES_PER_PAGE;
 
 public class FileSourceDtoTest {
   private static final String LOREM_IPSUM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. Aliquam ac magna libero. " +
@@ -80,6 +85,92 @@ public class FileSourceDtoTest {
     assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
   }
 
+  @Test
+  public void decodeSourceData_reads_Data_object_bigger_than_default_size_limit_encoded_by_previous_versions() throws IOException {
+    DbFileSources.Data build = createOver64MBDataStructure();
+    byte[] bytes = encodeWithPreviousVersion(build);
+
+    DbFileSources.Data data = new FileSourceDto().decodeSourceData(bytes);
+    assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
+  }
+
+  @Test
+  public void encode_and_decode_source_data_of_several_pages() {
+    DbFileSources.Data data = newData(2 * LINES_PER_PAGE + 10);
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+  }
+
+  @Test
+  public void encode_and_decode_empty_source_data() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder().build();
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+    assertThat(underTest.getSourceLines(1, 10)).isEmpty();
+  }
+
+  @Test
+  public void getSourceLines_returns_range_of_lines() {
+    FileSourceDto underTest = new FileSourceDto().setSourceData(newData(2 * LINES_PER_PAGE + 10));
+
+    assertThat(linesOf(underTest.getSourceLines(1, 3))).containsExactly(1, 2, 3);
+    assertThat(linesOf(underTest.getSourceLines(LINES_PER_PAGE - 1, LINES_PER_PAGE + 2)))
+      .containsExactly(LINES_PER_PAGE - 1, LINES_PER_PAGE, LINES_PER_PAGE + 1, LINES_PER_PAGE + 2);
+    assertThat(linesOf(underTest.getSourceLines(LINES_PER_PAGE + 1, LINES_PER_PAGE + 1))).containsExactly(LINES_PER_PAGE + 1);
+    assertThat(linesOf(underTest.getSourceLines(1, 3 * LINES_PER_PAGE))).hasSize(2 * LINES_PER_PAGE + 10);
+    assertThat(linesOf(underTest.getSourceLines(2 * LINES_PER_PAGE + 8, 3 * LINES_PER_PAGE)))
+      .containsExactly(2 * LINES_PER_PAGE + 8, 2 * LINES_PER_PAGE + 9, 2 * LINES_PER_PAGE + 10);
+    assertThat(underTest.getSourceLines(2 * LINES_PER_PAGE + 11, 3 * LINES_PER_PAGE)).isEmpty();
+  }
+
+  @Test
+  public void getSourceLines_returns_range_of_lines_encoded_by_previous_versions() throws IOException {
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(encodeWithPreviousVersion(newData(LINES_PER_PAGE + 10)));
+
+    assertThat(linesOf(underTest.getSourceLines(LINES_PER_PAGE - 1, LINES_PER_PAGE + 1)))
+      .containsExactly(LINES_PER_PAGE - 1, LINES_PER_PAGE, LINES_PER_PAGE + 1);
+    assertThat(underTest.getSourceData()).isEqualTo(newData(LINES_PER_PAGE + 10));
+  }
+
+  @Test
+  public void getSourceLines_throws_ISE_if_paged_data_is_truncated() {
+    byte[] data = FileSourceDto.encodeSourceData(newData(LINES_PER_PAGE + 10));
+    FileSourceDto underTest = new FileSourceDto()
+      .setBinaryData(Arrays.copyOf(data, data.length - 1))
+      .setId(12L)
+      .setFileUuid("file uuid")
+      .setProjectUuid("project uuid");
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to decompress and deserialize source data [id=12,fileUuid=file uuid,projectUuid=project uuid]");
+
+    underTest.getSourceLines(1, 10);
+  }
+
+  private static DbFileSources.Data newData(int lineCount) {
+    DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= lineCount; i++) {
+      dataBuilder.addLinesBuilder().setLine(i).setSource("line " + i);
+    }
+    return dataBuilder.build();
+  }
+
+  private static List<Integer> linesOf(List<DbFileSources.Line> lines) {
+    return lines.stream().map(DbFileSources.Line::getLine).collect(toList());
+  }
+
+  private static byte[] encodeWithPreviousVersion(DbFileSources.Data data) throws IOException {
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      data.writeTo(compressedOutput);
+    }
+    return byteOutput.toByteArray();
+  }
+
   private static DbFileSources.Data createOver64MBDataStructure() {
     DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder lineBuilder = DbFileSources.Line.newBuilder();
@@ -37,6 +37,7 @@ public class DbVersion66 implements DbVersion {
       .add(1807, "Add on project_branches key", AddIndexOnProjectBranchesKey.class)
       .add(1808, "Add branch column to projects table", AddBranchColumnToProjectsTable.class)
       .add(1809, "Populate project_branches with existing main branches", PopulateMainProjectBranches.class)
+      .add(1810, "Add file_sources.inputs_hash", AddInputsHashToFileSources.class)
     ;
   }
 }
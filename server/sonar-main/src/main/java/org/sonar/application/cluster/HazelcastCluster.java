@@ -46,6 +46,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.NetworkUtils;
@@ -331,6 +332,21 @@ public class HazelcastCluster implements AutoCloseable {
       return hzInstance.getLock(s);
     }
 
+    @Override
+    public <E> void publish(String topicName, E message) {
+      hzInstance.<E>getTopic(topicName).publish(message);
+    }
+
+    @Override
+    public <E> String addMessageListener(String topicName, Consumer<E> listener) {
+      return hzInstance.<E>getTopic(topicName).addMessageListener(message -> listener.accept(message.getMessageObject()));
+    }
+
+    @Override
+    public void removeMessageListener(String topicName, String registrationId) {
+      hzInstance.getTopic(topicName).removeMessageListener(registrationId);
+    }
+
     @Override
     public long getClusterTime() {
       return hzInstance.getCluster().getClusterTime();
@@ -31,6 +31,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -48,17 +50,25 @@ import static java.util.Objects.requireNonNull;
 @ComputeEngineSide
 public class CeQueueImpl implements CeQueue {
 
+  private static final Logger LOG = Loggers.get(CeQueueImpl.class);
+
   private final DbClient dbClient;
   private final UuidFactory uuidFactory;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final CeQueueListener[] listeners;
 
   // state
   private AtomicBoolean submitPaused = new AtomicBoolean(false);
 
   public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider) {
+    this(dbClient, uuidFactory, defaultOrganizationProvider, new CeQueueListener[0]);
+  }
+
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider, CeQueueListener[] listeners) {
     this.dbClient = dbClient;
     this.uuidFactory = uuidFactory;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.listeners = listeners;
   }
 
   @Override
@@ -74,6 +84,7 @@ public class CeQueueImpl implements CeQueue {
       CeQueueDto dto = new CeTaskSubmitToInsertedCeQueueDto(dbSession, dbClient).apply(submission);
       CeTask task = loadTask(dbSession, dto);
       dbSession.commit();
+      notifyListeners(singleton(task));
       return task;
     }
   }
@@ -91,10 +102,22 @@ public class CeQueueImpl implements CeQueue {
         .toList();
       List<CeTask> tasks = loadTasks(dbSession, ceQueueDtos);
       dbSession.commit();
+      notifyListeners(tasks);
       return tasks;
     }
   }
 
+  private void notifyListeners(Collection<CeTask> tasks) {
+    for (CeQueueListener listener : listeners) {
+      try {
+        listener.onSubmit(tasks);
+      } catch (Exception e) {
+        // tasks are persisted anyway, they will be found by the next poll of the queue
+        LOG.warn("Failed to notify listener {} of submitted tasks", listener, e);
+      }
+    }
+  }
+
   protected CeTask loadTask(DbSession dbSession, CeQueueDto dto) {
     if (dto.getComponentUuid() == null) {
       return new CeQueueDtoToCeTask(defaultOrganizationProvider.get().getUuid()).apply(dto);
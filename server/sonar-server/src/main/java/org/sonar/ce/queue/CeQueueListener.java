@@ -0,0 +1,40 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.util.Collection;
+
+/**
+ * Notified by {@link CeQueueImpl} once submitted tasks are committed in database, so that
+ * idle workers can process them without waiting for the next poll of the queue.
+ * Implementations must not block as they are called by the thread which submitted the tasks.
+ */
+public interface CeQueueListener {
+
+  void onSubmit(Collection<CeTask> tasks);
+
+  /**
+   * Called by the Compute Engine when tasks have been claimed on behalf of its idle workers and are waiting
+   * in memory to be handed over to them.
+   */
+  default void onClaim(int claimedTaskCount) {
+    // nothing to do by default
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.util.Collection;
+import org.sonar.cluster.localclient.HazelcastClient;
+
+import static org.sonar.cluster.ClusterObjectKeys.CE_QUEUE_SUBMIT_TOPIC;
+
+/**
+ * Notifies all the Compute Engine nodes of the cluster of the number of tasks submitted
+ * to the queue.
+ */
+public class ClusterCeQueueListener implements CeQueueListener {
+
+  private final HazelcastClient hazelcastClient;
+
+  public ClusterCeQueueListener(HazelcastClient hazelcastClient) {
+    this.hazelcastClient = hazelcastClient;
+  }
+
+  @Override
+  public void onSubmit(Collection<CeTask> tasks) {
+    hazelcastClient.publish(CE_QUEUE_SUBMIT_TOPIC, tasks.size());
+  }
+}
@@ -20,6 +20,7 @@
 package org.sonar.ce.settings;
 
 import java.util.Optional;
+import javax.annotation.Nullable;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.config.Settings;
@@ -41,10 +42,18 @@ public class ProjectConfigurationFactory {
   }
 
   public Configuration newProjectConfiguration(String projectKey, Optional<Branch> branch) {
+    return newProjectConfiguration(projectKey, getBranchName(branch).orElse(null));
+  }
+
+  /**
+   * @param branchName name of the branch, or {@code null} for the main branch
+   */
+  public Configuration newProjectConfiguration(String projectKey, @Nullable String branchName) {
     Settings projectSettings = new ProjectSettings(globalSettings);
     addSettings(projectSettings, projectKey);
-    getBranchName(branch).ifPresent(
-      b -> addSettings(projectSettings, generateBranchKey(projectKey, b)));
+    if (branchName != null) {
+      addSettings(projectSettings, generateBranchKey(projectKey, branchName));
+    }
     return new ConfigurationBridge(projectSettings);
   }
 
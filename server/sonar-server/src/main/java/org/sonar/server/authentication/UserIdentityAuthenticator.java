@@ -23,10 +23,12 @@ import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.sonar.api.server.authentication.IdentityProvider;
 import org.sonar.api.server.authentication.UserIdentity;
 import org.sonar.api.utils.log.Logger;
@@ -43,12 +45,14 @@ import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationFlags;
 import org.sonar.server.user.ExternalIdentity;
 import org.sonar.server.user.NewUser;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.UpdateUser;
 import org.sonar.server.user.UserUpdater;
 import org.sonar.server.usergroups.DefaultGroupFinder;
 
 import static java.lang.String.format;
 import static java.util.Collections.singletonList;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
 import static org.sonar.core.util.stream.MoreCollectors.uniqueIndex;
 
 public class UserIdentityAuthenticator {
@@ -60,14 +64,16 @@ public class UserIdentityAuthenticator {
   private final DefaultOrganizationProvider defaultOrganizationProvider;
   private final OrganizationFlags organizationFlags;
   private final DefaultGroupFinder defaultGroupFinder;
+  private final PermissionCache permissionCache;
 
   public UserIdentityAuthenticator(DbClient dbClient, UserUpdater userUpdater, DefaultOrganizationProvider defaultOrganizationProvider, OrganizationFlags organizationFlags,
-    DefaultGroupFinder defaultGroupFinder) {
+    DefaultGroupFinder defaultGroupFinder, PermissionCache permissionCache) {
     this.dbClient = dbClient;
     this.userUpdater = userUpdater;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.organizationFlags = organizationFlags;
     this.defaultGroupFinder = defaultGroupFinder;
+    this.permissionCache = permissionCache;
   }
 
   public UserDto authenticate(UserIdentity user, IdentityProvider provider, AuthenticationEvent.Source source) {
@@ -122,12 +128,19 @@ public class UserIdentityAuthenticator {
       .setEmail(identity.getEmail())
       .setName(identity.getName())
       .setExternalIdentity(new ExternalIdentity(provider.getKey(), identity.getProviderLogin()));
-    userUpdater.updateAndCommit(dbSession, update, u -> syncGroups(dbSession, identity, u));
+    AtomicBoolean groupsChanged = new AtomicBoolean(false);
+    userUpdater.updateAndCommit(dbSession, update, u -> groupsChanged.set(syncGroups(dbSession, identity, u)));
+    if (groupsChanged.get()) {
+      permissionCache.invalidate();
+    }
   }
 
-  private void syncGroups(DbSession dbSession, UserIdentity userIdentity, UserDto userDto) {
+  /**
+   * @return {@code true} if groups of the user have been added or removed
+   */
+  private boolean syncGroups(DbSession dbSession, UserIdentity userIdentity, UserDto userDto) {
     if (!userIdentity.shouldSyncGroups()) {
-      return;
+      return false;
     }
     String userLogin = userIdentity.getLogin();
     Set<String> userGroups = new HashSet<>(dbClient.groupMembershipDao().selectGroupsByLogins(dbSession, singletonList(userLogin)).get(userLogin));
@@ -143,29 +156,34 @@ public class UserIdentityAuthenticator {
       .stream()
       .collect(uniqueIndex(GroupDto::getName));
 
-    addGroups(dbSession, userDto, groupsToAdd, groupsByName);
-    removeGroups(dbSession, userDto, groupsToRemove, groupsByName);
+    boolean added = addGroups(dbSession, userDto, groupsToAdd, groupsByName);
+    boolean removed = removeGroups(dbSession, userDto, groupsToRemove, groupsByName);
+    return added || removed;
   }
 
-  private void addGroups(DbSession dbSession, UserDto userDto, Collection<String> groupsToAdd, Map<String, GroupDto> groupsByName) {
-    groupsToAdd.stream().map(groupsByName::get).filter(Objects::nonNull).forEach(
+  private boolean addGroups(DbSession dbSession, UserDto userDto, Collection<String> groupsToAdd, Map<String, GroupDto> groupsByName) {
+    List<GroupDto> groups = groupsToAdd.stream().map(groupsByName::get).filter(Objects::nonNull).collect(toList());
+    groups.forEach(
       groupDto -> {
         LOGGER.debug("Adding group '{}' to user '{}'", groupDto.getName(), userDto.getLogin());
         dbClient.userGroupDao().insert(dbSession, new UserGroupDto().setGroupId(groupDto.getId()).setUserId(userDto.getId()));
       });
+    return !groups.isEmpty();
   }
 
-  private void removeGroups(DbSession dbSession, UserDto userDto, Collection<String> groupsToRemove, Map<String, GroupDto> groupsByName) {
+  private boolean removeGroups(DbSession dbSession, UserDto userDto, Collection<String> groupsToRemove, Map<String, GroupDto> groupsByName) {
     Optional<GroupDto> defaultGroup = getDefaultGroup(dbSession);
-    groupsToRemove.stream().map(groupsByName::get)
+    List<GroupDto> groups = groupsToRemove.stream().map(groupsByName::get)
       .filter(Objects::nonNull)
       // user should be member of default group only when organizations are disabled, as the IdentityProvider API doesn't handle yet
       // organizations
       .filter(group -> !defaultGroup.isPresent() || !group.getId().equals(defaultGroup.get().getId()))
-      .forEach(groupDto -> {
-        LOGGER.debug("Removing group '{}' from user '{}'", groupDto.getName(), userDto.getLogin());
-        dbClient.userGroupDao().delete(dbSession, groupDto.getId(), userDto.getId());
-      });
+      .collect(toList());
+    groups.forEach(groupDto -> {
+      LOGGER.debug("Removing group '{}' from user '{}'", groupDto.getName(), userDto.getLogin());
+      dbClient.userGroupDao().delete(dbSession, groupDto.getId(), userDto.getId());
+    });
+    return !groups.isEmpty();
   }
 
   private Optional<GroupDto> getDefaultGroup(DbSession dbSession) {
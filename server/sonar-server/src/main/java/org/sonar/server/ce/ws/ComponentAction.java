@@ -26,11 +26,13 @@ import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.util.Uuids;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskQuery;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.user.UserSession;
@@ -70,7 +72,8 @@ public class ComponentAction implements CeWsAction {
       .setChangelog(
         new Change("6.1", "field \"logs\" is deprecated and its value is always false"),
         new Change("6.6", "field \"incremental\" is added"),
-        new Change("6.6", "fields \"branch\" and \"branchType\" added"))
+        new Change("6.6", "fields \"branch\" and \"branchType\" added"),
+        new Change("6.6", "only tasks of type REPORT are returned"))
       .setHandler(this);
 
     action.createParam(PARAM_COMPONENT_ID)
@@ -89,9 +92,13 @@ public class ComponentAction implements CeWsAction {
     try (DbSession dbSession = dbClient.openSession(false)) {
       ComponentDto component = loadComponent(dbSession, wsRequest);
       userSession.checkComponentPermission(UserRole.USER, component);
-      List<CeQueueDto> queueDtos = dbClient.ceQueueDao().selectByComponentUuid(dbSession, component.uuid());
+      // tasks of other types, for instance the purge of the history of the project, do not tell the status of its analyses
+      List<CeQueueDto> queueDtos = dbClient.ceQueueDao().selectByComponentUuid(dbSession, component.uuid()).stream()
+        .filter(dto -> CeTaskTypes.REPORT.equals(dto.getTaskType()))
+        .collect(MoreCollectors.toList());
       CeTaskQuery activityQuery = new CeTaskQuery()
         .setComponentUuid(component.uuid())
+        .setType(CeTaskTypes.REPORT)
         .setOnlyCurrents(true);
       List<CeActivityDto> activityDtos = dbClient.ceActivityDao().selectByQuery(dbSession, activityQuery, forPage(1).andSize(1));
 
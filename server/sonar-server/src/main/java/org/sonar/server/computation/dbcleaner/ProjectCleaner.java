@@ -20,6 +20,7 @@
 package org.sonar.server.computation.dbcleaner;
 
 import java.util.Collection;
+import java.util.Collections;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.Configuration;
@@ -33,6 +34,7 @@ import org.sonar.db.purge.PurgeConfiguration;
 import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeListener;
 import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottler;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 
 import static org.sonar.db.purge.PurgeConfiguration.newDefaultPurgeConfiguration;
@@ -68,6 +70,31 @@ public class ProjectCleaner {
     return this;
   }
 
+  /**
+   * Purges the history of a project, branch or view, by chunks paced by {@code throttler}. Disabled components
+   * are not purged, see {@link #purgeDisabledComponents(DbSession, IdUuidPair, Configuration, Collection)}.
+   */
+  public ProjectCleaner purgeHistory(DbSession session, IdUuidPair idUuidPair, Configuration projectConfig, PurgeThrottler throttler) {
+    long start = System.currentTimeMillis();
+    profiler.reset();
+
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, idUuidPair, Collections.emptyList());
+
+    periodCleaner.clean(session, configuration.rootProjectIdUuid().getUuid(), projectConfig, throttler);
+    purgeDao.purgeHistory(session, configuration, purgeListener, profiler, throttler);
+
+    session.commit();
+    logProfiling(start, projectConfig);
+    return this;
+  }
+
+  public ProjectCleaner purgeDisabledComponents(DbSession session, IdUuidPair idUuidPair, Configuration projectConfig, Collection<String> disabledComponentUuids) {
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, idUuidPair, disabledComponentUuids);
+    purgeDao.purgeDisabledComponents(session, configuration, purgeListener);
+    session.commit();
+    return this;
+  }
+
   private void logProfiling(long start, Configuration config) {
     if (config.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY).orElse(false)) {
       long duration = System.currentTimeMillis() - start;
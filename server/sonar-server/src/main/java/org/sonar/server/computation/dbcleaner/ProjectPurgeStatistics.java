@@ -0,0 +1,54 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+/**
+ * Statistics of the {@link org.sonar.db.ce.CeTaskTypes#PROJECT_PURGE} tasks processed since startup of the
+ * Compute Engine.
+ */
+@ComputeEngineSide
+public class ProjectPurgeStatistics implements SystemInfoSection {
+
+  private final Map<String, Long> deletedRowsByTable = new LinkedHashMap<>();
+  private long purgeCount = 0L;
+  private long purgeTime = 0L;
+
+  public synchronized void add(long durationInMs, Map<String, Long> deletedRowsByTable) {
+    purgeCount++;
+    purgeTime += durationInMs;
+    deletedRowsByTable.forEach((table, rows) -> this.deletedRowsByTable.merge(table, rows, Long::sum));
+  }
+
+  @Override
+  public synchronized ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Purge");
+    builder.addAttributesBuilder().setKey("Processed Purges").setLongValue(purgeCount).build();
+    builder.addAttributesBuilder().setKey("Processing Time (ms)").setLongValue(purgeTime).build();
+    deletedRowsByTable.forEach((table, rows) -> builder.addAttributesBuilder().setKey("Deleted Rows of " + table).setLongValue(rows).build());
+    return builder.build();
+  }
+}
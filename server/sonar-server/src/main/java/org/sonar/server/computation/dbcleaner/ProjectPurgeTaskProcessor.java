@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import com.google.common.base.Optional;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.CeTaskResult;
+import org.sonar.ce.settings.ProjectConfigurationFactory;
+import org.sonar.ce.taskprocessor.CeTaskProcessor;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.component.BranchDto;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeThrottler;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+
+/**
+ * Purges the history of a project (all its branches) or of a view. The task is submitted at the end of each analysis,
+ * see {@link org.sonar.server.computation.task.projectanalysis.step.PurgeDatastoresStep}, so that deleting the
+ * old analyses and issues does not delay the availability of the analysis.
+ * <p>
+ * Deletions are committed by chunks of {@value #CHUNK_SIZE_PROPERTY} analyses or issues and are limited to
+ * {@value #MAX_ROWS_PER_SECOND_PROPERTY} rows per second, so that the purge does not hold the tables locked for long.
+ * </p>
+ */
+public class ProjectPurgeTaskProcessor implements CeTaskProcessor {
+
+  static final String MAX_ROWS_PER_SECOND_PROPERTY = "sonar.ce.purge.maxRowsPerSecond";
+  static final String CHUNK_SIZE_PROPERTY = "sonar.ce.purge.chunkSize";
+  private static final int DEFAULT_MAX_ROWS_PER_SECOND = 5_000;
+  private static final int DEFAULT_CHUNK_SIZE = 20;
+
+  private static final Logger LOG = Loggers.get(ProjectPurgeTaskProcessor.class);
+  private static final Set<String> HANDLED_TYPES = Collections.singleton(CeTaskTypes.PROJECT_PURGE);
+
+  private final DbClient dbClient;
+  private final ProjectCleaner projectCleaner;
+  private final ProjectConfigurationFactory projectConfigurationFactory;
+  private final ProjectPurgeStatistics statistics;
+  private final System2 system2;
+  private final int maxRowsPerSecond;
+  private final int chunkSize;
+
+  public ProjectPurgeTaskProcessor(DbClient dbClient, ProjectCleaner projectCleaner, ProjectConfigurationFactory projectConfigurationFactory,
+    ProjectPurgeStatistics statistics, Configuration config, System2 system2) {
+    this.dbClient = dbClient;
+    this.projectCleaner = projectCleaner;
+    this.projectConfigurationFactory = projectConfigurationFactory;
+    this.statistics = statistics;
+    this.system2 = system2;
+    this.maxRowsPerSecond = config.getInt(MAX_ROWS_PER_SECOND_PROPERTY).orElse(DEFAULT_MAX_ROWS_PER_SECOND);
+    this.chunkSize = config.getInt(CHUNK_SIZE_PROPERTY).orElse(DEFAULT_CHUNK_SIZE);
+    checkArgument(maxRowsPerSecond >= 0, "Property %s must be positive, got %s", MAX_ROWS_PER_SECOND_PROPERTY, maxRowsPerSecond);
+    checkArgument(chunkSize > 0, "Property %s must be strictly positive, got %s", CHUNK_SIZE_PROPERTY, chunkSize);
+  }
+
+  @Override
+  public Set<String> getHandledCeTaskTypes() {
+    return HANDLED_TYPES;
+  }
+
+  @Override
+  public CeTaskResult process(CeTask task) {
+    String componentUuid = task.getComponentUuid();
+    checkArgument(componentUuid != null, "Task %s has no component", task.getUuid());
+
+    long start = system2.now();
+    PurgeThrottler throttler = new PurgeThrottler(maxRowsPerSecond, chunkSize);
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      Optional<ComponentDto> root = dbClient.componentDao().selectByUuid(dbSession, componentUuid);
+      if (!root.isPresent()) {
+        LOG.info("Component {} does not exist anymore, nothing to purge", componentUuid);
+        return null;
+      }
+      String rootKey = root.get().getKey();
+      for (ComponentDto component : selectBranches(dbSession, root.get())) {
+        Configuration projectConfig = projectConfigurationFactory.newProjectConfiguration(rootKey, component.getBranch());
+        projectCleaner.purgeHistory(dbSession, new IdUuidPair(component.getId(), component.uuid()), projectConfig, throttler);
+      }
+      LOG.info("Purged {}, deleted rows: {}", rootKey, throttler.getDeletedRowsByTable());
+    }
+    statistics.add(system2.now() - start, throttler.getDeletedRowsByTable());
+    return null;
+  }
+
+  /**
+   * Branches of the project, including the main branch, or the project or view itself when it has no branches.
+   */
+  private List<ComponentDto> selectBranches(DbSession dbSession, ComponentDto root) {
+    Collection<BranchDto> branches = dbClient.branchDao().selectByComponent(dbSession, root);
+    if (branches.isEmpty()) {
+      return Collections.singletonList(root);
+    }
+    List<String> branchUuids = branches.stream().map(BranchDto::getUuid).collect(toList(branches.size()));
+    return dbClient.componentDao().selectByUuids(dbSession, branchUuids);
+  }
+}
@@ -35,12 +35,14 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.LineReaderIterator;
+import org.sonar.scanner.protocol.output.FileStructure.Domain;
 import org.sonar.scanner.protocol.output.ScannerReport;
 
 public class BatchReportReaderImpl implements BatchReportReader {
 
   private final BatchReportDirectoryHolder batchReportDirectoryHolder;
   private org.sonar.scanner.protocol.output.ScannerReportReader delegate;
+  private ReportFiles reportFiles;
   // caching of metadata which are read often
   private ScannerReport.Metadata metadata;
 
@@ -48,14 +50,16 @@ public class BatchReportReaderImpl implements BatchReportReader {
     this.batchReportDirectoryHolder = batchReportDirectoryHolder;
   }
 
-  private void ensureInitialized() {
+  // synchronized as the reader is shared by concurrent computation steps
+  private synchronized void ensureInitialized() {
     if (this.delegate == null) {
       this.delegate = new org.sonar.scanner.protocol.output.ScannerReportReader(batchReportDirectoryHolder.getDirectory());
+      this.reportFiles = ReportFiles.index(delegate.getFileStructure());
     }
   }
 
   @Override
-  public ScannerReport.Metadata readMetadata() {
+  public synchronized ScannerReport.Metadata readMetadata() {
     ensureInitialized();
     if (this.metadata == null) {
       this.metadata = delegate.readMetadata();
@@ -87,62 +91,67 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
     ensureInitialized();
-    return delegate.readComponentMeasures(componentRef);
+    return reportFiles.readStream(Domain.MEASURES, componentRef, ScannerReport.Measure.parser());
   }
 
   @Override
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
     ensureInitialized();
-    return delegate.readChangesets(componentRef);
+    return reportFiles.read(Domain.CHANGESETS, componentRef, ScannerReport.Changesets.parser());
   }
 
   @Override
   public ScannerReport.Component readComponent(int componentRef) {
     ensureInitialized();
-    return delegate.readComponent(componentRef);
+    ScannerReport.Component component = reportFiles.read(Domain.COMPONENT, componentRef, ScannerReport.Component.parser());
+    if (component == null) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: "
+        + delegate.getFileStructure().fileFor(Domain.COMPONENT, componentRef));
+    }
+    return component;
   }
 
   @Override
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
     ensureInitialized();
-    return delegate.readComponentIssues(componentRef);
+    return reportFiles.readStream(Domain.ISSUES, componentRef, ScannerReport.Issue.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
     ensureInitialized();
-    return delegate.readComponentDuplications(componentRef);
+    return reportFiles.readStream(Domain.DUPLICATIONS, componentRef, ScannerReport.Duplication.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
     ensureInitialized();
-    return delegate.readCpdTextBlocks(componentRef);
+    return reportFiles.readStream(Domain.CPD_TEXT_BLOCKS, componentRef, ScannerReport.CpdTextBlock.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
     ensureInitialized();
-    return delegate.readComponentSymbols(componentRef);
+    return reportFiles.readStream(Domain.SYMBOLS, componentRef, ScannerReport.Symbol.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
     ensureInitialized();
-    return delegate.readComponentSyntaxHighlighting(fileRef);
+    return reportFiles.readStream(Domain.SYNTAX_HIGHLIGHTINGS, fileRef, ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
     ensureInitialized();
-    return delegate.readComponentCoverage(fileRef);
+    return reportFiles.readStream(Domain.COVERAGES, fileRef, ScannerReport.LineCoverage.parser());
   }
 
   @Override
   public Optional<CloseableIterator<String>> readFileSource(int fileRef) {
     ensureInitialized();
-    File file = delegate.readFileSource(fileRef);
+    File file = reportFiles.get(Domain.SOURCE, fileRef);
     if (file == null) {
       return Optional.empty();
     }
@@ -186,7 +195,7 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<ScannerReport.Test> readTests(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readTests(testFileRef);
+    File file = reportFiles.get(Domain.TESTS, testFileRef);
     if (file == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
@@ -203,7 +212,7 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<ScannerReport.CoverageDetail> readCoverageDetails(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readCoverageDetails(testFileRef);
+    File file = reportFiles.get(Domain.COVERAGE_DETAILS, testFileRef);
     if (file == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
@@ -0,0 +1,200 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.batch;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.ContextException;
+import org.sonar.core.util.Protobuf;
+import org.sonar.scanner.protocol.output.FileStructure;
+import org.sonar.scanner.protocol.output.FileStructure.Domain;
+
+/**
+ * Files of the analysis report, indexed by domain and component ref when the report directory is
+ * listed for the first and only time.
+ * <p/>
+ * Data of components is looked up by several steps, while most components have no file in most
+ * domains. Existence of files is therefore answered from memory rather than from the file system.
+ * Messages are parsed from the content of the file loaded with a single I/O call. Files bigger than
+ * {@link #MAPPING_THRESHOLD} are memory-mapped instead. Small files are not, as mappings are released
+ * only on garbage collection and the number of mappings of a process is limited.
+ */
+final class ReportFiles {
+
+  static final long MAPPING_THRESHOLD = 1024L * 1024L;
+
+  private final FileStructure fileStructure;
+  private final Map<Domain, BitSet> refsByDomain = new EnumMap<>(Domain.class);
+
+  private ReportFiles(FileStructure fileStructure) {
+    this.fileStructure = fileStructure;
+    for (Domain domain : Domain.values()) {
+      refsByDomain.put(domain, new BitSet());
+    }
+  }
+
+  static ReportFiles index(FileStructure fileStructure) {
+    ReportFiles files = new ReportFiles(fileStructure);
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(fileStructure.root().toPath())) {
+      for (Path path : paths) {
+        files.add(path.getFileName().toString());
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to list files of analysis report " + fileStructure.root(), e);
+    }
+    return files;
+  }
+
+  private void add(String fileName) {
+    for (Domain domain : Domain.values()) {
+      int ref = parseRef(fileName, domain);
+      if (ref >= 0) {
+        refsByDomain.get(domain).set(ref);
+        return;
+      }
+    }
+  }
+
+  private static int parseRef(String fileName, Domain domain) {
+    int start = domain.getFilePrefix().length();
+    int end = fileName.length() - domain.getFileSuffix().length();
+    if (end <= start || !fileName.startsWith(domain.getFilePrefix()) || !fileName.endsWith(domain.getFileSuffix())) {
+      return -1;
+    }
+    int ref = 0;
+    for (int i = start; i < end; i++) {
+      char c = fileName.charAt(i);
+      if (c < '0' || c > '9' || ref > (Integer.MAX_VALUE - 9) / 10) {
+        return -1;
+      }
+      ref = ref * 10 + (c - '0');
+    }
+    return ref;
+  }
+
+  boolean has(Domain domain, int componentRef) {
+    return componentRef >= 0 && refsByDomain.get(domain).get(componentRef);
+  }
+
+  /**
+   * @return {@code null} if the report does not contain data of the component for this domain
+   */
+  @CheckForNull
+  File get(Domain domain, int componentRef) {
+    if (has(domain, componentRef)) {
+      return fileStructure.fileFor(domain, componentRef);
+    }
+    return null;
+  }
+
+  /**
+   * @return {@code null} if the report does not contain data of the component for this domain
+   */
+  @CheckForNull
+  <M extends Message> M read(Domain domain, int componentRef, Parser<M> parser) {
+    File file = get(domain, componentRef);
+    if (file == null) {
+      return null;
+    }
+    try {
+      return Protobuf.read(open(file), parser);
+    } catch (ContextException e) {
+      throw e.addContext("file", file);
+    }
+  }
+
+  <M extends Message> CloseableIterator<M> readStream(Domain domain, int componentRef, Parser<M> parser) {
+    File file = get(domain, componentRef);
+    if (file == null) {
+      return CloseableIterator.emptyCloseableIterator();
+    }
+    return Protobuf.readStream(open(file), parser);
+  }
+
+  private static InputStream open(File file) {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size >= MAPPING_THRESHOLD) {
+        // the mapping remains valid after the channel is closed
+        return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+      }
+      ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+        // read until end of file
+      }
+      return new ByteArrayInputStream(buffer.array(), 0, buffer.position());
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read file " + file, e);
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+      return count;
+    }
+
+    @Override
+    public long skip(long n) {
+      int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+      buffer.position(buffer.position() + count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
@@ -62,6 +62,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.EffortAggregator;
 import org.sonar.server.computation.task.projectanalysis.issue.IntegrateIssuesVisitor;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueAssigner;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.IssuesToIndex;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCounter;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCreationDateCalculator;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueLifecycle;
@@ -73,6 +74,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.MergeBranchTracke
 import org.sonar.server.computation.task.projectanalysis.issue.MovedIssueVisitor;
 import org.sonar.server.computation.task.projectanalysis.issue.NewEffortAggregator;
 import org.sonar.server.computation.task.projectanalysis.issue.NewEffortCalculator;
+import org.sonar.server.computation.task.projectanalysis.issue.ParallelIssueTracking;
 import org.sonar.server.computation.task.projectanalysis.issue.RemoveProcessedComponentsVisitor;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleTagsCopier;
@@ -196,6 +198,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       ScmAccountToUserLoader.class,
       ScmAccountToUser.class,
       IssueCache.class,
+      IssuesToIndex.class,
       DefaultAssignee.class,
       IssueVisitors.class,
       IssueLifecycle.class,
@@ -249,6 +252,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       ComponentIssuesLoader.class,
       BaseIssuesLoader.class,
       IssueTrackingDelegator.class,
+      ParallelIssueTracking.class,
       BranchPersister.class,
 
       // filemove
@@ -25,12 +25,19 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -59,6 +66,8 @@ import org.sonar.server.computation.task.step.ComputationStep;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Splitter.on;
 import static com.google.common.collect.FluentIterable.from;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.util.Arrays.asList;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
 
@@ -67,6 +76,7 @@ public class FileMoveDetectionStep implements ComputationStep {
   private static final Logger LOG = Loggers.get(FileMoveDetectionStep.class);
   private static final List<String> FILE_QUALIFIERS = asList(Qualifiers.FILE, Qualifiers.UNIT_TEST_FILE);
   private static final Splitter LINES_HASHES_SPLITTER = on('\n');
+  private static final int SCORING_THREADS = Runtime.getRuntime().availableProcessors();
 
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final TreeRootHolder rootHolder;
@@ -121,10 +131,11 @@ public class FileMoveDetectionStep implements ComputationStep {
     }
 
     // retrieve file data from report
-    Map<String, File> reportFileSourcesByKey = getReportFileSourcesByKey(reportFilesByKey, addedFileKeys);
+    LineHashIds lineHashIds = new LineHashIds();
+    Map<String, File> reportFileSourcesByKey = getReportFileSourcesByKey(reportFilesByKey, addedFileKeys, lineHashIds);
 
     // compute score matrix
-    ScoreMatrix scoreMatrix = computeScoreMatrix(dbFilesByKey, removedFileKeys, reportFileSourcesByKey);
+    ScoreMatrix scoreMatrix = computeScoreMatrix(dbFilesByKey, removedFileKeys, reportFileSourcesByKey, lineHashIds);
     printIfDebug(scoreMatrix);
 
     // not a single match with score higher than MIN_REQUIRED_SCORE => abort
@@ -178,7 +189,7 @@ public class FileMoveDetectionStep implements ComputationStep {
     return builder.build();
   }
 
-  private Map<String, File> getReportFileSourcesByKey(Map<String, Component> reportFilesByKey, Set<String> addedFileKeys) {
+  private Map<String, File> getReportFileSourcesByKey(Map<String, Component> reportFilesByKey, Set<String> addedFileKeys, LineHashIds lineHashIds) {
     ImmutableMap.Builder<String, File> builder = ImmutableMap.builder();
     for (String fileKey : addedFileKeys) {
       // FIXME computation of sourceHash and lineHashes might be done multiple times for some files: here, in ComputeFileSourceData, in
@@ -191,42 +202,78 @@ public class FileMoveDetectionStep implements ComputationStep {
           linesHashesComputer.addLine(line);
         }
       }
-      builder.put(fileKey, new File(component.getReportAttributes().getPath(), linesHashesComputer.getLineHashes()));
+      builder.put(fileKey, new File(component.getReportAttributes().getPath(), lineHashIds.toIds(linesHashesComputer.getLineHashes())));
     }
     return builder.build();
   }
 
-  private ScoreMatrix computeScoreMatrix(Map<String, DbComponent> dtosByKey, Set<String> dbFileKeys, Map<String, File> reportFileSourcesByKey) {
-    int[][] scoreMatrix = new int[dbFileKeys.size()][reportFileSourcesByKey.size()];
-    int maxScore = 0;
+  /**
+   * Only the pairs of files which may reach {@link #MIN_REQUIRED_SCORE} are scored, the other pairs have a score of 0.
+   */
+  private ScoreMatrix computeScoreMatrix(Map<String, DbComponent> dtosByKey, Set<String> dbFileKeys, Map<String, File> reportFileSourcesByKey,
+    LineHashIds lineHashIds) {
+    List<File> reportFiles = new ArrayList<>(reportFileSourcesByKey.values());
+    SimilarFilesIndex similarFilesIndex = new SimilarFilesIndex(reportFiles, MIN_REQUIRED_SCORE);
+    int[][] scoreMatrix = new int[dbFileKeys.size()][reportFiles.size()];
+    List<Callable<Integer>> scorings = new ArrayList<>();
 
     try (DbSession dbSession = dbClient.openSession(false)) {
       int dbFileIndex = 0;
       for (String removedFileKey : dbFileKeys) {
-        File fileInDb = getFile(dbSession, dtosByKey.get(removedFileKey));
-        if (fileInDb == null) {
-          continue;
-        }
-
-        int reportFileIndex = 0;
-        for (Map.Entry<String, File> reportFileSourceAndKey : reportFileSourcesByKey.entrySet()) {
-          File unmatchedFile = reportFileSourceAndKey.getValue();
-          int score = fileSimilarity.score(fileInDb, unmatchedFile);
-          scoreMatrix[dbFileIndex][reportFileIndex] = score;
-          if (score > maxScore) {
-            maxScore = score;
+        File fileInDb = getFile(dbSession, dtosByKey.get(removedFileKey), lineHashIds);
+        if (fileInDb != null) {
+          int[] candidates = similarFilesIndex.getCandidates(fileInDb);
+          if (candidates.length > 0) {
+            int[] scores = scoreMatrix[dbFileIndex];
+            scorings.add(() -> score(fileInDb, reportFiles, candidates, scores));
           }
-          reportFileIndex++;
         }
         dbFileIndex++;
       }
     }
 
+    int maxScore = runScorings(scorings);
     return new ScoreMatrix(dbFileKeys, reportFileSourcesByKey, scoreMatrix, maxScore);
   }
 
+  private int score(File fileInDb, List<File> reportFiles, int[] candidates, int[] scores) {
+    int maxScore = 0;
+    for (int reportFileIndex : candidates) {
+      int score = fileSimilarity.score(fileInDb, reportFiles.get(reportFileIndex));
+      scores[reportFileIndex] = score;
+      maxScore = max(maxScore, score);
+    }
+    return maxScore;
+  }
+
+  private static int runScorings(List<Callable<Integer>> scorings) {
+    if (scorings.isEmpty()) {
+      return 0;
+    }
+    ExecutorService executorService = Executors.newFixedThreadPool(
+      min(SCORING_THREADS, scorings.size()),
+      new ThreadFactoryBuilder()
+        .setNameFormat("FileMoveDetection-%d")
+        .setDaemon(true)
+        .build());
+    try {
+      int maxScore = 0;
+      for (Future<Integer> future : executorService.invokeAll(scorings)) {
+        maxScore = max(maxScore, future.get());
+      }
+      return maxScore;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while computing similarity of files", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to compute similarity of files", e.getCause());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
   @CheckForNull
-  private File getFile(DbSession dbSession, DbComponent dbComponent) {
+  private File getFile(DbSession dbSession, DbComponent dbComponent, LineHashIds lineHashIds) {
     if (dbComponent.getPath() == null) {
       return null;
     }
@@ -235,7 +282,7 @@ public class FileMoveDetectionStep implements ComputationStep {
       return null;
     }
     String lineHashes = firstNonNull(fileSourceDto.getLineHashes(), "");
-    return new File(dbComponent.getPath(), LINES_HASHES_SPLITTER.splitToList(lineHashes));
+    return new File(dbComponent.getPath(), lineHashIds.toIds(LINES_HASHES_SPLITTER.splitToList(lineHashes)));
   }
 
   private static void printIfDebug(ScoreMatrix scoreMatrix) {
@@ -285,6 +332,21 @@ public class FileMoveDetectionStep implements ComputationStep {
     return new MovedFilesRepository.OriginalFile(dbComponent.getId(), dbComponent.getUuid(), dbComponent.getKey());
   }
 
+  /**
+   * Interns line hashes to ints so that lines are compared without comparing strings.
+   */
+  private static final class LineHashIds {
+    private final Map<String, Integer> idsByLineHash = new HashMap<>();
+
+    private int[] toIds(List<String> lineHashes) {
+      int[] res = new int[lineHashes.size()];
+      for (int i = 0; i < res.length; i++) {
+        res[i] = idsByLineHash.computeIfAbsent(lineHashes.get(i), lineHash -> idsByLineHash.size());
+      }
+      return res;
+    }
+  }
+
   @Immutable
   private static final class DbComponent {
     private final long id;
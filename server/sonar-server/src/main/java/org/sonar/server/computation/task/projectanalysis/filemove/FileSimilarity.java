@@ -19,17 +19,15 @@
  */
 package org.sonar.server.computation.task.projectanalysis.filemove;
 
-import java.util.List;
-
 import static java.util.Objects.requireNonNull;
 
 public interface FileSimilarity {
 
   final class File {
     private final String path;
-    private final List<String> lineHashes;
+    private final int[] lineHashes;
 
-    public File(String path, List<String> lineHashes) {
+    public File(String path, int[] lineHashes) {
       this.path = requireNonNull(path, "path can not be null");
       this.lineHashes = requireNonNull(lineHashes, "lineHashes can not be null");
     }
@@ -39,10 +37,10 @@ public interface FileSimilarity {
     }
 
     /**
-     * List of hash of each line. An empty list is returned
-     * if file content is empty.
+     * Hash of each line, interned to an int: two lines have the same int if and only if they have the same hash.
+     * An empty array is returned if file content is empty.
      */
-    public List<String> getLineHashes() {
+    public int[] getLineHashes() {
       return lineHashes;
     }
   }
@@ -0,0 +1,202 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Index of files which returns, for a given file, the indexed files which may reach a similarity score of at least
+ * {@code minScore} with it, without computing any score.
+ * <p>
+ * Score is based on the Levenshtein distance between lines, which can not be less than the number of lines of the longest
+ * file minus the number of lines the two files have in common. Two files can therefore be similar enough only if they have
+ * at least {@code minScore}% of the lines of the longest file in common.
+ * <p>
+ * Such pairs are found with prefix filtering: the n-th occurrence of a line in a file is a token and tokens of each file
+ * are sorted by increasing frequency. When two files have at least {@code c} tokens in common, they have at least one in
+ * common among the {@code size - c + 1} first tokens of each of them. Only these first tokens are indexed, so that the lines
+ * common to most files (blank lines, closing braces...) do not make every pair of files a candidate.
+ * <p>
+ * This is a necessary condition only: the score of the returned candidates must still be computed.
+ */
+final class SimilarFilesIndex {
+  private final List<FileSimilarity.File> files;
+  private final int minScore;
+  /**
+   * Rank of each line hash id, by increasing frequency in the indexed files. {@code 0} if the id is not in any indexed file.
+   */
+  private final int[] rankByLineHashId;
+  private final long[][] tokensByFile;
+  private final Map<Long, List<Integer>> filesByPrefixToken = new HashMap<>();
+
+  SimilarFilesIndex(List<FileSimilarity.File> files, int minScore) {
+    this.files = files;
+    this.minScore = minScore;
+    this.rankByLineHashId = rankLineHashIds(files);
+    this.tokensByFile = new long[files.size()][];
+    for (int fileIndex = 0; fileIndex < files.size(); fileIndex++) {
+      long[] tokens = toTokens(files.get(fileIndex).getLineHashes());
+      tokensByFile[fileIndex] = tokens;
+      int prefixLength = prefixLength(tokens.length);
+      for (int i = 0; i < prefixLength; i++) {
+        filesByPrefixToken.computeIfAbsent(tokens[i], token -> new ArrayList<>(1)).add(fileIndex);
+      }
+    }
+  }
+
+  private static int[] rankLineHashIds(List<FileSimilarity.File> files) {
+    int maxId = -1;
+    for (FileSimilarity.File file : files) {
+      for (int id : file.getLineHashes()) {
+        maxId = max(maxId, id);
+      }
+    }
+    int[] frequencies = new int[maxId + 1];
+    for (FileSimilarity.File file : files) {
+      for (int id : file.getLineHashes()) {
+        frequencies[id]++;
+      }
+    }
+
+    // sort ids by frequency, then by id so that order is total
+    long[] frequencyAndIds = new long[frequencies.length];
+    int count = 0;
+    for (int id = 0; id < frequencies.length; id++) {
+      if (frequencies[id] > 0) {
+        frequencyAndIds[count] = ((long) frequencies[id] << 32) | id;
+        count++;
+      }
+    }
+    Arrays.sort(frequencyAndIds, 0, count);
+
+    int[] ranks = new int[frequencies.length];
+    for (int i = 0; i < count; i++) {
+      ranks[(int) frequencyAndIds[i]] = i + 1;
+    }
+    return ranks;
+  }
+
+  /**
+   * Sorted tokens of the specified lines, ignoring the lines which are not in any indexed file. A token is the rank of the
+   * line hash in the 32 high bits and the number of occurrences of this line hash before it in the 32 low bits.
+   */
+  private long[] toTokens(int[] lineHashes) {
+    int[] ranks = new int[lineHashes.length];
+    int count = 0;
+    for (int id : lineHashes) {
+      int rank = id < rankByLineHashId.length ? rankByLineHashId[id] : 0;
+      if (rank > 0) {
+        ranks[count] = rank;
+        count++;
+      }
+    }
+    Arrays.sort(ranks, 0, count);
+
+    long[] tokens = new long[count];
+    int occurrence = 0;
+    for (int i = 0; i < count; i++) {
+      occurrence = i > 0 && ranks[i] == ranks[i - 1] ? occurrence + 1 : 0;
+      tokens[i] = ((long) ranks[i] << 32) | occurrence;
+    }
+    return tokens;
+  }
+
+  /**
+   * Indexes of the files which may be similar enough to the specified one.
+   */
+  int[] getCandidates(FileSimilarity.File file) {
+    int size = file.getLineHashes().length;
+    if (size == 0) {
+      return new int[0];
+    }
+    long[] tokens = toTokens(file.getLineHashes());
+    // lines which are not in any indexed file are the rarest, they are the first ones of the prefix
+    int unknownLines = size - tokens.length;
+    int prefixLength = min(tokens.length, prefixLength(size) - unknownLines);
+
+    BitSet visited = new BitSet(files.size());
+    int[] candidates = new int[files.size()];
+    int count = 0;
+    for (int i = 0; i < prefixLength; i++) {
+      List<Integer> fileIndexes = filesByPrefixToken.get(tokens[i]);
+      if (fileIndexes == null) {
+        continue;
+      }
+      for (int fileIndex : fileIndexes) {
+        if (!visited.get(fileIndex)) {
+          visited.set(fileIndex);
+          if (mayBeSimilar(size, tokens, fileIndex)) {
+            candidates[count] = fileIndex;
+            count++;
+          }
+        }
+      }
+    }
+    int[] res = Arrays.copyOf(candidates, count);
+    Arrays.sort(res);
+    return res;
+  }
+
+  private boolean mayBeSimilar(int size, long[] tokens, int fileIndex) {
+    int otherSize = files.get(fileIndex).getLineHashes().length;
+    int maxSize = max(size, otherSize);
+    return isEnoughCommonLines(min(size, otherSize), maxSize)
+      && isEnoughCommonLines(countCommonTokens(tokens, tokensByFile[fileIndex]), maxSize);
+  }
+
+  private static int countCommonTokens(long[] tokens1, long[] tokens2) {
+    int res = 0;
+    int i = 0;
+    int j = 0;
+    while (i < tokens1.length && j < tokens2.length) {
+      if (tokens1[i] == tokens2[j]) {
+        res++;
+        i++;
+        j++;
+      } else if (tokens1[i] < tokens2[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Score is truncated to an int, hence the one percent margin.
+   */
+  private boolean isEnoughCommonLines(int commonLines, int maxSize) {
+    return 100L * commonLines >= (long) (minScore - 1) * maxSize;
+  }
+
+  private int prefixLength(int size) {
+    // files with no line in common have a score of 0, whatever their size
+    int minCommonLines = max(1, size * (minScore - 1) / 100);
+    return size - minCommonLines + 1;
+  }
+}
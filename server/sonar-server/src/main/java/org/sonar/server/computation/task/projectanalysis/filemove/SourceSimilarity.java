@@ -28,4 +28,9 @@ public interface SourceSimilarity {
    * Range: between 0 and 100
    */
   <T extends Object> int score(List<T> left, List<T> right);
+
+  /**
+   * Same as {@link #score(List, List)} for sources whose lines are identified by ints.
+   */
+  int score(int[] left, int[] right);
 }
@@ -35,6 +35,15 @@ public class SourceSimilarityImpl implements SourceSimilarity {
     return (int) (100 * (1.0 - ((double) distance) / (max(left.size(), right.size()))));
   }
 
+  @Override
+  public int score(int[] left, int[] right) {
+    if (left.length == 0 && right.length == 0) {
+      return 0;
+    }
+    int distance = levenshteinDistance(left, right);
+    return (int) (100 * (1.0 - ((double) distance) / (max(left.length, right.length))));
+  }
+
   private static <T> int levenshteinDistance(List<T> left, List<T> right) {
     int len0 = left.size() + 1;
     int len1 = right.size() + 1;
@@ -78,4 +87,33 @@ public class SourceSimilarityImpl implements SourceSimilarity {
     // the distance is the cost for transforming all letters in both strings
     return cost[len0 - 1];
   }
+
+  private static int levenshteinDistance(int[] left, int[] right) {
+    int len0 = left.length + 1;
+    int len1 = right.length + 1;
+
+    int[] cost = new int[len0];
+    int[] newcost = new int[len0];
+    for (int i = 0; i < len0; i++) {
+      cost[i] = i;
+    }
+
+    for (int j = 1; j < len1; j++) {
+      newcost[0] = j;
+      int rightLine = right[j - 1];
+      for (int i = 1; i < len0; i++) {
+        int match = left[i - 1] == rightLine ? 0 : 1;
+        int costReplace = cost[i - 1] + match;
+        int costInsert = cost[i] + 1;
+        int costDelete = newcost[i - 1] + 1;
+        newcost[i] = min(min(costInsert, costDelete), costReplace);
+      }
+
+      int[] swap = cost;
+      cost = newcost;
+      newcost = swap;
+    }
+
+    return cost[len0 - 1];
+  }
 }
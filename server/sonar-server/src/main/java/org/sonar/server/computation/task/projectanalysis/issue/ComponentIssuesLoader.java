@@ -20,13 +20,17 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueMapper;
 import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolder;
 
@@ -44,23 +48,41 @@ public class ComponentIssuesLoader {
   public List<DefaultIssue> loadForComponentUuid(String componentUuid) {
     try (DbSession dbSession = dbClient.openSession(false)) {
       List<DefaultIssue> result = new ArrayList<>();
-      dbSession.getMapper(IssueMapper.class).scrollNonClosedByComponentUuid(componentUuid, resultContext -> {
-        DefaultIssue issue = (resultContext.getResultObject()).toDefaultIssue();
+      dbSession.getMapper(IssueMapper.class).scrollNonClosedByComponentUuid(componentUuid, resultContext -> result.add(toDefaultIssue(resultContext.getResultObject())));
+      return result;
+    }
+  }
 
-        // TODO this field should be set outside this class
-        if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
-          issue.setOnDisabledRule(true);
-          // TODO to be improved, why setOnDisabledRule(true) is not enough ?
-          issue.setBeingClosed(true);
-        }
-        // FIXME
-        issue.setSelectedAt(System.currentTimeMillis());
-        result.add(issue);
+  /**
+   * Loads the non-closed issues of several components with a single request.
+   *
+   * @return issues grouped by component uuid. Components without issues are absent.
+   */
+  public Map<String, List<DefaultIssue>> loadForComponentUuids(Collection<String> componentUuids) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      Map<String, List<DefaultIssue>> result = new HashMap<>();
+      dbClient.issueDao().scrollNonClosedByComponentUuids(dbSession, componentUuids, resultContext -> {
+        DefaultIssue issue = toDefaultIssue(resultContext.getResultObject());
+        result.computeIfAbsent(issue.componentUuid(), uuid -> new ArrayList<>()).add(issue);
       });
       return result;
     }
   }
 
+  private DefaultIssue toDefaultIssue(IssueDto dto) {
+    DefaultIssue issue = dto.toDefaultIssue();
+
+    // TODO this field should be set outside this class
+    if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
+      issue.setOnDisabledRule(true);
+      // TODO to be improved, why setOnDisabledRule(true) is not enough ?
+      issue.setBeingClosed(true);
+    }
+    // FIXME
+    issue.setSelectedAt(System.currentTimeMillis());
+    return issue;
+  }
+
   private boolean isActive(RuleKey ruleKey) {
     return activeRulesHolder.get(ruleKey).isPresent();
   }
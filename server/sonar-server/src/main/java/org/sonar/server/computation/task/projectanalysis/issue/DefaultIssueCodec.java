@@ -0,0 +1,388 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.issue.IssueComment;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.RecordCodec;
+import org.sonar.server.util.cache.RecordInput;
+import org.sonar.server.util.cache.RecordOutput;
+
+/**
+ * Binary encoding of {@link DefaultIssue} in {@link IssueCache}. All the fields are written, including
+ * the ones available only during analysis (changes, flags, ...). The instance of the current change is
+ * shared with the list of changes, as with Java serialization.
+ */
+public class DefaultIssueCodec implements RecordCodec<DefaultIssue> {
+
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte LONG = 2;
+  private static final byte INTEGER = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte RULE_TYPE = 5;
+  private static final byte LOCATIONS = 6;
+  private static final byte SERIALIZED = 7;
+
+  // a change is either written (index = -1) or refers to a change already written in the same issue
+  private static final int NEW_CHANGE = -1;
+
+  @Override
+  public void encode(DefaultIssue issue, RecordOutput output) {
+    output.writeString(issue.key());
+    writeRuleType(issue.type(), output);
+    output.writeString(issue.componentUuid());
+    output.writeString(issue.componentKey());
+    output.writeString(issue.moduleUuid());
+    output.writeString(issue.moduleUuidPath());
+    output.writeString(issue.projectUuid());
+    output.writeString(issue.projectKey());
+    RuleKey ruleKey = issue.ruleKey();
+    output.writeString(ruleKey == null ? null : ruleKey.repository());
+    output.writeString(ruleKey == null ? null : ruleKey.rule());
+    output.writeString(issue.language());
+    output.writeString(issue.severity());
+    output.writeBoolean(issue.manualSeverity());
+    output.writeString(issue.message());
+    writeValue(issue.line(), output);
+    writeValue(issue.gap(), output);
+    writeValue(issue.effortInMinutes(), output);
+    output.writeString(issue.status());
+    output.writeString(issue.resolution());
+    output.writeString(issue.assignee());
+    output.writeString(issue.checksum());
+    writeStringMap(issue.attributes(), output);
+    output.writeString(issue.authorLogin());
+    writeComments(issue.comments(), output);
+    writeStrings(issue.tags(), output);
+    writeValue(issue.getLocations(), output);
+    writeDate(issue.creationDate(), output);
+    writeDate(issue.updateDate(), output);
+    writeDate(issue.closeDate(), output);
+    writeChanges(issue.currentChange(), issue.changes(), output);
+    output.writeBoolean(issue.isNew());
+    output.writeBoolean(issue.isCopied());
+    output.writeBoolean(issue.isBeingClosed());
+    output.writeBoolean(issue.isOnDisabledRule());
+    output.writeBoolean(issue.isChanged());
+    output.writeBoolean(issue.mustSendNotifications());
+    writeValue(issue.selectedAt(), output);
+  }
+
+  @Override
+  public DefaultIssue decode(RecordInput input) {
+    DefaultIssue issue = new DefaultIssue();
+    issue.setKey(input.readString());
+    issue.setType(readRuleType(input));
+    issue.setComponentUuid(input.readString());
+    issue.setComponentKey(input.readString());
+    issue.setModuleUuid(input.readString());
+    issue.setModuleUuidPath(input.readString());
+    issue.setProjectUuid(input.readString());
+    issue.setProjectKey(input.readString());
+    String ruleRepository = input.readString();
+    String rule = input.readString();
+    if (ruleRepository != null && rule != null) {
+      issue.setRuleKey(RuleKey.of(ruleRepository, rule));
+    }
+    issue.setLanguage(input.readString());
+    issue.setSeverity(input.readString());
+    issue.setManualSeverity(input.readBoolean());
+    issue.setMessage(input.readString());
+    issue.setLine((Integer) readValue(input));
+    issue.setGap((Double) readValue(input));
+    Long effort = (Long) readValue(input);
+    issue.setEffort(effort == null ? null : Duration.create(effort));
+    String status = input.readString();
+    if (status != null) {
+      issue.setStatus(status);
+    }
+    issue.setResolution(input.readString());
+    issue.setAssignee(input.readString());
+    issue.setChecksum(input.readString());
+    issue.setAttributes(readStringMap(input));
+    issue.setAuthorLogin(input.readString());
+    readComments(issue, input);
+    List<String> tags = readStrings(input);
+    if (!tags.isEmpty()) {
+      issue.setTags(tags);
+    }
+    issue.setLocations(readValue(input));
+    issue.setCreationDate(readDate(input));
+    issue.setUpdateDate(readDate(input));
+    issue.setCloseDate(readDate(input));
+    readChanges(issue, input);
+    issue.setNew(input.readBoolean());
+    issue.setCopied(input.readBoolean());
+    issue.setBeingClosed(input.readBoolean());
+    issue.setOnDisabledRule(input.readBoolean());
+    issue.setChanged(input.readBoolean());
+    issue.setSendNotifications(input.readBoolean());
+    issue.setSelectedAt((Long) readValue(input));
+    return issue;
+  }
+
+  private static void writeRuleType(@Nullable RuleType type, RecordOutput output) {
+    output.writeByte(type == null ? -1 : type.ordinal());
+  }
+
+  @CheckForNull
+  private static RuleType readRuleType(RecordInput input) {
+    byte ordinal = input.readByte();
+    return ordinal < 0 ? null : RuleType.values()[ordinal];
+  }
+
+  private static void writeDate(@Nullable Date date, RecordOutput output) {
+    output.writeBoolean(date != null);
+    if (date != null) {
+      output.writeLong(date.getTime());
+    }
+  }
+
+  @CheckForNull
+  private static Date readDate(RecordInput input) {
+    return input.readBoolean() ? new Date(input.readLong()) : null;
+  }
+
+  private static void writeStrings(Collection<String> strings, RecordOutput output) {
+    output.writeInt(strings.size());
+    for (String s : strings) {
+      output.writeString(s);
+    }
+  }
+
+  private static List<String> readStrings(RecordInput input) {
+    int size = input.readInt();
+    List<String> strings = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      strings.add(input.readString());
+    }
+    return strings;
+  }
+
+  private static void writeStringMap(Map<String, String> map, RecordOutput output) {
+    output.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      output.writeString(entry.getKey());
+      output.writeString(entry.getValue());
+    }
+  }
+
+  @CheckForNull
+  private static Map<String, String> readStringMap(RecordInput input) {
+    int size = input.readInt();
+    if (size == 0) {
+      return null;
+    }
+    Map<String, String> map = new HashMap<>(size * 2);
+    for (int i = 0; i < size; i++) {
+      map.put(input.readString(), input.readString());
+    }
+    return map;
+  }
+
+  private static void writeComments(List<IssueComment> comments, RecordOutput output) {
+    output.writeInt(comments.size());
+    for (IssueComment comment : comments) {
+      DefaultIssueComment c = (DefaultIssueComment) comment;
+      output.writeString(c.issueKey());
+      output.writeString(c.userLogin());
+      writeDate(c.createdAt(), output);
+      writeDate(c.updatedAt(), output);
+      output.writeString(c.key());
+      output.writeString(c.markdownText());
+      output.writeBoolean(c.isNew());
+    }
+  }
+
+  private static void readComments(DefaultIssue issue, RecordInput input) {
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      DefaultIssueComment comment = new DefaultIssueComment()
+        .setIssueKey(input.readString())
+        .setUserLogin(input.readString())
+        .setCreatedAt(readDate(input))
+        .setUpdatedAt(readDate(input))
+        .setKey(input.readString())
+        .setMarkdownText(input.readString())
+        .setNew(input.readBoolean());
+      issue.addComment(comment);
+    }
+  }
+
+  private static void writeChanges(@Nullable FieldDiffs currentChange, List<FieldDiffs> changes, RecordOutput output) {
+    Map<FieldDiffs, Integer> written = new IdentityHashMap<>();
+    output.writeInt(changes.size());
+    for (FieldDiffs change : changes) {
+      writeChange(change, written, output);
+    }
+    output.writeBoolean(currentChange != null);
+    if (currentChange != null) {
+      writeChange(currentChange, written, output);
+    }
+  }
+
+  private static void writeChange(FieldDiffs change, Map<FieldDiffs, Integer> written, RecordOutput output) {
+    Integer index = written.get(change);
+    if (index != null) {
+      output.writeInt(index);
+      return;
+    }
+    written.put(change, written.size());
+    output.writeInt(NEW_CHANGE);
+    output.writeString(change.issueKey());
+    output.writeString(change.userLogin());
+    writeDate(change.creationDate(), output);
+    Map<String, FieldDiffs.Diff> diffs = change.diffs();
+    output.writeInt(diffs.size());
+    for (Map.Entry<String, FieldDiffs.Diff> entry : diffs.entrySet()) {
+      output.writeString(entry.getKey());
+      writeValue(entry.getValue().oldValue(), output);
+      writeValue(entry.getValue().newValue(), output);
+    }
+  }
+
+  private static void readChanges(DefaultIssue issue, RecordInput input) {
+    List<FieldDiffs> read = new ArrayList<>();
+    int size = input.readInt();
+    List<FieldDiffs> changes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      changes.add(readChange(read, input));
+    }
+    if (input.readBoolean()) {
+      // setCurrentChange() appends to the list of changes, which is then replaced
+      issue.setCurrentChange(readChange(read, input));
+    }
+    if (!changes.isEmpty()) {
+      issue.setChanges(changes);
+    }
+  }
+
+  private static FieldDiffs readChange(List<FieldDiffs> read, RecordInput input) {
+    int index = input.readInt();
+    if (index != NEW_CHANGE) {
+      return read.get(index);
+    }
+    FieldDiffs change = new FieldDiffs()
+      .setIssueKey(input.readString())
+      .setUserLogin(input.readString())
+      .setCreationDate(readDate(input));
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      change.setDiff(input.readString(), readValue(input), readValue(input));
+    }
+    read.add(change);
+    return change;
+  }
+
+  private static void writeValue(@Nullable Object value, RecordOutput output) {
+    if (value == null) {
+      output.writeByte(NULL);
+    } else if (value instanceof String) {
+      output.writeByte(STRING).writeString((String) value);
+    } else if (value instanceof Long) {
+      output.writeByte(LONG).writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      output.writeByte(INTEGER).writeInt((Integer) value);
+    } else if (value instanceof Double) {
+      output.writeByte(DOUBLE).writeDouble((Double) value);
+    } else if (value instanceof RuleType) {
+      output.writeByte(RULE_TYPE).writeByte(((RuleType) value).ordinal());
+    } else if (value instanceof DbIssues.Locations) {
+      output.writeByte(LOCATIONS).writeBytes(((DbIssues.Locations) value).toByteArray());
+    } else {
+      output.writeByte(SERIALIZED).writeBytes(serialize(value));
+    }
+  }
+
+  @CheckForNull
+  @SuppressWarnings("unchecked")
+  private static <T extends Serializable> T readValue(RecordInput input) {
+    byte type = input.readByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case STRING:
+        return (T) input.readString();
+      case LONG:
+        return (T) Long.valueOf(input.readLong());
+      case INTEGER:
+        return (T) Integer.valueOf(input.readInt());
+      case DOUBLE:
+        return (T) Double.valueOf(input.readDouble());
+      case RULE_TYPE:
+        return (T) RuleType.values()[input.readByte()];
+      case LOCATIONS:
+        return (T) parseLocations(input.readBytes());
+      case SERIALIZED:
+        return (T) deserialize(input.readBytes());
+      default:
+        throw new IllegalStateException("Unsupported type of value: " + type);
+    }
+  }
+
+  private static DbIssues.Locations parseLocations(byte[] bytes) {
+    try {
+      return DbIssues.Locations.parseFrom(bytes);
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalStateException("Fail to read issue locations", e);
+    }
+  }
+
+  private static byte[] serialize(Object value) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(value);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize " + value, e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Serializable deserialize(byte[] bytes) {
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (Serializable) input.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to deserialize value", e);
+    }
+  }
+}
@@ -21,15 +21,19 @@ package org.sonar.server.computation.task.projectanalysis.issue;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.Component.Status;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.util.cache.DiskCache;
 
@@ -41,9 +45,14 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
   private final ComponentIssuesLoader issuesLoader;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final IssueTrackingDelegator issueTracking;
+  private final ParallelIssueTracking parallelTracking;
+  private final TreeRootHolder treeRootHolder;
+
+  @CheckForNull
+  private ParallelIssueTracking.Session parallelTrackingSession;
 
   public IntegrateIssuesVisitor(IssueCache issueCache, IssueLifecycle issueLifecycle, IssueVisitors issueVisitors, ComponentIssuesLoader issuesLoader,
-    AnalysisMetadataHolder analysisMetadataHolder, IssueTrackingDelegator issueTracking) {
+    AnalysisMetadataHolder analysisMetadataHolder, IssueTrackingDelegator issueTracking, ParallelIssueTracking parallelTracking, TreeRootHolder treeRootHolder) {
     super(CrawlerDepthLimit.FILE, POST_ORDER);
     this.issueCache = issueCache;
     this.issueLifecycle = issueLifecycle;
@@ -51,6 +60,8 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
     this.issuesLoader = issuesLoader;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.issueTracking = issueTracking;
+    this.parallelTracking = parallelTracking;
+    this.treeRootHolder = treeRootHolder;
   }
 
   @Override
@@ -63,7 +74,7 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
         List<DefaultIssue> issues = issuesLoader.loadForComponentUuid(component.getUuid());
         reuseOpenIssues(component, issues, cacheAppender);
       } else {
-        TrackingResult tracking = issueTracking.track(component);
+        TrackingResult tracking = track(component);
         fillNewOpenIssues(component, tracking.newIssues(), cacheAppender);
         fillExistingOpenIssues(component, tracking.issuesToMerge(), cacheAppender);
         closeIssues(component, tracking.issuesToClose(), cacheAppender);
@@ -71,6 +82,7 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
       }
       issueVisitors.afterComponent(component);
     } catch (Exception e) {
+      closeParallelTracking();
       throw new IllegalStateException(String.format("Fail to process issues of component '%s'", component.getKey()), e);
     }
   }
@@ -79,6 +91,43 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
     return analysisMetadataHolder.isIncrementalAnalysis() && component.getStatus() == Status.SAME;
   }
 
+  private TrackingResult track(Component component) {
+    if (!parallelTracking.isEnabled()) {
+      return issueTracking.track(component);
+    }
+    if (parallelTrackingSession == null) {
+      parallelTrackingSession = parallelTracking.start(componentsToTrack());
+    }
+    TrackingResult result = parallelTrackingSession.next(component);
+    if (!parallelTrackingSession.hasNext()) {
+      closeParallelTracking();
+    }
+    return result;
+  }
+
+  /**
+   * Components in the order they are visited, as expected by {@link ParallelIssueTracking}
+   */
+  private List<Component> componentsToTrack() {
+    List<Component> components = new ArrayList<>();
+    new DepthTraversalTypeAwareCrawler(
+      new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
+        @Override
+        public void visitAny(Component component) {
+          if (!isIncremental(component)) {
+            components.add(component);
+          }
+        }
+      }).visit(treeRootHolder.getRoot());
+    return components;
+  }
+
+  private void closeParallelTracking() {
+    if (parallelTrackingSession != null) {
+      parallelTrackingSession.close();
+    }
+  }
+
   private void fillNewOpenIssues(Component component, Iterable<DefaultIssue> issues, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
     for (DefaultIssue issue : issues) {
       issueLifecycle.initNewOpenIssue(issue);
@@ -20,23 +20,35 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import java.io.File;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.server.util.cache.DiskCache;
+import org.sonar.server.util.cache.RecordFormat;
 
 /**
  * Cache of all the issues involved in the analysis. Their state is as it will be
  * persisted in database (after issue tracking, auto-assignment, ...)
+ * <p>
+ * Issues are stored with {@link DefaultIssueCodec}. Blocks of issues are compressed with LZ4 unless
+ * property {@link #COMPRESSION_PROPERTY} is set to {@code false}.
+ * </p>
  */
 public class IssueCache extends DiskCache<DefaultIssue> {
 
+  public static final String COMPRESSION_PROPERTY = "sonar.ce.issueCache.compression";
+
   // this constructor is used by picocontainer
-  public IssueCache(TempFolder tempFolder, System2 system2) {
-    super(tempFolder.newFile("issues", ".dat"), system2);
+  public IssueCache(TempFolder tempFolder, System2 system2, Configuration config) {
+    this(tempFolder.newFile("issues", ".dat"), system2, config.getBoolean(COMPRESSION_PROPERTY).orElse(true));
   }
 
   public IssueCache(File file, System2 system2) {
-    super(file, system2);
+    this(file, system2, true);
+  }
+
+  public IssueCache(File file, System2 system2, boolean compressed) {
+    super(file, system2, new RecordFormat<>(new DefaultIssueCodec(), compressed));
   }
 }
@@ -19,10 +19,14 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.tracking.Tracking;
@@ -56,6 +60,28 @@ public class IssueTrackingDelegator {
     }
   }
 
+  /**
+   * Whether {@link #prepareTracking(List)} can be used. Components must otherwise be tracked one by one.
+   */
+  public boolean isBatchTrackingSupported() {
+    return !analysisMetadataHolder.isShortLivingBranch() && !isFirstAnalysisSecondaryLongLivingBranch();
+  }
+
+  /**
+   * Prepares the standard tracking of several components, see {@link TrackerExecution#prepareTracking(List)}.
+   * The returned supplier can be executed by another thread.
+   *
+   * @return results in the same order as {@code components}
+   * @throws IllegalStateException if {@link #isBatchTrackingSupported()} is {@code false}
+   */
+  public Supplier<List<TrackingResult>> prepareTracking(List<Component> components) {
+    checkState(isBatchTrackingSupported(), "Components of short-living branches and of first analysis of long-living branches must be tracked one by one");
+    Supplier<List<Tracking<DefaultIssue, DefaultIssue>>> trackings = tracker.prepareTracking(components);
+    return () -> trackings.get().stream()
+      .map(IssueTrackingDelegator::standardResult)
+      .collect(Collectors.toList());
+  }
+
   private static TrackingResult standardResult(Tracking<DefaultIssue, DefaultIssue> tracking) {
     return new TrackingResult(emptyMap(), tracking.getMatchedRaws(), tracking.getUnmatchedBases(), tracking.getUnmatchedRaws());
   }
@@ -0,0 +1,56 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.sonar.db.es.EsQueueDto;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Items of table es_queue inserted along with the issues persisted by the analysis. They reference either each issue
+ * inserted or updated by the analysis or, when there are too many of them, all the issues of the branch.
+ */
+public class IssuesToIndex {
+
+  @CheckForNull
+  private List<EsQueueDto> items;
+
+  public void setItems(List<EsQueueDto> items) {
+    checkState(this.items == null, "Items have already been initialized");
+    this.items = Collections.unmodifiableList(new ArrayList<>(items));
+  }
+
+  /**
+   * @return {@code false} if issues have not been persisted by this analysis, in which case all
+   *         the issues of the branch must be indexed.
+   */
+  public boolean isInitialized() {
+    return items != null;
+  }
+
+  public List<EsQueueDto> getItems() {
+    checkState(items != null, "Items have not been initialized yet");
+    return items;
+  }
+}
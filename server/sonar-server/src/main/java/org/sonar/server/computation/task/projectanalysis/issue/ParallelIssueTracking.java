@@ -0,0 +1,181 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Configuration;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Tracks issues of components ahead of {@link IntegrateIssuesVisitor} when property {@link #THREADS_PROPERTY}
+ * is greater than 1 (default is 1, which means that components are tracked one by one by the visitor).
+ * <p>
+ * Components are grouped by batches of {@link #BATCH_SIZE} in the order of the crawl, so that base issues of
+ * a batch are loaded with a single request. Batches are tracked by a pool of threads and at most two batches
+ * per thread are pending. Results are consumed in the order of the crawl, so that lifecycle, issue visitors
+ * and issue cache process the same sequence of issues as with sequential tracking.
+ * </p>
+ * <p>
+ * Only the standard tracking is supported, see {@link IssueTrackingDelegator#isBatchTrackingSupported()}.
+ * </p>
+ * <p>
+ * A session which is not closed by its consumer, for example because another visitor of the crawl failed, is closed
+ * when the container of the task is stopped.
+ * </p>
+ */
+public class ParallelIssueTracking implements Startable {
+
+  public static final String THREADS_PROPERTY = "sonar.ce.issueTracking.threads";
+  static final int BATCH_SIZE = 50;
+
+  private final IssueTrackingDelegator issueTracking;
+  private final int threads;
+  @CheckForNull
+  private Session session;
+
+  public ParallelIssueTracking(Configuration config, IssueTrackingDelegator issueTracking) {
+    this.issueTracking = issueTracking;
+    this.threads = config.getInt(THREADS_PROPERTY).orElse(1);
+  }
+
+  public boolean isEnabled() {
+    return threads > 1 && issueTracking.isBatchTrackingSupported();
+  }
+
+  /**
+   * Starts tracking the components, whose results must then be consumed in the same order with
+   * {@link Session#next(Component)}. Must be called by the thread crawling the components.
+   */
+  public Session start(List<Component> components) {
+    checkState(isEnabled(), "Parallel issue tracking is disabled");
+    stop();
+    session = new Session(components);
+    return session;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    if (session != null) {
+      session.close();
+      session = null;
+    }
+  }
+
+  public final class Session implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Iterator<List<Component>> batches;
+    private final Deque<PendingBatch> pending = new ArrayDeque<>();
+    private int remaining;
+    private Iterator<Component> currentComponents;
+    private Iterator<TrackingResult> currentResults;
+
+    private Session(List<Component> components) {
+      this.executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+        .setNameFormat("IssueTracker-%d")
+        .setDaemon(true)
+        .build());
+      this.batches = Lists.partition(components, BATCH_SIZE).iterator();
+      this.remaining = components.size();
+      submitBatches();
+    }
+
+    public boolean hasNext() {
+      return remaining > 0;
+    }
+
+    /**
+     * @throws IllegalStateException if {@code component} is not the next tracked component
+     */
+    public TrackingResult next(Component component) {
+      if (currentResults == null || !currentResults.hasNext()) {
+        checkState(!pending.isEmpty(), "Issues of component '%s' are not tracked", component.getKey());
+        PendingBatch batch = pending.remove();
+        currentComponents = batch.components.iterator();
+        currentResults = getResults(batch.results).iterator();
+        submitBatches();
+      }
+      Component expected = currentComponents.next();
+      checkState(expected.equals(component), "Issues of component '%s' are expected to be processed before component '%s'", expected.getKey(), component.getKey());
+      remaining--;
+      return currentResults.next();
+    }
+
+    private void submitBatches() {
+      while (pending.size() < 2 * threads && batches.hasNext()) {
+        List<Component> components = batches.next();
+        // raw inputs are created by the current thread
+        Supplier<List<TrackingResult>> tracking = issueTracking.prepareTracking(components);
+        pending.add(new PendingBatch(components, executor.submit(tracking::get)));
+      }
+    }
+
+    private List<TrackingResult> getResults(Future<List<TrackingResult>> results) {
+      try {
+        return results.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while tracking issues", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IllegalStateException("Fail to track issues", e.getCause());
+      }
+    }
+
+    @Override
+    public void close() {
+      executor.shutdownNow();
+    }
+
+    boolean isClosed() {
+      return executor.isShutdown();
+    }
+  }
+
+  private static class PendingBatch {
+    private final List<Component> components;
+    private final Future<List<TrackingResult>> results;
+
+    private PendingBatch(List<Component> components, Future<List<TrackingResult>> results) {
+      this.components = components;
+      this.results = results;
+    }
+  }
+}
@@ -34,10 +34,12 @@ import static java.util.Objects.requireNonNull;
 
 public class RuleRepositoryImpl implements RuleRepository {
 
+  // rules are looked up concurrently by issue tracking. rulesById is assigned first, so rulesByKey
+  // being not null means that both are loaded.
   @CheckForNull
-  private Map<RuleKey, Rule> rulesByKey;
+  private volatile Map<RuleKey, Rule> rulesByKey;
   @CheckForNull
-  private Map<Integer, Rule> rulesById;
+  private volatile Map<Integer, Rule> rulesById;
 
   private final DbClient dbClient;
   private final AnalysisMetadataHolder analysisMetadataHolder;
@@ -87,7 +89,7 @@ public class RuleRepositoryImpl implements RuleRepository {
     requireNonNull(key, "RuleKey can not be null");
   }
 
-  private void ensureInitialized() {
+  private synchronized void ensureInitialized() {
     if (rulesByKey == null) {
       try (DbSession dbSession = dbClient.openSession(false)) {
         loadRulesFromDb(dbSession);
@@ -104,8 +106,8 @@ public class RuleRepositoryImpl implements RuleRepository {
       rulesByKeyBuilder.put(ruleDto.getKey(), rule);
       rulesByIdBuilder.put(ruleDto.getId(), rule);
     }
-    this.rulesByKey = rulesByKeyBuilder.build();
     this.rulesById = rulesByIdBuilder.build();
+    this.rulesByKey = rulesByKeyBuilder.build();
   }
 
 }
@@ -19,8 +19,11 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.core.issue.DefaultIssue;
@@ -53,10 +56,27 @@ public class TrackerBaseInputFactory {
     return new BaseLazyInput(component, movedFilesRepository.getOriginalFile(component).orNull());
   }
 
+  /**
+   * Same as {@link #create(Component)} for several components, except that issues of all the components
+   * are loaded immediately with a single request. Line hashes are still lazy-loaded.
+   *
+   * @return inputs in the same order as {@code components}
+   */
+  public List<Input<DefaultIssue>> create(List<Component> components) {
+    List<BaseLazyInput> inputs = components.stream()
+      .map(component -> new BaseLazyInput(component, movedFilesRepository.getOriginalFile(component).orNull()))
+      .collect(Collectors.toList());
+    Map<String, List<DefaultIssue>> issuesByUuid = issuesLoader.loadForComponentUuids(inputs.stream().map(input -> input.effectiveUuid).collect(Collectors.toSet()));
+    inputs.forEach(input -> input.preloadedIssues = issuesByUuid.getOrDefault(input.effectiveUuid, new ArrayList<>()));
+    return new ArrayList<>(inputs);
+  }
+
   private class BaseLazyInput extends LazyInput<DefaultIssue> {
     private final Component component;
     @CheckForNull
     private final String effectiveUuid;
+    @CheckForNull
+    private List<DefaultIssue> preloadedIssues;
 
     private BaseLazyInput(Component component, @Nullable OriginalFile originalFile) {
       this.component = component;
@@ -80,6 +100,9 @@ public class TrackerBaseInputFactory {
 
     @Override
     protected List<DefaultIssue> loadIssues() {
+      if (preloadedIssues != null) {
+        return preloadedIssues;
+      }
       return issuesLoader.loadForComponentUuid(effectiveUuid);
     }
   }
@@ -19,7 +19,12 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.tracking.Input;
 import org.sonar.core.issue.tracking.Tracker;
 import org.sonar.core.issue.tracking.Tracking;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -40,4 +45,23 @@ public class TrackerExecution {
   public Tracking<DefaultIssue, DefaultIssue> track(Component component) {
     return tracker.track(rawInputFactory.create(component), baseInputFactory.create(component));
   }
+
+  /**
+   * Same as {@link #track(Component)} for several components. Raw inputs are created by the calling thread, as common
+   * rules read the measures of components. The returned supplier can then be executed by another thread. It loads base
+   * issues of all the components with a single request.
+   *
+   * @return trackings in the same order as {@code components}
+   */
+  public Supplier<List<Tracking<DefaultIssue, DefaultIssue>>> prepareTracking(List<Component> components) {
+    List<Input<DefaultIssue>> rawInputs = components.stream().map(rawInputFactory::create).collect(Collectors.toList());
+    return () -> {
+      List<Input<DefaultIssue>> baseInputs = baseInputFactory.create(components);
+      List<Tracking<DefaultIssue, DefaultIssue>> trackings = new ArrayList<>(components.size());
+      for (int i = 0; i < components.size(); i++) {
+        trackings.add(tracker.track(rawInputs.get(i), baseInputs.get(i)));
+      }
+      return trackings;
+    };
+  }
 }
@@ -20,6 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import org.sonar.api.issue.Issue;
@@ -68,9 +69,13 @@ public class TrackerRawInputFactory {
 
   private class RawLazyInput extends LazyInput<DefaultIssue> {
     private final Component component;
+    private final Collection<DefaultIssue> commonRuleIssues;
 
     private RawLazyInput(Component component) {
       this.component = component;
+      // common rules read the measure repository, which is not thread-safe. They are evaluated by the thread
+      // creating the input, while the other data can be loaded by any thread.
+      this.commonRuleIssues = commonRuleEngine.process(component);
     }
 
     @Override
@@ -90,7 +95,7 @@ public class TrackerRawInputFactory {
     protected List<DefaultIssue> loadIssues() {
       List<DefaultIssue> result = new ArrayList<>();
 
-      for (DefaultIssue commonRuleIssue : commonRuleEngine.process(component)) {
+      for (DefaultIssue commonRuleIssue : commonRuleIssues) {
         if (issueFilter.accept(commonRuleIssue, component)) {
           result.add(init(commonRuleIssue));
         }
@@ -47,7 +47,7 @@ import com.google.common.collect.SetMultimap;
  *
  * Intended to be used as a delegate of other MeasureRepository implementations (hence the final keyword).
  */
-public final class MapBasedRawMeasureRepository<T> implements MeasureRepository {
+public final class MapBasedRawMeasureRepository<T> implements RawMeasureRepository {
   private final Function<Component, T> componentToKey;
   private final Map<T, Map<MeasureKey, Measure>> measures = new HashMap<>();
 
@@ -162,6 +162,7 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     return Optional.fromNullable(measuresPerMetric.get(new MeasureKey(metric.getKey(), measure.getDeveloper())));
   }
 
+  @Override
   public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
     requireNonNull(component);
     requireNonNull(measure);
@@ -180,10 +181,6 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     }
   }
 
-  public enum OverridePolicy {
-    OVERRIDE, DO_NOT_OVERRIDE
-  }
-
   private static class MatchMetric implements Predicate<Map.Entry<MeasureKey, Measure>> {
     private final Metric metric;
 
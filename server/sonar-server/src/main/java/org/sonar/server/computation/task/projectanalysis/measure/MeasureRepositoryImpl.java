@@ -19,6 +19,7 @@
  */
 package org.sonar.server.computation.task.projectanalysis.measure;
 
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
 
@@ -29,6 +30,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.sonar.api.config.Configuration;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -37,7 +39,7 @@ import org.sonar.db.measure.MeasureQuery;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
-import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.measure.RawMeasureRepository.OverridePolicy;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.ReportMetricValidator;
@@ -46,7 +48,16 @@ import com.google.common.base.Optional;
 import com.google.common.collect.SetMultimap;
 
 public class MeasureRepositoryImpl implements MeasureRepository {
-  private final MapBasedRawMeasureRepository<Integer> delegate = new MapBasedRawMeasureRepository<>(toReportRef());
+  /**
+   * Storage of raw measures: {@value #MAP_STORE} (default), {@value #PRIMITIVE_STORE} or {@value #OFF_HEAP_STORE}.
+   * See {@link MapBasedRawMeasureRepository} and {@link PrimitiveRawMeasureRepository}.
+   */
+  public static final String STORE_PROPERTY = "sonar.ce.measures.store";
+  public static final String MAP_STORE = "map";
+  public static final String PRIMITIVE_STORE = "primitive";
+  public static final String OFF_HEAP_STORE = "offheap";
+
+  private final RawMeasureRepository delegate;
   private final DbClient dbClient;
   private final BatchReportReader reportReader;
   private final BatchMeasureToMeasure batchMeasureToMeasure;
@@ -56,8 +67,19 @@ public class MeasureRepositoryImpl implements MeasureRepository {
   private MeasureDtoToMeasure measureTransformer = new MeasureDtoToMeasure();
   private final Set<Integer> loadedComponents = new HashSet<>();
 
+  public MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository,
+    ReportMetricValidator reportMetricValidator, Configuration config) {
+    this(dbClient, reportReader, metricRepository, reportMetricValidator, createDelegate(config.get(STORE_PROPERTY).orElse(MAP_STORE)));
+  }
+
   public MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository,
     ReportMetricValidator reportMetricValidator) {
+    this(dbClient, reportReader, metricRepository, reportMetricValidator, new MapBasedRawMeasureRepository<>(toReportRef()));
+  }
+
+  private MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository,
+    ReportMetricValidator reportMetricValidator, RawMeasureRepository delegate) {
+    this.delegate = delegate;
     this.dbClient = dbClient;
     this.reportReader = reportReader;
     this.reportMetricValidator = reportMetricValidator;
@@ -65,6 +87,20 @@ public class MeasureRepositoryImpl implements MeasureRepository {
     this.metricRepository = metricRepository;
   }
 
+  private static RawMeasureRepository createDelegate(String store) {
+    switch (store) {
+      case MAP_STORE:
+        return new MapBasedRawMeasureRepository<>(toReportRef());
+      case PRIMITIVE_STORE:
+        return new PrimitiveRawMeasureRepository(false);
+      case OFF_HEAP_STORE:
+        return new PrimitiveRawMeasureRepository(true);
+      default:
+        throw new IllegalArgumentException(format("Unsupported value of property %s: '%s'. Expected one of %s, %s or %s",
+          STORE_PROPERTY, store, MAP_STORE, PRIMITIVE_STORE, OFF_HEAP_STORE));
+    }
+  }
+
   @Override
   public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
     // fail fast
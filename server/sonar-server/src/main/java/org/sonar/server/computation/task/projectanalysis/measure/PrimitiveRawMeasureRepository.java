@@ -0,0 +1,384 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * Implementation of {@link RawMeasureRepository} which does not keep {@link Measure} objects in memory: the numeric
+ * values of the measures are stored in fixed size rows of a {@link ByteBuffer} (on or off heap), their texts (string
+ * values and data) in a separate list. {@link Measure} objects are created again each time they are read.
+ * <p>
+ * Rows are indexed by the report ref of the {@link Component} and by the {@link Metric}. Measures associated to a
+ * developer are not stored in rows but in a {@link MapBasedRawMeasureRepository}.
+ * </p>
+ *
+ * Intended to be used as a delegate of other MeasureRepository implementations (hence the final keyword).
+ */
+public final class PrimitiveRawMeasureRepository implements RawMeasureRepository {
+  private static final int ROW_SIZE = 32;
+  private static final int METRIC_OFFSET = 0;
+  private static final int NEXT_ROW_OFFSET = 4;
+  private static final int TEXT_OFFSET = 8;
+  private static final int VALUE_TYPE_OFFSET = 12;
+  private static final int FLAGS_OFFSET = 13;
+  private static final int VALUE_OFFSET = 16;
+  private static final int VARIATION_OFFSET = 24;
+
+  private static final byte HAS_VARIATION = 1;
+  private static final byte HAS_QUALITY_GATE_STATUS = 2;
+
+  private static final int NONE = -1;
+  private static final int INITIAL_ROWS = 1024;
+  private static final Measure.ValueType[] VALUE_TYPES = Measure.ValueType.values();
+  private static final Measure.Level[] LEVELS = Measure.Level.values();
+
+  private final boolean offHeap;
+  private ByteBuffer rows;
+  private int rowCount = 0;
+
+  /**
+   * Open addressing hash table of the rows, keyed by component ref and metric index.
+   */
+  private long[] slotKeys;
+  private int[] slotRows;
+  private int slotMask;
+
+  /**
+   * Linked list of rows of each component, the next row being stored in each row.
+   */
+  private int[] firstRowByComponentRef = newEmptyIntArray(INITIAL_ROWS);
+
+  private final List<String> texts = new ArrayList<>();
+  private final Map<Integer, QualityGateStatus> qualityGateStatusByRow = new HashMap<>();
+  private final Map<String, Integer> metricIndexesByKey = new HashMap<>();
+  private final List<Metric> metrics = new ArrayList<>();
+  private final MapBasedRawMeasureRepository<Integer> developerMeasures = new MapBasedRawMeasureRepository<>(toReportRef());
+
+  /**
+   * @param offHeap whether the rows of measures are stored in direct byte buffers, outside of the Java heap
+   */
+  public PrimitiveRawMeasureRepository(boolean offHeap) {
+    this.offHeap = offHeap;
+    this.rows = allocate(INITIAL_ROWS * ROW_SIZE);
+    resetSlots(2 * INITIAL_ROWS);
+  }
+
+  /**
+   * @throws UnsupportedOperationException all the time, not supported
+   */
+  @Override
+  public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public int loadAsRawMeasures(Collection<Component> components, Collection<Metric> metrics) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    int row = findRow(component, metric);
+    if (row == NONE) {
+      return Optional.absent();
+    }
+    return Optional.of(toMeasure(row));
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+    if (measure.getDeveloper() != null) {
+      developerMeasures.add(component, metric, measure);
+      return;
+    }
+
+    if (findRow(component, metric) != NONE) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+    if (measure.getDeveloper() != null) {
+      developerMeasures.update(component, metric, measure);
+      return;
+    }
+
+    if (findRow(component, metric) == NONE) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      format(
+        "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+        measure.getValueType(), metric.getType().getValueType()));
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+
+    Set<Measure> developerRawMeasures = developerMeasures.getRawMeasures(component, metric);
+    int row = findRow(component, metric);
+    if (row == NONE) {
+      return developerRawMeasures;
+    }
+    return ImmutableSet.<Measure>builder().add(toMeasure(row)).addAll(developerRawMeasures).build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int ref = component.getReportAttributes().getRef();
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    int row = ref < firstRowByComponentRef.length ? firstRowByComponentRef[ref] : NONE;
+    while (row != NONE) {
+      builder.put(metrics.get(rows.getInt(row * ROW_SIZE + METRIC_OFFSET)).getKey(), toMeasure(row));
+      row = rows.getInt(row * ROW_SIZE + NEXT_ROW_OFFSET);
+    }
+    builder.putAll(developerMeasures.getRawMeasures(component));
+    return builder.build();
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+    if (measure.getDeveloper() != null) {
+      developerMeasures.add(component, metric, measure, overridePolicy);
+      return;
+    }
+
+    int ref = component.getReportAttributes().getRef();
+    int metricIndex = toMetricIndex(metric);
+    long key = toKey(ref, metricIndex);
+    int slot = findSlot(key);
+    int row = slotRows[slot];
+    if (row == NONE) {
+      row = newRow(ref, metricIndex);
+      slotKeys[slot] = key;
+      slotRows[slot] = row;
+      if (rowCount > slotRows.length / 2) {
+        resetSlots(slotRows.length * 2);
+      }
+    } else if (overridePolicy == OverridePolicy.DO_NOT_OVERRIDE) {
+      return;
+    }
+    write(row, measure);
+  }
+
+  private int findRow(Component component, Metric metric) {
+    Integer metricIndex = metricIndexesByKey.get(metric.getKey());
+    if (metricIndex == null) {
+      return NONE;
+    }
+    return slotRows[findSlot(toKey(component.getReportAttributes().getRef(), metricIndex))];
+  }
+
+  private int toMetricIndex(Metric metric) {
+    Integer metricIndex = metricIndexesByKey.get(metric.getKey());
+    if (metricIndex == null) {
+      metricIndex = metrics.size();
+      metrics.add(metric);
+      metricIndexesByKey.put(metric.getKey(), metricIndex);
+    }
+    return metricIndex;
+  }
+
+  private int newRow(int ref, int metricIndex) {
+    if ((rowCount + 1) * ROW_SIZE > rows.capacity()) {
+      ByteBuffer newRows = allocate(rows.capacity() * 2);
+      rows.clear();
+      newRows.put(rows);
+      rows = newRows;
+    }
+    if (ref >= firstRowByComponentRef.length) {
+      int length = Math.max(ref + 1, firstRowByComponentRef.length * 2);
+      int[] newFirstRows = newEmptyIntArray(length);
+      System.arraycopy(firstRowByComponentRef, 0, newFirstRows, 0, firstRowByComponentRef.length);
+      firstRowByComponentRef = newFirstRows;
+    }
+
+    int row = rowCount;
+    rowCount++;
+    int offset = row * ROW_SIZE;
+    rows.putInt(offset + METRIC_OFFSET, metricIndex);
+    rows.putInt(offset + NEXT_ROW_OFFSET, firstRowByComponentRef[ref]);
+    rows.putInt(offset + TEXT_OFFSET, NONE);
+    firstRowByComponentRef[ref] = row;
+    return row;
+  }
+
+  private void write(int row, Measure measure) {
+    int offset = row * ROW_SIZE;
+    byte flags = 0;
+    rows.put(offset + VALUE_TYPE_OFFSET, (byte) measure.getValueType().ordinal());
+    rows.putDouble(offset + VALUE_OFFSET, toDouble(measure));
+    if (measure.hasVariation()) {
+      flags |= HAS_VARIATION;
+      rows.putDouble(offset + VARIATION_OFFSET, measure.getVariation());
+    }
+    if (measure.hasQualityGateStatus()) {
+      flags |= HAS_QUALITY_GATE_STATUS;
+      qualityGateStatusByRow.put(row, measure.getQualityGateStatus());
+    } else {
+      qualityGateStatusByRow.remove(row);
+    }
+    rows.put(offset + FLAGS_OFFSET, flags);
+
+    int textIndex = rows.getInt(offset + TEXT_OFFSET);
+    String data = measure.getData();
+    if (textIndex != NONE) {
+      texts.set(textIndex, data);
+    } else if (data != null) {
+      rows.putInt(offset + TEXT_OFFSET, texts.size());
+      texts.add(data);
+    }
+  }
+
+  private static double toDouble(Measure measure) {
+    switch (measure.getValueType()) {
+      case BOOLEAN:
+        return measure.getBooleanValue() ? 1.0d : 0.0d;
+      case INT:
+        return measure.getIntValue();
+      case LONG:
+        return measure.getLongValue();
+      case DOUBLE:
+        return measure.getDoubleValue();
+      case LEVEL:
+        return measure.getLevelValue().ordinal();
+      default:
+        return 0.0d;
+    }
+  }
+
+  private Measure toMeasure(int row) {
+    int offset = row * ROW_SIZE;
+    Measure.ValueType valueType = VALUE_TYPES[rows.get(offset + VALUE_TYPE_OFFSET)];
+    byte flags = rows.get(offset + FLAGS_OFFSET);
+    double value = rows.getDouble(offset + VALUE_OFFSET);
+    int textIndex = rows.getInt(offset + TEXT_OFFSET);
+
+    return new Measure(valueType, null,
+      hasNumericValue(valueType) ? value : null,
+      textIndex == NONE ? null : texts.get(textIndex),
+      valueType == Measure.ValueType.LEVEL ? LEVELS[(int) value] : null,
+      (flags & HAS_QUALITY_GATE_STATUS) != 0 ? qualityGateStatusByRow.get(row) : null,
+      (flags & HAS_VARIATION) != 0 ? rows.getDouble(offset + VARIATION_OFFSET) : null);
+  }
+
+  private static boolean hasNumericValue(Measure.ValueType valueType) {
+    return valueType == Measure.ValueType.BOOLEAN
+      || valueType == Measure.ValueType.INT
+      || valueType == Measure.ValueType.LONG
+      || valueType == Measure.ValueType.DOUBLE;
+  }
+
+  /**
+   * Index of the slot of the specified key: either the one holding the key or the empty one where it should be added.
+   */
+  private int findSlot(long key) {
+    int slot = mix(key) & slotMask;
+    while (slotRows[slot] != NONE && slotKeys[slot] != key) {
+      slot = (slot + 1) & slotMask;
+    }
+    return slot;
+  }
+
+  private void resetSlots(int size) {
+    long[] oldKeys = slotKeys;
+    int[] oldRows = slotRows;
+    slotKeys = new long[size];
+    slotRows = newEmptyIntArray(size);
+    slotMask = size - 1;
+    if (oldRows != null) {
+      for (int i = 0; i < oldRows.length; i++) {
+        if (oldRows[i] != NONE) {
+          int slot = findSlot(oldKeys[i]);
+          slotKeys[slot] = oldKeys[i];
+          slotRows[slot] = oldRows[i];
+        }
+      }
+    }
+  }
+
+  private ByteBuffer allocate(int capacity) {
+    return offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+
+  private static long toKey(int ref, int metricIndex) {
+    return ((long) ref << 32) | (metricIndex & 0xFFFFFFFFL);
+  }
+
+  private static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private static int[] newEmptyIntArray(int length) {
+    int[] res = new int[length];
+    Arrays.fill(res, NONE);
+    return res;
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import com.google.common.base.Optional;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -49,8 +50,6 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static org.sonar.core.util.stream.MoreCollectors.uniqueIndex;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
@@ -63,6 +62,9 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  */
 public class ComputeMeasureVariationsStep implements ComputationStep {
 
+  // measures on files are currently purged, so past measures are not available on files
+  private static final CrawlerDepthLimit VISITOR_DEPTH = CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW);
+
   private final DbClient dbClient;
   private final TreeRootHolder treeRootHolder;
   private final PeriodHolder periodHolder;
@@ -80,24 +82,50 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
   @Override
   public void execute() {
+    if (!periodHolder.hasPeriod()) {
+      return;
+    }
     try (DbSession dbSession = dbClient.openSession(false)) {
       List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(isNumeric()).collect(MoreCollectors.toList());
-      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(dbSession, metrics))
+      PastMeasures pastMeasures = loadPastMeasures(dbSession, metrics);
+      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(pastMeasures, metrics))
         .visit(treeRootHolder.getRoot());
     }
   }
 
+  /**
+   * Past measures of all the visited components are loaded with a single request (or a few, if there are many
+   * numeric metrics), instead of one request per component.
+   */
+  private PastMeasures loadPastMeasures(DbSession dbSession, List<Metric> metrics) {
+    Set<String> componentUuids = new HashSet<>();
+    new DepthTraversalTypeAwareCrawler(new TypeAwareVisitorAdapter(VISITOR_DEPTH, PRE_ORDER) {
+      @Override
+      public void visitAny(Component component) {
+        componentUuids.add(component.getUuid());
+      }
+    }).visit(treeRootHolder.getRoot());
+
+    PastMeasures pastMeasures = new PastMeasures(metrics);
+    Period period = periodHolder.getPeriod();
+    dbClient.measureDao().scrollPastMeasures(dbSession, period.getAnalysisUuid(), pastMeasures.getMetricIds(), context -> {
+      PastMeasureDto pastMeasure = context.getResultObject();
+      // measures of files are excluded by the request, only those of the components removed since the period remain
+      if (componentUuids.contains(pastMeasure.getComponentUuid())) {
+        pastMeasures.add(pastMeasure);
+      }
+    });
+    return pastMeasures;
+  }
+
   private class VariationMeasuresVisitor extends TypeAwareVisitorAdapter {
 
-    private final DbSession session;
-    private final Set<Integer> metricIds;
+    private final PastMeasures pastMeasures;
     private final List<Metric> metrics;
 
-    VariationMeasuresVisitor(DbSession session, List<Metric> metrics) {
-      // measures on files are currently purged, so past measures are not available on files
-      super(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER);
-      this.session = session;
-      this.metricIds = metrics.stream().map(Metric::getId).collect(MoreCollectors.toSet());
+    VariationMeasuresVisitor(PastMeasures pastMeasures, List<Metric> metrics) {
+      super(VISITOR_DEPTH, PRE_ORDER);
+      this.pastMeasures = pastMeasures;
       this.metrics = metrics;
     }
 
@@ -109,27 +137,16 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
     private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component) {
       MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
-      if (periodHolder.hasPeriod()) {
-        Period period = periodHolder.getPeriod();
-        List<PastMeasureDto> pastMeasures = dbClient.measureDao()
-          .selectPastMeasures(session, component.getUuid(), period.getAnalysisUuid(), metricIds);
-        setVariationMeasures(component, pastMeasures, measuresWithVariationRepository);
-      }
-      return measuresWithVariationRepository;
-    }
-
-    private void setVariationMeasures(Component component, List<PastMeasureDto> pastMeasures, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      Map<MeasureKey, PastMeasureDto> pastMeasuresByMeasureKey = pastMeasures
-        .stream()
-        .collect(uniqueIndex(m -> new MeasureKey(metricRepository.getById((long) m.getMetricId()).getKey(), null), identity()));
-      for (Metric metric : metrics) {
+      double[] pastValues = pastMeasures.get(component);
+      for (int i = 0; i < metrics.size(); i++) {
+        Metric metric = metrics.get(i);
         Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
         if (measure.isPresent() && !measure.get().hasVariation()) {
-          PastMeasureDto pastMeasure = pastMeasuresByMeasureKey.get(new MeasureKey(metric.getKey(), null));
-          double pastValue = (pastMeasure != null && pastMeasure.hasValue()) ? pastMeasure.getValue() : 0d;
+          double pastValue = pastValues == null ? 0d : pastValues[i];
           measuresWithVariationRepository.add(metric, measure.get(), computeVariation(measure.get(), pastValue));
         }
       }
+      return measuresWithVariationRepository;
     }
 
     private double computeVariation(Measure measure, double pastValue) {
@@ -158,6 +175,39 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
     }
   }
 
+  /**
+   * Values of past measures, by component uuid. Values of a component are stored in an array indexed by the
+   * position of the metric in the list of numeric metrics, so that memory only depends on the number of
+   * components having past measures and on the number of numeric metrics. Missing past measures and past
+   * measures without value are both 0.
+   */
+  private static final class PastMeasures {
+    private final Map<Integer, Integer> indexByMetricId = new HashMap<>();
+    private final Map<String, double[]> valuesByComponentUuid = new HashMap<>();
+
+    PastMeasures(List<Metric> metrics) {
+      for (int i = 0; i < metrics.size(); i++) {
+        indexByMetricId.put(metrics.get(i).getId(), i);
+      }
+    }
+
+    Set<Integer> getMetricIds() {
+      return indexByMetricId.keySet();
+    }
+
+    void add(PastMeasureDto pastMeasure) {
+      Integer index = indexByMetricId.get(pastMeasure.getMetricId());
+      if (index != null && pastMeasure.hasValue()) {
+        valuesByComponentUuid.computeIfAbsent(pastMeasure.getComponentUuid(), uuid -> new double[indexByMetricId.size()])[index] = pastMeasure.getValue();
+      }
+    }
+
+    @CheckForNull
+    double[] get(Component component) {
+      return valuesByComponentUuid.get(component.getUuid());
+    }
+  }
+
   private static final class MeasuresWithVariationRepository {
 
     private final Map<MeasureKey, MeasureWithVariation> measuresWithVariations = new HashMap<>();
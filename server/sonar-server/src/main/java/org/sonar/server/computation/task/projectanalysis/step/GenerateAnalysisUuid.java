@@ -19,11 +19,16 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.Set;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.server.computation.task.projectanalysis.analysis.MutableAnalysisMetadataHolder;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
-public class GenerateAnalysisUuid implements ComputationStep {
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.ANALYSIS_METADATA;
+
+public class GenerateAnalysisUuid implements ConcurrentComputationStep {
 
   private final UuidFactory uuidFactory;
   private final MutableAnalysisMetadataHolder analysisMetadataHolder;
@@ -38,6 +43,16 @@ public class GenerateAnalysisUuid implements ComputationStep {
     analysisMetadataHolder.setUuid(uuidFactory.create());
   }
 
+  @Override
+  public Set<String> reads() {
+    return emptySet();
+  }
+
+  @Override
+  public Set<String> writes() {
+    return singleton(ANALYSIS_METADATA);
+  }
+
   @Override
   public String getDescription() {
     return "Generate analysis UUID";
@@ -21,19 +21,31 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.issue.IssuesToIndex;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.issue.index.IssueIndexer;
 
+/**
+ * Calls {@link ProjectIndexer#indexOnAnalysis(String)} of each indexer, except for issues which have been persisted
+ * by the analysis: only the issues referenced by {@link IssuesToIndex} are indexed.
+ */
 public class IndexAnalysisStep implements ComputationStep {
 
   private static final Logger LOGGER = Loggers.get(IndexAnalysisStep.class);
 
   private final TreeRootHolder treeRootHolder;
+  private final IssuesToIndex issuesToIndex;
+  private final DbClient dbClient;
   private final ProjectIndexer[] indexers;
 
-  public IndexAnalysisStep(TreeRootHolder treeRootHolder, ProjectIndexer... indexers) {
+  public IndexAnalysisStep(TreeRootHolder treeRootHolder, IssuesToIndex issuesToIndex, DbClient dbClient, ProjectIndexer... indexers) {
     this.treeRootHolder = treeRootHolder;
+    this.issuesToIndex = issuesToIndex;
+    this.dbClient = dbClient;
     this.indexers = indexers;
   }
 
@@ -42,7 +54,20 @@ public class IndexAnalysisStep implements ComputationStep {
     String branchUuid = treeRootHolder.getRoot().getUuid();
     for (ProjectIndexer indexer : indexers) {
       LOGGER.debug("Call {}", indexer);
-      indexer.indexOnAnalysis(branchUuid);
+      if (indexer instanceof IssueIndexer && issuesToIndex.isInitialized()) {
+        indexIssues((IssueIndexer) indexer);
+      } else {
+        indexer.indexOnAnalysis(branchUuid);
+      }
+    }
+  }
+
+  private void indexIssues(IssueIndexer issueIndexer) {
+    if (issuesToIndex.getItems().isEmpty()) {
+      return;
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      issueIndexer.index(dbSession, issuesToIndex.getItems());
     }
   }
 
@@ -20,9 +20,11 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
@@ -46,7 +48,7 @@ import org.sonar.server.computation.task.projectanalysis.analysis.Project;
 import org.sonar.server.computation.task.projectanalysis.analysis.ScannerPlugin;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.BranchLoader;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.qualityprofile.QualityProfile;
 
@@ -54,13 +56,17 @@ import static java.util.stream.Collectors.toMap;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Maps.transformValues;
 import static java.lang.String.format;
+import static java.util.Collections.singleton;
 import static org.apache.commons.lang.StringUtils.isNotEmpty;
 import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.ANALYSIS_METADATA;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.CE_TASK;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.REPORT;
 
 /**
  * Feed analysis metadata holder with metadata from the analysis report.
  */
-public class LoadReportAnalysisMetadataHolderStep implements ComputationStep {
+public class LoadReportAnalysisMetadataHolderStep implements ConcurrentComputationStep {
   private final CeTask ceTask;
   private final BatchReportReader reportReader;
   private final MutableAnalysisMetadataHolder analysisMetadata;
@@ -232,6 +238,16 @@ public class LoadReportAnalysisMetadataHolderStep implements ComputationStep {
     return reportMetadata.getProjectKey();
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(REPORT, CE_TASK);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return singleton(ANALYSIS_METADATA);
+  }
+
   @Override
   public String getDescription() {
     return "Load analysis metadata";
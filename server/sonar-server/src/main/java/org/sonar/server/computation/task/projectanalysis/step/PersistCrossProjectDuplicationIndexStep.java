@@ -19,7 +19,9 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.ImmutableSet;
 import java.util.List;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
@@ -36,14 +38,20 @@ import org.sonar.server.computation.task.projectanalysis.component.DepthTraversa
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
+import static java.util.Collections.singleton;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.ANALYSIS_METADATA;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.COMPONENT_TREE;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.CROSS_PROJECT_DUPLICATION_STATUS;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.REPORT;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.TABLE_DUPLICATIONS_INDEX;
 
 /**
  * Persist cross project duplications text blocks into DUPLICATIONS_INDEX table
  */
-public class PersistCrossProjectDuplicationIndexStep implements ComputationStep {
+public class PersistCrossProjectDuplicationIndexStep implements ConcurrentComputationStep {
 
   private final DbClient dbClient;
   private final TreeRootHolder treeRootHolder;
@@ -133,6 +141,16 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
     }
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(REPORT, COMPONENT_TREE, ANALYSIS_METADATA, CROSS_PROJECT_DUPLICATION_STATUS);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return singleton(TABLE_DUPLICATIONS_INDEX);
+  }
+
   @Override
   public String getDescription() {
     return "Persist cross project duplications index";
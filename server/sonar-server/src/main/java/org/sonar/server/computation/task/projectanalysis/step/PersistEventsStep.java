@@ -19,7 +19,9 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.ImmutableSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -36,9 +38,15 @@ import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolde
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.event.Event;
 import org.sonar.server.computation.task.projectanalysis.event.EventRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
-public class PersistEventsStep implements ComputationStep {
+import static java.util.Collections.singleton;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.ANALYSIS_METADATA;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.COMPONENT_TREE;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.EVENTS;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.TABLE_EVENTS;
+
+public class PersistEventsStep implements ConcurrentComputationStep {
 
   private final DbClient dbClient;
   private final System2 system2;
@@ -67,6 +75,16 @@ public class PersistEventsStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(COMPONENT_TREE, ANALYSIS_METADATA, EVENTS);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return singleton(TABLE_EVENTS);
+  }
+
   @Override
   public String getDescription() {
     return "Persist events";
@@ -19,14 +19,28 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.Message;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.sonar.api.utils.System2;
@@ -45,7 +59,10 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.duplication.Duplicate;
+import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
 import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepository;
+import org.sonar.server.computation.task.projectanalysis.duplication.TextBlock;
 import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfo;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepository;
@@ -58,11 +75,48 @@ import org.sonar.server.computation.task.projectanalysis.source.RangeOffsetConve
 import org.sonar.server.computation.task.projectanalysis.source.ScmLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SymbolsLineReader;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
+import static java.lang.String.format;
+import static java.util.Collections.singleton;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.ANALYSIS_METADATA;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.COMPONENT_TREE;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.DUPLICATIONS;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.REPORT;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.SCM_INFO;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.SOURCE_LINES;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.TABLE_FILE_SOURCES_OF_SOURCES;
 
-public class PersistFileSourcesStep implements ComputationStep {
+/**
+ * Persists the sources of files through a pipeline of three stages:
+ * <ol>
+ *   <li>lines of files are assembled and encoded concurrently by a pool of worker threads</li>
+ *   <li>encoded files wait to be persisted in a queue, which is bounded by the size of the encoded data</li>
+ *   <li>the thread executing the step is the single writer, inserting and updating sources with JDBC batches</li>
+ * </ol>
+ * The size of the queue is bounded so that encoding files faster than they can be persisted does not lead to OOM. The size
+ * of a file is estimated from the data of the report it is computed from and reserved before the file is encoded, so that
+ * files being encoded are bounded as well.
+ * <p>
+ * Files which are unchanged according to the report and whose report data have the same hash as when sources were
+ * persisted ({@link FileSourceDto#getInputsHash()}) are skipped: their lines are neither read by the line readers
+ * nor assembled and the sources in db are kept as they are.
+ * </p>
+ */
+public class PersistFileSourcesStep implements ConcurrentComputationStep {
+
+  private static final int DEFAULT_ENCODING_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+  private static final int DEFAULT_MAX_BUFFERED_BYTES = 32 * 1024 * 1024;
+  private static final int DEFAULT_MAX_FILES_PER_BATCH = 50;
+  /**
+   * To be incremented when sources computed from the same data of report, or their encoding in db, change, so that sources are computed again
+   */
+  private static final String INPUTS_HASH_VERSION = "2";
+  /**
+   * Length of the MD5 hash of a line in {@link FileSourceDto#getLineHashes()}, including the line separator
+   */
+  private static final int LINE_HASH_LENGTH = 33;
 
   private final DbClient dbClient;
   private final System2 system2;
@@ -72,9 +126,20 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
   private final AnalysisMetadataHolder analysisMetadataHolder;
+  private final int encodingThreads;
+  private final int maxBufferedBytes;
+  private final int maxFilesPerBatch;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
     ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, AnalysisMetadataHolder analysisMetadataHolder) {
+    this(dbClient, system2, treeRootHolder, reportReader, sourceLinesRepository, scmInfoRepository, duplicationRepository, analysisMetadataHolder,
+      DEFAULT_ENCODING_THREADS, DEFAULT_MAX_BUFFERED_BYTES, DEFAULT_MAX_FILES_PER_BATCH);
+  }
+
+  @VisibleForTesting
+  PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, AnalysisMetadataHolder analysisMetadataHolder,
+    int encodingThreads, int maxBufferedBytes, int maxFilesPerBatch) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -83,37 +148,137 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
     this.analysisMetadataHolder = analysisMetadataHolder;
+    this.encodingThreads = encodingThreads;
+    this.maxBufferedBytes = maxBufferedBytes;
+    this.maxFilesPerBatch = maxFilesPerBatch;
   }
 
   @Override
   public void execute() {
-    // Don't use batch insert for file_sources since keeping all data in memory can produce OOM for big files
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(dbSession))
-        .visit(treeRootHolder.getRoot());
+    FileCollector fileCollector = new FileCollector();
+    new DepthTraversalTypeAwareCrawler(fileCollector).visit(treeRootHolder.getRoot());
+    if (fileCollector.files.isEmpty()) {
+      return;
+    }
+
+    // the writer flushes the batch itself, so that the budget of the queue is released only once data is sent to db
+    try (DbSession dbSession = dbClient.openBatchSession(maxFilesPerBatch + 1)) {
+      Map<String, FileSourceDto> previousFileSourcesByUuid = loadPreviousFileSources(dbSession, fileCollector.projectUuid);
+      ExecutorService encoders = Executors.newFixedThreadPool(encodingThreads, new ThreadFactoryBuilder()
+        .setNameFormat("CE source encoder-%d")
+        .setDaemon(true)
+        .build());
+      try {
+        Semaphore budget = new Semaphore(maxBufferedBytes);
+        BlockingQueue<EncodedSource> queue = new LinkedBlockingQueue<>();
+        for (Component file : fileCollector.files) {
+          FileSourceDto previousDto = previousFileSourcesByUuid.get(file.getUuid());
+          encoders.execute(() -> queue.add(encode(file, previousDto, budget)));
+        }
+        new Writer(dbSession, fileCollector.projectUuid, previousFileSourcesByUuid, budget)
+          .write(queue, fileCollector.files.size());
+      } finally {
+        encoders.shutdownNow();
+      }
     }
   }
 
-  private class FileSourceVisitor extends TypeAwareVisitorAdapter {
+  private static Map<String, FileSourceDto> loadPreviousFileSources(DbSession session, String projectUuid) {
+    Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
+    session.select("org.sonar.db.source.FileSourceMapper.selectHashesForProject", ImmutableMap.of("projectUuid", projectUuid, "dataType", Type.SOURCE),
+      context -> {
+        FileSourceDto dto = (FileSourceDto) context.getResultObject();
+        previousFileSourcesByUuid.put(dto.getFileUuid(), dto);
+      });
+    return previousFileSourcesByUuid;
+  }
 
-    private final DbSession session;
+  /**
+   * Executed by the worker threads. Failures are not thrown but returned, so that they are raised by the writer.
+   */
+  private EncodedSource encode(Component file, @Nullable FileSourceDto previousDto, Semaphore budget) {
+    try {
+      InputsDigest inputs = digestInputs(file);
+      String inputsHash = inputs.hash();
+      if (file.getStatus() == Status.SAME && previousDto != null && inputsHash.equals(previousDto.getInputsHash())) {
+        // fast path: sources in db have been computed from the very same data
+        return EncodedSource.unchanged(file);
+      }
 
-    private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
+      // a file bigger than the budget is allowed to use the whole budget, it would be blocked forever otherwise
+      int permits = (int) Math.min(maxBufferedBytes, inputs.size + (long) LINE_HASH_LENGTH * file.getFileAttributes().getLines());
+      budget.acquire(permits);
+      try {
+        return encodeLines(file, inputsHash, permits);
+      } catch (RuntimeException e) {
+        budget.release(permits);
+        throw e;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new EncodedSource(file, new IllegalStateException(format("Interrupted while persisting sources of %s", file.getKey()), e));
+    } catch (Exception e) {
+      return new EncodedSource(file, new IllegalStateException(format("Cannot persist sources of %s", file.getKey()), e));
+    }
+  }
+
+  private EncodedSource encodeLines(Component file, String inputsHash, int permits) {
+    Optional<ScmInfo> scmInfo;
+    // the repository lazily loads and caches SCM info, it is not thread-safe
+    synchronized (scmInfoRepository) {
+      scmInfo = scmInfoRepository.getScmInfo(file);
+    }
+    try (CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
+      LineReaders lineReaders = new LineReaders(reportReader, scmInfo, duplicationRepository, file)) {
+      ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
+      ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
+      return new EncodedSource(file, fileSourceData, lineReaders.getLatestChange(), inputsHash, permits);
+    }
+  }
+
+  /**
+   * Digest of all the data of the report which {@link FileSourceDto#getBinaryData() binary data} of the file are computed from.
+   * It is much cheaper to compute than the binary data as lines are neither assembled nor encoded.
+   */
+  private InputsDigest digestInputs(Component file) {
+    InputsDigest digest = new InputsDigest();
+    digest.update(INPUTS_HASH_VERSION);
+    digest.update(String.valueOf(file.getFileAttributes().getLines()));
+    try (CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file)) {
+      while (linesIterator.hasNext()) {
+        digest.update(linesIterator.next());
+      }
+    }
+    int ref = file.getReportAttributes().getRef();
+    ScannerReport.Changesets changesets = reportReader.readChangesets(ref);
+    digest.update(changesets == null ? new byte[0] : changesets.toByteArray());
+    digest.updateWithMessages(reportReader.readComponentCoverage(ref));
+    digest.updateWithMessages(reportReader.readComponentSyntaxHighlighting(ref));
+    digest.updateWithMessages(reportReader.readComponentSymbols(ref));
+    for (Duplication duplication : duplicationRepository.getDuplications(file)) {
+      digest.update(toString(duplication.getOriginal()));
+      for (Duplicate duplicate : duplication.getDuplicates()) {
+        digest.update(duplicate.getClass().getSimpleName() + toString(duplicate.getTextBlock()));
+      }
+    }
+    return digest;
+  }
+
+  private static String toString(TextBlock textBlock) {
+    return textBlock.getStart() + "-" + textBlock.getEnd();
+  }
+
+  private class FileCollector extends TypeAwareVisitorAdapter {
+    private final List<Component> files = new ArrayList<>();
     private String projectUuid;
 
-    private FileSourceVisitor(DbSession session) {
+    private FileCollector() {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
-      this.session = session;
     }
 
     @Override
     public void visitProject(Component project) {
       this.projectUuid = project.getUuid();
-      session.select("org.sonar.db.source.FileSourceMapper.selectHashesForProject", ImmutableMap.of("projectUuid", projectUuid, "dataType", Type.SOURCE),
-        context -> {
-          FileSourceDto dto = (FileSourceDto) context.getResultObject();
-          previousFileSourcesByUuid.put(dto.getFileUuid(), dto);
-        });
     }
 
     @Override
@@ -121,24 +286,112 @@ public class PersistFileSourcesStep implements ComputationStep {
       if (analysisMetadataHolder.isIncrementalAnalysis() && file.getStatus() == Status.SAME) {
         return;
       }
+      files.add(file);
+    }
+  }
+
+  /**
+   * Hash of the data of the report, and their size, which is an estimate of the size of the encoded sources
+   */
+  private static class InputsDigest {
+    private final MessageDigest digest = DigestUtils.getMd5Digest();
+    private long size = 0L;
+
+    private void updateWithMessages(CloseableIterator<? extends Message> messages) {
+      try (CloseableIterator<? extends Message> it = messages) {
+        while (it.hasNext()) {
+          update(it.next().toByteArray());
+        }
+      }
+    }
+
+    private void update(String value) {
+      update(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Values are prefixed with their length, so that the concatenation of different values can not have the same hash.
+     */
+    private void update(byte[] value) {
+      digest.update(Ints.toByteArray(value.length));
+      digest.update(value);
+      size += value.length;
+    }
+
+    private String hash() {
+      return Hex.encodeHexString(digest.digest());
+    }
+  }
+
+  private class Writer {
+    private final DbSession session;
+    private final String projectUuid;
+    private final Map<String, FileSourceDto> previousFileSourcesByUuid;
+    private final Semaphore budget;
+    private int batchedFiles = 0;
+    private int batchedPermits = 0;
+
+    private Writer(DbSession session, String projectUuid, Map<String, FileSourceDto> previousFileSourcesByUuid, Semaphore budget) {
+      this.session = session;
+      this.projectUuid = projectUuid;
+      this.previousFileSourcesByUuid = previousFileSourcesByUuid;
+      this.budget = budget;
+    }
+
+    private void write(BlockingQueue<EncodedSource> queue, int fileCount) {
+      try {
+        for (int i = 0; i < fileCount; i++) {
+          EncodedSource source = queue.poll();
+          if (source == null) {
+            // permits of the batched files must be released before waiting, encoders may be waiting for them
+            flush();
+            source = queue.take();
+          }
+          if (source.failure != null) {
+            throw source.failure;
+          }
+          persist(source);
+        }
+        flush();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while persisting sources", e);
+      }
+    }
 
-      try (CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
-           LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file)) {
-        ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
-        ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
-        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
+    private void persist(EncodedSource source) {
+      if (source.unchanged) {
+        return;
+      }
+      boolean batched;
+      try {
+        batched = persistSource(source);
       } catch (Exception e) {
-        throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
+        throw new IllegalStateException(format("Cannot persist sources of %s", source.file.getKey()), e);
+      }
+      if (batched) {
+        batchedFiles++;
+        batchedPermits += source.permits;
+        if (batchedFiles >= maxFilesPerBatch || batchedPermits >= maxBufferedBytes / 2) {
+          flush();
+        }
+      } else {
+        budget.release(source.permits);
       }
     }
 
-    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
-      DbFileSources.Data fileData = fileSourceData.getFileSourceData();
+    private void flush() {
+      if (batchedFiles == 0) {
+        return;
+      }
+      session.commit();
+      budget.release(batchedPermits);
+      batchedFiles = 0;
+      batchedPermits = 0;
+    }
 
-      byte[] data = FileSourceDto.encodeSourceData(fileData);
-      String dataHash = DigestUtils.md5Hex(data);
-      String srcHash = fileSourceData.getSrcHash();
-      String lineHashes = fileSourceData.getLineHashes();
+    private boolean persistSource(EncodedSource source) {
+      String componentUuid = source.file.getUuid();
       FileSourceDto previousDto = previousFileSourcesByUuid.get(componentUuid);
 
       if (previousDto == null) {
@@ -146,41 +399,92 @@ public class PersistFileSourcesStep implements ComputationStep {
           .setProjectUuid(projectUuid)
           .setFileUuid(componentUuid)
           .setDataType(Type.SOURCE)
-          .setBinaryData(data)
-          .setSrcHash(srcHash)
-          .setDataHash(dataHash)
-          .setLineHashes(lineHashes)
+          .setBinaryData(source.data)
+          .setSrcHash(source.srcHash)
+          .setDataHash(source.dataHash)
+          .setLineHashes(source.lineHashes)
           .setCreatedAt(system2.now())
           .setUpdatedAt(system2.now())
-          .setRevision(computeRevision(latestChange));
+          .setRevision(source.revision)
+          .setInputsHash(source.inputsHash);
         dbClient.fileSourceDao().insert(session, dto);
-        session.commit();
-      } else {
-        // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
-        boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
-        boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
-        String revision = computeRevision(latestChange);
-        boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
-        if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
-          previousDto
-            .setBinaryData(data)
-            .setDataHash(dataHash)
-            .setSrcHash(srcHash)
-            .setLineHashes(lineHashes)
-            .setRevision(revision)
-            .setUpdatedAt(system2.now());
-          dbClient.fileSourceDao().update(session, previousDto);
-          session.commit();
-        }
+        return true;
       }
+      // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
+      boolean binaryDataUpdated = !source.dataHash.equals(previousDto.getDataHash());
+      boolean srcHashUpdated = !source.srcHash.equals(previousDto.getSrcHash());
+      boolean revisionUpdated = !ObjectUtils.equals(source.revision, previousDto.getRevision());
+      if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
+        previousDto
+          .setBinaryData(source.data)
+          .setDataHash(source.dataHash)
+          .setSrcHash(source.srcHash)
+          .setLineHashes(source.lineHashes)
+          .setRevision(source.revision)
+          .setInputsHash(source.inputsHash)
+          .setUpdatedAt(system2.now());
+        dbClient.fileSourceDao().update(session, previousDto);
+        return true;
+      }
+      if (!source.inputsHash.equals(previousDto.getInputsHash())) {
+        // sources are unchanged, but they have been persisted by a previous version or computed from different data
+        dbClient.fileSourceDao().updateInputsHash(session, previousDto.getId(), source.inputsHash);
+        return true;
+      }
+      return false;
     }
+  }
 
+  /**
+   * Sources of a file, encoded as stored in db, or the failure which occurred while encoding them.
+   */
+  private static class EncodedSource {
+    private final Component file;
+    private final boolean unchanged;
+    private final byte[] data;
+    private final String dataHash;
+    private final String srcHash;
+    private final String lineHashes;
     @CheckForNull
-    private String computeRevision(@Nullable Changeset latestChange) {
-      if (latestChange == null) {
-        return null;
-      }
-      return latestChange.getRevision();
+    private final String revision;
+    private final String inputsHash;
+    private final int permits;
+    @CheckForNull
+    private final RuntimeException failure;
+
+    private EncodedSource(Component file, ComputeFileSourceData.Data fileSourceData, @Nullable Changeset latestChange, String inputsHash, int permits) {
+      DbFileSources.Data fileData = fileSourceData.getFileSourceData();
+      this.file = file;
+      this.unchanged = false;
+      this.data = FileSourceDto.encodeSourceData(fileData);
+      this.dataHash = DigestUtils.md5Hex(data);
+      this.srcHash = fileSourceData.getSrcHash();
+      this.lineHashes = fileSourceData.getLineHashes();
+      this.revision = latestChange == null ? null : latestChange.getRevision();
+      this.inputsHash = inputsHash;
+      this.permits = permits;
+      this.failure = null;
+    }
+
+    private EncodedSource(Component file, boolean unchanged, @Nullable RuntimeException failure) {
+      this.file = file;
+      this.unchanged = unchanged;
+      this.data = null;
+      this.dataHash = null;
+      this.srcHash = null;
+      this.lineHashes = null;
+      this.revision = null;
+      this.inputsHash = null;
+      this.permits = 0;
+      this.failure = failure;
+    }
+
+    private EncodedSource(Component file, RuntimeException failure) {
+      this(file, false, failure);
+    }
+
+    private static EncodedSource unchanged(Component file) {
+      return new EncodedSource(file, true, null);
     }
   }
 
@@ -190,13 +494,12 @@ public class PersistFileSourcesStep implements ComputationStep {
     @CheckForNull
     private final ScmLineReader scmLineReader;
 
-    LineReaders(BatchReportReader reportReader, ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, Component component) {
+    LineReaders(BatchReportReader reportReader, Optional<ScmInfo> scmInfoOptional, DuplicationRepository duplicationRepository, Component component) {
       int componentRef = component.getReportAttributes().getRef();
       CloseableIterator<ScannerReport.LineCoverage> coverageIt = reportReader.readComponentCoverage(componentRef);
       closeables.add(coverageIt);
       readers.add(new CoverageLineReader(coverageIt));
 
-      Optional<ScmInfo> scmInfoOptional = scmInfoRepository.getScmInfo(component);
       if (scmInfoOptional.isPresent()) {
         this.scmLineReader = new ScmLineReader(scmInfoOptional.get());
         readers.add(scmLineReader);
@@ -235,6 +538,16 @@ public class PersistFileSourcesStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(REPORT, COMPONENT_TREE, ANALYSIS_METADATA, SOURCE_LINES, SCM_INFO, DUPLICATIONS);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return singleton(TABLE_FILE_SOURCES_OF_SOURCES);
+  }
+
   @Override
   public String getDescription() {
     return "Persist sources";
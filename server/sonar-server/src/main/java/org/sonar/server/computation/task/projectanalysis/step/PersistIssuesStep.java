@@ -19,100 +19,169 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.ibatis.executor.BatchResult;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.issue.IssueComment;
 import org.sonar.api.utils.System2;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.DefaultIssueComment;
 import org.sonar.core.issue.FieldDiffs;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.BatchSession;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.es.EsQueueDto;
 import org.sonar.db.issue.IssueChangeDto;
 import org.sonar.db.issue.IssueChangeMapper;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueMapper;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.IssuesToIndex;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.issue.index.IssueIndexer;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Inserts and updates issues, as well as their changes, with JDBC batches of {@link #BATCH_SIZE_PROPERTY} statements.
+ * The statements of an issue are never split across batches.
+ * <p>
+ * Update counts of a batch are only known once it is flushed, hence conflicting updates of issues (see
+ * {@link UpdateConflictResolver}) are resolved after each batch is executed.
+ * </p>
+ * <p>
+ * The es_queue items of the inserted and updated issues are inserted along with them, so that only these issues are
+ * indexed by {@link IndexAnalysisStep}. Beyond {@link #MAX_ISSUES_TO_INDEX_PROPERTY} issues, a single item requesting
+ * the indexing of all the issues of the branch is inserted instead.
+ * </p>
+ */
 public class PersistIssuesStep implements ComputationStep {
 
+  public static final String BATCH_SIZE_PROPERTY = "sonar.ce.persistIssues.batchSize";
+  public static final String MAX_ISSUES_TO_INDEX_PROPERTY = "sonar.ce.persistIssues.maxIssuesToIndex";
+  private static final int DEFAULT_MAX_ISSUES_TO_INDEX = 10_000;
+  private static final String UPDATE_IF_BEFORE_SELECTED_DATE_STATEMENT = IssueMapper.class.getName() + ".updateIfBeforeSelectedDate";
+
   private final DbClient dbClient;
   private final System2 system2;
   private final UpdateConflictResolver conflictResolver;
   private final RuleRepository ruleRepository;
   private final IssueCache issueCache;
+  private final IssueIndexer issueIndexer;
+  private final IssuesToIndex issuesToIndex;
+  private final int batchSize;
+  private final int maxIssuesToIndex;
 
   public PersistIssuesStep(DbClient dbClient, System2 system2, UpdateConflictResolver conflictResolver,
-    RuleRepository ruleRepository, IssueCache issueCache) {
+    RuleRepository ruleRepository, IssueCache issueCache, IssueIndexer issueIndexer, IssuesToIndex issuesToIndex, Configuration config) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.conflictResolver = conflictResolver;
     this.ruleRepository = ruleRepository;
     this.issueCache = issueCache;
+    this.issueIndexer = issueIndexer;
+    this.issuesToIndex = issuesToIndex;
+    this.batchSize = config.getInt(BATCH_SIZE_PROPERTY).orElse(BatchSession.MAX_BATCH_SIZE);
+    checkArgument(batchSize > 0, "Property %s must be greater than 0, got %s", BATCH_SIZE_PROPERTY, batchSize);
+    this.maxIssuesToIndex = config.getInt(MAX_ISSUES_TO_INDEX_PROPERTY).orElse(DEFAULT_MAX_ISSUES_TO_INDEX);
+    checkArgument(maxIssuesToIndex >= 0, "Property %s must be positive, got %s", MAX_ISSUES_TO_INDEX_PROPERTY, maxIssuesToIndex);
   }
 
   @Override
   public void execute() {
-    try (DbSession dbSession = dbClient.openSession(true);
+    // batches are flushed by the step itself so that their update counts are known. The session
+    // must never reach its own limit, otherwise it would commit the batch and discard these counts.
+    try (DbSession dbSession = dbClient.openBatchSession(Integer.MAX_VALUE);
       CloseableIterator<DefaultIssue> issues = issueCache.traverse()) {
 
-      IssueMapper mapper = dbSession.getMapper(IssueMapper.class);
-      IssueChangeMapper changeMapper = dbSession.getMapper(IssueChangeMapper.class);
+      Batch batch = new Batch(dbSession);
+      IndexingItems indexingItems = new IndexingItems();
       while (issues.hasNext()) {
         DefaultIssue issue = issues.next();
-        boolean saved = persistIssueIfRequired(mapper, issue);
+        if (!batch.canAdd(countMaxStatements(issue))) {
+          batch.execute();
+        }
+        boolean saved = persistIssueIfRequired(batch, issue);
         if (saved) {
-          insertChanges(changeMapper, issue);
+          insertChanges(batch, issue);
+          indexingItems.prepare(batch, issue);
         }
       }
-      dbSession.flushStatements();
+      batch.execute();
       dbSession.commit();
+      issuesToIndex.setItems(indexingItems.items);
+    }
+  }
+
+  /**
+   * Upper bound of the number of statements executed to persist the issue: the issue itself, its new comments,
+   * its current change and its es_queue item.
+   */
+  private static int countMaxStatements(DefaultIssue issue) {
+    if (!issue.isNew() && !issue.isCopied() && !issue.isChanged()) {
+      return 0;
+    }
+    int count = 3;
+    for (IssueComment comment : issue.comments()) {
+      if (((DefaultIssueComment) comment).isNew()) {
+        count++;
+      }
     }
+    return count;
   }
 
-  private boolean persistIssueIfRequired(IssueMapper mapper, DefaultIssue issue) {
+  private boolean persistIssueIfRequired(Batch batch, DefaultIssue issue) {
     if (issue.isNew() || issue.isCopied()) {
-      persistNewIssue(mapper, issue);
+      persistNewIssue(batch, issue);
       return true;
     }
 
     if (issue.isChanged()) {
-      persistChangedIssue(mapper, issue);
+      persistChangedIssue(batch, issue);
       return true;
     }
     return false;
   }
 
-  private void persistNewIssue(IssueMapper mapper, DefaultIssue issue) {
+  private void persistNewIssue(Batch batch, DefaultIssue issue) {
     Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
     IssueDto dto = IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now());
-    mapper.insert(dto);
+    batch.issueMapper.insert(dto);
+    batch.statementCount++;
   }
 
-  private void persistChangedIssue(IssueMapper mapper, DefaultIssue issue) {
+  private void persistChangedIssue(Batch batch, DefaultIssue issue) {
     IssueDto dto = IssueDto.toDtoForUpdate(issue, system2.now());
-    int updateCount = mapper.updateIfBeforeSelectedDate(dto);
+    int updateCount = batch.issueMapper.updateIfBeforeSelectedDate(dto);
+    batch.statementCount++;
     if (updateCount == 0) {
-      // End-user and scan changed the issue at the same time.
-      // See https://jira.sonarsource.com/browse/SONAR-4309
-      conflictResolver.resolve(issue, mapper);
+      // statement has not been batched (the session does not support batches), conflict is known right away
+      batch.conflicts.add(issue);
+    } else {
+      batch.updatedIssuesByKey.put(issue.key(), issue);
     }
   }
 
-  private static void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
+  private static void insertChanges(Batch batch, DefaultIssue issue) {
     for (IssueComment comment : issue.comments()) {
       DefaultIssueComment c = (DefaultIssueComment) comment;
       if (c.isNew()) {
         IssueChangeDto changeDto = IssueChangeDto.of(c);
-        mapper.insert(changeDto);
+        batch.changeMapper.insert(changeDto);
+        batch.statementCount++;
       }
     }
     FieldDiffs diffs = issue.currentChange();
     if (!issue.isNew() && diffs != null) {
       IssueChangeDto changeDto = IssueChangeDto.of(issue.key(), diffs);
-      mapper.insert(changeDto);
+      batch.changeMapper.insert(changeDto);
+      batch.statementCount++;
     }
   }
 
@@ -120,4 +189,72 @@ public class PersistIssuesStep implements ComputationStep {
   public String getDescription() {
     return "Persist issues";
   }
+
+  private class IndexingItems {
+    private final List<EsQueueDto> items = new ArrayList<>();
+    private int issueCount = 0;
+
+    private void prepare(Batch batch, DefaultIssue issue) {
+      if (issueCount < maxIssuesToIndex) {
+        items.add(issueIndexer.prepareIssueForIndexing(batch.dbSession, issue.key(), issue.projectUuid()));
+        batch.statementCount++;
+      } else if (issueCount == maxIssuesToIndex) {
+        // too many issues, all the issues of the branch will be indexed
+        items.add(issueIndexer.prepareBranchForIndexing(batch.dbSession, issue.projectUuid()));
+        batch.statementCount++;
+      }
+      issueCount++;
+    }
+  }
+
+  private class Batch {
+    private final DbSession dbSession;
+    private final IssueMapper issueMapper;
+    private final IssueChangeMapper changeMapper;
+    private final Map<String, DefaultIssue> updatedIssuesByKey = new HashMap<>();
+    private final List<DefaultIssue> conflicts = new ArrayList<>();
+    private int statementCount = 0;
+
+    private Batch(DbSession dbSession) {
+      this.dbSession = dbSession;
+      this.issueMapper = dbSession.getMapper(IssueMapper.class);
+      this.changeMapper = dbSession.getMapper(IssueChangeMapper.class);
+    }
+
+    /**
+     * An empty batch accepts the statements of any issue, even if they exceed {@link #batchSize}.
+     */
+    private boolean canAdd(int statements) {
+      return statementCount == 0 || statementCount + statements <= batchSize;
+    }
+
+    private void execute() {
+      for (BatchResult result : dbSession.flushStatements()) {
+        if (UPDATE_IF_BEFORE_SELECTED_DATE_STATEMENT.equals(result.getMappedStatement().getId())) {
+          collectConflicts(result);
+        }
+      }
+      // End-user and scan changed the issue at the same time.
+      // See https://jira.sonarsource.com/browse/SONAR-4309
+      for (DefaultIssue conflict : conflicts) {
+        conflictResolver.resolve(conflict, issueMapper);
+      }
+      if (!conflicts.isEmpty()) {
+        dbSession.flushStatements();
+      }
+      updatedIssuesByKey.clear();
+      conflicts.clear();
+      statementCount = 0;
+    }
+
+    private void collectConflicts(BatchResult result) {
+      int[] updateCounts = result.getUpdateCounts();
+      List<Object> parameters = result.getParameterObjects();
+      for (int i = 0; i < updateCounts.length; i++) {
+        if (updateCounts[i] == 0) {
+          conflicts.add(updatedIssuesByKey.get(((IssueDto) parameters.get(i)).getKey()));
+        }
+      }
+    }
+  }
 }
@@ -20,6 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -38,14 +39,18 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
+import static java.util.Collections.singleton;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.COMPONENT_TREE;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.REPORT;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.TABLE_PROJECT_LINKS;
 
 /**
  * Persist project and module links
  */
-public class PersistProjectLinksStep implements ComputationStep {
+public class PersistProjectLinksStep implements ConcurrentComputationStep {
 
   private final DbClient dbClient;
   private final I18n i18n;
@@ -147,6 +152,16 @@ public class PersistProjectLinksStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(REPORT, COMPONENT_TREE);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return singleton(TABLE_PROJECT_LINKS);
+  }
+
   @Override
   public String getDescription() {
     return "Persist project links";
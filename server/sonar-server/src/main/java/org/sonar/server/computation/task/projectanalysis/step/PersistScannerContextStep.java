@@ -19,16 +19,21 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static java.util.Collections.singleton;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.CE_TASK;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.REPORT;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.TABLE_CE_SCANNER_CONTEXT;
 
-public class PersistScannerContextStep implements ComputationStep {
+public class PersistScannerContextStep implements ConcurrentComputationStep {
   private final BatchReportReader reportReader;
   private final DbClient dbClient;
   private final CeTask ceTask;
@@ -39,6 +44,16 @@ public class PersistScannerContextStep implements ComputationStep {
     this.ceTask = ceTask;
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(REPORT, CE_TASK);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return singleton(TABLE_CE_SCANNER_CONTEXT);
+  }
+
   @Override
   public String getDescription() {
     return "Persist scanner context";
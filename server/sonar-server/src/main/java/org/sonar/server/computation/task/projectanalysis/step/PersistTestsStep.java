@@ -23,6 +23,7 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Table;
 import java.util.ArrayList;
@@ -51,9 +52,14 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
-public class PersistTestsStep implements ComputationStep {
+import static java.util.Collections.singleton;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.COMPONENT_TREE;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.REPORT;
+import static org.sonar.server.computation.task.projectanalysis.step.StepDataKeys.TABLE_FILE_SOURCES_OF_TESTS;
+
+public class PersistTestsStep implements ConcurrentComputationStep {
 
   private static final Logger LOG = Loggers.get(PersistTestsStep.class);
 
@@ -81,6 +87,16 @@ public class PersistTestsStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(REPORT, COMPONENT_TREE);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return singleton(TABLE_FILE_SOURCES_OF_TESTS);
+  }
+
   @Override
   public String getDescription() {
     return "Persist tests";
@@ -19,8 +19,14 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueue;
+import org.sonar.ce.queue.CeTask;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.DbIdsRepository;
@@ -37,23 +43,33 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 import static org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit.reportMaxDepth;
 
+/**
+ * Purges the components disabled by the analysis and submits a {@link CeTaskTypes#PROJECT_PURGE} task which purges
+ * the history of the project in background, see {@link org.sonar.server.computation.dbcleaner.ProjectPurgeTaskProcessor}.
+ */
 public class PurgeDatastoresStep implements ComputationStep {
 
+  private static final Logger LOG = Loggers.get(PurgeDatastoresStep.class);
+
   private final ProjectCleaner projectCleaner;
   private final DbClient dbClient;
   private final DbIdsRepository dbIdsRepository;
   private final TreeRootHolder treeRootHolder;
   private final ConfigurationRepository configRepository;
   private final DisabledComponentsHolder disabledComponentsHolder;
+  private final CeTask ceTask;
+  private final CeQueue ceQueue;
 
   public PurgeDatastoresStep(DbClient dbClient, ProjectCleaner projectCleaner, DbIdsRepository dbIdsRepository, TreeRootHolder treeRootHolder,
-    ConfigurationRepository configRepository, DisabledComponentsHolder disabledComponentsHolder) {
+    ConfigurationRepository configRepository, DisabledComponentsHolder disabledComponentsHolder, CeTask ceTask, CeQueue ceQueue) {
     this.projectCleaner = projectCleaner;
     this.dbClient = dbClient;
     this.dbIdsRepository = dbIdsRepository;
     this.treeRootHolder = treeRootHolder;
     this.configRepository = configRepository;
     this.disabledComponentsHolder = disabledComponentsHolder;
+    this.ceTask = ceTask;
+    this.ceQueue = ceQueue;
   }
 
   @Override
@@ -70,16 +86,43 @@ public class PurgeDatastoresStep implements ComputationStep {
           execute(view);
         }
       }).visit(treeRootHolder.getRoot());
+    submitPurgeTask();
   }
 
   private void execute(Component root) {
     try (DbSession dbSession = dbClient.openSession(true)) {
       IdUuidPair idUuidPair = new IdUuidPair(dbIdsRepository.getComponentId(root), root.getUuid());
-      projectCleaner.purge(dbSession, idUuidPair, configRepository.getConfiguration(), disabledComponentsHolder.getUuids());
+      projectCleaner.purgeDisabledComponents(dbSession, idUuidPair, configRepository.getConfiguration(), disabledComponentsHolder.getUuids());
       dbSession.commit();
     }
   }
 
+  /**
+   * The purge task is bound to the same component as the analysis, so that it is never processed concurrently
+   * with another analysis of the project. A single pending purge task is enough for many analyses.
+   */
+  private void submitPurgeTask() {
+    String componentUuid = ceTask.getComponentUuid();
+    if (componentUuid == null || isPurgePending(componentUuid)) {
+      return;
+    }
+    if (ceQueue.isSubmitPaused()) {
+      LOG.info("Submit of tasks is paused, history of {} will be purged after the next analysis", ceTask.getComponentKey());
+      return;
+    }
+    ceQueue.submit(ceQueue.prepareSubmit()
+      .setType(CeTaskTypes.PROJECT_PURGE)
+      .setComponentUuid(componentUuid)
+      .build());
+  }
+
+  private boolean isPurgePending(String componentUuid) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return dbClient.ceQueueDao().selectByComponentUuid(dbSession, componentUuid).stream()
+        .anyMatch(task -> CeTaskTypes.PROJECT_PURGE.equals(task.getTaskType()) && task.getStatus() == CeQueueDto.Status.PENDING);
+    }
+  }
+
   @Override
   public String getDescription() {
     return "Purge db";
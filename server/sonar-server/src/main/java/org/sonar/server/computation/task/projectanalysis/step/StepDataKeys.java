@@ -0,0 +1,48 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
+
+/**
+ * Keys of the data read and written by the {@link ConcurrentComputationStep} of the processing of an analysis report.
+ */
+public final class StepDataKeys {
+  public static final String REPORT = "report";
+  public static final String CE_TASK = "ceTask";
+  public static final String ANALYSIS_METADATA = "analysisMetadata";
+  public static final String COMPONENT_TREE = "componentTree";
+  public static final String EVENTS = "events";
+  public static final String SOURCE_LINES = "sourceLines";
+  public static final String SCM_INFO = "scmInfo";
+  public static final String DUPLICATIONS = "duplications";
+  public static final String CROSS_PROJECT_DUPLICATION_STATUS = "crossProjectDuplicationStatus";
+
+  public static final String TABLE_CE_SCANNER_CONTEXT = "table.ce_scanner_context";
+  public static final String TABLE_PROJECT_LINKS = "table.project_links";
+  public static final String TABLE_EVENTS = "table.events";
+  public static final String TABLE_FILE_SOURCES_OF_SOURCES = "table.file_sources.SOURCE";
+  public static final String TABLE_FILE_SOURCES_OF_TESTS = "table.file_sources.TEST";
+  public static final String TABLE_DUPLICATIONS_INDEX = "table.duplications_index";
+
+  private StepDataKeys() {
+    // only constants
+  }
+}
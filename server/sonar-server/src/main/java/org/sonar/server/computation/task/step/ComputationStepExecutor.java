@@ -19,18 +19,32 @@
  */
 package org.sonar.server.computation.task.step;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.slf4j.MDC;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
 
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
+  private static final int DEFAULT_MAX_CONCURRENT_STEPS = 4;
 
   private final ComputationSteps steps;
   @CheckForNull
   private final Listener listener;
+  private final int maxConcurrentSteps;
 
   /**
    * Used when no {@link ComputationStepExecutor.Listener} is available in pico
@@ -41,8 +55,13 @@ public final class ComputationStepExecutor {
   }
 
   public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+    this(steps, listener, DEFAULT_MAX_CONCURRENT_STEPS);
+  }
+
+  ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener, int maxConcurrentSteps) {
     this.steps = steps;
     this.listener = listener;
+    this.maxConcurrentSteps = maxConcurrentSteps;
   }
 
   public void execute() {
@@ -59,11 +78,110 @@ public final class ComputationStepExecutor {
   }
 
   private void executeSteps(Profiler stepProfiler) {
+    List<ConcurrentComputationStep> concurrentSteps = new ArrayList<>();
     for (ComputationStep step : steps.instances()) {
-      stepProfiler.start();
-      step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+      if (step instanceof ConcurrentComputationStep) {
+        concurrentSteps.add((ConcurrentComputationStep) step);
+      } else {
+        executeConcurrently(concurrentSteps, stepProfiler);
+        concurrentSteps.clear();
+        executeStep(step, stepProfiler);
+      }
+    }
+    executeConcurrently(concurrentSteps, stepProfiler);
+  }
+
+  private static void executeStep(ComputationStep step, Profiler stepProfiler) {
+    stepProfiler.start();
+    step.execute();
+    stepProfiler.stopDebug(step.getDescription());
+  }
+
+  /**
+   * Executes the specified steps as a graph: a step starts as soon as all the previous steps it depends on are
+   * completed. A step depends on the previous steps which write data it reads or writes, or which read data it writes.
+   */
+  private void executeConcurrently(List<ConcurrentComputationStep> concurrentSteps, Profiler stepProfiler) {
+    if (concurrentSteps.size() <= 1) {
+      concurrentSteps.forEach(step -> executeStep(step, stepProfiler));
+      return;
+    }
+
+    Map<String, String> loggingContext = MDC.getCopyOfContextMap();
+    ExecutorService executorService = Executors.newFixedThreadPool(Math.min(maxConcurrentSteps, concurrentSteps.size()),
+      new ThreadFactoryBuilder().setNameFormat("CE step executor-%d").setDaemon(true).build());
+    try {
+      List<CompletableFuture<Void>> futures = new ArrayList<>(concurrentSteps.size());
+      for (int i = 0; i < concurrentSteps.size(); i++) {
+        ConcurrentComputationStep step = concurrentSteps.get(i);
+        CompletableFuture[] dependencies = IntStream.range(0, i)
+          .filter(j -> dependsOn(step, concurrentSteps.get(j)))
+          .mapToObj(futures::get)
+          .toArray(CompletableFuture[]::new);
+        futures.add(CompletableFuture.allOf(dependencies)
+          .thenRunAsync(() -> executeStep(step, loggingContext), executorService));
+      }
+      awaitCompletion(futures);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static boolean dependsOn(ConcurrentComputationStep step, ConcurrentComputationStep previousStep) {
+    return !Collections.disjoint(previousStep.writes(), step.reads())
+      || !Collections.disjoint(previousStep.writes(), step.writes())
+      || !Collections.disjoint(previousStep.reads(), step.writes());
+  }
+
+  private static void executeStep(ComputationStep step, @Nullable Map<String, String> loggingContext) {
+    if (loggingContext != null) {
+      MDC.setContextMap(loggingContext);
+    }
+    try {
+      executeStep(step, Profiler.create(LOGGER));
+    } finally {
+      MDC.clear();
+    }
+  }
+
+  private static void awaitCompletion(List<CompletableFuture<Void>> futures) {
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while executing computation steps", e);
+    } catch (ExecutionException e) {
+      // raise the failure of the first step in execution sequence, as sequential execution would have done
+      for (CompletableFuture<Void> future : futures) {
+        if (future.isCompletedExceptionally()) {
+          throw propagate(unwrap(e, future));
+        }
+      }
+      throw propagate(e.getCause());
+    }
+  }
+
+  private static Throwable unwrap(ExecutionException e, CompletableFuture<Void> future) {
+    Throwable cause = e.getCause();
+    try {
+      future.join();
+    } catch (CompletionException completionException) {
+      cause = completionException;
+      while (cause instanceof CompletionException && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+    }
+    return cause;
+  }
+
+  private static RuntimeException propagate(Throwable t) {
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
     }
+    throw new IllegalStateException(t);
   }
 
   private void executeListener(boolean allStepsExecuted) {
@@ -0,0 +1,44 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.Set;
+
+/**
+ * A {@link ComputationStep} which declares the data it reads and writes, for example the holders of the
+ * Compute Engine task container or the database tables.
+ * <p>
+ * Consecutive {@link ConcurrentComputationStep} which don't write data read or written by each other are executed
+ * concurrently by {@link ComputationStepExecutor}. Other steps are executed alone, once all the previous steps are
+ * completed.
+ * </p>
+ */
+public interface ConcurrentComputationStep extends ComputationStep {
+
+  /**
+   * Keys of the data read by the step.
+   */
+  Set<String> reads();
+
+  /**
+   * Keys of the data written by the step.
+   */
+  Set<String> writes();
+}
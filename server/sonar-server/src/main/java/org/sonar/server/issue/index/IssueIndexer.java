@@ -147,6 +147,22 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer {
     doIndexIssueItems(dbSession, itemsByIssueKey);
   }
 
+  /**
+   * Inserts the es_queue item of an issue inserted or updated by the Compute Engine. It must be inserted
+   * in the same transaction as the issue, then be indexed with {@link #index(DbSession, Collection)}, so
+   * that the recovery daemon indexes the issue if the Compute Engine fails to do it.
+   */
+  public EsQueueDto prepareIssueForIndexing(DbSession dbSession, String issueKey, String branchUuid) {
+    return dbClient.esQueueDao().insert(dbSession, createQueueDto(issueKey, ID_TYPE_ISSUE_KEY, branchUuid));
+  }
+
+  /**
+   * Same as {@link #prepareIssueForIndexing(DbSession, String, String)}, for all the issues of a branch.
+   */
+  public EsQueueDto prepareBranchForIndexing(DbSession dbSession, String branchUuid) {
+    return dbClient.esQueueDao().insert(dbSession, createQueueDto(branchUuid, ID_TYPE_PROJECT_UUID, branchUuid));
+  }
+
   @Override
   public IndexingResult index(DbSession dbSession, Collection<EsQueueDto> items) {
     ListMultimap<String, EsQueueDto> itemsByIssueKey = ArrayListMultimap.create();
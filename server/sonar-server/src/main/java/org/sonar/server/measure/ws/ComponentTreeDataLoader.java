@@ -53,6 +53,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureQuery;
 import org.sonar.db.measure.MeasureTreeQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.metric.MetricDtoFunctions;
@@ -108,15 +109,15 @@ public class ComponentTreeDataLoader {
       ComponentTreeQuery componentTreeQuery = toComponentTreeQuery(wsRequest, baseComponent);
       List<ComponentDto> components = searchComponents(dbSession, componentTreeQuery);
       List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
-      Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
+      // only the measures of the metric to sort by are loaded for the whole tree, other ones are loaded for the requested page
+      Table<String, MetricDto, Measure> measuresToSortByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
         components,
-        metrics, developerId);
-
-      components = filterComponents(components, measuresByComponentUuidAndMetric, metrics, wsRequest);
-      components = sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
+        metricsToSort(metrics, wsRequest), developerId);
 
+      components = filterComponents(components, measuresToSortByComponentUuidAndMetric, metrics, wsRequest);
       int componentCount = components.size();
-      components = paginateComponents(components, wsRequest);
+      components = sortAndPaginateComponents(components, wsRequest, metrics, measuresToSortByComponentUuidAndMetric);
+      Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = searchMeasuresOfPage(dbSession, baseComponent, components, metrics, developerId);
 
       return ComponentTreeData.builder()
         .setBaseComponent(baseComponent)
@@ -217,6 +218,39 @@ public class ComponentTreeDataLoader {
     return measuresByComponentUuidAndMetric;
   }
 
+  private static List<MetricDto> metricsToSort(List<MetricDto> metrics, ComponentTreeWsRequest wsRequest) {
+    String metricKeyToSort = wsRequest.getMetricSort();
+    if (metricKeyToSort == null) {
+      return Collections.emptyList();
+    }
+    return metrics.stream()
+      .filter(metric -> metricKeyToSort.equals(metric.getKey()))
+      .collect(MoreCollectors.toList(1));
+  }
+
+  private Table<String, MetricDto, Measure> searchMeasuresOfPage(DbSession dbSession, ComponentDto baseComponent, List<ComponentDto> components,
+    List<MetricDto> metrics, @Nullable Long developerId) {
+    Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(metrics, MetricDto::getId);
+    List<String> componentUuids = new ArrayList<>(components.size() + 1);
+    componentUuids.add(baseComponent.uuid());
+    components.forEach(component -> componentUuids.add(component.uuid()));
+    MeasureQuery measureQuery = MeasureQuery.builder()
+      .setComponentUuids(baseComponent.projectUuid(), componentUuids)
+      .setMetricIds(new ArrayList<>(metricsById.keySet()))
+      .setPersonId(developerId)
+      .build();
+
+    Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = HashBasedTable.create(componentUuids.size(), metrics.size());
+    dbClient.measureDao().selectByQuery(dbSession, measureQuery).forEach(measureDto -> measuresByComponentUuidAndMetric.put(
+      measureDto.getComponentUuid(),
+      metricsById.get(measureDto.getMetricId()),
+      Measure.createFromMeasureDto(measureDto)));
+
+    addBestValuesToMeasures(measuresByComponentUuidAndMetric, components, metrics);
+
+    return measuresByComponentUuidAndMetric;
+  }
+
   /**
    * Conditions for best value measure:
    * <ul>
@@ -265,15 +299,16 @@ public class ComponentTreeDataLoader {
     return WITH_MEASURES_ONLY_METRIC_SORT_FILTER.equals(wsRequest.getMetricSortFilter());
   }
 
-  private static List<ComponentDto> sortComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
+  private static List<ComponentDto> sortAndPaginateComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
     Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric) {
-    return ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
-  }
-
-  private static List<ComponentDto> paginateComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest) {
-    return components.stream()
-      .skip(offset(wsRequest.getPage(), wsRequest.getPageSize()))
-      .limit(wsRequest.getPageSize())
+    int offset = offset(wsRequest.getPage(), wsRequest.getPageSize());
+    if (offset >= components.size()) {
+      return Collections.emptyList();
+    }
+    List<ComponentDto> firstComponents = ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric,
+      offset + wsRequest.getPageSize());
+    return firstComponents.stream()
+      .skip(offset)
       .collect(MoreCollectors.toList(wsRequest.getPageSize()));
   }
 
@@ -25,6 +25,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Table;
 import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -64,9 +65,19 @@ public class ComponentTreeSort {
 
   public static List<ComponentDto> sortComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
     Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric) {
+    return sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric, components.size());
+  }
+
+  /**
+   * Same as {@link #sortComponents(List, ComponentTreeWsRequest, List, Table)} but returns only the {@code limit} first
+   * components. They are selected without sorting the whole list, in O(n + limit * log(limit)). Components having the
+   * same rank keep their relative order in {@code components}.
+   */
+  public static List<ComponentDto> sortComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
+    Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric, int limit) {
     List<String> sortParameters = wsRequest.getSort();
     if (sortParameters == null || sortParameters.isEmpty()) {
-      return components;
+      return components.size() <= limit ? components : components.subList(0, limit);
     }
     boolean isAscending = wsRequest.getAsc();
     Map<String, Ordering<ComponentDto>> orderingsBySortField = ImmutableMap.<String, Ordering<ComponentDto>>builder()
@@ -87,7 +98,16 @@ public class ComponentTreeSort {
       }
     }
 
-    return primaryOrdering.immutableSortedCopy(components);
+    if (limit >= components.size()) {
+      return primaryOrdering.immutableSortedCopy(components);
+    }
+    // selection of the least elements is not stable, ties are explicitly resolved by position
+    Map<ComponentDto, Integer> positions = new IdentityHashMap<>(components.size());
+    for (ComponentDto component : components) {
+      positions.putIfAbsent(component, positions.size());
+    }
+    Ordering<ComponentDto> byPosition = Ordering.<Integer>natural().onResultOf(positions::get);
+    return primaryOrdering.compound(byPosition).leastOf(components, limit);
   }
 
   private static Ordering<ComponentDto> componentNameOrdering(boolean isAscending) {
@@ -33,6 +33,7 @@ import org.sonar.db.user.GroupMembershipQuery;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserGroupDto;
 import org.sonar.server.issue.ws.AvatarResolver;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.user.index.UserIndexer;
 import org.sonar.server.usergroups.DefaultGroupFinder;
@@ -54,13 +55,16 @@ public class AddMemberAction implements OrganizationsWsAction {
   private final UserIndexer userIndexer;
   private final DefaultGroupFinder defaultGroupFinder;
   private final AvatarResolver avatarResolver;
+  private final PermissionCache permissionCache;
 
-  public AddMemberAction(DbClient dbClient, UserSession userSession, UserIndexer userIndexer, DefaultGroupFinder defaultGroupFinder, AvatarResolver avatarResolver) {
+  public AddMemberAction(DbClient dbClient, UserSession userSession, UserIndexer userIndexer, DefaultGroupFinder defaultGroupFinder, AvatarResolver avatarResolver,
+    PermissionCache permissionCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.userIndexer = userIndexer;
     this.defaultGroupFinder = defaultGroupFinder;
     this.avatarResolver = avatarResolver;
+    this.permissionCache = permissionCache;
   }
 
   @Override
@@ -119,6 +123,7 @@ public class AddMemberAction implements OrganizationsWsAction {
     dbClient.userGroupDao().insert(dbSession,
       new UserGroupDto().setGroupId(defaultGroupFinder.findDefaultGroup(dbSession, organization.getUuid()).getId()).setUserId(user.getId()));
     userIndexer.commitAndIndex(dbSession, user);
+    permissionCache.invalidate();
   }
 
   private AddMemberWsResponse buildResponse(UserDto user, int groups) {
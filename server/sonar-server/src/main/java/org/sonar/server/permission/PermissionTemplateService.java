@@ -46,6 +46,7 @@ import org.sonar.server.es.ProjectIndexer;
 import org.sonar.server.es.ProjectIndexers;
 import org.sonar.server.permission.ws.template.DefaultTemplatesResolver;
 import org.sonar.server.permission.ws.template.DefaultTemplatesResolverImpl;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.UserSession;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -61,13 +62,15 @@ public class PermissionTemplateService {
   private final ProjectIndexers projectIndexers;
   private final UserSession userSession;
   private final DefaultTemplatesResolver defaultTemplatesResolver;
+  private final PermissionCache permissionCache;
 
   public PermissionTemplateService(DbClient dbClient, ProjectIndexers projectIndexers, UserSession userSession,
-    DefaultTemplatesResolver defaultTemplatesResolver) {
+    DefaultTemplatesResolver defaultTemplatesResolver, PermissionCache permissionCache) {
     this.dbClient = dbClient;
     this.projectIndexers = projectIndexers;
     this.userSession = userSession;
     this.defaultTemplatesResolver = defaultTemplatesResolver;
+    this.permissionCache = permissionCache;
   }
 
   public boolean wouldUserHaveScanPermissionWithDefaultTemplate(DbSession dbSession,
@@ -101,6 +104,7 @@ public class PermissionTemplateService {
       copyPermissions(dbSession, template, project, null);
     }
     projectIndexers.commitAndIndex(dbSession, projects, ProjectIndexer.Cause.PERMISSION_CHANGE);
+    permissionCache.invalidate();
   }
 
   /**
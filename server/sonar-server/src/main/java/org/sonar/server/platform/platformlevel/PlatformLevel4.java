@@ -30,6 +30,7 @@ import org.sonar.api.rules.AnnotationRuleParser;
 import org.sonar.api.rules.XMLRuleParser;
 import org.sonar.api.server.rule.RulesDefinitionXmlLoader;
 import org.sonar.ce.CeModule;
+import org.sonar.ce.queue.ClusterCeQueueListener;
 import org.sonar.ce.settings.ProjectConfigurationFactory;
 import org.sonar.cluster.localclient.HazelcastLocalClient;
 import org.sonar.core.component.DefaultResourceTypes;
@@ -184,6 +185,7 @@ import org.sonar.server.rule.ws.TagsAction;
 import org.sonar.server.serverid.ws.ServerIdWsModule;
 import org.sonar.server.setting.ws.SettingsWsModule;
 import org.sonar.server.source.HtmlSourceDecorator;
+import org.sonar.server.source.SourceCache;
 import org.sonar.server.source.SourceService;
 import org.sonar.server.source.ws.HashAction;
 import org.sonar.server.source.ws.IndexAction;
@@ -206,6 +208,7 @@ import org.sonar.server.updatecenter.UpdateCenterModule;
 import org.sonar.server.user.DefaultUserFinder;
 import org.sonar.server.user.DeprecatedUserFinder;
 import org.sonar.server.user.NewUserNotifier;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.SecurityRealmFactory;
 import org.sonar.server.user.UserSessionFactoryImpl;
 import org.sonar.server.user.UserUpdater;
@@ -247,6 +250,7 @@ public class PlatformLevel4 extends PlatformLevel {
 
     addIfCluster(
       HazelcastLocalClient.class,
+      ClusterCeQueueListener.class,
       NodeHealthModule.class);
 
     add(
@@ -351,6 +355,7 @@ public class PlatformLevel4 extends PlatformLevel {
 
       // users
       UserSessionFactoryImpl.class,
+      PermissionCache.class,
       SecurityRealmFactory.class,
       DeprecatedUserFinder.class,
       NewUserNotifier.class,
@@ -433,6 +438,7 @@ public class PlatformLevel4 extends PlatformLevel {
 
       // source
       HtmlSourceDecorator.class,
+      SourceCache.class,
       SourceService.class,
       SourcesWs.class,
       org.sonar.server.source.ws.ShowAction.class,
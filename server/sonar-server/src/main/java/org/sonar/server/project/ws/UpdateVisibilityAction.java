@@ -26,6 +26,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.api.web.UserRole;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.BranchMapper;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentMapper;
@@ -36,6 +37,7 @@ import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.es.ProjectIndexer;
 import org.sonar.server.es.ProjectIndexers;
 import org.sonar.server.project.Visibility;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.client.project.ProjectsWsParameters;
 
@@ -53,14 +55,16 @@ public class UpdateVisibilityAction implements ProjectsWsAction {
   private final UserSession userSession;
   private final ProjectIndexers projectIndexers;
   private final ProjectsWsSupport projectsWsSupport;
+  private final PermissionCache permissionCache;
 
   public UpdateVisibilityAction(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession,
-                                ProjectIndexers projectIndexers, ProjectsWsSupport projectsWsSupport) {
+                                ProjectIndexers projectIndexers, ProjectsWsSupport projectsWsSupport, PermissionCache permissionCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.userSession = userSession;
     this.projectIndexers = projectIndexers;
     this.projectsWsSupport = projectsWsSupport;
+    this.permissionCache = permissionCache;
   }
 
   public void define(WebService.NewController context) {
@@ -106,6 +110,7 @@ public class UpdateVisibilityAction implements ProjectsWsAction {
           updatePermissionsToPublic(dbSession, component);
         }
         projectIndexers.commitAndIndex(dbSession, singletonList(component), ProjectIndexer.Cause.PERMISSION_CHANGE);
+        permissionCache.invalidate();
       }
     }
   }
@@ -120,7 +125,9 @@ public class UpdateVisibilityAction implements ProjectsWsAction {
   }
 
   private boolean noPendingTask(DbSession dbSession, ComponentDto rootComponent) {
-    return dbClient.ceQueueDao().selectByComponentUuid(dbSession, rootComponent.uuid()).isEmpty();
+    // the purge of the history of the project does not depend on its visibility
+    return dbClient.ceQueueDao().selectByComponentUuid(dbSession, rootComponent.uuid()).stream()
+      .allMatch(task -> CeTaskTypes.PROJECT_PURGE.equals(task.getTaskType()));
   }
 
   private void updatePermissionsToPrivate(DbSession dbSession, ComponentDto component) {
@@ -36,6 +36,11 @@ public interface InternalProperties {
 
   String ES_INDEX_INITIALIZING_PREFIX = "es.initializing.";
 
+  /**
+   * Fingerprints of the rule repositories registered at the last startup
+   */
+  String RULES_FINGERPRINTS = "rules.fingerprints";
+
   /**
    * Read the value of the specified property.
    *
@@ -25,14 +25,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.picocontainer.Startable;
+import org.sonar.api.SonarRuntime;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
@@ -53,6 +56,7 @@ import org.sonar.db.rule.RuleDto.Format;
 import org.sonar.db.rule.RuleParamDto;
 import org.sonar.db.rule.RuleRepositoryDto;
 import org.sonar.server.organization.OrganizationFlags;
+import org.sonar.server.property.InternalProperties;
 import org.sonar.server.qualityprofile.ActiveRuleChange;
 import org.sonar.server.qualityprofile.RuleActivator;
 import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
@@ -78,10 +82,11 @@ public class RegisterRules implements Startable {
   private final System2 system2;
   private final OrganizationFlags organizationFlags;
   private final WebServerRuleFinder webServerRuleFinder;
+  private final SonarRuntime sonarRuntime;
 
   public RegisterRules(RuleDefinitionsLoader defLoader, RuleActivator ruleActivator, DbClient dbClient, RuleIndexer ruleIndexer,
     ActiveRuleIndexer activeRuleIndexer, Languages languages, System2 system2, OrganizationFlags organizationFlags,
-    WebServerRuleFinder webServerRuleFinder) {
+    WebServerRuleFinder webServerRuleFinder, SonarRuntime sonarRuntime) {
     this.defLoader = defLoader;
     this.ruleActivator = ruleActivator;
     this.dbClient = dbClient;
@@ -91,6 +96,7 @@ public class RegisterRules implements Startable {
     this.system2 = system2;
     this.organizationFlags = organizationFlags;
     this.webServerRuleFinder = webServerRuleFinder;
+    this.sonarRuntime = sonarRuntime;
   }
 
   @Override
@@ -102,8 +108,12 @@ public class RegisterRules implements Startable {
 
       RulesDefinition.Context context = defLoader.load();
       boolean orgsEnabled = organizationFlags.isEnabled(dbSession);
-      for (RulesDefinition.ExtendedRepository repoDef : getRepositories(context)) {
+      List<RulesDefinition.ExtendedRepository> repositories = getRepositories(context);
+      Map<String, String> fingerprints = computeFingerprints(repositories, orgsEnabled);
+      Set<String> unchangedRepositories = getUnchangedRepositories(dbSession, fingerprints);
+      for (RulesDefinition.ExtendedRepository repoDef : repositories) {
         if (languages.get(repoDef.language()) != null) {
+          boolean unchanged = unchangedRepositories.contains(repoDef.key());
           for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
             RuleKey ruleKey = RuleKey.of(ruleDef.repository().key(), ruleDef.key());
             if (ruleDef.template() && orgsEnabled) {
@@ -116,6 +126,11 @@ public class RegisterRules implements Startable {
               }
               continue;
             }
+            if (unchanged) {
+              // rule is already up-to-date in database and index
+              allRules.remove(ruleKey);
+              continue;
+            }
             boolean relevantForIndex = registerRule(ruleDef, allRules, dbSession);
             if (relevantForIndex) {
               keysToIndex.add(ruleKey);
@@ -132,12 +147,49 @@ public class RegisterRules implements Startable {
       persistRepositories(dbSession, context.repositories());
       ruleIndexer.commitAndIndex(dbSession, keysToIndex);
       activeRuleIndexer.commitAndIndex(dbSession, changes);
+      persistFingerprints(dbSession, fingerprints);
       profiler.stopDebug();
 
       webServerRuleFinder.startCaching();
     }
   }
 
+  /**
+   * Fingerprints of the repositories whose language is installed, by repository key. A repository and its
+   * extensions share the same fingerprint.
+   */
+  private Map<String, String> computeFingerprints(List<RulesDefinition.ExtendedRepository> repositories, boolean orgsEnabled) {
+    Map<String, List<RulesDefinition.ExtendedRepository>> repositoriesByKey = repositories.stream()
+      .filter(repoDef -> languages.get(repoDef.language()) != null)
+      .collect(Collectors.groupingBy(RulesDefinition.ExtendedRepository::key, LinkedHashMap::new, Collectors.toList()));
+    Map<String, String> fingerprints = new HashMap<>();
+    repositoriesByKey.forEach((key, repoDefs) -> fingerprints.put(key, RuleRepositoryFingerprint.compute(repoDefs, orgsEnabled, sonarRuntime.getApiVersion())));
+    return fingerprints;
+  }
+
+  private Set<String> getUnchangedRepositories(DbSession dbSession, Map<String, String> fingerprints) {
+    Map<String, String> previousFingerprints = RuleRepositoryFingerprint.parse(
+      dbClient.internalPropertiesDao().selectByKey(dbSession, InternalProperties.RULES_FINGERPRINTS).orElse(null));
+    Set<String> unchanged = fingerprints.entrySet().stream()
+      .filter(entry -> entry.getValue().equals(previousFingerprints.get(entry.getKey())))
+      .map(Map.Entry::getKey)
+      .collect(MoreCollectors.toSet());
+    LOG.debug("{} rule repositories unchanged since last startup: {}", unchanged.size(), unchanged);
+    return unchanged;
+  }
+
+  /**
+   * Must be called once database and index are up-to-date
+   */
+  private void persistFingerprints(DbSession dbSession, Map<String, String> fingerprints) {
+    if (fingerprints.isEmpty()) {
+      dbClient.internalPropertiesDao().saveAsEmpty(dbSession, InternalProperties.RULES_FINGERPRINTS);
+    } else {
+      dbClient.internalPropertiesDao().save(dbSession, InternalProperties.RULES_FINGERPRINTS, RuleRepositoryFingerprint.format(fingerprints));
+    }
+    dbSession.commit();
+  }
+
   private void persistRepositories(DbSession dbSession, List<RulesDefinition.Repository> repositories) {
     dbClient.ruleRepositoryDao().truncate(dbSession);
     List<RuleRepositoryDto> dtos = repositories
@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.server.debt.DebtRemediationFunction;
+import org.sonar.api.server.rule.RulesDefinition;
+import org.sonar.api.utils.Version;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Fingerprint of the rules of a repository, as registered by {@link RegisterRules}. Rules of a repository whose
+ * fingerprint did not change since the last startup are neither compared with the database nor re-indexed.
+ * <p/>
+ * The fingerprint is a hash of all the attributes of the rules which are persisted, including the plugin key, so
+ * that upgrading a plugin without changing its rules does not imply any update. It also depends on the flag
+ * "organizations enabled", which changes the way template rules are registered, and on the version of SonarQube,
+ * so that the first startup after an upgrade of SonarQube fully registers the rules, whatever the changes made
+ * to the registration or to the rules table by the upgrade.
+ */
+final class RuleRepositoryFingerprint {
+
+  private static final char SEPARATOR = '\n';
+  private static final String NULL = "\u0000";
+
+  private RuleRepositoryFingerprint() {
+    // only static methods
+  }
+
+  /**
+   * @param repositories the repository and its extensions, which share the same key
+   */
+  static String compute(List<RulesDefinition.ExtendedRepository> repositories, boolean organizationsEnabled, Version sonarQubeVersion) {
+    MessageDigest digest = DigestUtils.getSha1Digest();
+    update(digest, sonarQubeVersion.toString());
+    update(digest, String.valueOf(organizationsEnabled));
+    for (RulesDefinition.ExtendedRepository repository : repositories) {
+      update(digest, repository.key());
+      update(digest, repository.language());
+      if (repository instanceof RulesDefinition.Repository) {
+        update(digest, ((RulesDefinition.Repository) repository).name());
+      }
+      List<RulesDefinition.Rule> rules = repository.rules().stream()
+        .sorted(Comparator.comparing(RulesDefinition.Rule::key))
+        .collect(toList());
+      for (RulesDefinition.Rule rule : rules) {
+        update(digest, rule);
+      }
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  private static void update(MessageDigest digest, RulesDefinition.Rule rule) {
+    update(digest, rule.key());
+    update(digest, rule.pluginKey());
+    update(digest, rule.name());
+    update(digest, rule.type().name());
+    update(digest, rule.severity());
+    update(digest, rule.htmlDescription());
+    update(digest, rule.markdownDescription());
+    update(digest, String.valueOf(rule.template()));
+    update(digest, rule.status().name());
+    update(digest, rule.internalKey());
+    update(digest, rule.gapDescription());
+    DebtRemediationFunction function = rule.debtRemediationFunction();
+    if (function == null) {
+      update(digest, (String) null);
+    } else {
+      update(digest, function.type().name());
+      update(digest, function.gapMultiplier());
+      update(digest, function.baseEffort());
+    }
+    update(digest, String.join(",", new TreeSet<>(rule.tags())));
+    List<RulesDefinition.Param> params = rule.params().stream()
+      .sorted(Comparator.comparing(RulesDefinition.Param::key))
+      .collect(toList());
+    for (RulesDefinition.Param param : params) {
+      update(digest, param.key());
+      update(digest, param.type().toString());
+      update(digest, param.defaultValue());
+      update(digest, param.description());
+    }
+  }
+
+  private static void update(MessageDigest digest, @Nullable String value) {
+    digest.update((value == null ? NULL : value).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) SEPARATOR);
+  }
+
+  /**
+   * Fingerprints by repository key, as formatted by {@link #format(Map)}
+   */
+  static Map<String, String> parse(@Nullable String value) {
+    Map<String, String> fingerprints = new TreeMap<>();
+    if (value != null) {
+      for (String line : value.split(String.valueOf(SEPARATOR))) {
+        int index = line.lastIndexOf('=');
+        if (index > 0) {
+          fingerprints.put(line.substring(0, index), line.substring(index + 1));
+        }
+      }
+    }
+    return fingerprints;
+  }
+
+  static String format(Map<String, String> fingerprintsByRepositoryKey) {
+    StringBuilder sb = new StringBuilder();
+    new TreeMap<>(fingerprintsByRepositoryKey).forEach((key, fingerprint) -> sb.append(key).append('=').append(fingerprint).append(SEPARATOR));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.config.Configuration;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.server.platform.monitoring.Monitor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded cache of the decoded sources of files, so that the hot files are not decompressed and deserialized on each
+ * request to the source viewer. The weight of an entry is the serialized size of its data.
+ * <p>
+ * Entries are keyed by file uuid and are valid only for the data hash they were loaded with. Sources written by a new
+ * analysis have a new data hash, hence are never served from a stale entry: such an entry is dropped on the first
+ * lookup with the new hash.
+ */
+public class SourceCache implements Monitor {
+
+  static final String MAX_SIZE_IN_MB_PROPERTY = "sonar.web.sourceCache.maxSizeInMb";
+  private static final int DEFAULT_MAX_SIZE_IN_MB = 50;
+  /**
+   * An entry can't be heavier than this part of the cache, so that a few huge files don't evict all the others
+   */
+  private static final int MAX_ENTRY_WEIGHT_RATIO = 16;
+
+  private final long maxWeight;
+  private final Cache<String, Entry> cache;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public SourceCache(Configuration config) {
+    int maxSizeInMb = config.getInt(MAX_SIZE_IN_MB_PROPERTY).orElse(DEFAULT_MAX_SIZE_IN_MB);
+    checkArgument(maxSizeInMb >= 0, "Property %s must be positive, got %s", MAX_SIZE_IN_MB_PROPERTY, maxSizeInMb);
+    this.maxWeight = maxSizeInMb * 1024L * 1024L;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxWeight)
+      .weigher((String fileUuid, Entry entry) -> entry.data.getSerializedSize())
+      .recordStats()
+      .build();
+  }
+
+  public boolean isEnabled() {
+    return maxWeight > 0;
+  }
+
+  /**
+   * Whether sources of the given serialized size can be cached.
+   */
+  public boolean accepts(long weight) {
+    return weight <= maxWeight / MAX_ENTRY_WEIGHT_RATIO;
+  }
+
+  /**
+   * @return the cached sources of the file, or {@code null} if they are not cached for this data hash
+   */
+  @CheckForNull
+  public DbFileSources.Data get(String fileUuid, String dataHash) {
+    Entry entry = cache.getIfPresent(fileUuid);
+    if (entry != null && entry.dataHash.equals(dataHash)) {
+      hits.incrementAndGet();
+      return entry.data;
+    }
+    if (entry != null) {
+      cache.invalidate(fileUuid);
+      invalidations.incrementAndGet();
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Caches the sources of a file, unless they are too large. Sources previously cached for the file are replaced.
+   */
+  public void put(String fileUuid, String dataHash, DbFileSources.Data data) {
+    if (accepts(data.getSerializedSize())) {
+      cache.put(fileUuid, new Entry(dataHash, data));
+    }
+  }
+
+  @Override
+  public String name() {
+    return "SourceCache";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    CacheStats stats = cache.stats();
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Max Size (MB)", maxWeight / 1024L / 1024L);
+    attributes.put("Files", cache.size());
+    attributes.put("Hits", hits.get());
+    attributes.put("Misses", misses.get());
+    attributes.put("Invalidations", invalidations.get());
+    attributes.put("Evictions", stats.evictionCount());
+    return attributes;
+  }
+
+  @Immutable
+  private static final class Entry {
+    private final String dataHash;
+    private final DbFileSources.Data data;
+
+    private Entry(String dataHash, DbFileSources.Data data) {
+      this.dataHash = dataHash;
+      this.data = data;
+    }
+  }
+}
@@ -19,6 +19,8 @@
  */
 package org.sonar.server.source;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import org.sonar.core.util.stream.MoreCollectors;
@@ -33,10 +35,12 @@ public class SourceService {
 
   private final DbClient dbClient;
   private final HtmlSourceDecorator htmlDecorator;
+  private final SourceCache sourceCache;
 
-  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator) {
+  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator, SourceCache sourceCache) {
     this.dbClient = dbClient;
     this.htmlDecorator = htmlDecorator;
+    this.sourceCache = sourceCache;
   }
 
   /**
@@ -63,15 +67,48 @@ public class SourceService {
   private <E> Optional<Iterable<E>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive, Function<DbFileSources.Line, E> function) {
     verifyLine(from);
     checkArgument(toInclusive >= from, String.format("Line number must greater than or equal to %d, got %d", from, toInclusive));
+    return loadLines(dbSession, fileUuid, from, toInclusive)
+      .map(lines -> lines.stream()
+        .map(function)
+        .collect(MoreCollectors.toList()));
+  }
+
+  private Optional<List<DbFileSources.Line>> loadLines(DbSession dbSession, String fileUuid, int from, int toInclusive) {
+    if (sourceCache.isEnabled()) {
+      FileSourceDto hashDto = dbClient.fileSourceDao().selectSourceHashByFileUuid(dbSession, fileUuid);
+      if (hashDto == null) {
+        return Optional.empty();
+      }
+      DbFileSources.Data cachedData = hashDto.getDataHash() == null ? null : sourceCache.get(fileUuid, hashDto.getDataHash());
+      if (cachedData != null) {
+        return Optional.of(filterLines(cachedData, from, toInclusive));
+      }
+    }
+
     FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
     if (dto == null) {
       return Optional.empty();
     }
-    return Optional.of(dto.getSourceData().getLinesList().stream()
-      .filter(line -> line.hasLine() && line.getLine() >= from)
-      .limit((toInclusive - from) + 1L)
-      .map(function)
-      .collect(MoreCollectors.toList()));
+    // compressed size is a lower bound of the serialized size, no need to decode the whole file if it is already too large
+    if (!sourceCache.isEnabled() || dto.getDataHash() == null || !sourceCache.accepts(dto.getBinaryData().length)) {
+      return Optional.of(dto.getSourceLines(from, toInclusive));
+    }
+    DbFileSources.Data data = dto.getSourceData();
+    sourceCache.put(fileUuid, dto.getDataHash(), data);
+    return Optional.of(filterLines(data, from, toInclusive));
+  }
+
+  private static List<DbFileSources.Line> filterLines(DbFileSources.Data data, int from, int toInclusive) {
+    List<DbFileSources.Line> res = new ArrayList<>();
+    for (DbFileSources.Line line : data.getLinesList()) {
+      if (res.size() > toInclusive - from) {
+        break;
+      }
+      if (line.hasLine() && line.getLine() >= from) {
+        res.add(line);
+      }
+    }
+    return res;
   }
 
   private static void verifyLine(int line) {
@@ -0,0 +1,229 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Configuration;
+import org.sonar.cluster.localclient.HazelcastClient;
+import org.sonar.db.permission.OrganizationPermission;
+import org.sonar.db.user.GroupDto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.cluster.ClusterObjectKeys.PERMISSION_CACHE_INVALIDATION_TOPIC;
+
+/**
+ * Bounded cache of the effective permissions of users on projects and organizations and of their groups, shared by
+ * the {@link ServerUserSession} of all the requests.
+ * <p>
+ * {@link #invalidate()} must be called once changes of permissions, group memberships or visibility of projects are
+ * committed. All the entries are then invalidated at once, as a single change (for example on a group) can affect many
+ * users. Entries are versioned, so that a value loaded concurrently to an invalidation is not returned to the
+ * subsequent requests. In cluster mode, invalidations are propagated to the other nodes.
+ * <p>
+ * Changes done by other means (for example by the Compute Engine when it is not clustered) are visible at most
+ * {@link #TTL_PROPERTY} seconds later.
+ */
+public class PermissionCache implements Startable {
+
+  static final String MAX_SIZE_PROPERTY = "sonar.web.permissionCache.maxSize";
+  static final String TTL_PROPERTY = "sonar.web.permissionCache.ttlInSeconds";
+  private static final int DEFAULT_MAX_SIZE = 10_000;
+  private static final int DEFAULT_TTL_IN_SECONDS = 60;
+
+  private final boolean enabled;
+  private final AtomicLong version = new AtomicLong();
+  private final Cache<Key, Entry<Set<String>>> projectPermissions;
+  private final Cache<Key, Entry<Set<OrganizationPermission>>> organizationPermissions;
+  private final Cache<String, Entry<Collection<GroupDto>>> groupsByLogin;
+  // project of a component never changes
+  private final Cache<String, String> projectUuidByComponentUuid;
+  @CheckForNull
+  private final HazelcastClient hazelcastClient;
+  @CheckForNull
+  private String registrationId;
+
+  /**
+   * Used when not in cluster mode
+   */
+  public PermissionCache(Configuration config) {
+    this(config, null);
+  }
+
+  public PermissionCache(Configuration config, @Nullable HazelcastClient hazelcastClient) {
+    int maxSize = config.getInt(MAX_SIZE_PROPERTY).orElse(DEFAULT_MAX_SIZE);
+    checkArgument(maxSize >= 0, "Property %s must be positive, got %s", MAX_SIZE_PROPERTY, maxSize);
+    int ttl = config.getInt(TTL_PROPERTY).orElse(DEFAULT_TTL_IN_SECONDS);
+    checkArgument(ttl >= 0, "Property %s must be positive, got %s", TTL_PROPERTY, ttl);
+    this.enabled = maxSize > 0 && ttl > 0;
+    this.projectPermissions = newCache(maxSize, ttl);
+    this.organizationPermissions = newCache(maxSize, ttl);
+    this.groupsByLogin = newCache(maxSize, ttl);
+    this.projectUuidByComponentUuid = newCache(maxSize, ttl);
+    this.hazelcastClient = hazelcastClient;
+  }
+
+  private static <K, V> Cache<K, V> newCache(int maxSize, int ttl) {
+    return CacheBuilder.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(ttl, TimeUnit.SECONDS)
+      .build();
+  }
+
+  @Override
+  public void start() {
+    if (hazelcastClient != null) {
+      String localUuid = hazelcastClient.getUUID();
+      registrationId = hazelcastClient.<String>addMessageListener(PERMISSION_CACHE_INVALIDATION_TOPIC, publisherUuid -> {
+        if (!localUuid.equals(publisherUuid)) {
+          invalidateLocally();
+        }
+      });
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (hazelcastClient != null && registrationId != null) {
+      hazelcastClient.removeMessageListener(PERMISSION_CACHE_INVALIDATION_TOPIC, registrationId);
+      registrationId = null;
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @param userId {@code null} for anonymous
+   * @param loader loads the permissions from database. It returns {@code null} if they must not be cached,
+   *               for example if the project does not exist yet.
+   */
+  @CheckForNull
+  Set<String> getProjectPermissions(@Nullable Integer userId, String projectUuid, Supplier<Set<String>> loader) {
+    return get(projectPermissions, new Key(userId, projectUuid), loader);
+  }
+
+  /**
+   * @param userId {@code null} for anonymous
+   */
+  Set<OrganizationPermission> getOrganizationPermissions(@Nullable Integer userId, String organizationUuid, Supplier<Set<OrganizationPermission>> loader) {
+    return get(organizationPermissions, new Key(userId, organizationUuid), loader);
+  }
+
+  Collection<GroupDto> getGroups(String login, Supplier<Collection<GroupDto>> loader) {
+    return get(groupsByLogin, login, loader);
+  }
+
+  @CheckForNull
+  String getProjectUuid(String componentUuid) {
+    return enabled ? projectUuidByComponentUuid.getIfPresent(componentUuid) : null;
+  }
+
+  void putProjectUuid(String componentUuid, String projectUuid) {
+    if (enabled) {
+      projectUuidByComponentUuid.put(componentUuid, projectUuid);
+    }
+  }
+
+  private <K, V> V get(Cache<K, Entry<V>> cache, K key, Supplier<V> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+    // read before loading, so that an entry loaded concurrently to an invalidation is outdated
+    long currentVersion = version.get();
+    Entry<V> entry = cache.getIfPresent(key);
+    if (entry != null && entry.version == currentVersion) {
+      return entry.value;
+    }
+    V value = loader.get();
+    if (value != null) {
+      cache.put(key, new Entry<>(currentVersion, value));
+    }
+    return value;
+  }
+
+  /**
+   * Invalidates all the entries, on all the nodes of the cluster. Must be called after the changes are committed.
+   */
+  public void invalidate() {
+    invalidateLocally();
+    if (hazelcastClient != null) {
+      hazelcastClient.publish(PERMISSION_CACHE_INVALIDATION_TOPIC, hazelcastClient.getUUID());
+    }
+  }
+
+  private void invalidateLocally() {
+    version.incrementAndGet();
+    projectPermissions.invalidateAll();
+    organizationPermissions.invalidateAll();
+    groupsByLogin.invalidateAll();
+  }
+
+  @Immutable
+  private static final class Key {
+    @CheckForNull
+    private final Integer userId;
+    private final String uuid;
+
+    private Key(@Nullable Integer userId, String uuid) {
+      this.userId = userId;
+      this.uuid = uuid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return Objects.equals(userId, key.userId) && uuid.equals(key.uuid);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userId, uuid);
+    }
+  }
+
+  @Immutable
+  private static final class Entry<V> {
+    private final long version;
+    private final V value;
+
+    private Entry(long version, V value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+}
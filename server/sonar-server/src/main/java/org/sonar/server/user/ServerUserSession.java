@@ -54,6 +54,7 @@ public class ServerUserSession extends AbstractUserSession {
   private final DbClient dbClient;
   private final OrganizationFlags organizationFlags;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final PermissionCache permissionCache;
   private final Supplier<Collection<GroupDto>> groups = Suppliers.memoize(this::loadGroups);
   private final Supplier<Boolean> isSystemAdministratorSupplier = Suppliers.memoize(this::loadIsSystemAdministrator);
   private final Map<String, String> projectUuidByComponentUuid = newHashMap();
@@ -61,10 +62,11 @@ public class ServerUserSession extends AbstractUserSession {
   private Map<String, Set<String>> permissionsByProjectUuid;
 
   ServerUserSession(DbClient dbClient, OrganizationFlags organizationFlags,
-    DefaultOrganizationProvider defaultOrganizationProvider, @Nullable UserDto userDto) {
+    DefaultOrganizationProvider defaultOrganizationProvider, PermissionCache permissionCache, @Nullable UserDto userDto) {
     this.dbClient = dbClient;
     this.organizationFlags = organizationFlags;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.permissionCache = permissionCache;
     this.userDto = userDto;
   }
 
@@ -72,9 +74,11 @@ public class ServerUserSession extends AbstractUserSession {
     if (this.userDto == null) {
       return Collections.emptyList();
     }
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      return dbClient.groupDao().selectByUserLogin(dbSession, userDto.getLogin());
-    }
+    return permissionCache.getGroups(userDto.getLogin(), () -> {
+      try (DbSession dbSession = dbClient.openSession(false)) {
+        return dbClient.groupDao().selectByUserLogin(dbSession, userDto.getLogin());
+      }
+    });
   }
 
   @Override
@@ -115,7 +119,8 @@ public class ServerUserSession extends AbstractUserSession {
     if (permissionsByOrganizationUuid == null) {
       permissionsByOrganizationUuid = new HashMap<>();
     }
-    Set<OrganizationPermission> permissions = permissionsByOrganizationUuid.computeIfAbsent(organizationUuid, this::loadOrganizationPermissions);
+    Set<OrganizationPermission> permissions = permissionsByOrganizationUuid.computeIfAbsent(organizationUuid,
+      uuid -> permissionCache.getOrganizationPermissions(getCacheUserId(), uuid, () -> loadOrganizationPermissions(uuid)));
     return permissions.contains(permission);
   }
 
@@ -136,6 +141,9 @@ public class ServerUserSession extends AbstractUserSession {
   @Override
   protected Optional<String> componentUuidToProjectUuid(String componentUuid) {
     String projectUuid = projectUuidByComponentUuid.get(componentUuid);
+    if (projectUuid == null) {
+      projectUuid = permissionCache.getProjectUuid(componentUuid);
+    }
     if (projectUuid != null) {
       return Optional.of(projectUuid);
     }
@@ -148,6 +156,7 @@ public class ServerUserSession extends AbstractUserSession {
       // checked on the project (represented by its main branch)
       projectUuid = defaultIfEmpty(component.get().getMainBranchProjectUuid(), component.get().projectUuid());
       projectUuidByComponentUuid.put(componentUuid, projectUuid);
+      permissionCache.putProjectUuid(componentUuid, projectUuid);
       return Optional.of(projectUuid);
     }
   }
@@ -157,15 +166,22 @@ public class ServerUserSession extends AbstractUserSession {
     if (permissionsByProjectUuid == null) {
       permissionsByProjectUuid = new HashMap<>();
     }
-    Set<String> permissions = permissionsByProjectUuid.computeIfAbsent(projectUuid, this::loadProjectPermissions);
+    Set<String> permissions = permissionsByProjectUuid.computeIfAbsent(projectUuid, uuid -> {
+      Set<String> loaded = permissionCache.getProjectPermissions(getCacheUserId(), uuid, () -> loadProjectPermissions(uuid));
+      return loaded == null ? Collections.emptySet() : loaded;
+    });
     return permissions.contains(permission);
   }
 
+  /**
+   * @return {@code null} if the project does not exist, so that permissions are not cached until it's created
+   */
+  @CheckForNull
   private Set<String> loadProjectPermissions(String projectUuid) {
     try (DbSession dbSession = dbClient.openSession(false)) {
       com.google.common.base.Optional<ComponentDto> component = dbClient.componentDao().selectByUuid(dbSession, projectUuid);
       if (!component.isPresent()) {
-        return Collections.emptySet();
+        return null;
       }
       if (component.get().isPrivate()) {
         return loadDbPermissions(dbSession, projectUuid);
@@ -177,6 +193,14 @@ public class ServerUserSession extends AbstractUserSession {
     }
   }
 
+  /**
+   * Permissions of users without id are loaded as the ones of anonymous
+   */
+  @CheckForNull
+  private Integer getCacheUserId() {
+    return userDto == null ? null : userDto.getId();
+  }
+
   private Set<String> loadDbPermissions(DbSession dbSession, String projectUuid) {
     if (userDto != null && userDto.getId() != null) {
       return dbClient.authorizationDao().selectProjectPermissions(dbSession, projectUuid, userDto.getId());
@@ -79,9 +79,11 @@ public class UserUpdater {
   private final OrganizationCreation organizationCreation;
   private final DefaultGroupFinder defaultGroupFinder;
   private final Configuration config;
+  private final PermissionCache permissionCache;
 
   public UserUpdater(NewUserNotifier newUserNotifier, DbClient dbClient, UserIndexer userIndexer, OrganizationFlags organizationFlags,
-    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation, DefaultGroupFinder defaultGroupFinder, Configuration config) {
+    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation, DefaultGroupFinder defaultGroupFinder, Configuration config,
+    PermissionCache permissionCache) {
     this.newUserNotifier = newUserNotifier;
     this.dbClient = dbClient;
     this.userIndexer = userIndexer;
@@ -90,6 +92,7 @@ public class UserUpdater {
     this.organizationCreation = organizationCreation;
     this.defaultGroupFinder = defaultGroupFinder;
     this.config = config;
+    this.permissionCache = permissionCache;
   }
 
   public UserDto createAndCommit(DbSession dbSession, NewUser newUser, Consumer<UserDto> beforeCommit) {
@@ -102,6 +105,8 @@ public class UserUpdater {
     }
     beforeCommit.accept(userDto);
     userIndexer.commitAndIndex(dbSession, userDto);
+    // a reactivated user keeps its id, hence its permissions cached before deactivation must not be used
+    permissionCache.invalidate();
 
     notifyNewUser(userDto.getLogin(), userDto.getName(), newUser.email());
     return userDto;
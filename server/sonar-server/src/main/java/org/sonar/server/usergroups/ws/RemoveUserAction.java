@@ -28,6 +28,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.permission.OrganizationPermission;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.UserSession;
 
 import static java.lang.String.format;
@@ -44,11 +45,13 @@ public class RemoveUserAction implements UserGroupsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final GroupWsSupport support;
+  private final PermissionCache permissionCache;
 
-  public RemoveUserAction(DbClient dbClient, UserSession userSession, GroupWsSupport support) {
+  public RemoveUserAction(DbClient dbClient, UserSession userSession, GroupWsSupport support, PermissionCache permissionCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.support = support;
+    this.permissionCache = permissionCache;
   }
 
   @Override
@@ -82,6 +85,7 @@ public class RemoveUserAction implements UserGroupsWsAction {
 
       dbClient.userGroupDao().delete(dbSession, group.getId(), user.getId());
       dbSession.commit();
+      permissionCache.invalidate();
 
       response.noContent();
     }
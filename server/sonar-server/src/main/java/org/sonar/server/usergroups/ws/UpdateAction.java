@@ -31,6 +31,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserMembershipQuery;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.WsUserGroups;
 
@@ -51,11 +52,13 @@ public class UpdateAction implements UserGroupsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final GroupWsSupport support;
+  private final PermissionCache permissionCache;
 
-  public UpdateAction(DbClient dbClient, UserSession userSession, GroupWsSupport support) {
+  public UpdateAction(DbClient dbClient, UserSession userSession, GroupWsSupport support, PermissionCache permissionCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.support = support;
+    this.permissionCache = permissionCache;
   }
 
   @Override
@@ -114,6 +117,8 @@ public class UpdateAction implements UserGroupsWsAction {
       if (changed) {
         dbClient.groupDao().update(dbSession, group);
         dbSession.commit();
+        // groups of users are cached with their name
+        permissionCache.invalidate();
       }
 
       writeResponse(dbSession, request, response, org.get(), group);
@@ -20,46 +20,35 @@
 package org.sonar.server.util.cache;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.io.Serializable;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.CloseableIterator;
-import org.sonar.server.util.ObjectInputStreamIterator;
 
 /**
  * Serialize and deserialize objects on disk. No search capabilities, only traversal (full scan).
+ * The layout of the file is defined by a {@link SpillFormat}, which is Java serialization by default.
  */
 public class DiskCache<O extends Serializable> {
 
   private final File file;
   private final System2 system2;
+  private final SpillFormat<O> format;
 
   public DiskCache(File file, System2 system2) {
+    this(file, system2, new JavaSerializationFormat<>());
+  }
+
+  public DiskCache(File file, System2 system2, SpillFormat<O> format) {
     this.system2 = system2;
     this.file = file;
-    OutputStream output = null;
-    boolean threw = true;
+    this.format = format;
     try {
-      // writes the serialization stream header required when calling "traverse()"
-      // on empty stream. Moreover it allows to call multiple times "newAppender()"
-      output = new ObjectOutputStream(new FileOutputStream(file));
-      output.flush();
-      threw = false;
+      // writes the header required when calling "traverse()" on empty file.
+      // Moreover it allows to call multiple times "newAppender()"
+      format.initialize(file);
     } catch (IOException e) {
       throw new IllegalStateException("Fail to write into file: " + file, e);
-    } finally {
-      if (threw) {
-        // do not hide initial exception
-        IOUtils.closeQuietly(output);
-      } else {
-        // raise an exception if can't close
-        system2.close(output);
-      }
     }
   }
 
@@ -69,23 +58,18 @@ public class DiskCache<O extends Serializable> {
 
   public CloseableIterator<O> traverse() {
     try {
-      return new ObjectInputStreamIterator<>(FileUtils.openInputStream(file));
+      return format.openReader(file);
     } catch (IOException e) {
       throw new IllegalStateException("Fail to traverse file: " + file, e);
     }
   }
 
   public class DiskAppender implements AutoCloseable {
-    private final ObjectOutputStream output;
+    private final SpillFormat.Writer<O> writer;
 
     private DiskAppender() {
       try {
-        this.output = new ObjectOutputStream(new FileOutputStream(file, true)) {
-          @Override
-          protected void writeStreamHeader() throws IOException {
-            // do not write stream headers as it's already done in constructor of DiskCache
-          }
-        };
+        this.writer = format.openWriter(file);
       } catch (IOException e) {
         throw new IllegalStateException("Fail to open file " + file, e);
       }
@@ -93,8 +77,7 @@ public class DiskCache<O extends Serializable> {
 
     public DiskAppender append(O object) {
       try {
-        output.writeObject(object);
-        output.reset();
+        writer.write(object);
         return this;
       } catch (IOException e) {
         throw new IllegalStateException("Fail to write into file " + file, e);
@@ -103,7 +86,7 @@ public class DiskCache<O extends Serializable> {
 
     @Override
     public void close() {
-      system2.close(output);
+      system2.close(writer);
     }
   }
 }
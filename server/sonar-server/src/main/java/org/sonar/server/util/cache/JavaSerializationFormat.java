@@ -0,0 +1,71 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import org.apache.commons.io.FileUtils;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.util.ObjectInputStreamIterator;
+
+/**
+ * Objects are written with Java serialization in a single stream. Simple but expensive in CPU and disk space,
+ * as class descriptors are written again for each object.
+ */
+public class JavaSerializationFormat<O extends Serializable> implements SpillFormat<O> {
+
+  @Override
+  public void initialize(File file) throws IOException {
+    try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(file))) {
+      // serialization stream header is written by constructor
+      output.flush();
+    }
+  }
+
+  @Override
+  public Writer<O> openWriter(File file) throws IOException {
+    ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(file, true)) {
+      @Override
+      protected void writeStreamHeader() throws IOException {
+        // do not write stream headers as it's already done by initialize()
+      }
+    };
+    return new Writer<O>() {
+      @Override
+      public void write(O object) throws IOException {
+        output.writeObject(object);
+        output.reset();
+      }
+
+      @Override
+      public void close() throws IOException {
+        output.close();
+      }
+    };
+  }
+
+  @Override
+  public CloseableIterator<O> openReader(File file) throws IOException {
+    return new ObjectInputStreamIterator<>(FileUtils.openInputStream(file));
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.sonar.core.util.CloseableIterator;
+
+/**
+ * Compact binary layout of {@link DiskCache}, where objects are encoded by a {@link RecordCodec}.
+ * <p>
+ * The file starts with a header (magic number, version and compression flag), followed by blocks of
+ * about {@link #BLOCK_SIZE} bytes. Each block is prefixed by its stored length and its raw length, and is
+ * optionally compressed with LZ4. The raw content of a block is a sequence of records prefixed by their length.
+ * </p>
+ * <p>
+ * Files are read through memory-mapped windows, so that uncompressed records are decoded without
+ * being copied on the heap.
+ * </p>
+ */
+public class RecordFormat<O> implements SpillFormat<O> {
+
+  static final int MAGIC = 0x53514443;
+  static final byte VERSION = 1;
+  static final int HEADER_SIZE = 4 + 1 + 1;
+  static final int BLOCK_HEADER_SIZE = 4 + 4;
+  static final int BLOCK_SIZE = 64 * 1024;
+  private static final long DEFAULT_WINDOW_SIZE = 32L * 1024 * 1024;
+
+  private final RecordCodec<O> codec;
+  private final boolean compressed;
+  private final long windowSize;
+
+  public RecordFormat(RecordCodec<O> codec, boolean compressed) {
+    this(codec, compressed, DEFAULT_WINDOW_SIZE);
+  }
+
+  @VisibleForTesting
+  RecordFormat(RecordCodec<O> codec, boolean compressed, long windowSize) {
+    this.codec = codec;
+    this.compressed = compressed;
+    this.windowSize = windowSize;
+  }
+
+  @Override
+  public void initialize(File file) throws IOException {
+    try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file))) {
+      output.writeInt(MAGIC);
+      output.writeByte(VERSION);
+      output.writeBoolean(compressed);
+    }
+  }
+
+  @Override
+  public Writer<O> openWriter(File file) throws IOException {
+    return new BlockWriter<>(codec, compressed ? LZ4Factory.fastestInstance().fastCompressor() : null, new FileOutputStream(file, true));
+  }
+
+  @Override
+  public CloseableIterator<O> openReader(File file) throws IOException {
+    return new MappedRecordIterator<>(codec, FileChannel.open(file.toPath(), StandardOpenOption.READ), windowSize);
+  }
+
+  private static class BlockWriter<O> implements Writer<O> {
+    private final RecordCodec<O> codec;
+    @CheckForNull
+    private final LZ4Compressor compressor;
+    private final DataOutputStream output;
+    private final RecordOutput block = new RecordOutput(BLOCK_SIZE + BLOCK_SIZE / 4);
+    private byte[] compressedBlock = new byte[0];
+
+    private BlockWriter(RecordCodec<O> codec, @Nullable LZ4Compressor compressor, FileOutputStream output) {
+      this.codec = codec;
+      this.compressor = compressor;
+      this.output = new DataOutputStream(output);
+    }
+
+    @Override
+    public void write(O object) throws IOException {
+      int start = block.size();
+      try {
+        // length is known only once the record is encoded
+        block.writeInt(0);
+        codec.encode(object, block);
+      } catch (RuntimeException e) {
+        block.truncate(start);
+        throw e;
+      }
+      block.setInt(start, block.size() - start - 4);
+      if (block.size() >= BLOCK_SIZE) {
+        flushBlock();
+      }
+    }
+
+    private void flushBlock() throws IOException {
+      int rawLength = block.size();
+      if (rawLength == 0) {
+        return;
+      }
+      if (compressor == null) {
+        output.writeInt(rawLength);
+        output.writeInt(rawLength);
+        output.write(block.bytes(), 0, rawLength);
+      } else {
+        int maxLength = compressor.maxCompressedLength(rawLength);
+        if (compressedBlock.length < maxLength) {
+          compressedBlock = new byte[maxLength];
+        }
+        int storedLength = compressor.compress(block.bytes(), 0, rawLength, compressedBlock, 0, maxLength);
+        output.writeInt(storedLength);
+        output.writeInt(rawLength);
+        output.write(compressedBlock, 0, storedLength);
+      }
+      block.truncate(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flushBlock();
+      } finally {
+        output.close();
+      }
+    }
+  }
+
+  private static class MappedRecordIterator<O> extends CloseableIterator<O> {
+    private final RecordCodec<O> codec;
+    private final FileChannel channel;
+    private final long windowSize;
+    private final long fileSize;
+    @CheckForNull
+    private final LZ4FastDecompressor decompressor;
+    private MappedByteBuffer window = null;
+    private long windowStart = 0L;
+    private long position = HEADER_SIZE;
+    private ByteBuffer block = null;
+    private byte[] rawBlock = new byte[0];
+
+    private MappedRecordIterator(RecordCodec<O> codec, FileChannel channel, long windowSize) throws IOException {
+      this.codec = codec;
+      this.channel = channel;
+      this.windowSize = windowSize;
+      try {
+        this.fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+          // read fully
+        }
+        header.flip();
+        if (header.remaining() != HEADER_SIZE || header.getInt() != MAGIC || header.get() != VERSION) {
+          throw new IllegalStateException("Unsupported format of file");
+        }
+        this.decompressor = header.get() != 0 ? LZ4Factory.fastestInstance().fastDecompressor() : null;
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    @Override
+    @CheckForNull
+    protected O doNext() {
+      try {
+        while (block == null || !block.hasRemaining()) {
+          if (position >= fileSize) {
+            return null;
+          }
+          block = readBlock();
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to read block at position " + position, e);
+      }
+      int length = block.getInt();
+      ByteBuffer record = block.slice();
+      record.limit(length);
+      block.position(block.position() + length);
+      return codec.decode(new RecordInput(record));
+    }
+
+    private ByteBuffer readBlock() throws IOException {
+      ByteBuffer header = map(BLOCK_HEADER_SIZE);
+      int storedLength = header.getInt();
+      int rawLength = header.getInt();
+      ByteBuffer stored = map(storedLength);
+      if (decompressor == null) {
+        return stored;
+      }
+      if (rawBlock.length < rawLength) {
+        rawBlock = new byte[rawLength];
+      }
+      ByteBuffer raw = ByteBuffer.wrap(rawBlock, 0, rawLength);
+      decompressor.decompress(stored, stored.position(), raw, 0, rawLength);
+      return raw;
+    }
+
+    /**
+     * View of the next {@code length} bytes of file. The current window is re-mapped
+     * if it does not contain them.
+     */
+    private ByteBuffer map(int length) throws IOException {
+      if (position + length > fileSize) {
+        throw new IllegalStateException("Unexpected end of file at position " + position);
+      }
+      if (window == null || position < windowStart || position + length > windowStart + window.capacity()) {
+        long size = Math.min(Math.max(windowSize, length), fileSize - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        windowStart = position;
+      }
+      ByteBuffer view = window.duplicate();
+      view.position((int) (position - windowStart));
+      view.limit(view.position() + length);
+      position += length;
+      return view.slice();
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+      window = null;
+      block = null;
+      channel.close();
+    }
+  }
+}
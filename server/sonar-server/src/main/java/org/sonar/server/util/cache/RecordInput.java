@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.CheckForNull;
+
+/**
+ * Reads the values written by {@link RecordOutput} from a big-endian {@link ByteBuffer},
+ * which can be a view of a memory-mapped file.
+ */
+public final class RecordInput {
+
+  private final ByteBuffer buffer;
+
+  RecordInput(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  public byte readByte() {
+    return buffer.get();
+  }
+
+  public boolean readBoolean() {
+    return buffer.get() != 0;
+  }
+
+  public int readInt() {
+    return buffer.getInt();
+  }
+
+  public long readLong() {
+    return buffer.getLong();
+  }
+
+  public double readDouble() {
+    return buffer.getDouble();
+  }
+
+  @CheckForNull
+  public String readString() {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    String s;
+    if (buffer.hasArray()) {
+      s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+      buffer.position(buffer.position() + length);
+    } else {
+      byte[] b = new byte[length];
+      buffer.get(b);
+      s = new String(b, StandardCharsets.UTF_8);
+    }
+    return s;
+  }
+
+  @CheckForNull
+  public byte[] readBytes() {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] b = new byte[length];
+    buffer.get(b);
+    return b;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * Growable big-endian byte buffer in which {@link RecordCodec} encodes objects.
+ * Nullable strings and byte arrays are prefixed by their length, {@code -1} meaning {@code null}.
+ */
+public final class RecordOutput {
+
+  private static final int NULL_LENGTH = -1;
+
+  private byte[] bytes;
+  private int size = 0;
+
+  RecordOutput(int initialCapacity) {
+    this.bytes = new byte[initialCapacity];
+  }
+
+  public RecordOutput writeByte(int b) {
+    ensureCapacity(1);
+    bytes[size] = (byte) b;
+    size++;
+    return this;
+  }
+
+  public RecordOutput writeBoolean(boolean b) {
+    return writeByte(b ? 1 : 0);
+  }
+
+  public RecordOutput writeInt(int i) {
+    ensureCapacity(4);
+    putInt(size, i);
+    size += 4;
+    return this;
+  }
+
+  public RecordOutput writeLong(long l) {
+    ensureCapacity(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      bytes[size] = (byte) (l >>> shift);
+      size++;
+    }
+    return this;
+  }
+
+  public RecordOutput writeDouble(double d) {
+    return writeLong(Double.doubleToLongBits(d));
+  }
+
+  public RecordOutput writeString(@Nullable String s) {
+    return writeBytes(s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public RecordOutput writeBytes(@Nullable byte[] b) {
+    if (b == null) {
+      return writeInt(NULL_LENGTH);
+    }
+    writeInt(b.length);
+    ensureCapacity(b.length);
+    System.arraycopy(b, 0, bytes, size, b.length);
+    size += b.length;
+    return this;
+  }
+
+  void setInt(int position, int i) {
+    putInt(position, i);
+  }
+
+  int size() {
+    return size;
+  }
+
+  byte[] bytes() {
+    return bytes;
+  }
+
+  /**
+   * Discards the bytes written after the given position
+   */
+  void truncate(int position) {
+    size = position;
+  }
+
+  private void putInt(int position, int i) {
+    bytes[position] = (byte) (i >>> 24);
+    bytes[position + 1] = (byte) (i >>> 16);
+    bytes[position + 2] = (byte) (i >>> 8);
+    bytes[position + 3] = (byte) i;
+  }
+
+  private void ensureCapacity(int additional) {
+    int required = size + additional;
+    if (required > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+    }
+  }
+}
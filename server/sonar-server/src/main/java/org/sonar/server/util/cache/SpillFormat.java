@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.File;
+import java.io.IOException;
+import org.sonar.core.util.CloseableIterator;
+
+/**
+ * Layout of the file backing a {@link DiskCache}.
+ */
+public interface SpillFormat<O> {
+
+  /**
+   * Creates or truncates the file and writes the header expected by {@link #openReader(File)}, if any.
+   */
+  void initialize(File file) throws IOException;
+
+  /**
+   * Opens a writer which appends objects at the end of the file. Several writers can be opened
+   * sequentially on the same file.
+   */
+  Writer<O> openWriter(File file) throws IOException;
+
+  /**
+   * Full scan of the objects appended to the file, in the order of writes.
+   */
+  CloseableIterator<O> openReader(File file) throws IOException;
+
+  interface Writer<O> extends AutoCloseable {
+    void write(O object) throws IOException;
+
+    @Override
+    void close() throws IOException;
+  }
+}
@@ -40,8 +40,14 @@ import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 public class CeQueueImplTest {
 
@@ -114,6 +120,40 @@ public class CeQueueImplTest {
     verifyCeQueueDtoForTaskSubmit(taskSubmit2);
   }
 
+  @Test
+  public void submit_notifies_listeners_of_submitted_task() {
+    CeQueueListener listener = mock(CeQueueListener.class);
+    CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeQueueListener[] {listener});
+
+    CeTask task = underTest.submit(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null));
+
+    verify(listener).onSubmit(singleton(task));
+  }
+
+  @Test
+  public void massSubmit_notifies_listeners_once_of_all_submitted_tasks() {
+    CeQueueListener listener = mock(CeQueueListener.class);
+    CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeQueueListener[] {listener});
+
+    List<CeTask> tasks = underTest.massSubmit(asList(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null), createTaskSubmit("some type")));
+
+    verify(listener).onSubmit(tasks);
+    verifyNoMoreInteractions(listener);
+  }
+
+  @Test
+  public void submit_does_not_fail_if_a_listener_fails() {
+    CeQueueListener failingListener = mock(CeQueueListener.class);
+    doThrow(new IllegalStateException("faking listener failure")).when(failingListener).onSubmit(anyCollection());
+    CeQueueListener listener = mock(CeQueueListener.class);
+    CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeQueueListener[] {failingListener, listener});
+
+    CeTask task = underTest.submit(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null));
+
+    verify(listener).onSubmit(singleton(task));
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task.getUuid())).isPresent();
+  }
+
   @Test
   public void massSubmit_populates_component_name_and_key_of_CeTask_if_component_exists() {
     ComponentDto componentDto1 = insertComponent(ComponentTesting.newPrivateProjectDto(dbTester.getDefaultOrganization(), "PROJECT_1"));
@@ -89,6 +89,17 @@ public class ProjectConfigurationFactoryTest {
     assertThat(config.get("sonar.leak.period")).hasValue("1");
   }
 
+  @Test
+  public void branch_settings_by_branch_name() {
+    ComponentDto project = db.components().insertMainBranch();
+    ComponentDto branch = db.components().insertProjectBranch(project);
+    db.properties().insertProperties(newComponentPropertyDto(branch).setKey("sonar.leak.period").setValue("1"));
+
+    Configuration config = underTest.newProjectConfiguration(project.getKey(), branch.getBranch());
+
+    assertThat(config.get("sonar.leak.period")).hasValue("1");
+  }
+
   @Test
   public void branch_settings_contains_global_settings() {
     settings.setProperty("global", "global_value");
@@ -41,6 +41,7 @@ import org.sonar.server.organization.OrganizationCreation;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.organization.TestOrganizationFlags;
 import org.sonar.server.user.NewUserNotifier;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.UserUpdater;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
@@ -50,6 +51,8 @@ import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Arrays.stream;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.sonar.core.config.CorePropertyDefinitions.ONBOARDING_TUTORIAL_SHOW_TO_NEW_USERS;
 import static org.sonar.db.user.UserTesting.newUserDto;
 import static org.sonar.server.authentication.event.AuthenticationExceptionMatcher.authenticationException;
@@ -91,10 +94,12 @@ public class UserIdentityAuthenticatorTest {
     defaultOrganizationProvider,
     organizationCreation,
     new DefaultGroupFinder(db.getDbClient()),
-    settings.asConfig());
+    settings.asConfig(),
+    mock(PermissionCache.class));
+  private PermissionCache permissionCache = mock(PermissionCache.class);
 
   private UserIdentityAuthenticator underTest = new UserIdentityAuthenticator(db.getDbClient(), userUpdater, defaultOrganizationProvider, organizationFlags,
-    new DefaultGroupFinder(db.getDbClient()));
+    new DefaultGroupFinder(db.getDbClient()), permissionCache);
 
   @Test
   public void authenticate_new_user() {
@@ -229,6 +234,7 @@ public class UserIdentityAuthenticatorTest {
     authenticate(USER_LOGIN, "group1", "group2", "group3");
 
     checkGroupMembership(user, group1, group2);
+    verify(permissionCache).invalidate();
   }
 
   @Test
@@ -246,6 +252,23 @@ public class UserIdentityAuthenticatorTest {
     authenticate(USER_LOGIN, "group1");
 
     checkGroupMembership(user, group1);
+    verify(permissionCache).invalidate();
+  }
+
+  @Test
+  public void authenticate_existing_user_with_same_groups_does_not_invalidate_permissions() {
+    organizationFlags.setEnabled(true);
+    UserDto user = db.users().insertUser(newUserDto()
+      .setLogin(USER_LOGIN)
+      .setActive(true)
+      .setName("John"));
+    GroupDto group1 = db.users().insertGroup(db.getDefaultOrganization(), "group1");
+    db.users().insertMember(group1, user);
+
+    authenticate(USER_LOGIN, "group1");
+
+    checkGroupMembership(user, group1);
+    verify(permissionCache, never()).invalidate();
   }
 
   @Test
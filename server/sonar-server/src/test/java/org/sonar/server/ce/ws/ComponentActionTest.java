@@ -162,6 +162,22 @@ public class ComponentActionTest {
     assertThat(response.getCurrent().getId()).isEqualTo("T3");
   }
 
+  @Test
+  public void purge_tasks_must_not_be_picked_as_current_analysis() {
+    ComponentDto project = db.components().insertPrivateProject();
+    userSession.addProjectPermission(UserRole.USER, project);
+    insertActivity("T1", project, CeActivityDto.Status.FAILED);
+    insertActivity("T2", project, CeActivityDto.Status.SUCCESS, null, CeTaskTypes.PROJECT_PURGE);
+    insertQueue("T3", project, CeQueueDto.Status.PENDING, CeTaskTypes.PROJECT_PURGE);
+
+    WsCe.ProjectResponse response = ws.newRequest()
+      .setParam(PARAM_COMPONENT, project.getKey())
+      .executeProtobuf(WsCe.ProjectResponse.class);
+    assertThat(response.getQueueCount()).isEqualTo(0);
+    assertThat(response.getCurrent().getId()).isEqualTo("T1");
+    assertThat(response.getCurrent().getStatus()).isEqualTo(WsCe.TaskStatus.FAILED);
+  }
+
   @Test
   public void incremental_analysis_by_component_key() {
     ComponentDto project = db.components().insertPrivateProject();
@@ -322,8 +338,12 @@ public class ComponentActionTest {
   }
 
   private CeQueueDto insertQueue(String taskUuid, ComponentDto component, CeQueueDto.Status status) {
+    return insertQueue(taskUuid, component, status, CeTaskTypes.REPORT);
+  }
+
+  private CeQueueDto insertQueue(String taskUuid, ComponentDto component, CeQueueDto.Status status, String taskType) {
     CeQueueDto queueDto = new CeQueueDto();
-    queueDto.setTaskType(CeTaskTypes.REPORT);
+    queueDto.setTaskType(taskType);
     queueDto.setComponentUuid(component.uuid());
     queueDto.setUuid(taskUuid);
     queueDto.setStatus(status);
@@ -337,8 +357,12 @@ public class ComponentActionTest {
   }
 
   private CeActivityDto insertActivity(String taskUuid, ComponentDto component, CeActivityDto.Status status, @Nullable SnapshotDto analysis) {
+    return insertActivity(taskUuid, component, status, analysis, CeTaskTypes.REPORT);
+  }
+
+  private CeActivityDto insertActivity(String taskUuid, ComponentDto component, CeActivityDto.Status status, @Nullable SnapshotDto analysis, String taskType) {
     CeQueueDto queueDto = new CeQueueDto();
-    queueDto.setTaskType(CeTaskTypes.REPORT);
+    queueDto.setTaskType(taskType);
     queueDto.setComponentUuid(component.uuid());
     queueDto.setUuid(taskUuid);
     CeActivityDto activityDto = new CeActivityDto(queueDto);
@@ -21,6 +21,7 @@ package org.sonar.server.computation.dbcleaner;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.config.PropertyDefinitions;
@@ -34,16 +35,21 @@ import org.sonar.db.purge.PurgeConfiguration;
 import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeListener;
 import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottler;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class ProjectCleanerTest {
 
@@ -86,4 +92,25 @@ public class ProjectCleanerTest {
     verify(periodCleaner).clean(any(DbSession.class), anyString(), any(Configuration.class));
     verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
   }
+
+  @Test
+  public void purgeHistory_calls_period_cleaner_and_purge_dao_with_throttler() {
+    PurgeThrottler throttler = PurgeThrottler.unlimited();
+
+    underTest.purgeHistory(mock(DbSession.class), new IdUuidPair(1L, "P1"), settings.asConfig(), throttler);
+
+    verify(periodCleaner).clean(any(DbSession.class), eq("P1"), any(Configuration.class), eq(throttler));
+    verify(dao).purgeHistory(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class), eq(throttler));
+    verify(dao, never()).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class));
+  }
+
+  @Test
+  public void purgeDisabledComponents_calls_only_purge_dao() {
+    underTest.purgeDisabledComponents(mock(DbSession.class), new IdUuidPair(1L, "P1"), settings.asConfig(), singletonList("FILE_1"));
+
+    ArgumentCaptor<PurgeConfiguration> conf = ArgumentCaptor.forClass(PurgeConfiguration.class);
+    verify(dao).purgeDisabledComponents(any(DbSession.class), conf.capture(), any(PurgeListener.class));
+    assertThat(conf.getValue().getDisabledComponentUuids()).containsOnly("FILE_1");
+    verifyZeroInteractions(periodCleaner);
+  }
 }
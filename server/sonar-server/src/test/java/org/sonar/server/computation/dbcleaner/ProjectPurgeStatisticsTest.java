@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class ProjectPurgeStatisticsTest {
+
+  private ProjectPurgeStatistics underTest = new ProjectPurgeStatistics();
+
+  @Test
+  public void section_is_empty_when_no_purge_has_been_processed() {
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+
+    assertThat(section.getName()).isEqualTo("Compute Engine Purge");
+    assertThat(section.getAttributesList()).extracting("key", "longValue").containsExactly(
+      tuple("Processed Purges", 0L),
+      tuple("Processing Time (ms)", 0L));
+  }
+
+  @Test
+  public void sum_deleted_rows_per_table() {
+    underTest.add(10L, ImmutableMap.of("snapshots", 2L, "project_measures", 100L));
+    underTest.add(20L, ImmutableMap.of("project_measures", 50L, "issues", 3L));
+
+    assertThat(underTest.toProtobuf().getAttributesList()).extracting("key", "longValue").containsExactly(
+      tuple("Processed Purges", 2L),
+      tuple("Processing Time (ms)", 30L),
+      tuple("Deleted Rows of snapshots", 2L),
+      tuple("Deleted Rows of project_measures", 150L),
+      tuple("Deleted Rows of issues", 3L));
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.settings.ProjectConfigurationFactory;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeThrottler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class ProjectPurgeTaskProcessorTest {
+
+  @Rule
+  public DbTester db = DbTester.create();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private MapSettings settings = new MapSettings();
+  private ProjectCleaner projectCleaner = mock(ProjectCleaner.class);
+  private ProjectPurgeStatistics statistics = new ProjectPurgeStatistics();
+
+  @Test
+  public void handles_PROJECT_PURGE_tasks() {
+    assertThat(newUnderTest().getHandledCeTaskTypes()).containsOnly(CeTaskTypes.PROJECT_PURGE);
+  }
+
+  @Test
+  public void purge_history_of_project() {
+    ComponentDto project = db.components().insertPrivateProject();
+
+    newUnderTest().process(newTask(project));
+
+    ArgumentCaptor<IdUuidPair> idUuidPair = ArgumentCaptor.forClass(IdUuidPair.class);
+    verify(projectCleaner).purgeHistory(any(DbSession.class), idUuidPair.capture(), any(Configuration.class), any(PurgeThrottler.class));
+    assertThat(idUuidPair.getValue().getId()).isEqualTo(project.getId());
+    assertThat(idUuidPair.getValue().getUuid()).isEqualTo(project.uuid());
+    assertThat(statistics.toProtobuf().getAttributesList()).extracting("key").contains("Processed Purges");
+  }
+
+  @Test
+  public void purge_history_of_all_branches_of_project() {
+    ComponentDto project = db.components().insertMainBranch();
+    ComponentDto branch = db.components().insertProjectBranch(project);
+
+    newUnderTest().process(newTask(project));
+
+    ArgumentCaptor<IdUuidPair> idUuidPair = ArgumentCaptor.forClass(IdUuidPair.class);
+    verify(projectCleaner, times(2)).purgeHistory(any(DbSession.class), idUuidPair.capture(), any(Configuration.class), any(PurgeThrottler.class));
+    assertThat(idUuidPair.getAllValues()).extracting(IdUuidPair::getUuid).containsOnly(project.uuid(), branch.uuid());
+  }
+
+  @Test
+  public void purge_history_of_view() {
+    ComponentDto view = db.components().insertView();
+
+    newUnderTest().process(newTask(view));
+
+    ArgumentCaptor<IdUuidPair> idUuidPair = ArgumentCaptor.forClass(IdUuidPair.class);
+    verify(projectCleaner).purgeHistory(any(DbSession.class), idUuidPair.capture(), any(Configuration.class), any(PurgeThrottler.class));
+    assertThat(idUuidPair.getValue().getUuid()).isEqualTo(view.uuid());
+  }
+
+  @Test
+  public void do_nothing_if_component_does_not_exist_anymore() {
+    ComponentDto project = db.components().insertPrivateProject();
+    CeTask task = newTask(project);
+    db.getDbClient().componentDao().delete(db.getSession(), project.getId());
+    db.commit();
+
+    newUnderTest().process(task);
+
+    verifyZeroInteractions(projectCleaner);
+  }
+
+  @Test
+  public void fail_if_max_rows_per_second_is_negative() {
+    settings.setProperty("sonar.ce.purge.maxRowsPerSecond", -1);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Property sonar.ce.purge.maxRowsPerSecond must be positive, got -1");
+
+    newUnderTest();
+  }
+
+  @Test
+  public void fail_if_chunk_size_is_zero() {
+    settings.setProperty("sonar.ce.purge.chunkSize", 0);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Property sonar.ce.purge.chunkSize must be strictly positive, got 0");
+
+    newUnderTest();
+  }
+
+  private ProjectPurgeTaskProcessor newUnderTest() {
+    return new ProjectPurgeTaskProcessor(db.getDbClient(), projectCleaner, new ProjectConfigurationFactory(settings, db.getDbClient()), statistics,
+      settings.asConfig(), new TestSystem2().setNow(1_000L));
+  }
+
+  private static CeTask newTask(ComponentDto component) {
+    return new CeTask.Builder()
+      .setOrganizationUuid(component.getOrganizationUuid())
+      .setUuid("TASK_1")
+      .setType(CeTaskTypes.PROJECT_PURGE)
+      .setComponentUuid(component.uuid())
+      .setComponentKey(component.getKey())
+      .build();
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.scanner.protocol.output.FileStructure.Domain;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
+
+import static com.google.common.collect.ImmutableList.of;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportFilesTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private ScannerReportWriter writer;
+
+  @Before
+  public void setUp() throws IOException {
+    writer = new ScannerReportWriter(temp.newFolder());
+  }
+
+  @Test
+  public void index_files_by_domain_and_ref() throws IOException {
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).build());
+    writer.writeComponentIssues(12, of(ScannerReport.Issue.newBuilder().build()));
+    writer.writeCoverageDetails(3, of(ScannerReport.CoverageDetail.newBuilder().build()));
+    FileUtils.write(writer.getSourceFile(7), "source");
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().build());
+    FileUtils.write(new File(writer.getFileStructure().root(), "component-foo.pb"), "");
+    FileUtils.write(new File(writer.getFileStructure().root(), "component-.pb"), "");
+
+    ReportFiles underTest = ReportFiles.index(writer.getFileStructure());
+
+    assertThat(underTest.has(Domain.COMPONENT, 1)).isTrue();
+    assertThat(underTest.has(Domain.COMPONENT, 12)).isFalse();
+    assertThat(underTest.has(Domain.ISSUES, 12)).isTrue();
+    assertThat(underTest.has(Domain.ISSUES, 1)).isFalse();
+    assertThat(underTest.has(Domain.COVERAGE_DETAILS, 3)).isTrue();
+    assertThat(underTest.has(Domain.COVERAGES, 3)).isFalse();
+    assertThat(underTest.has(Domain.SOURCE, 7)).isTrue();
+    assertThat(underTest.has(Domain.SOURCE, -1)).isFalse();
+    assertThat(underTest.get(Domain.SOURCE, 7)).isEqualTo(writer.getSourceFile(7));
+    assertThat(underTest.get(Domain.SOURCE, 8)).isNull();
+  }
+
+  @Test
+  public void files_written_after_indexing_are_ignored() {
+    ReportFiles underTest = ReportFiles.index(writer.getFileStructure());
+
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).build());
+
+    assertThat(underTest.has(Domain.COMPONENT, 1)).isFalse();
+  }
+
+  @Test
+  public void read_message() {
+    ScannerReport.Component component = ScannerReport.Component.newBuilder().setRef(1).setName("foo").build();
+    writer.writeComponent(component);
+
+    ReportFiles underTest = ReportFiles.index(writer.getFileStructure());
+
+    assertThat(underTest.read(Domain.COMPONENT, 1, ScannerReport.Component.parser())).isEqualTo(component);
+    assertThat(underTest.read(Domain.COMPONENT, 2, ScannerReport.Component.parser())).isNull();
+  }
+
+  @Test
+  public void read_stream_of_messages() {
+    ScannerReport.Issue issue1 = ScannerReport.Issue.newBuilder().setMsg("1").build();
+    ScannerReport.Issue issue2 = ScannerReport.Issue.newBuilder().setMsg("2").build();
+    writer.writeComponentIssues(1, of(issue1, issue2));
+
+    ReportFiles underTest = ReportFiles.index(writer.getFileStructure());
+
+    try (CloseableIterator<ScannerReport.Issue> issues = underTest.readStream(Domain.ISSUES, 1, ScannerReport.Issue.parser())) {
+      assertThat(issues).containsExactly(issue1, issue2);
+    }
+    assertThat(underTest.readStream(Domain.ISSUES, 2, ScannerReport.Issue.parser())).isEmpty();
+  }
+
+  @Test
+  public void read_memory_mapped_file() {
+    List<ScannerReport.LineCoverage> coverage = new ArrayList<>();
+    for (int line = 1; line <= 200_000; line++) {
+      coverage.add(ScannerReport.LineCoverage.newBuilder().setLine(line).setHits(true).build());
+    }
+    File file = writer.writeComponentCoverage(1, coverage);
+    assertThat(file.length()).isGreaterThan(ReportFiles.MAPPING_THRESHOLD);
+
+    ReportFiles underTest = ReportFiles.index(writer.getFileStructure());
+
+    try (CloseableIterator<ScannerReport.LineCoverage> lines = underTest.readStream(Domain.COVERAGES, 1, ScannerReport.LineCoverage.parser())) {
+      assertThat(lines).containsExactlyElementsOf(coverage);
+    }
+  }
+}
@@ -420,6 +420,21 @@ public class FileMoveDetectionStepTest {
     assertThat(movedFilesRepository.getComponentsWithOriginal()).isEmpty();
   }
 
+  @Test
+  public void execute_detects_move_of_file_listed_after_a_deleted_file_with_no_source_in_DB() {
+    analysisMetadataHolder.setBaseAnalysis(ANALYSIS);
+    ComponentDto[] dtos = mockComponents(FILE_1.getKey(), FILE_2.getKey());
+    // no source for FILE_1
+    mockContentOfFileInDb(FILE_2.getKey(), CONTENT1);
+    setFilesInReport(FILE_3);
+    setFileContentInReport(FILE_3_REF, CONTENT1);
+
+    underTest.execute();
+
+    assertThat(movedFilesRepository.getComponentsWithOriginal()).containsExactly(FILE_3);
+    assertThat(movedFilesRepository.getOriginalFile(FILE_3).get().getKey()).isEqualTo(dtos[1].getDbKey());
+  }
+
   @Test
   public void execute_detects_several_moves() {
     // testing:
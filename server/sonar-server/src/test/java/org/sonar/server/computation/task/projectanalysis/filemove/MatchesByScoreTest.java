@@ -30,7 +30,6 @@ import java.util.Set;
 import org.junit.Test;
 
 import static com.google.common.collect.ImmutableSet.of;
-import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.server.computation.task.projectanalysis.filemove.FileMoveDetectionStep.MIN_REQUIRED_SCORE;
@@ -80,6 +79,6 @@ public class MatchesByScoreTest {
   }
 
   private static FileSimilarity.File fileOf(String key) {
-    return new FileSimilarity.File("path of " + key, emptyList());
+    return new FileSimilarity.File("path of " + key, new int[0]);
   }
 }
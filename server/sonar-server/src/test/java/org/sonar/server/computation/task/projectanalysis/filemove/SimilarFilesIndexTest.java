@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.IntStream.range;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.filemove.FileMoveDetectionStep.MIN_REQUIRED_SCORE;
+
+public class SimilarFilesIndexTest {
+
+  private SourceSimilarity sourceSimilarity = new SourceSimilarityImpl();
+
+  @Test
+  public void identical_file_is_a_candidate() {
+    SimilarFilesIndex underTest = new SimilarFilesIndex(asList(file(1, 2, 3), file(4, 5, 6)), MIN_REQUIRED_SCORE);
+
+    assertThat(underTest.getCandidates(file(4, 5, 6))).containsExactly(1);
+  }
+
+  @Test
+  public void file_with_no_line_in_common_is_not_a_candidate() {
+    SimilarFilesIndex underTest = new SimilarFilesIndex(asList(file(1, 2, 3), file(4, 5, 6)), MIN_REQUIRED_SCORE);
+
+    assertThat(underTest.getCandidates(file(7, 8, 9))).isEmpty();
+  }
+
+  @Test
+  public void file_with_too_few_lines_in_common_is_not_a_candidate() {
+    SimilarFilesIndex underTest = new SimilarFilesIndex(asList(file(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)), MIN_REQUIRED_SCORE);
+
+    assertThat(underTest.getCandidates(file(1, 2, 3, 4, 5, 6, 7, 8, 9, 10))).containsExactly(0);
+    assertThat(underTest.getCandidates(file(1, 2, 3, 4, 5, 6, 7, 8, 9, 11))).containsExactly(0);
+    assertThat(underTest.getCandidates(file(1, 2, 3, 4, 5, 6, 7, 8, 11, 12))).isEmpty();
+    assertThat(underTest.getCandidates(file(1, 2, 3, 4, 5, 6, 7, 8, 9))).containsExactly(0);
+    assertThat(underTest.getCandidates(file(1, 2, 3, 4, 5))).isEmpty();
+  }
+
+  @Test
+  public void repeated_lines_are_counted_as_many_times_as_they_appear() {
+    SimilarFilesIndex underTest = new SimilarFilesIndex(asList(file(1, 1, 1, 1, 1, 1, 1, 1, 1, 2)), MIN_REQUIRED_SCORE);
+
+    assertThat(underTest.getCandidates(file(1, 1, 1, 1, 1, 1, 1, 1, 1, 1))).containsExactly(0);
+    assertThat(underTest.getCandidates(file(1, 3, 4, 5, 6, 7, 8, 9, 10, 2))).isEmpty();
+  }
+
+  @Test
+  public void empty_file_has_no_candidate() {
+    SimilarFilesIndex underTest = new SimilarFilesIndex(asList(file(), file(1)), MIN_REQUIRED_SCORE);
+
+    assertThat(underTest.getCandidates(file())).isEmpty();
+  }
+
+  @Test
+  public void candidates_include_all_files_reaching_min_score() {
+    Random random = new Random(42);
+    List<FileSimilarity.File> indexedFiles = new ArrayList<>();
+    List<FileSimilarity.File> otherFiles = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      int[] lines = randomLines(random, 1 + random.nextInt(60));
+      indexedFiles.add(new FileSimilarity.File("indexed" + i, lines));
+      otherFiles.add(new FileSimilarity.File("other" + i, modify(random, lines)));
+    }
+    SimilarFilesIndex underTest = new SimilarFilesIndex(indexedFiles, MIN_REQUIRED_SCORE);
+
+    int similarPairs = 0;
+    for (FileSimilarity.File otherFile : otherFiles) {
+      int[] candidates = underTest.getCandidates(otherFile);
+      for (int i = 0; i < indexedFiles.size(); i++) {
+        int index = i;
+        if (sourceSimilarity.score(otherFile.getLineHashes(), indexedFiles.get(i).getLineHashes()) >= MIN_REQUIRED_SCORE) {
+          similarPairs++;
+          assertThat(range(0, candidates.length).anyMatch(c -> candidates[c] == index)).isTrue();
+        }
+      }
+    }
+    assertThat(similarPairs).isGreaterThan(50);
+  }
+
+  private static int[] randomLines(Random random, int size) {
+    // few distinct lines so that files have many lines in common
+    return range(0, size).map(i -> random.nextInt(20)).toArray();
+  }
+
+  private static int[] modify(Random random, int[] lines) {
+    List<Integer> res = new ArrayList<>();
+    for (int line : lines) {
+      int change = random.nextInt(20);
+      if (change == 0) {
+        res.add(random.nextInt(20));
+      } else if (change == 1) {
+        res.add(line);
+        res.add(random.nextInt(20));
+      } else if (change != 2) {
+        res.add(line);
+      }
+    }
+    return res.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static FileSimilarity.File file(int... lineHashes) {
+    return new FileSimilarity.File("path", lineHashes);
+  }
+}
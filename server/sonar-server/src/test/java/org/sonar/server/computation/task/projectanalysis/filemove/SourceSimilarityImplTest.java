@@ -59,4 +59,14 @@ public class SourceSimilarityImplTest {
   public void two_empty_lists_are_not_considered_as_equal() {
     assertThat(underTest.score(emptyList(), emptyList())).isEqualTo(0);
   }
+
+  @Test
+  public void score_of_int_arrays_is_the_same_as_score_of_lists() {
+    assertThat(underTest.score(new int[] {1, 2, 3}, new int[] {4, 5})).isEqualTo(0);
+    assertThat(underTest.score(new int[] {1, 2, 3}, new int[] {1, 2, 3})).isEqualTo(100);
+    assertThat(underTest.score(new int[] {1, 2, 3, 4}, new int[] {1, 2, 5, 6})).isEqualTo(50);
+    assertThat(underTest.score(new int[] {1}, new int[] {1, 2, 3})).isEqualTo(33);
+    assertThat(underTest.score(new int[] {1, 2, 3}, new int[] {1})).isEqualTo(33);
+    assertThat(underTest.score(new int[0], new int[0])).isEqualTo(0);
+  }
 }
@@ -0,0 +1,195 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.api.utils.System2;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.issue.IssueChangeContext;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class DefaultIssueCodecTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void encode_and_decode_all_fields() throws Exception {
+    DbIssues.Locations locations = DbIssues.Locations.newBuilder()
+      .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(10).setEndLine(12).build())
+      .build();
+    Date date = new Date(1_500_000_000_000L);
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_KEY")
+      .setType(RuleType.VULNERABILITY)
+      .setComponentUuid("FILE_UUID")
+      .setComponentKey("FILE_KEY")
+      .setModuleUuid("MODULE_UUID")
+      .setModuleUuidPath(".MODULE_UUID.")
+      .setProjectUuid("PROJECT_UUID")
+      .setProjectKey("PROJECT_KEY")
+      .setRuleKey(RuleKey.of("xoo", "S001"))
+      .setLanguage("xoo")
+      .setSeverity(Severity.CRITICAL)
+      .setManualSeverity(true)
+      .setMessage("message with non-ASCII chars: éà€")
+      .setLine(42)
+      .setGap(1.5)
+      .setEffort(Duration.create(10L))
+      .setStatus(Issue.STATUS_OPEN)
+      .setResolution(Issue.RESOLUTION_FIXED)
+      .setAssignee("john")
+      .setChecksum("CHECKSUM")
+      .setAttributes(ImmutableMap.of("JIRA", "FOO-123"))
+      .setAuthorLogin("jane")
+      .setTags(Arrays.asList("tag2", "tag1"))
+      .setLocations(locations)
+      .setCreationDate(date)
+      .setUpdateDate(date)
+      .setCloseDate(date)
+      .setNew(false)
+      .setCopied(true)
+      .setBeingClosed(true)
+      .setOnDisabledRule(true)
+      .setChanged(true)
+      .setSendNotifications(true)
+      .setSelectedAt(1_000L);
+    issue.addComment(DefaultIssueComment.create("ISSUE_KEY", "john", "a comment"));
+    issue.setChanges(newArrayList(new FieldDiffs().setUserLogin("old").setCreationDate(date).setDiff("status", "OPEN", "CONFIRMED")));
+    IssueChangeContext context = IssueChangeContext.createUser(date, "john");
+    issue.setFieldChange(context, "type", RuleType.BUG, RuleType.VULNERABILITY);
+    issue.setFieldChange(context, "effort", 5L, 10L);
+    issue.setFieldChange(context, "line", null, 42);
+
+    DefaultIssue decoded = writeAndRead(issue);
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_KEY");
+    assertThat(decoded.type()).isEqualTo(RuleType.VULNERABILITY);
+    assertThat(decoded.componentUuid()).isEqualTo("FILE_UUID");
+    assertThat(decoded.componentKey()).isEqualTo("FILE_KEY");
+    assertThat(decoded.moduleUuid()).isEqualTo("MODULE_UUID");
+    assertThat(decoded.moduleUuidPath()).isEqualTo(".MODULE_UUID.");
+    assertThat(decoded.projectUuid()).isEqualTo("PROJECT_UUID");
+    assertThat(decoded.projectKey()).isEqualTo("PROJECT_KEY");
+    assertThat(decoded.ruleKey()).isEqualTo(RuleKey.of("xoo", "S001"));
+    assertThat(decoded.language()).isEqualTo("xoo");
+    assertThat(decoded.severity()).isEqualTo(Severity.CRITICAL);
+    assertThat(decoded.manualSeverity()).isTrue();
+    assertThat(decoded.message()).isEqualTo("message with non-ASCII chars: éà€");
+    assertThat(decoded.line()).isEqualTo(42);
+    assertThat(decoded.gap()).isEqualTo(1.5);
+    assertThat(decoded.effort()).isEqualTo(Duration.create(10L));
+    assertThat(decoded.status()).isEqualTo(Issue.STATUS_OPEN);
+    assertThat(decoded.resolution()).isEqualTo(Issue.RESOLUTION_FIXED);
+    assertThat(decoded.assignee()).isEqualTo("john");
+    assertThat(decoded.checksum()).isEqualTo("CHECKSUM");
+    assertThat(decoded.attributes()).containsOnly(entry("JIRA", "FOO-123"));
+    assertThat(decoded.authorLogin()).isEqualTo("jane");
+    assertThat(decoded.tags()).containsExactly("tag2", "tag1");
+    assertThat((DbIssues.Locations) decoded.getLocations()).isEqualTo(locations);
+    assertThat(decoded.creationDate()).isEqualTo(date);
+    assertThat(decoded.updateDate()).isEqualTo(date);
+    assertThat(decoded.closeDate()).isEqualTo(date);
+    assertThat(decoded.isNew()).isFalse();
+    assertThat(decoded.isCopied()).isTrue();
+    assertThat(decoded.isBeingClosed()).isTrue();
+    assertThat(decoded.isOnDisabledRule()).isTrue();
+    assertThat(decoded.isChanged()).isTrue();
+    assertThat(decoded.mustSendNotifications()).isTrue();
+    assertThat(decoded.selectedAt()).isEqualTo(1_000L);
+
+    DefaultIssueComment comment = (DefaultIssueComment) decoded.comments().get(0);
+    DefaultIssueComment expectedComment = (DefaultIssueComment) issue.comments().get(0);
+    assertThat(comment.key()).isEqualTo(expectedComment.key());
+    assertThat(comment.issueKey()).isEqualTo("ISSUE_KEY");
+    assertThat(comment.userLogin()).isEqualTo("john");
+    assertThat(comment.markdownText()).isEqualTo("a comment");
+    assertThat(comment.createdAt()).isEqualTo(expectedComment.createdAt());
+    assertThat(comment.updatedAt()).isEqualTo(expectedComment.updatedAt());
+    assertThat(comment.isNew()).isTrue();
+
+    List<FieldDiffs> changes = decoded.changes();
+    assertThat(changes).hasSize(4);
+    assertThat(changes.get(0).userLogin()).isEqualTo("old");
+    assertThat(changes.get(0).toString()).isEqualTo("status=OPEN|CONFIRMED");
+    FieldDiffs currentChange = decoded.currentChange();
+    assertThat(changes.get(1)).isSameAs(currentChange);
+    assertThat(changes.get(2)).isSameAs(currentChange);
+    assertThat(changes.get(3)).isSameAs(currentChange);
+    assertThat(currentChange.userLogin()).isEqualTo("john");
+    assertThat(currentChange.creationDate()).isEqualTo(date);
+    assertThat(currentChange.get("type").oldValue()).isEqualTo(RuleType.BUG);
+    assertThat(currentChange.get("type").newValue()).isEqualTo(RuleType.VULNERABILITY);
+    assertThat(currentChange.get("effort").oldValue()).isEqualTo(5L);
+    assertThat(currentChange.get("effort").newValue()).isEqualTo(10L);
+    assertThat(currentChange.get("line").oldValue()).isNull();
+    assertThat(currentChange.get("line").newValue()).isEqualTo(42);
+  }
+
+  @Test
+  public void encode_and_decode_issue_with_default_fields() throws Exception {
+    DefaultIssue decoded = writeAndRead(new DefaultIssue().setKey("ISSUE_KEY"));
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_KEY");
+    assertThat(decoded.type()).isNull();
+    assertThat(decoded.ruleKey()).isNull();
+    assertThat(decoded.status()).isNull();
+    assertThat(decoded.line()).isNull();
+    assertThat(decoded.effort()).isNull();
+    assertThat(decoded.creationDate()).isNull();
+    assertThat((Object) decoded.getLocations()).isNull();
+    assertThat(decoded.attributes()).isEmpty();
+    assertThat(decoded.tags()).isEmpty();
+    assertThat(decoded.comments()).isEmpty();
+    assertThat(decoded.changes()).isEmpty();
+    assertThat(decoded.currentChange()).isNull();
+    assertThat(decoded.isNew()).isTrue();
+    assertThat(decoded.selectedAt()).isNull();
+  }
+
+  private DefaultIssue writeAndRead(DefaultIssue issue) throws Exception {
+    IssueCache cache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    cache.newAppender().append(issue).close();
+    try (CloseableIterator<DefaultIssue> traverse = cache.traverse()) {
+      DefaultIssue decoded = traverse.next();
+      assertThat(traverse.hasNext()).isFalse();
+      return decoded;
+    }
+  }
+}
@@ -33,10 +33,12 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
@@ -88,6 +90,8 @@ public class IntegrateIssuesVisitorTest {
     .addChildren(FILE)
     .build();
 
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
   @Rule
@@ -124,13 +128,13 @@ public class IntegrateIssuesVisitorTest {
   ShortBranchTrackerExecution shortBranchTracker;
   MergeBranchTrackerExecution mergeBranchTracker;
   IssueCache issueCache;
+  MapSettings settings = new MapSettings();
 
   TypeAwareVisitor underTest;
 
   @Before
   public void setUp() throws Exception {
     MockitoAnnotations.initMocks(this);
-    IssueVisitors issueVisitors = new IssueVisitors(new IssueVisitor[] {issueVisitor});
 
     when(movedFilesRepository.getOriginalFile(any(Component.class))).thenReturn(Optional.<MovedFilesRepository.OriginalFile>absent());
 
@@ -147,7 +151,13 @@ public class IntegrateIssuesVisitorTest {
     when(analysisMetadataHolder.isIncrementalAnalysis()).thenReturn(false);
     when(analysisMetadataHolder.getBranch()).thenReturn(java.util.Optional.of(new DefaultBranchImpl()));
     when(issueFilter.accept(any(DefaultIssue.class), eq(FILE))).thenReturn(true);
-    underTest = new IntegrateIssuesVisitor(issueCache, issueLifecycle, issueVisitors, issuesLoader, analysisMetadataHolder, trackingDelegator);
+    underTest = newVisitor();
+  }
+
+  private TypeAwareVisitor newVisitor() {
+    IssueVisitors issueVisitors = new IssueVisitors(new IssueVisitor[] {issueVisitor});
+    ParallelIssueTracking parallelTracking = new ParallelIssueTracking(settings.asConfig(), trackingDelegator);
+    return new IntegrateIssuesVisitor(issueCache, issueLifecycle, issueVisitors, issuesLoader, analysisMetadataHolder, trackingDelegator, parallelTracking, treeRootHolder);
   }
 
   @Test
@@ -259,6 +269,47 @@ public class IntegrateIssuesVisitorTest {
     assertThat(issues).hasSize(1);
   }
 
+  @Test
+  public void track_issues_in_parallel() throws Exception {
+    settings.setProperty(ParallelIssueTracking.THREADS_PROPERTY, 2);
+    underTest = newVisitor();
+    RuleKey ruleKey = RuleTesting.XOO_X1;
+    addBaseIssue(ruleKey);
+    ScannerReport.Issue reportIssue = ScannerReport.Issue.newBuilder()
+      .setMsg("the message")
+      .setRuleRepository(ruleKey.repository())
+      .setRuleKey(ruleKey.rule())
+      .setSeverity(Constants.Severity.BLOCKER)
+      .build();
+    reportReader.putIssues(FILE_REF, asList(reportIssue));
+    fileSourceRepository.addLine(FILE_REF, "line1");
+
+    underTest.visitAny(FILE);
+    underTest.visitAny(PROJECT);
+
+    ArgumentCaptor<DefaultIssue> rawIssueCaptor = ArgumentCaptor.forClass(DefaultIssue.class);
+    ArgumentCaptor<DefaultIssue> baseIssueCaptor = ArgumentCaptor.forClass(DefaultIssue.class);
+    verify(issueLifecycle).mergeExistingOpenIssue(rawIssueCaptor.capture(), baseIssueCaptor.capture());
+    assertThat(rawIssueCaptor.getValue().severity()).isEqualTo(Severity.BLOCKER);
+    assertThat(baseIssueCaptor.getValue().severity()).isEqualTo(Severity.MAJOR);
+    verify(issueVisitor).afterComponent(FILE);
+    verify(issueVisitor).afterComponent(PROJECT);
+    List<DefaultIssue> issues = newArrayList(issueCache.traverse());
+    assertThat(issues).hasSize(1);
+    assertThat(issues.get(0).severity()).isEqualTo(Severity.BLOCKER);
+  }
+
+  @Test
+  public void fail_if_components_are_not_visited_in_order_of_parallel_tracking() {
+    settings.setProperty(ParallelIssueTracking.THREADS_PROPERTY, 2);
+    underTest = newVisitor();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to process issues of component 'PROJECT_KEY'");
+
+    underTest.visitAny(PROJECT);
+  }
+
   @Test
   public void remove_uuid_of_original_file_from_componentsWithUnprocessedIssues_if_component_has_one() {
     String originalFileUuid = "original file uuid";
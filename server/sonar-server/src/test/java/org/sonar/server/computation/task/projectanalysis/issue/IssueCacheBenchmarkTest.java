@@ -0,0 +1,155 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.File;
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.IssueChangeContext;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.DiskCache;
+import org.sonar.server.util.cache.JavaSerializationFormat;
+import org.sonar.server.util.cache.RecordFormat;
+import org.sonar.server.util.cache.SpillFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares throughput and file size of the formats supported by {@link IssueCache}.
+ * Executed only when the property "runBenchmarks" is set, for example:
+ * {@code mvn test -Dtest=IssueCacheBenchmarkTest -DrunBenchmarks -DissueCount=400000}
+ */
+public class IssueCacheBenchmarkTest {
+
+  private static final Logger LOGGER = Loggers.get(IssueCacheBenchmarkTest.class);
+  private static final int ISSUE_COUNT = Integer.getInteger("issueCount", 100_000);
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Before
+  public void setUp() {
+    assumeTrue(System.getProperty("runBenchmarks") != null);
+  }
+
+  @Test
+  public void java_serialization() throws Exception {
+    benchmark("Java serialization", new JavaSerializationFormat<>());
+  }
+
+  @Test
+  public void binary_records() throws Exception {
+    benchmark("Binary records", new RecordFormat<>(new DefaultIssueCodec(), false));
+  }
+
+  @Test
+  public void lz4_compressed_binary_records() throws Exception {
+    benchmark("LZ4 binary records", new RecordFormat<>(new DefaultIssueCodec(), true));
+  }
+
+  private void benchmark(String name, SpillFormat<DefaultIssue> format) throws Exception {
+    File file = temp.newFile();
+    DiskCache<DefaultIssue> cache = new DiskCache<>(file, System2.INSTANCE, format);
+    // warm up
+    writeAndRead(cache);
+
+    cache = new DiskCache<>(file, System2.INSTANCE, format);
+    long start = System.nanoTime();
+    try (DiskCache<DefaultIssue>.DiskAppender appender = cache.newAppender()) {
+      for (int i = 0; i < ISSUE_COUNT; i++) {
+        appender.append(newIssue(i));
+      }
+    }
+    long writeMs = (System.nanoTime() - start) / 1_000_000;
+
+    start = System.nanoTime();
+    int count = traverse(cache);
+    long readMs = (System.nanoTime() - start) / 1_000_000;
+
+    assertThat(count).isEqualTo(ISSUE_COUNT);
+    LOGGER.info("{}: {} issues | write {} ms | read {} ms | file size {} bytes", name, ISSUE_COUNT, writeMs, readMs, file.length());
+  }
+
+  private static void writeAndRead(DiskCache<DefaultIssue> cache) {
+    try (DiskCache<DefaultIssue>.DiskAppender appender = cache.newAppender()) {
+      for (int i = 0; i < ISSUE_COUNT; i++) {
+        appender.append(newIssue(i));
+      }
+    }
+    traverse(cache);
+  }
+
+  private static int traverse(DiskCache<DefaultIssue> cache) {
+    int count = 0;
+    try (CloseableIterator<DefaultIssue> traverse = cache.traverse()) {
+      while (traverse.hasNext()) {
+        traverse.next();
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static DefaultIssue newIssue(int i) {
+    Date date = new Date(1_500_000_000_000L + i);
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("AV" + i + "-issue-key-" + i)
+      .setType(RuleType.CODE_SMELL)
+      .setComponentUuid("AVfile-uuid-" + (i / 20))
+      .setComponentKey("org.sonarsource:project:src/main/java/org/sonar/File" + (i / 20) + ".java")
+      .setModuleUuid("AVmodule-uuid")
+      .setModuleUuidPath(".AVproject-uuid.AVmodule-uuid.")
+      .setProjectUuid("AVproject-uuid")
+      .setProjectKey("org.sonarsource:project")
+      .setRuleKey(RuleKey.of("squid", "S" + (i % 300)))
+      .setLanguage("java")
+      .setSeverity(Severity.MAJOR)
+      .setMessage("Remove this unused private \"field" + i + "\" field.")
+      .setLine(1 + i % 1000)
+      .setEffort(Duration.create(5L))
+      .setStatus(Issue.STATUS_OPEN)
+      .setChecksum("d41d8cd98f00b204e9800998ecf8427e" + i)
+      .setLocations(DbIssues.Locations.newBuilder()
+        .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(1 + i % 1000).setEndLine(1 + i % 1000).setStartOffset(4).setEndOffset(20))
+        .build())
+      .setCreationDate(date)
+      .setUpdateDate(date)
+      .setNew(i % 10 == 0);
+    if (i % 10 != 0) {
+      issue.setFieldChange(IssueChangeContext.createScan(date), "line", i % 1000, 1 + i % 1000);
+    }
+    return issue;
+  }
+}
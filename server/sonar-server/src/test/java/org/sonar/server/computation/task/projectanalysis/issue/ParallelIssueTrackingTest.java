@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.Collections;
+import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
+
+public class ParallelIssueTrackingTest {
+
+  private static final Component FILE = builder(Component.Type.FILE, 1).build();
+
+  private IssueTrackingDelegator issueTracking = mock(IssueTrackingDelegator.class);
+  private MapSettings settings = new MapSettings().setProperty(ParallelIssueTracking.THREADS_PROPERTY, 2);
+  private ParallelIssueTracking underTest = new ParallelIssueTracking(settings.asConfig(), issueTracking);
+
+  @Test
+  public void stop_closes_session_which_is_not_closed_by_its_consumer() {
+    when(issueTracking.isBatchTrackingSupported()).thenReturn(true);
+    when(issueTracking.prepareTracking(anyListOf(Component.class))).thenReturn(Collections::emptyList);
+
+    ParallelIssueTracking.Session session = underTest.start(singletonList(FILE));
+    assertThat(session.isClosed()).isFalse();
+
+    underTest.stop();
+
+    assertThat(session.isClosed()).isTrue();
+  }
+
+  @Test
+  public void stop_does_nothing_if_no_session_is_started() {
+    underTest.start();
+
+    underTest.stop();
+  }
+}
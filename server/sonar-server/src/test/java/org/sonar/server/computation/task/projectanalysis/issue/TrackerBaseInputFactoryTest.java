@@ -20,8 +20,13 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.tracking.Input;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.source.FileSourceDao;
@@ -29,7 +34,11 @@ import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -95,4 +104,27 @@ public class TrackerBaseInputFactoryTest {
     verify(issuesLoader).loadForComponentUuid(originalUuid);
     verify(issuesLoader, times(0)).loadForComponentUuid(FILE_UUID);
   }
+
+  @Test
+  public void create_for_several_components_loads_issues_with_a_single_request() {
+    String originalUuid = "original uuid";
+    ReportComponent movedFile = ReportComponent.builder(Component.Type.FILE, 2).setUuid("moved uuid").build();
+    ReportComponent fileWithoutIssues = ReportComponent.builder(Component.Type.FILE, 3).setUuid("other uuid").build();
+    when(movedFilesRepository.getOriginalFile(movedFile)).thenReturn(
+      Optional.of(new MovedFilesRepository.OriginalFile(6542, originalUuid, "original key")));
+    DefaultIssue issueOfFile = new DefaultIssue().setKey("1");
+    DefaultIssue issueOfOriginalFile = new DefaultIssue().setKey("2");
+    when(issuesLoader.loadForComponentUuids(anyCollection())).thenReturn(ImmutableMap.of(
+      FILE_UUID, singletonList(issueOfFile),
+      originalUuid, singletonList(issueOfOriginalFile)));
+
+    List<Input<DefaultIssue>> inputs = underTest.create(asList(FILE, movedFile, fileWithoutIssues));
+
+    assertThat(inputs).hasSize(3);
+    assertThat(inputs.get(0).getIssues()).containsExactly(issueOfFile);
+    assertThat(inputs.get(1).getIssues()).containsExactly(issueOfOriginalFile);
+    assertThat(inputs.get(2).getIssues()).isEmpty();
+    verify(issuesLoader).loadForComponentUuids(ImmutableSet.of(FILE_UUID, originalUuid, "other uuid"));
+    verify(issuesLoader, times(0)).loadForComponentUuid(any(String.class));
+  }
 }
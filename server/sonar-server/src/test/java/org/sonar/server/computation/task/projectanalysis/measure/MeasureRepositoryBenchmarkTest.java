@@ -0,0 +1,135 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
+
+/**
+ * Compares the heap used and the time spent by the implementations of {@link RawMeasureRepository} to add, then read,
+ * update and read again the measures of many files, as done by the aggregation of measures.
+ * <p>
+ * Executed only when the property "runBenchmarks" is set, for example:
+ * {@code mvn test -Dtest=MeasureRepositoryBenchmarkTest -DrunBenchmarks -DfileCount=150000}
+ * </p>
+ */
+public class MeasureRepositoryBenchmarkTest {
+
+  private static final Logger LOGGER = Loggers.get(MeasureRepositoryBenchmarkTest.class);
+  private static final int FILE_COUNT = Integer.getInteger("fileCount", 50_000);
+  private static final int METRICS_PER_TYPE = 10;
+
+  private final List<Component> files = new ArrayList<>();
+  private final List<Metric> metrics = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    assumeTrue(System.getProperty("runBenchmarks") != null);
+
+    for (int ref = 1; ref <= FILE_COUNT; ref++) {
+      files.add(ReportComponent.builder(Component.Type.FILE, ref).setKey("file" + ref).build());
+    }
+    int id = 1;
+    for (Metric.MetricType type : new Metric.MetricType[] {Metric.MetricType.INT, Metric.MetricType.FLOAT, Metric.MetricType.DATA}) {
+      for (int i = 0; i < METRICS_PER_TYPE; i++) {
+        metrics.add(new MetricImpl(id, "metric" + id, "metric" + id, type));
+        id++;
+      }
+    }
+  }
+
+  @Test
+  public void compare_stores() {
+    benchmark("map", () -> new MapBasedRawMeasureRepository<>(toReportRef()));
+    benchmark("primitive", () -> new PrimitiveRawMeasureRepository(false));
+    benchmark("offheap", () -> new PrimitiveRawMeasureRepository(true));
+  }
+
+  private void benchmark(String name, Supplier<RawMeasureRepository> factory) {
+    // warm-up
+    run(factory.get());
+
+    long heapBefore = usedHeap();
+    long start = System.currentTimeMillis();
+    RawMeasureRepository repository = factory.get();
+    long checksum = run(repository);
+    long duration = System.currentTimeMillis() - start;
+    long heapAfter = usedHeap();
+
+    assertThat(checksum).isPositive();
+    LOGGER.info("{}: {} measures of {} files in {} ms, {} MB of heap retained",
+      name, FILE_COUNT * metrics.size(), FILE_COUNT, duration, (heapAfter - heapBefore) / 1024 / 1024);
+    // keep the repository reachable until heap is measured
+    assertThat(repository.getRawMeasures(files.get(0)).isEmpty()).isFalse();
+  }
+
+  private long run(RawMeasureRepository repository) {
+    for (Component file : files) {
+      int ref = file.getReportAttributes().getRef();
+      for (Metric metric : metrics) {
+        repository.add(file, metric, newMeasure(metric, ref));
+      }
+    }
+    long checksum = 0;
+    for (Component file : files) {
+      for (Metric metric : metrics) {
+        Measure measure = repository.getRawMeasure(file, metric).get();
+        if (metric.getType() == Metric.MetricType.INT) {
+          repository.update(file, metric, Measure.updatedMeasureBuilder(measure).setVariation(1d).create());
+          checksum += measure.getIntValue();
+        }
+      }
+      checksum += repository.getRawMeasures(file).size();
+    }
+    return checksum;
+  }
+
+  private static Measure newMeasure(Metric metric, int ref) {
+    switch (metric.getType()) {
+      case INT:
+        return Measure.newMeasureBuilder().create(ref);
+      case FLOAT:
+        return Measure.newMeasureBuilder().create(ref / 3d, 2);
+      default:
+        return Measure.newMeasureBuilder().create("1=" + ref + ";2=" + metric.getId());
+    }
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
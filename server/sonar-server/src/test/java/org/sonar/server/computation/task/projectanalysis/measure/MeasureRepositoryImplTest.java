@@ -34,6 +34,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -415,6 +417,49 @@ public class MeasureRepositoryImplTest {
     assertThat(rawMeasures.get(METRIC_KEY_2)).containsOnly(Measure.newMeasureBuilder().create("some value"));
   }
 
+  @Test
+  @UseDataProvider("stores")
+  public void getRawMeasures_returns_added_measures_over_batch_measures_whatever_the_store(String store) {
+    MeasureRepositoryImpl underTest = new MeasureRepositoryImpl(dbClient, reportReader, metricRepository, reportMetricValidator,
+      storeConfiguration(store));
+    when(reportMetricValidator.validate(METRIC_KEY_1)).thenReturn(true);
+    when(reportMetricValidator.validate(METRIC_KEY_2)).thenReturn(true);
+    reportReader.putMeasures(FILE_COMPONENT.getReportAttributes().getRef(), ImmutableList.of(
+      ScannerReport.Measure.newBuilder().setMetricKey(METRIC_KEY_1).setStringValue(StringValue.newBuilder().setValue("batch value")).build(),
+      ScannerReport.Measure.newBuilder().setMetricKey(METRIC_KEY_2).setStringValue(StringValue.newBuilder().setValue("some value")).build()));
+
+    underTest.add(FILE_COMPONENT, metric1, SOME_MEASURE);
+
+    SetMultimap<String, Measure> rawMeasures = underTest.getRawMeasures(FILE_COMPONENT);
+    assertThat(rawMeasures.keySet()).hasSize(2);
+    assertThat(rawMeasures.get(METRIC_KEY_1).iterator().next().getStringValue()).isEqualTo("some value");
+    assertThat(rawMeasures.get(METRIC_KEY_2).iterator().next().getStringValue()).isEqualTo("some value");
+  }
+
+  @DataProvider
+  public static Object[][] stores() {
+    return new Object[][] {
+      {MeasureRepositoryImpl.MAP_STORE},
+      {MeasureRepositoryImpl.PRIMITIVE_STORE},
+      {MeasureRepositoryImpl.OFF_HEAP_STORE}
+    };
+  }
+
+  @Test
+  public void fail_if_store_is_not_supported() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Unsupported value of property sonar.ce.measures.store: 'foo'. Expected one of map, primitive or offheap");
+
+    new MeasureRepositoryImpl(dbClient, reportReader, metricRepository, reportMetricValidator,
+      storeConfiguration("foo"));
+  }
+
+  private static Configuration storeConfiguration(String store) {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(MeasureRepositoryImpl.STORE_PROPERTY, store);
+    return settings.asConfig();
+  }
+
   private static MeasureDto createMeasureDto(int metricId, String componentUuid, String analysisUuid) {
     return new MeasureDto()
       .setComponentUuid(componentUuid)
@@ -0,0 +1,209 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.SetMultimap;
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.DumbDeveloper;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.measure.RawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.guava.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+@RunWith(DataProviderRunner.class)
+public class PrimitiveRawMeasureRepositoryTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final ReportComponent FILE_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1).setKey("file cpt key").build();
+  private static final ReportComponent OTHER_COMPONENT = ReportComponent.builder(Component.Type.FILE, 2).setKey("some other key").build();
+
+  private static final Metric INT_METRIC = new MetricImpl(1, "int", "int", Metric.MetricType.INT);
+  private static final Metric STRING_METRIC = new MetricImpl(2, "string", "string", Metric.MetricType.STRING);
+  private static final Metric LEVEL_METRIC = new MetricImpl(3, "level", "level", Metric.MetricType.LEVEL);
+
+  private PrimitiveRawMeasureRepository underTest = new PrimitiveRawMeasureRepository(false);
+
+  @DataProvider
+  public static Object[][] measuresAndMetrics() {
+    return new Object[][] {
+      {newMeasureBuilder().create(true, "data"), Metric.MetricType.BOOL},
+      {newMeasureBuilder().create(false), Metric.MetricType.BOOL},
+      {newMeasureBuilder().setVariation(-3d).create(12, "data"), Metric.MetricType.INT},
+      {newMeasureBuilder().create(Long.MAX_VALUE / 1024), Metric.MetricType.WORK_DUR},
+      {newMeasureBuilder().create(1.23d, 2), Metric.MetricType.FLOAT},
+      {newMeasureBuilder().setQualityGateStatus(new QualityGateStatus(Measure.Level.WARN, "text")).create("sds"), Metric.MetricType.STRING},
+      {newMeasureBuilder().setVariation(0.5d).create(Measure.Level.ERROR), Metric.MetricType.LEVEL},
+      {newMeasureBuilder().createNoValue(), Metric.MetricType.FLOAT}
+    };
+  }
+
+  @Test
+  @UseDataProvider("measuresAndMetrics")
+  public void getRawMeasure_returns_a_copy_of_added_measure(Measure measure, Metric.MetricType metricType) {
+    Metric metric = new MetricImpl(1, "key", "name", metricType);
+
+    for (PrimitiveRawMeasureRepository repository : new PrimitiveRawMeasureRepository[] {underTest, new PrimitiveRawMeasureRepository(true)}) {
+      repository.add(FILE_COMPONENT, metric, measure);
+
+      assertSameValues(repository.getRawMeasure(FILE_COMPONENT, metric).get(), measure);
+      assertThat(repository.getRawMeasure(OTHER_COMPONENT, metric)).isAbsent();
+    }
+  }
+
+  @Test
+  public void update_replaces_all_the_values_of_the_measure() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().setVariation(2d)
+      .setQualityGateStatus(new QualityGateStatus(Measure.Level.ERROR, "text")).create(10, "data"));
+    Measure newMeasure = newMeasureBuilder().create(11);
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, newMeasure);
+
+    assertSameValues(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get(), newMeasure);
+  }
+
+  @Test
+  public void add_throws_UOE_if_measure_already_exists() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1));
+
+    expectedException.expect(UnsupportedOperationException.class);
+    expectedException.expectMessage("a measure can be set only once for a specific Component (key=file cpt key), Metric (key=int). Use update method");
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(2));
+  }
+
+  @Test
+  public void update_throws_UOE_if_measure_does_not_exist() {
+    expectedException.expect(UnsupportedOperationException.class);
+    expectedException.expectMessage("a measure can be updated only if one already exists for a specific Component (key=file cpt key), Metric (key=int). Use add method");
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(2));
+  }
+
+  @Test
+  public void add_throws_IAE_if_valueType_of_Measure_is_not_the_same_as_the_Metric_valueType() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Measure's ValueType (STRING) is not consistent with the Metric's ValueType (INT)");
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create("foo"));
+  }
+
+  @Test
+  public void add_with_DO_NOT_OVERRIDE_policy_keeps_existing_measure() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1), OverridePolicy.OVERRIDE);
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(2), OverridePolicy.DO_NOT_OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(1);
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(3), OverridePolicy.OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(3);
+  }
+
+  @Test
+  public void getRawMeasures_returns_measures_of_component_including_developer_ones() {
+    Measure devMeasure = newMeasureBuilder().forDeveloper(new DumbDeveloper("DEV1")).create(5);
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1));
+    underTest.add(FILE_COMPONENT, INT_METRIC, devMeasure);
+    underTest.add(FILE_COMPONENT, STRING_METRIC, newMeasureBuilder().create("foo"));
+    underTest.add(OTHER_COMPONENT, LEVEL_METRIC, newMeasureBuilder().create(Measure.Level.OK));
+
+    SetMultimap<String, Measure> measures = underTest.getRawMeasures(FILE_COMPONENT);
+
+    assertThat(measures.keySet()).containsOnly("int", "string");
+    assertThat(measures.get("int")).hasSize(2).contains(devMeasure);
+    assertThat(measures.get("string").iterator().next().getStringValue()).isEqualTo("foo");
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT, INT_METRIC)).hasSize(2);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT, LEVEL_METRIC)).isEmpty();
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getDeveloper()).isNull();
+    assertThat(underTest.getRawMeasures(ReportComponent.builder(Component.Type.FILE, 1_000).build()).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void store_grows_with_number_of_components_and_metrics() {
+    int components = 5_000;
+    for (int ref = 1; ref <= components; ref++) {
+      Component component = ReportComponent.builder(Component.Type.FILE, ref).build();
+      underTest.add(component, INT_METRIC, newMeasureBuilder().create(ref));
+      underTest.add(component, STRING_METRIC, newMeasureBuilder().create("file " + ref));
+    }
+
+    for (int ref = 1; ref <= components; ref++) {
+      Component component = ReportComponent.builder(Component.Type.FILE, ref).build();
+      assertThat(underTest.getRawMeasure(component, INT_METRIC).get().getIntValue()).isEqualTo(ref);
+      assertThat(underTest.getRawMeasure(component, STRING_METRIC).get().getStringValue()).isEqualTo("file " + ref);
+      assertThat(underTest.getRawMeasures(component).size()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void getBaseMeasure_is_not_supported() {
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.getBaseMeasure(FILE_COMPONENT, INT_METRIC);
+  }
+
+  private static void assertSameValues(Measure actual, Measure expected) {
+    assertThat(actual.getValueType()).isEqualTo(expected.getValueType());
+    assertThat(actual.getData()).isEqualTo(expected.getData());
+    assertThat(actual.hasVariation()).isEqualTo(expected.hasVariation());
+    if (expected.hasVariation()) {
+      assertThat(actual.getVariation()).isEqualTo(expected.getVariation());
+    }
+    assertThat(actual.hasQualityGateStatus()).isEqualTo(expected.hasQualityGateStatus());
+    if (expected.hasQualityGateStatus()) {
+      assertThat(actual.getQualityGateStatus()).isEqualTo(expected.getQualityGateStatus());
+    }
+    switch (expected.getValueType()) {
+      case BOOLEAN:
+        assertThat(actual.getBooleanValue()).isEqualTo(expected.getBooleanValue());
+        break;
+      case INT:
+        assertThat(actual.getIntValue()).isEqualTo(expected.getIntValue());
+        break;
+      case LONG:
+        assertThat(actual.getLongValue()).isEqualTo(expected.getLongValue());
+        break;
+      case DOUBLE:
+        assertThat(actual.getDoubleValue()).isEqualTo(expected.getDoubleValue());
+        break;
+      case STRING:
+        assertThat(actual.getStringValue()).isEqualTo(expected.getStringValue());
+        break;
+      case LEVEL:
+        assertThat(actual.getLevelValue()).isEqualTo(expected.getLevelValue());
+        break;
+      default:
+        break;
+    }
+  }
+}
@@ -19,18 +19,30 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.es.EsQueueDto;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
+import org.sonar.server.computation.task.projectanalysis.issue.IssuesToIndex;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.issue.index.IssueIndexer;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.VIEW;
 
@@ -45,7 +57,11 @@ public class IndexAnalysisStepTest extends BaseStepTest {
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
 
   private ProjectIndexer componentIndexer = mock(ProjectIndexer.class);
-  private IndexAnalysisStep underTest = new IndexAnalysisStep(treeRootHolder, componentIndexer);
+  private IssueIndexer issueIndexer = mock(IssueIndexer.class);
+  private IssuesToIndex issuesToIndex = new IssuesToIndex();
+  private DbClient dbClient = mock(DbClient.class);
+  private DbSession dbSession = mock(DbSession.class);
+  private IndexAnalysisStep underTest = new IndexAnalysisStep(treeRootHolder, issuesToIndex, dbClient, componentIndexer, issueIndexer);
 
   @Test
   public void call_indexByProjectUuid_of_indexer_for_project() {
@@ -67,6 +83,40 @@ public class IndexAnalysisStepTest extends BaseStepTest {
     verify(componentIndexer).indexOnAnalysis(PROJECT_UUID);
   }
 
+  @Test
+  public void index_all_issues_of_branch_if_issues_have_not_been_persisted() {
+    treeRootHolder.setRoot(ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build());
+
+    underTest.execute();
+
+    verify(issueIndexer).indexOnAnalysis(PROJECT_UUID);
+  }
+
+  @Test
+  public void index_only_persisted_issues() {
+    treeRootHolder.setRoot(ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build());
+    when(dbClient.openSession(false)).thenReturn(dbSession);
+    List<EsQueueDto> items = asList(EsQueueDto.create("issues/issue", "ISSUE_1"), EsQueueDto.create("issues/issue", "ISSUE_2"));
+    issuesToIndex.setItems(items);
+
+    underTest.execute();
+
+    verify(issueIndexer).index(dbSession, items);
+    verify(issueIndexer, never()).indexOnAnalysis(anyString());
+    verify(componentIndexer).indexOnAnalysis(PROJECT_UUID);
+  }
+
+  @Test
+  public void do_not_index_issues_if_no_issue_has_been_persisted() {
+    treeRootHolder.setRoot(ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build());
+    issuesToIndex.setItems(emptyList());
+
+    underTest.execute();
+
+    verifyZeroInteractions(issueIndexer, dbClient);
+    verify(componentIndexer).indexOnAnalysis(PROJECT_UUID);
+  }
+
   @Override
   protected ComputationStep step() {
     return underTest;
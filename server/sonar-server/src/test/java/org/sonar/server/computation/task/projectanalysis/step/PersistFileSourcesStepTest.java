@@ -298,7 +298,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     long past = 150000L;
     String srcHash = "137f72c3708c6bd0de00a0e5a69c699b";
     String lineHashes = "137f72c3708c6bd0de00a0e5a69c699b";
-    String dataHash = "29f25900140c94db38035128cb6de6a2";
+    String dataHash = "54dcb3042ea16317264938aa988ea195";
 
     dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
       .setProjectUuid(PROJECT_UUID)
@@ -379,7 +379,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
       .setDataType(Type.SOURCE)
       // Source hash is missing, update will be made
       .setLineHashes("137f72c3708c6bd0de00a0e5a69c699b")
-      .setDataHash("29f25900140c94db38035128cb6de6a2")
+      .setDataHash("54dcb3042ea16317264938aa988ea195")
       .setSourceData(DbFileSources.Data.newBuilder()
         .addLines(DbFileSources.Line.newBuilder()
           .setLine(1)
@@ -525,11 +525,130 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     }
   }
 
+  @Test
+  public void persist_sources_of_many_files_when_encoded_sources_exceed_the_buffer() {
+    int fileCount = 30;
+    ReportComponent.Builder module = ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY");
+    for (int i = 0; i < fileCount; i++) {
+      int ref = 10 + i;
+      module.addChildren(ReportComponent.builder(Component.Type.FILE, ref).setUuid("FILE_" + i).setKey("MODULE_KEY:src/Foo" + i + ".java")
+        .setFileAttributes(new FileAttributes(false, null, 2)).build());
+      fileSourceRepository.addLines(ref, "line1 of " + i, "line2 of " + i);
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(module.build()).build());
+    // buffer of a single byte: an encoded file uses the whole buffer
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository,
+      duplicationRepository, analysisMetadataHolder, 3, 1, 4);
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(fileCount);
+    for (int i = 0; i < fileCount; i++) {
+      DbFileSources.Data data = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE_" + i).getSourceData();
+      assertThat(data.getLinesCount()).isEqualTo(2);
+      assertThat(data.getLines(1).getSource()).isEqualTo("line2 of " + i);
+    }
+  }
+
+  @Test
+  public void fail_with_key_of_file_which_sources_cannot_be_computed() {
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
+      ReportComponent.builder(Component.Type.FILE, FILE1_REF).setUuid(FILE1_UUID).setKey("MODULE_KEY:src/Foo.java")
+        .setFileAttributes(new FileAttributes(false, null, 1)).build())
+      .build());
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Cannot persist sources of MODULE_KEY:src/Foo.java");
+
+    underTest.execute();
+  }
+
+  @Test
+  public void persist_hash_of_report_data() {
+    initBasicReport(2);
+
+    underTest.execute();
+
+    assertThat(dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID).getInputsHash()).isNotEmpty();
+  }
+
+  @Test
+  public void skip_unchanged_file_when_report_data_did_not_change() {
+    initBasicReport(2, Status.SAME);
+    underTest.execute();
+    FileSourceDto persisted = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    // sources are not computed again, otherwise data hash would be restored
+    tamperDataHash(persisted);
+    when(system2.now()).thenReturn(NOW + 1);
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getDataHash()).isEqualTo("TAMPERED");
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
+  }
+
+  @Test
+  public void compute_sources_of_unchanged_file_when_report_data_changed() {
+    initBasicReport(2, Status.SAME);
+    underTest.execute();
+    String inputsHash = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID).getInputsHash();
+    reportReader.putCoverage(FILE1_REF, newArrayList(ScannerReport.LineCoverage.newBuilder()
+      .setLine(1)
+      .setHits(true)
+      .build()));
+    when(system2.now()).thenReturn(NOW + 1);
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getInputsHash()).isNotEqualTo(inputsHash);
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW + 1);
+    assertThat(fileSourceDto.getSourceData().getLines(0).getLineHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void compute_sources_of_changed_file_even_if_report_data_did_not_change() {
+    initBasicReport(2, Status.CHANGED);
+    underTest.execute();
+    tamperDataHash(dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID));
+
+    underTest.execute();
+
+    assertThat(dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID).getDataHash()).isNotEqualTo("TAMPERED");
+  }
+
+  @Test
+  public void store_missing_hash_of_report_data_without_updating_unchanged_sources() {
+    initBasicReport(2);
+    underTest.execute();
+    FileSourceDto persisted = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    String inputsHash = persisted.getInputsHash();
+    dbClient.fileSourceDao().updateInputsHash(session, persisted.getId(), null);
+    session.commit();
+    when(system2.now()).thenReturn(NOW + 1);
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getInputsHash()).isEqualTo(inputsHash);
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
+  }
+
+  private void tamperDataHash(FileSourceDto dto) {
+    dbClient.fileSourceDao().update(session, dto.setDataHash("TAMPERED"));
+    session.commit();
+  }
+
   private void initBasicReport(int numberOfLines) {
+    initBasicReport(numberOfLines, Status.UNAVAILABLE);
+  }
+
+  private void initBasicReport(int numberOfLines, Status status) {
     treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
       ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY").addChildren(
         ReportComponent.builder(Component.Type.FILE, FILE1_REF).setUuid(FILE1_UUID).setKey("MODULE_KEY:src/Foo.java")
-          .setFileAttributes(new FileAttributes(false, null, numberOfLines)).build())
+          .setStatus(status).setFileAttributes(new FileAttributes(false, null, numberOfLines)).build())
         .build())
       .build());
 
@@ -0,0 +1,143 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
+import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.IssuesToIndex;
+import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
+import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.issue.index.IssueIteratorFactory;
+import org.sonar.server.util.cache.DiskCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the time spent by {@link PersistIssuesStep} to insert the issues of a first analysis, depending
+ * on the size of JDBC batches. A batch size of 1 is equivalent to a round trip per statement.
+ * <p>
+ * Executed only when the property "runBenchmarks" is set. The database is H2 by default. Other
+ * dialects are selected with the same properties as the other database tests, for example:
+ * {@code mvn test -Dtest=PersistIssuesStepBenchmarkTest -DrunBenchmarks -DissueCount=200000 -Dsonar.jdbc.dialect=postgresql
+ * -Dsonar.jdbc.url=jdbc:postgresql://localhost/sonar -Dsonar.jdbc.username=sonar -Dsonar.jdbc.password=sonar}
+ * </p>
+ */
+public class PersistIssuesStepBenchmarkTest {
+
+  private static final Logger LOGGER = Loggers.get(PersistIssuesStepBenchmarkTest.class);
+  private static final int ISSUE_COUNT = Integer.getInteger("issueCount", 50_000);
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule()
+    .setOrganizationUuid("org-1");
+
+  private RuleDefinitionDto rule;
+  private ComponentDto project;
+  private ComponentDto file;
+
+  @Before
+  public void setUp() {
+    assumeTrue(System.getProperty("runBenchmarks") != null);
+
+    rule = dbTester.rules().insert(RuleKey.of("xoo", "S01"));
+    OrganizationDto organization = dbTester.organizations().insert();
+    project = dbTester.components().insertPrivateProject(organization);
+    file = dbTester.components().insertComponent(ComponentTesting.newFileDto(project, null));
+  }
+
+  @Test
+  public void batches_of_1_statement() throws Exception {
+    benchmark(1);
+  }
+
+  @Test
+  public void batches_of_250_statements() throws Exception {
+    benchmark(250);
+  }
+
+  @Test
+  public void batches_of_1000_statements() throws Exception {
+    benchmark(1000);
+  }
+
+  private void benchmark(int batchSize) throws Exception {
+    IssueCache issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    try (DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender()) {
+      for (int i = 0; i < ISSUE_COUNT; i++) {
+        appender.append(newIssue(i));
+      }
+    }
+    PersistIssuesStep underTest = new PersistIssuesStep(dbTester.getDbClient(), System2.INSTANCE, new UpdateConflictResolver(),
+      new RuleRepositoryImpl(dbTester.getDbClient(), analysisMetadataHolder), issueCache,
+      new IssueIndexer(mock(EsClient.class), dbTester.getDbClient(), new IssueIteratorFactory(dbTester.getDbClient())), new IssuesToIndex(),
+      new MapSettings().setProperty(PersistIssuesStep.BATCH_SIZE_PROPERTY, batchSize).asConfig());
+
+    long start = System.nanoTime();
+    underTest.execute();
+    long durationMs = (System.nanoTime() - start) / 1_000_000;
+
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(ISSUE_COUNT);
+    LOGGER.info("{}: {} issues | batch size {} | {} ms | {} issues/s", dbTester.database().getDialect().getId(), ISSUE_COUNT, batchSize,
+      durationMs, ISSUE_COUNT * 1000L / Math.max(1L, durationMs));
+  }
+
+  private DefaultIssue newIssue(int i) {
+    return new DefaultIssue()
+      .setKey("ISSUE_" + i)
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(rule.getKey())
+      .setComponentUuid(file.uuid())
+      .setProjectUuid(project.uuid())
+      .setSeverity(Severity.MAJOR)
+      .setMessage("message " + i)
+      .setLine(1 + i % 1000)
+      .setStatus(Issue.STATUS_OPEN)
+      .setNew(i % 2 == 0)
+      .setCopied(i % 2 != 0)
+      .setCurrentChange(new FieldDiffs().setIssueKey("ISSUE_" + i).setDiff("severity", Severity.MINOR, Severity.MAJOR));
+  }
+}
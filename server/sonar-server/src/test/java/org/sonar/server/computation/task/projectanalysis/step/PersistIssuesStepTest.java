@@ -23,7 +23,10 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
@@ -37,7 +40,9 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.es.EsQueueDto;
 import org.sonar.db.issue.IssueDto;
+import org.sonar.db.issue.IssueMapper;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleTesting;
@@ -45,18 +50,29 @@ import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.IssuesToIndex;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.issue.index.IssueIteratorFactory;
+import org.sonar.server.util.cache.DiskCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class PersistIssuesStepTest extends BaseStepTest {
 
   public static final long NOW = 1400000000000L;
 
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
   @Rule
@@ -71,6 +87,7 @@ public class PersistIssuesStepTest extends BaseStepTest {
   private DbClient dbClient = dbTester.getDbClient();
   private System2 system2;
   private IssueCache issueCache;
+  private IssuesToIndex issuesToIndex = new IssuesToIndex();
   private ComputationStep step;
 
   @Override
@@ -85,7 +102,13 @@ public class PersistIssuesStepTest extends BaseStepTest {
     when(system2.now()).thenReturn(NOW);
     reportReader.setMetadata(ScannerReport.Metadata.getDefaultInstance());
 
-    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient, analysisMetadataHolder), issueCache);
+    step = newStep(new UpdateConflictResolver(), new MapSettings());
+  }
+
+  private PersistIssuesStep newStep(UpdateConflictResolver conflictResolver, MapSettings settings) {
+    IssueIndexer issueIndexer = new IssueIndexer(mock(EsClient.class), dbClient, new IssueIteratorFactory(dbClient));
+    return new PersistIssuesStep(dbClient, system2, conflictResolver, new RuleRepositoryImpl(dbClient, analysisMetadataHolder), issueCache,
+      issueIndexer, issuesToIndex, settings.asConfig());
   }
 
   @After
@@ -238,4 +261,201 @@ public class PersistIssuesStepTest extends BaseStepTest {
     dbTester.assertDbUnit(getClass(), "add_change-result.xml", new String[] {"id", "created_at", "updated_at"}, "issue_changes");
   }
 
+  @Test
+  public void insert_issues_in_several_batches() {
+    RuleDefinitionDto rule = RuleTesting.newRule(RuleKey.of("xoo", "S01"));
+    dbTester.rules().insert(rule);
+    OrganizationDto organizationDto = dbTester.organizations().insert();
+    ComponentDto project = ComponentTesting.newPrivateProjectDto(organizationDto);
+    dbClient.componentDao().insert(session, project);
+    ComponentDto file = ComponentTesting.newFileDto(project, null);
+    dbClient.componentDao().insert(session, file);
+    session.commit();
+
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    for (int i = 0; i < 7; i++) {
+      appender.append(new DefaultIssue()
+        .setKey("ISSUE_" + i)
+        .setType(RuleType.CODE_SMELL)
+        .setRuleKey(rule.getKey())
+        .setComponentUuid(file.uuid())
+        .setProjectUuid(project.uuid())
+        .setSeverity(Severity.BLOCKER)
+        .setStatus(Issue.STATUS_OPEN)
+        .setNew(true));
+    }
+    appender.close();
+
+    newStep(new UpdateConflictResolver(), new MapSettings().setProperty(PersistIssuesStep.BATCH_SIZE_PROPERTY, 3)).execute();
+
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(7);
+  }
+
+  @Test
+  public void prepare_indexing_of_inserted_issues() {
+    dbTester.rules().insert(RuleTesting.newRule(RuleKey.of("xoo", "S01")));
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    appender.append(newIssue("ISSUE_1").setNew(true));
+    appender.append(newIssue("ISSUE_2").setNew(true));
+    appender.close();
+
+    step.execute();
+
+    assertThat(issuesToIndex.getItems())
+      .extracting(EsQueueDto::getDocId, EsQueueDto::getDocIdType, EsQueueDto::getDocRouting)
+      .containsExactlyInAnyOrder(tuple("ISSUE_1", "issueKey", "PROJECT"), tuple("ISSUE_2", "issueKey", "PROJECT"));
+    assertThat(dbTester.countRowsOfTable("es_queue")).isEqualTo(2);
+  }
+
+  @Test
+  public void prepare_indexing_of_updated_issues_only() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    appender.append(newIssue("ISSUE").setNew(false).setChanged(true).setSelectedAt(NOW));
+    appender.append(newIssue("UNCHANGED_ISSUE").setNew(false).setChanged(false));
+    appender.close();
+
+    step.execute();
+
+    assertThat(issuesToIndex.getItems())
+      .extracting(EsQueueDto::getDocId, EsQueueDto::getDocIdType, EsQueueDto::getDocRouting)
+      .containsExactly(tuple("ISSUE", "issueKey", "PROJECT"));
+    assertThat(dbTester.countRowsOfTable("es_queue")).isEqualTo(1);
+  }
+
+  @Test
+  public void prepare_indexing_of_branch_if_too_many_issues_are_persisted() {
+    dbTester.rules().insert(RuleTesting.newRule(RuleKey.of("xoo", "S01")));
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    for (int i = 0; i < 5; i++) {
+      appender.append(newIssue("ISSUE_" + i).setNew(true));
+    }
+    appender.close();
+
+    newStep(new UpdateConflictResolver(), new MapSettings().setProperty(PersistIssuesStep.MAX_ISSUES_TO_INDEX_PROPERTY, 2)).execute();
+
+    assertThat(issuesToIndex.getItems())
+      .extracting(EsQueueDto::getDocId, EsQueueDto::getDocIdType)
+      .containsExactlyInAnyOrder(tuple("ISSUE_0", "issueKey"), tuple("ISSUE_1", "issueKey"), tuple("PROJECT", "projectUuid"));
+    assertThat(dbTester.countRowsOfTable("es_queue")).isEqualTo(3);
+  }
+
+  @Test
+  public void prepare_indexing_of_no_issue_if_no_issue_is_persisted() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    issueCache.newAppender().append(newIssue("ISSUE").setNew(false).setChanged(false)).close();
+
+    step.execute();
+
+    assertThat(issuesToIndex.isInitialized()).isTrue();
+    assertThat(issuesToIndex.getItems()).isEmpty();
+    assertThat(dbTester.countRowsOfTable("es_queue")).isEqualTo(0);
+  }
+
+  @Test
+  public void resolve_conflicts_of_issues_updated_since_they_were_selected() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    UpdateConflictResolver conflictResolver = mock(UpdateConflictResolver.class);
+
+    issueCache.newAppender().append(new DefaultIssue()
+      .setKey("ISSUE")
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(RuleKey.of("xoo", "S01"))
+      .setComponentUuid("COMPONENT")
+      .setProjectUuid("PROJECT")
+      .setSeverity(Severity.BLOCKER)
+      .setStatus(Issue.STATUS_CLOSED)
+      .setResolution(Issue.RESOLUTION_FIXED)
+      // issue has been updated in db at 1300000000000L
+      .setSelectedAt(1200000000000L)
+      .setNew(false)
+      .setChanged(true)).close();
+
+    newStep(conflictResolver, new MapSettings()).execute();
+
+    ArgumentCaptor<DefaultIssue> issueCaptor = ArgumentCaptor.forClass(DefaultIssue.class);
+    verify(conflictResolver, times(1)).resolve(issueCaptor.capture(), any(IssueMapper.class));
+    assertThat(issueCaptor.getValue().key()).isEqualTo("ISSUE");
+  }
+
+  @Test
+  public void resolve_conflicts_of_issues_whose_statements_exceed_the_remaining_space_of_the_batch() {
+    RuleDefinitionDto rule = dbTester.rules().insert(RuleTesting.newRule(RuleKey.of("xoo", "S01")));
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    ComponentDto file = dbTester.components().insertComponent(ComponentTesting.newFileDto(project, null));
+    for (int i = 0; i < 4; i++) {
+      String key = "ISSUE_" + i;
+      dbTester.issues().insert(rule, project, file, issue -> issue.setKee(key).setUpdatedAt(1300000000000L));
+    }
+    UpdateConflictResolver conflictResolver = mock(UpdateConflictResolver.class);
+
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    // 2 statements: update and es_queue item
+    appender.append(newChangedIssue("ISSUE_0", project, file, 1400000000000L));
+    // 5 statements, conflict: update, 2 comments, change and es_queue item
+    appender.append(newChangedIssue("ISSUE_1", project, file, 1200000000000L)
+      .addComment(newComment("ISSUE_1", "COMMENT_1"))
+      .addComment(newComment("ISSUE_1", "COMMENT_2"))
+      .setCurrentChange(new FieldDiffs().setIssueKey("ISSUE_1").setUserLogin("john").setDiff("technicalDebt", null, 1L)));
+    // 3 statements, conflict: update, comment and es_queue item
+    appender.append(newChangedIssue("ISSUE_2", project, file, 1200000000000L)
+      .addComment(newComment("ISSUE_2", "COMMENT_3")));
+    // 2 statements, conflict
+    appender.append(newChangedIssue("ISSUE_3", project, file, 1200000000000L));
+    appender.close();
+
+    newStep(conflictResolver, new MapSettings().setProperty(PersistIssuesStep.BATCH_SIZE_PROPERTY, 4)).execute();
+
+    ArgumentCaptor<DefaultIssue> issueCaptor = ArgumentCaptor.forClass(DefaultIssue.class);
+    verify(conflictResolver, times(3)).resolve(issueCaptor.capture(), any(IssueMapper.class));
+    assertThat(issueCaptor.getAllValues()).extracting(DefaultIssue::key).containsExactly("ISSUE_1", "ISSUE_2", "ISSUE_3");
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isEqualTo(4);
+    assertThat(dbTester.countRowsOfTable("es_queue")).isEqualTo(4);
+    assertThat(dbClient.issueDao().selectOrFailByKey(session, "ISSUE_0").getUpdatedAt()).isEqualTo(NOW);
+  }
+
+  @Test
+  public void fail_if_batch_size_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Property sonar.ce.persistIssues.batchSize must be greater than 0, got 0");
+
+    newStep(new UpdateConflictResolver(), new MapSettings().setProperty(PersistIssuesStep.BATCH_SIZE_PROPERTY, 0));
+  }
+
+  @Test
+  public void fail_if_max_issues_to_index_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Property sonar.ce.persistIssues.maxIssuesToIndex must be positive, got -1");
+
+    newStep(new UpdateConflictResolver(), new MapSettings().setProperty(PersistIssuesStep.MAX_ISSUES_TO_INDEX_PROPERTY, -1));
+  }
+
+  private static DefaultIssue newChangedIssue(String key, ComponentDto project, ComponentDto file, long selectedAt) {
+    return newIssue(key)
+      .setComponentUuid(file.uuid())
+      .setProjectUuid(project.uuid())
+      .setSelectedAt(selectedAt)
+      .setNew(false)
+      .setChanged(true);
+  }
+
+  private static DefaultIssueComment newComment(String issueKey, String key) {
+    return new DefaultIssueComment()
+      .setKey(key)
+      .setIssueKey(issueKey)
+      .setUserLogin("john")
+      .setMarkdownText("Some text")
+      .setNew(true);
+  }
+
+  private static DefaultIssue newIssue(String key) {
+    return new DefaultIssue()
+      .setKey(key)
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(RuleKey.of("xoo", "S01"))
+      .setComponentUuid("COMPONENT")
+      .setProjectUuid("PROJECT")
+      .setSeverity(Severity.BLOCKER)
+      .setStatus(Issue.STATUS_OPEN);
+  }
 }
@@ -24,6 +24,7 @@ import com.google.common.collect.FluentIterable;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -31,8 +32,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.config.internal.MapSettings;
+import org.sonar.ce.queue.CeQueue;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.CeTaskSubmit;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.server.computation.dbcleaner.ProjectCleaner;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -46,11 +52,16 @@ import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.util.WrapInSingleElementArray;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -71,8 +82,19 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
   private ConfigurationRepository settingsRepository = mock(ConfigurationRepository.class);
   private MutableDisabledComponentsHolder disabledComponentsHolder = mock(MutableDisabledComponentsHolder.class, RETURNS_DEEP_STUBS);
 
-  private PurgeDatastoresStep underTest = new PurgeDatastoresStep(mock(DbClient.class, Mockito.RETURNS_DEEP_STUBS), projectCleaner, dbIdsRepository, treeRootHolder,
-    settingsRepository, disabledComponentsHolder);
+  private DbClient dbClient = mock(DbClient.class, Mockito.RETURNS_DEEP_STUBS);
+  private CeTask ceTask = new CeTask.Builder().setOrganizationUuid("org1").setUuid("TASK_1").setType(CeTaskTypes.REPORT)
+    .setComponentUuid(PROJECT_UUID).setComponentKey(PROJECT_KEY).build();
+  private CeQueue ceQueue = mock(CeQueue.class);
+
+  private PurgeDatastoresStep underTest = new PurgeDatastoresStep(dbClient, projectCleaner, dbIdsRepository, treeRootHolder,
+    settingsRepository, disabledComponentsHolder, ceTask, ceQueue);
+
+  @Before
+  public void setUp() {
+    when(dbClient.ceQueueDao().selectByComponentUuid(any(DbSession.class), anyString())).thenReturn(emptyList());
+    when(ceQueue.prepareSubmit()).thenReturn(new CeTaskSubmit.Builder("PURGE_TASK"));
+  }
 
   @Test
   public void call_purge_method_of_the_purge_task_for_project() {
@@ -140,11 +162,52 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
     underTest.execute();
 
     ArgumentCaptor<IdUuidPair> argumentCaptor = ArgumentCaptor.forClass(IdUuidPair.class);
-    verify(projectCleaner).purge(any(DbSession.class), argumentCaptor.capture(), any(Configuration.class), anyList());
+    verify(projectCleaner).purgeDisabledComponents(any(DbSession.class), argumentCaptor.capture(), any(Configuration.class), anyList());
     assertThat(argumentCaptor.getValue().getId()).isEqualTo(PROJECT_ID);
     assertThat(argumentCaptor.getValue().getUuid()).isEqualTo(PROJECT_UUID);
   }
 
+  @Test
+  public void submit_purge_task_of_the_component_of_the_analysis() {
+    setProjectRoot();
+
+    underTest.execute();
+
+    ArgumentCaptor<CeTaskSubmit> submit = ArgumentCaptor.forClass(CeTaskSubmit.class);
+    verify(ceQueue).submit(submit.capture());
+    assertThat(submit.getValue().getType()).isEqualTo(CeTaskTypes.PROJECT_PURGE);
+    assertThat(submit.getValue().getComponentUuid()).isEqualTo(PROJECT_UUID);
+  }
+
+  @Test
+  public void do_not_submit_purge_task_if_one_is_already_pending() {
+    setProjectRoot();
+    CeQueueDto pendingPurge = new CeQueueDto().setUuid("PENDING").setTaskType(CeTaskTypes.PROJECT_PURGE).setComponentUuid(PROJECT_UUID)
+      .setStatus(CeQueueDto.Status.PENDING);
+    when(dbClient.ceQueueDao().selectByComponentUuid(any(DbSession.class), eq(PROJECT_UUID))).thenReturn(singletonList(pendingPurge));
+
+    underTest.execute();
+
+    verify(ceQueue, never()).submit(any(CeTaskSubmit.class));
+  }
+
+  @Test
+  public void do_not_submit_purge_task_if_submits_are_paused() {
+    setProjectRoot();
+    when(ceQueue.isSubmitPaused()).thenReturn(true);
+
+    underTest.execute();
+
+    verify(ceQueue, never()).submit(any(CeTaskSubmit.class));
+  }
+
+  private void setProjectRoot() {
+    Component project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
+    treeRootHolder.setRoot(project);
+    when(settingsRepository.getConfiguration()).thenReturn(new MapSettings().asConfig());
+    dbIdsRepository.setComponentId(project, PROJECT_ID);
+  }
+
   private static Object[][] dataproviderFromComponentTypeValues(Predicate<Component.Type> predicate) {
     return FluentIterable.from(asList(Component.Type.values()))
       .filter(predicate)
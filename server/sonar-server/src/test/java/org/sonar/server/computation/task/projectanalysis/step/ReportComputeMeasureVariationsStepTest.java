@@ -144,6 +144,30 @@ public class ReportComputeMeasureVariationsStepTest {
     assertThat(measureRepository.getRawMeasure(directory, ISSUES_METRIC).get().getVariation()).isEqualTo(10d);
   }
 
+  @Test
+  public void ignore_past_measures_of_components_which_are_not_in_the_tree() {
+    SnapshotDto period1Snapshot = newAnalysis(project);
+    dbClient.snapshotDao().insert(session, period1Snapshot);
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), PROJECT_UUID, period1Snapshot.getUuid(), 60d));
+    ComponentDto removedDirectoryDto = ComponentTesting.newDirectory(project, "removed");
+    dbClient.componentDao().insert(session, removedDirectoryDto);
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), removedDirectoryDto.uuid(), period1Snapshot.getUuid(), 10d));
+    session.commit();
+
+    periodsHolder.setPeriod(newPeriod(period1Snapshot));
+    Component directory = ReportComponent.builder(Component.Type.DIRECTORY, 2).setUuid("new directory").build();
+    Component project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).addChildren(directory).build();
+    treeRootHolder.setRoot(project);
+
+    addRawMeasure(project, ISSUES_METRIC, newMeasureBuilder().create(80, null));
+    addRawMeasure(directory, ISSUES_METRIC, newMeasureBuilder().create(20, null));
+
+    underTest.execute();
+
+    assertThat(measureRepository.getRawMeasure(project, ISSUES_METRIC).get().getVariation()).isEqualTo(20d);
+    assertThat(measureRepository.getRawMeasure(directory, ISSUES_METRIC).get().getVariation()).isEqualTo(20d);
+  }
+
   @Test
   public void set_zero_variation_when_no_change() {
     // Project
@@ -19,8 +19,14 @@
  */
 package org.sonar.server.computation.task.step;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -29,12 +35,16 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.server.computation.task.ChangeLogLevel;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -152,6 +162,95 @@ public class ComputationStepExecutorTest {
     new ComputationStepExecutor(mockComputationSteps(computationStep1), listener).execute();
   }
 
+  @Test
+  public void execute_runs_concurrently_ConcurrentComputationSteps_which_do_not_depend_on_each_other() {
+    CountDownLatch latch = new CountDownLatch(2);
+    Runnable awaitOtherStep = () -> {
+      latch.countDown();
+      try {
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    };
+    TestConcurrentStep step1 = new TestConcurrentStep("step1", asList("a"), asList("b"), awaitOtherStep);
+    TestConcurrentStep step2 = new TestConcurrentStep("step2", asList("a"), asList("c"), awaitOtherStep);
+
+    new ComputationStepExecutor(mockComputationSteps(step1, step2), listener, 2).execute();
+
+    assertThat(step1.executed).isTrue();
+    assertThat(step2.executed).isTrue();
+    verify(listener).finished(true);
+  }
+
+  @Test
+  public void execute_runs_ConcurrentComputationStep_after_the_previous_steps_it_depends_on() {
+    List<String> executionOrder = Collections.synchronizedList(new ArrayList<>());
+    TestConcurrentStep writer = new TestConcurrentStep("writer", emptyList(), asList("a"), () -> executionOrder.add("writer"));
+    TestConcurrentStep reader = new TestConcurrentStep("reader", asList("a"), asList("b"), () -> executionOrder.add("reader"));
+    TestConcurrentStep overwriter = new TestConcurrentStep("overwriter", emptyList(), asList("b"), () -> executionOrder.add("overwriter"));
+
+    for (int i = 0; i < 20; i++) {
+      executionOrder.clear();
+      new ComputationStepExecutor(mockComputationSteps(writer, reader, overwriter), null, 3).execute();
+
+      assertThat(executionOrder).containsExactly("writer", "reader", "overwriter");
+    }
+  }
+
+  @Test
+  public void execute_waits_for_ConcurrentComputationSteps_before_running_other_steps() {
+    List<String> executionOrder = Collections.synchronizedList(new ArrayList<>());
+    TestConcurrentStep step1 = new TestConcurrentStep("step1", emptyList(), asList("a"), () -> executionOrder.add("step1"));
+    TestConcurrentStep step2 = new TestConcurrentStep("step2", emptyList(), asList("b"), () -> executionOrder.add("step2"));
+    ComputationStep step3 = mockComputationStep("step3");
+    doAnswer(invocation -> executionOrder.add("step3")).when(step3).execute();
+    TestConcurrentStep step4 = new TestConcurrentStep("step4", emptyList(), asList("c"), () -> executionOrder.add("step4"));
+
+    new ComputationStepExecutor(mockComputationSteps(step1, step2, step3, step4), null, 2).execute();
+
+    assertThat(executionOrder).hasSize(4);
+    assertThat(executionOrder.subList(0, 2)).containsOnly("step1", "step2");
+    assertThat(executionOrder.subList(2, 4)).containsExactly("step3", "step4");
+  }
+
+  @Test
+  public void execute_raises_failure_of_ConcurrentComputationStep_and_does_not_run_the_steps_depending_on_it() {
+    RuntimeException toBeThrown = new RuntimeException("simulating failing step");
+    TestConcurrentStep failing = new TestConcurrentStep("failing", emptyList(), asList("a"), () -> {
+      throw toBeThrown;
+    });
+    TestConcurrentStep dependent = new TestConcurrentStep("dependent", asList("a"), emptyList(), () -> {
+    });
+    ComputationStep next = mockComputationStep("next");
+
+    try {
+      new ComputationStepExecutor(mockComputationSteps(failing, dependent, next), listener, 2).execute();
+      fail("exception toBeThrown should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(e).isSameAs(toBeThrown);
+      assertThat(dependent.executed).isFalse();
+      verify(next, never()).execute();
+      verify(listener).finished(false);
+    }
+  }
+
+  @Test
+  public void execute_logs_end_timing_for_each_ConcurrentComputationStep_when_level_is_DEBUG() {
+    try (ChangeLogLevel executor = new ChangeLogLevel(ComputationStepExecutor.class, LoggerLevel.DEBUG)) {
+      new ComputationStepExecutor(mockComputationSteps(
+        new TestConcurrentStep("step1", emptyList(), asList("a"), () -> {
+        }),
+        new TestConcurrentStep("step2", emptyList(), asList("b"), () -> {
+        })), null, 2)
+          .execute();
+
+      assertThat(logTester.logs(LoggerLevel.DEBUG)).hasSize(2);
+      assertThat(logTester.logs(LoggerLevel.DEBUG).stream().anyMatch(log -> log.contains("step1 | time="))).isTrue();
+      assertThat(logTester.logs(LoggerLevel.DEBUG).stream().anyMatch(log -> log.contains("step2 | time="))).isTrue();
+    }
+  }
+
   private static ComputationSteps mockComputationSteps(ComputationStep... computationSteps) {
     ComputationSteps steps = mock(ComputationSteps.class);
     when(steps.instances()).thenReturn(Arrays.asList(computationSteps));
@@ -163,4 +262,40 @@ public class ComputationStepExecutorTest {
     when(mock.getDescription()).thenReturn(desc);
     return mock;
   }
+
+  private static class TestConcurrentStep implements ConcurrentComputationStep {
+    private final String description;
+    private final Set<String> reads;
+    private final Set<String> writes;
+    private final Runnable runnable;
+    private volatile boolean executed = false;
+
+    private TestConcurrentStep(String description, List<String> reads, List<String> writes, Runnable runnable) {
+      this.description = description;
+      this.reads = new HashSet<>(reads);
+      this.writes = new HashSet<>(writes);
+      this.runnable = runnable;
+    }
+
+    @Override
+    public Set<String> reads() {
+      return reads;
+    }
+
+    @Override
+    public Set<String> writes() {
+      return writes;
+    }
+
+    @Override
+    public void execute() {
+      runnable.run();
+      executed = true;
+    }
+
+    @Override
+    public String getDescription() {
+      return description;
+    }
+  }
 }
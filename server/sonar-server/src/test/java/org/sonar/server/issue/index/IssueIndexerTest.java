@@ -288,6 +288,46 @@ public class IssueIndexerTest {
     assertThatEsQueueTableHasSize(0);
   }
 
+  @Test
+  public void index_issues_prepared_for_indexing() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject(organization);
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    IssueDto issue1 = db.issues().insert(rule, project, file);
+    IssueDto issue2 = db.issues().insert(rule, project, file);
+    IssueDto deletedIssue = new IssueDto().setKee("I1").setProjectUuid(project.uuid());
+    addIssueToIndex(deletedIssue.getProjectUuid(), deletedIssue.getKey());
+
+    List<EsQueueDto> items = asList(
+      underTest.prepareIssueForIndexing(db.getSession(), issue1.getKey(), project.uuid()),
+      underTest.prepareIssueForIndexing(db.getSession(), deletedIssue.getKey(), project.uuid()));
+    db.commit();
+    assertThatEsQueueTableHasSize(2);
+
+    underTest.index(db.getSession(), items);
+
+    // issue2 has not been prepared
+    assertThatIndexHasOnly(issue1);
+    assertThatEsQueueTableHasSize(0);
+  }
+
+  @Test
+  public void index_branch_prepared_for_indexing() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject(organization);
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    IssueDto issue1 = db.issues().insert(rule, project, file);
+    IssueDto issue2 = db.issues().insert(rule, project, file);
+
+    EsQueueDto item = underTest.prepareBranchForIndexing(db.getSession(), project.uuid());
+    db.commit();
+
+    underTest.index(db.getSession(), asList(item));
+
+    assertThatIndexHasOnly(issue1, issue2);
+    assertThatEsQueueTableHasSize(0);
+  }
+
   @Test
   public void commitAndIndexIssues_removes_issue_from_index_if_it_does_not_exist_in_db() {
     IssueDto issue1 = new IssueDto().setKee("I1").setProjectUuid("P1");
@@ -352,6 +352,43 @@ public class ComponentTreeActionTest {
     assertThat(response.getPaging().getTotal()).isEqualTo(9);
   }
 
+  @Test
+  public void sort_by_metric_value_and_paginated_returns_all_requested_measures_of_page() {
+    ComponentDto project = db.components().insertPrivateProject();
+    SnapshotDto projectSnapshot = db.components().insertSnapshot(project);
+    ComponentDto file1 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-1"));
+    ComponentDto file2 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-2"));
+    ComponentDto file3 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-3"));
+    MetricDto coverage = insertCoverageMetric();
+    MetricDto ncloc = insertNclocMetric();
+    insertNewViolationsMetric();
+    dbClient.measureDao().insert(dbSession,
+      newMeasureDto(coverage, file1, projectSnapshot).setValue(1.0d),
+      newMeasureDto(coverage, file2, projectSnapshot).setValue(2.0d),
+      newMeasureDto(coverage, file3, projectSnapshot).setValue(3.0d),
+      newMeasureDto(ncloc, file1, projectSnapshot).setValue(10.0d),
+      newMeasureDto(ncloc, file2, projectSnapshot).setValue(20.0d),
+      newMeasureDto(ncloc, file3, projectSnapshot).setValue(30.0d),
+      newMeasureDto(ncloc, project, projectSnapshot).setValue(60.0d));
+    db.commit();
+
+    ComponentTreeWsResponse response = ws.newRequest()
+      .setParam(PARAM_COMPONENT, project.getKey())
+      .setParam(SORT, METRIC_SORT)
+      .setParam(PARAM_METRIC_SORT, "coverage")
+      .setParam(PARAM_METRIC_KEYS, "coverage,ncloc,new_violations")
+      .setParam(Param.ASCENDING, "false")
+      .setParam(Param.PAGE_SIZE, "2")
+      .executeProtobuf(ComponentTreeWsResponse.class);
+
+    assertThat(response.getComponentsList()).extracting("id").containsExactly("file-uuid-3", "file-uuid-2");
+    assertThat(response.getComponents(0).getMeasuresList()).extracting("metric").containsOnly("coverage", "ncloc", "new_violations");
+    assertThat(response.getComponents(0).getMeasuresList()).extracting("value").contains("3.0", "30");
+    assertThat(response.getComponents(1).getMeasuresList()).extracting("value").contains("2.0", "20");
+    assertThat(response.getBaseComponent().getMeasuresList()).extracting("metric").containsOnly("ncloc");
+    assertThat(response.getPaging().getTotal()).isEqualTo(3);
+  }
+
   @Test
   public void sort_by_metric_value() {
     ComponentDto project = db.components().insertPrivateProject();
@@ -235,6 +235,40 @@ public class ComponentTreeSortTest {
       .containsExactly("path-1", "path-2", "path-3");
   }
 
+  @Test
+  public void sort_only_first_components_by_numerical_metric() {
+    components.add(newComponentWithoutSnapshotId("name-without-measure", "qualifier-without-measure", "path-without-measure"));
+    ComponentTreeWsRequest wsRequest = newRequest(singletonList(METRIC_SORT), false, NUM_METRIC_KEY);
+
+    List<ComponentDto> result = ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric, 3);
+
+    assertThat(result).extracting("path")
+      .containsExactly("path-9", "path-8", "path-7");
+  }
+
+  @Test
+  public void sort_only_first_components_keeps_order_of_components_with_same_rank() {
+    for (int i = 0; i < 5; i++) {
+      components.add(newComponentWithoutSnapshotId("name-without-measure", "qualifier-without-measure", "path-without-measure-" + i));
+    }
+    ComponentTreeWsRequest wsRequest = newRequest(singletonList(METRIC_SORT), true, NUM_METRIC_KEY);
+
+    List<ComponentDto> result = ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric, 12);
+
+    assertThat(result).isEqualTo(sortComponents(wsRequest).subList(0, 12));
+    assertThat(result).extracting("path")
+      .endsWith("path-9", "path-without-measure-0", "path-without-measure-1", "path-without-measure-2");
+  }
+
+  @Test
+  public void sort_only_first_components_without_sort_field() {
+    ComponentTreeWsRequest wsRequest = newRequest(null, true, null);
+
+    List<ComponentDto> result = ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric, 2);
+
+    assertThat(result).containsExactly(components.get(0), components.get(1));
+  }
+
   private List<ComponentDto> sortComponents(ComponentTreeWsRequest wsRequest) {
     return ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
   }
@@ -247,7 +281,7 @@ public class ComponentTreeSortTest {
       .setPath(path);
   }
 
-  private static ComponentTreeWsRequest newRequest(List<String> sortFields, boolean isAscending, @Nullable String metricKey) {
+  private static ComponentTreeWsRequest newRequest(@Nullable List<String> sortFields, boolean isAscending, @Nullable String metricKey) {
     return new ComponentTreeWsRequest()
       .setAsc(isAscending)
       .setSort(sortFields)
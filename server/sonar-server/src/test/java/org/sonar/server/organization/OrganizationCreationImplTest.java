@@ -55,6 +55,7 @@ import org.sonar.server.es.SearchOptions;
 import org.sonar.server.qualityprofile.BuiltInQProfile;
 import org.sonar.server.qualityprofile.BuiltInQProfileRepositoryRule;
 import org.sonar.server.qualityprofile.QProfileName;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
@@ -66,6 +67,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.server.language.LanguageTesting.newLanguage;
 import static org.sonar.server.organization.OrganizationCreation.NewOrganization.newOrganizationBuilder;
@@ -106,8 +108,9 @@ public class OrganizationCreationImplTest {
   private UserIndexer userIndexer = new UserIndexer(dbClient, es.client());
   private UserIndex userIndex = new UserIndex(es.client());
   private DefaultGroupCreator defaultGroupCreator = new DefaultGroupCreatorImpl(dbClient);
+  private PermissionCache permissionCache = mock(PermissionCache.class);
   private OrganizationCreationImpl underTest = new OrganizationCreationImpl(dbClient, system2, uuidFactory, organizationValidation, settings.asConfig(), userIndexer,
-    builtInQProfileRepositoryRule, defaultGroupCreator);
+    builtInQProfileRepositoryRule, defaultGroupCreator, permissionCache);
 
   private UserDto someUser;
 
@@ -208,6 +211,7 @@ public class OrganizationCreationImplTest {
     underTest.create(dbSession, user, FULL_POPULATED_NEW_ORGANIZATION);
 
     verifyGroupOwners(user, FULL_POPULATED_NEW_ORGANIZATION.getKey(), FULL_POPULATED_NEW_ORGANIZATION.getName());
+    verify(permissionCache).invalidate();
   }
 
   @Test
@@ -340,6 +344,7 @@ public class OrganizationCreationImplTest {
     underTest.createForUser(dbSession, user);
 
     OrganizationDto organization = dbClient.organizationDao().selectByKey(dbSession, SLUG_OF_A_LOGIN).get();
+    verify(permissionCache).invalidate();
     assertThat(organization.getUuid()).isNotEmpty();
     assertThat(organization.getKey()).isEqualTo(SLUG_OF_A_LOGIN);
     assertThat(organization.getName()).isEqualTo(user.getName());
@@ -51,6 +51,7 @@ import org.sonar.server.qualityprofile.QProfileFactory;
 import org.sonar.server.qualityprofile.QProfileFactoryImpl;
 import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
@@ -86,7 +87,9 @@ public class DeleteActionTest {
   private UserIndex userIndex = new UserIndex(es.client());
   private UserIndexer userIndexer = new UserIndexer(dbClient, es.client());
 
-  private DeleteAction underTest = new DeleteAction(userSession, dbClient, defaultOrganizationProvider, componentCleanerService, organizationFlags, userIndexer, qProfileFactory);
+  private PermissionCache permissionCache = mock(PermissionCache.class);
+  private DeleteAction underTest = new DeleteAction(userSession, dbClient, defaultOrganizationProvider, componentCleanerService, organizationFlags, userIndexer, qProfileFactory,
+    permissionCache);
 
   private WsActionTester wsTester = new WsActionTester(underTest);
 
@@ -200,6 +203,7 @@ public class DeleteActionTest {
     sendRequest(organization);
 
     verifyOrganizationDoesNotExist(organization);
+    verify(permissionCache).invalidate();
   }
 
   @Test
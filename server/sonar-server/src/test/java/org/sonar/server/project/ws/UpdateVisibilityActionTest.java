@@ -35,6 +35,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.BranchDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
@@ -57,6 +58,7 @@ import org.sonar.server.organization.BillingValidationsProxy;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.permission.index.FooIndexDefinition;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.PermissionCache;
 import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.WsActionTester;
 
@@ -97,7 +99,8 @@ public class UpdateVisibilityActionTest {
   private BillingValidationsProxy billingValidations = mock(BillingValidationsProxy.class);
 
   private ProjectsWsSupport wsSupport = new ProjectsWsSupport(dbClient, TestDefaultOrganizationProvider.from(dbTester), billingValidations);
-  private UpdateVisibilityAction underTest = new UpdateVisibilityAction(dbClient, TestComponentFinder.from(dbTester), userSessionRule, projectIndexers, wsSupport);
+  private PermissionCache permissionCache = mock(PermissionCache.class);
+  private UpdateVisibilityAction underTest = new UpdateVisibilityAction(dbClient, TestComponentFinder.from(dbTester), userSessionRule, projectIndexers, wsSupport, permissionCache);
   private WsActionTester actionTester = new WsActionTester(underTest);
 
   private final Random random = new Random();
@@ -263,6 +266,20 @@ public class UpdateVisibilityActionTest {
     request.execute();
   }
 
+  @Test
+  public void execute_ignores_pending_purge_of_specified_component() {
+    ComponentDto project = randomPublicOrPrivateProject();
+    boolean initiallyPrivate = project.isPrivate();
+    insertCeQueueDto(project, CeQueueDto.Status.PENDING, CeTaskTypes.PROJECT_PURGE);
+    userSessionRule.addProjectPermission(UserRole.ADMIN, project);
+
+    request.setParam(PARAM_PROJECT, project.getDbKey())
+      .setParam(PARAM_VISIBILITY, initiallyPrivate ? PUBLIC : PRIVATE)
+      .execute();
+
+    assertThat(isPrivateInDb(project)).isEqualTo(!initiallyPrivate);
+  }
+
   @Test
   public void execute_throws_ISE_when_project_organization_uuid_does_not_match_existing_organization() {
     // Organization is not persisted
@@ -622,10 +639,14 @@ public class UpdateVisibilityActionTest {
   private int counter = 0;
 
   private void insertCeQueueDto(ComponentDto project, CeQueueDto.Status status) {
+    insertCeQueueDto(project, status, "foo");
+  }
+
+  private void insertCeQueueDto(ComponentDto project, CeQueueDto.Status status, String taskType) {
     dbClient.ceQueueDao().insert(dbTester.getSession(), new CeQueueDto()
       .setUuid("pending" + counter++)
       .setComponentUuid(project.uuid())
-      .setTaskType("foo")
+      .setTaskType(taskType)
       .setStatus(status));
     dbTester.commit();
   }
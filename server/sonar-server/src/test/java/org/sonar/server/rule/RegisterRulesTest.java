@@ -23,7 +23,10 @@ import java.util.Date;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
 import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.resources.Language;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.rule.RuleKey;
@@ -33,6 +36,7 @@ import org.sonar.api.server.debt.DebtRemediationFunction;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.Version;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.db.DbClient;
@@ -48,6 +52,7 @@ import org.sonar.server.es.SearchOptions;
 import org.sonar.server.organization.OrganizationFlags;
 import org.sonar.server.organization.TestOrganizationFlags;
 import org.sonar.server.plugins.ServerPluginRepository;
+import org.sonar.server.property.InternalProperties;
 import org.sonar.server.qualityprofile.RuleActivator;
 import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
 import org.sonar.server.rule.index.RuleIndex;
@@ -95,6 +100,7 @@ public class RegisterRulesTest {
   private RuleIndex ruleIndex;
   private OrganizationDto defaultOrganization;
   private OrganizationFlags organizationFlags = TestOrganizationFlags.standalone();
+  private SonarRuntime sonarRuntime = SonarRuntimeImpl.forSonarQube(Version.create(6, 6), SonarQubeSide.SERVER);
 
   @Before
   public void before() {
@@ -392,6 +398,55 @@ public class RegisterRulesTest {
     assertThat(rule1.getUpdatedAt()).isEqualTo(DATE1.getTime());
   }
 
+  @Test
+  public void do_not_register_rules_of_repositories_unchanged_since_last_startup() {
+    execute(new FakeRepositoryV1());
+    assertThat(dbClient.internalPropertiesDao().selectByKey(dbTester.getSession(), InternalProperties.RULES_FINGERPRINTS)).isPresent();
+    // changed by other means than the plugin
+    RuleDefinitionDto rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    dbClient.ruleDao().update(dbTester.getSession(), rule1.setName("Changed"));
+    dbTester.getSession().commit();
+
+    when(system.now()).thenReturn(DATE2.getTime());
+    execute(new FakeRepositoryV1());
+
+    rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    assertThat(rule1.getName()).isEqualTo("Changed");
+    assertThat(dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY2).getStatus()).isEqualTo(RuleStatus.READY);
+    assertThat(esTester.getIds(RuleIndexDefinition.INDEX_TYPE_RULE)).containsOnly(RULE_KEY1.toString(), RULE_KEY2.toString());
+
+    execute(new FakeRepositoryV2());
+
+    rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    assertThat(rule1.getName()).isEqualTo("One v2");
+  }
+
+  @Test
+  public void register_rules_of_all_repositories_after_upgrade_of_sonarqube() {
+    execute(new FakeRepositoryV1());
+    RuleDefinitionDto rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    dbClient.ruleDao().update(dbTester.getSession(), rule1.setName("Changed"));
+    dbTester.getSession().commit();
+
+    sonarRuntime = SonarRuntimeImpl.forSonarQube(Version.create(6, 7), SonarQubeSide.SERVER);
+    when(system.now()).thenReturn(DATE2.getTime());
+    execute(new FakeRepositoryV1());
+
+    rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    assertThat(rule1.getName()).isEqualTo("One");
+  }
+
+  @Test
+  public void disable_template_rules_registered_before_organizations_are_enabled() {
+    execute(new RepositoryWithOneTemplateRule());
+    assertThat(dbClient.ruleDao().selectAllDefinitions(dbTester.getSession())).hasSize(1);
+
+    organizationFlags.enable(dbTester.getSession());
+    execute(new RepositoryWithOneTemplateRule());
+
+    assertThat(dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RuleKey.of("test", "rule1")).getStatus()).isEqualTo(RuleStatus.REMOVED);
+  }
+
   @Test
   public void do_not_update_already_removed_rules() {
     execute(new FakeRepositoryV1());
@@ -493,7 +548,8 @@ public class RegisterRulesTest {
     when(languages.get("java")).thenReturn(mock(Language.class));
     reset(webServerRuleFinder);
 
-    RegisterRules task = new RegisterRules(loader, ruleActivator, dbClient, ruleIndexer, activeRuleIndexer, languages, system, organizationFlags, webServerRuleFinder);
+    RegisterRules task = new RegisterRules(loader, ruleActivator, dbClient, ruleIndexer, activeRuleIndexer, languages, system, organizationFlags, webServerRuleFinder,
+      sonarRuntime);
     task.start();
     // Execute a commit to refresh session state as the task is using its own session
     dbTester.getSession().commit();
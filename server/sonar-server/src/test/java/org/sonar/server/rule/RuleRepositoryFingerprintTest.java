@@ -0,0 +1,101 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.sonar.api.server.rule.RulesDefinition;
+import org.sonar.api.utils.Version;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class RuleRepositoryFingerprintTest {
+
+  private static final Version VERSION = Version.create(6, 6);
+
+  @Test
+  public void fingerprint_does_not_depend_on_order_of_rules_and_params() {
+    String fingerprint1 = fingerprint(repo -> {
+      repo.createRule("rule1").setName("One").setHtmlDescription("Desc").createParam("p1");
+      repo.createRule("rule2").setName("Two").setHtmlDescription("Desc").setTags("b", "a");
+    });
+    String fingerprint2 = fingerprint(repo -> {
+      repo.createRule("rule2").setName("Two").setHtmlDescription("Desc").setTags("a", "b");
+      repo.createRule("rule1").setName("One").setHtmlDescription("Desc").createParam("p1");
+    });
+
+    assertThat(fingerprint1).isEqualTo(fingerprint2);
+  }
+
+  @Test
+  public void fingerprint_depends_on_attributes_of_rules() {
+    String fingerprint = fingerprint(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc"));
+
+    assertThat(fingerprint(repo -> repo.createRule("rule1").setName("One v2").setHtmlDescription("Desc"))).isNotEqualTo(fingerprint);
+    assertThat(fingerprint(repo -> repo.createRule("rule1").setName("One").setMarkdownDescription("Desc"))).isNotEqualTo(fingerprint);
+    assertThat(fingerprint(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc").setTags("tag"))).isNotEqualTo(fingerprint);
+    assertThat(fingerprint(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc").createParam("p1"))).isNotEqualTo(fingerprint);
+  }
+
+  @Test
+  public void fingerprint_depends_on_organizations_flag() {
+    RulesDefinition.Context context = new RulesDefinition.Context();
+    RulesDefinition.NewRepository repo = context.createRepository("fake", "java");
+    repo.createRule("rule1").setName("One").setHtmlDescription("Desc").setTemplate(true);
+    repo.done();
+    List<RulesDefinition.ExtendedRepository> repositories = ImmutableList.of(context.repository("fake"));
+
+    assertThat(RuleRepositoryFingerprint.compute(repositories, true, VERSION)).isNotEqualTo(RuleRepositoryFingerprint.compute(repositories, false, VERSION));
+  }
+
+  @Test
+  public void fingerprint_depends_on_version_of_sonarqube() {
+    RulesDefinition.Context context = new RulesDefinition.Context();
+    RulesDefinition.NewRepository repo = context.createRepository("fake", "java");
+    repo.createRule("rule1").setName("One").setHtmlDescription("Desc");
+    repo.done();
+    List<RulesDefinition.ExtendedRepository> repositories = ImmutableList.of(context.repository("fake"));
+
+    assertThat(RuleRepositoryFingerprint.compute(repositories, false, Version.create(6, 6)))
+      .isEqualTo(RuleRepositoryFingerprint.compute(repositories, false, Version.create(6, 6)))
+      .isNotEqualTo(RuleRepositoryFingerprint.compute(repositories, false, Version.create(6, 7)));
+  }
+
+  @Test
+  public void format_and_parse_fingerprints() {
+    String formatted = RuleRepositoryFingerprint.format(ImmutableMap.of("java", "abc", "common-java", "def"));
+
+    assertThat(RuleRepositoryFingerprint.parse(formatted)).containsOnly(entry("java", "abc"), entry("common-java", "def"));
+    assertThat(RuleRepositoryFingerprint.parse(null)).isEmpty();
+    assertThat(RuleRepositoryFingerprint.parse("")).isEmpty();
+  }
+
+  private static String fingerprint(Consumer<RulesDefinition.NewRepository> rules) {
+    RulesDefinition.Context context = new RulesDefinition.Context();
+    RulesDefinition.NewRepository repo = context.createRepository("fake", "java");
+    rules.accept(repo);
+    repo.done();
+    return RuleRepositoryFingerprint.compute(ImmutableList.of(context.repository("fake")), false, VERSION);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.server.source.index.FileSourceTesting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceCacheTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private SourceCache underTest = new SourceCache(new MapSettings().asConfig());
+  private DbFileSources.Data data;
+
+  @Before
+  public void setUp() throws IOException {
+    data = FileSourceTesting.newFakeData(3).build();
+  }
+
+  @Test
+  public void get_returns_null_if_file_is_not_cached() {
+    assertThat(underTest.get("FILE1", "HASH1")).isNull();
+
+    assertThat(underTest.attributes())
+      .containsEntry("Hits", 0L)
+      .containsEntry("Misses", 1L);
+  }
+
+  @Test
+  public void get_returns_cached_sources_of_same_data_hash() {
+    underTest.put("FILE1", "HASH1", data);
+
+    assertThat(underTest.get("FILE1", "HASH1")).isSameAs(data);
+    assertThat(underTest.attributes())
+      .containsEntry("Files", 1L)
+      .containsEntry("Hits", 1L)
+      .containsEntry("Misses", 0L);
+  }
+
+  @Test
+  public void get_drops_sources_of_previous_data_hash() {
+    underTest.put("FILE1", "HASH1", data);
+
+    assertThat(underTest.get("FILE1", "HASH2")).isNull();
+    assertThat(underTest.get("FILE1", "HASH1")).isNull();
+    assertThat(underTest.attributes())
+      .containsEntry("Files", 0L)
+      .containsEntry("Misses", 2L)
+      .containsEntry("Invalidations", 1L)
+      .containsEntry("Evictions", 0L);
+  }
+
+  @Test
+  public void put_ignores_sources_too_large_for_the_cache() throws IOException {
+    underTest = new SourceCache(new MapSettings().setProperty("sonar.web.sourceCache.maxSizeInMb", 1).asConfig());
+    DbFileSources.Data hugeData = FileSourceTesting.newFakeData(1_000).build();
+    assertThat(hugeData.getSerializedSize()).isGreaterThan(1024 * 1024 / 16);
+
+    underTest.put("FILE1", "HASH1", hugeData);
+
+    assertThat(underTest.get("FILE1", "HASH1")).isNull();
+    assertThat(underTest.accepts(hugeData.getSerializedSize())).isFalse();
+    assertThat(underTest.accepts(data.getSerializedSize())).isTrue();
+  }
+
+  @Test
+  public void least_recently_used_sources_are_evicted_when_cache_is_full() throws IOException {
+    underTest = new SourceCache(new MapSettings().setProperty("sonar.web.sourceCache.maxSizeInMb", 1).asConfig());
+    DbFileSources.Data fileData = FileSourceTesting.newFakeData(100).build();
+    int files = 2 * 1024 * 1024 / fileData.getSerializedSize();
+
+    for (int i = 0; i < files; i++) {
+      underTest.put("FILE" + i, "HASH", fileData);
+    }
+
+    assertThat(underTest.get("FILE0", "HASH")).isNull();
+    assertThat(underTest.get("FILE" + (files - 1), "HASH")).isSameAs(fileData);
+    assertThat((long) underTest.attributes().get("Evictions")).isGreaterThan(0L);
+  }
+
+  @Test
+  public void cache_is_disabled_if_max_size_is_zero() {
+    underTest = new SourceCache(new MapSettings().setProperty("sonar.web.sourceCache.maxSizeInMb", 0).asConfig());
+
+    underTest.put("FILE1", "HASH1", data);
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(underTest.get("FILE1", "HASH1")).isNull();
+  }
+
+  @Test
+  public void fail_if_max_size_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Property sonar.web.sourceCache.maxSizeInMb must be positive, got -1");
+
+    new SourceCache(new MapSettings().setProperty("sonar.web.sourceCache.maxSizeInMb", -1).asConfig());
+  }
+
+  @Test
+  public void name_of_monitor_section() {
+    assertThat(underTest.name()).isEqualTo("SourceCache");
+    assertThat(underTest.attributes()).containsEntry("Max Size (MB)", 50L);
+  }
+}
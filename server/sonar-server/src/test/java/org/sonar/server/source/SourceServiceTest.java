@@ -27,6 +27,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
@@ -49,12 +50,14 @@ public class SourceServiceTest {
 
   HtmlSourceDecorator htmlDecorator = mock(HtmlSourceDecorator.class);
 
-  SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator);
+  SourceCache sourceCache = new SourceCache(new MapSettings().asConfig());
+
+  SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator, sourceCache);
 
   @Before
   public void injectFakeLines() throws IOException {
     FileSourceDto dto = new FileSourceDto();
-    dto.setFileUuid(FILE_UUID).setProjectUuid("PROJECT_UUID");
+    dto.setFileUuid(FILE_UUID).setProjectUuid("PROJECT_UUID").setDataHash("HASH1");
     dto.setSourceData(FileSourceTesting.newFakeData(10).build());
     dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), dto);
     dbTester.commit();
@@ -120,4 +123,40 @@ public class SourceServiceTest {
     assertThat(lines.isPresent()).isFalse();
   }
 
+  @Test
+  public void getLines_reads_cached_sources_while_data_hash_is_unchanged() throws IOException {
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), FILE_UUID, 1, 2).get()).containsExactly("SOURCE_1", "SOURCE_2");
+    assertThat(sourceCache.get(FILE_UUID, "HASH1")).isNotNull();
+
+    // same hash, binary data is not read again
+    updateSources(3, "HASH1");
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), FILE_UUID, 1, 20).get()).hasSize(10);
+
+    // new hash written by an analysis
+    updateSources(3, "HASH2");
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), FILE_UUID, 1, 20).get()).hasSize(3);
+    assertThat(sourceCache.attributes())
+      .containsEntry("Hits", 2L)
+      .containsEntry("Misses", 2L)
+      .containsEntry("Invalidations", 1L);
+  }
+
+  @Test
+  public void getLines_does_not_cache_sources_if_cache_is_disabled() throws IOException {
+    SourceCache disabledCache = new SourceCache(new MapSettings().setProperty("sonar.web.sourceCache.maxSizeInMb", 0).asConfig());
+    underTest = new SourceService(dbTester.getDbClient(), htmlDecorator, disabledCache);
+
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), FILE_UUID, 1, 2).get()).containsExactly("SOURCE_1", "SOURCE_2");
+    updateSources(3, "HASH1");
+
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), FILE_UUID, 1, 20).get()).hasSize(3);
+    assertThat(disabledCache.get(FILE_UUID, "HASH1")).isNull();
+  }
+
+  private void updateSources(int numberOfLines, String dataHash) throws IOException {
+    FileSourceDto dto = dbTester.getDbClient().fileSourceDao().selectSourceByFileUuid(dbTester.getSession(), FILE_UUID);
+    dto.setSourceData(FileSourceTesting.newFakeData(numberOfLines).build()).setDataHash(dataHash);
+    dbTester.getDbClient().fileSourceDao().update(dbTester.getSession(), dto);
+    dbTester.commit();
+  }
 }
@@ -22,6 +22,7 @@ package org.sonar.server.source.ws;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
@@ -31,6 +32,7 @@ import org.sonar.db.component.ResourceTypesRule;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.source.SourceCache;
 import org.sonar.server.source.SourceService;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.WsActionTester;
@@ -53,7 +55,7 @@ public class RawActionTest {
   private ResourceTypesRule resourceTypes = new ResourceTypesRule().setRootQualifiers(Qualifiers.PROJECT);
 
   private WsActionTester ws = new WsActionTester(new RawAction(db.getDbClient(),
-    new SourceService(db.getDbClient(), null), userSession,
+    new SourceService(db.getDbClient(), null, new SourceCache(new MapSettings().asConfig())), userSession,
     new ComponentFinder(db.getDbClient(), resourceTypes)));
 
   @Test
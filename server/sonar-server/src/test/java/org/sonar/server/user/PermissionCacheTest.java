@@ -0,0 +1,154 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.cluster.localclient.HazelcastClient;
+
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonar.cluster.ClusterObjectKeys.PERMISSION_CACHE_INVALIDATION_TOPIC;
+
+public class PermissionCacheTest {
+
+  private static final Set<String> PERMISSIONS = singleton("user");
+
+  private MapSettings settings = new MapSettings();
+  private AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  public void load_permissions_once() {
+    PermissionCache underTest = new PermissionCache(settings.asConfig());
+
+    assertThat(underTest.getProjectPermissions(1, "P1", this::load)).isEqualTo(PERMISSIONS);
+    assertThat(underTest.getProjectPermissions(1, "P1", this::load)).isEqualTo(PERMISSIONS);
+    assertThat(underTest.getProjectPermissions(2, "P1", this::load)).isEqualTo(PERMISSIONS);
+    assertThat(underTest.getProjectPermissions(null, "P1", this::load)).isEqualTo(PERMISSIONS);
+
+    assertThat(underTest.isEnabled()).isTrue();
+    assertThat(loads.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void reload_permissions_after_invalidation() {
+    PermissionCache underTest = new PermissionCache(settings.asConfig());
+    underTest.getProjectPermissions(1, "P1", this::load);
+
+    underTest.invalidate();
+    underTest.getProjectPermissions(1, "P1", this::load);
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void do_not_cache_permissions_loaded_concurrently_to_an_invalidation() {
+    PermissionCache underTest = new PermissionCache(settings.asConfig());
+
+    underTest.getProjectPermissions(1, "P1", () -> {
+      underTest.invalidate();
+      return load();
+    });
+    underTest.getProjectPermissions(1, "P1", this::load);
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void do_not_cache_null_permissions() {
+    PermissionCache underTest = new PermissionCache(settings.asConfig());
+
+    assertThat(underTest.getProjectPermissions(1, "P1", () -> null)).isNull();
+    assertThat(underTest.getProjectPermissions(1, "P1", this::load)).isEqualTo(PERMISSIONS);
+  }
+
+  @Test
+  public void cache_is_disabled_if_max_size_is_zero() {
+    settings.setProperty(PermissionCache.MAX_SIZE_PROPERTY, 0);
+    PermissionCache underTest = new PermissionCache(settings.asConfig());
+
+    underTest.getProjectPermissions(1, "P1", this::load);
+    underTest.getProjectPermissions(1, "P1", this::load);
+    underTest.putProjectUuid("F1", "P1");
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(loads.get()).isEqualTo(2);
+    assertThat(underTest.getProjectUuid("F1")).isNull();
+  }
+
+  @Test
+  public void project_of_components_is_not_invalidated() {
+    PermissionCache underTest = new PermissionCache(settings.asConfig());
+    underTest.putProjectUuid("F1", "P1");
+
+    underTest.invalidate();
+
+    assertThat(underTest.getProjectUuid("F1")).isEqualTo("P1");
+    assertThat(underTest.getProjectUuid("F2")).isNull();
+  }
+
+  @Test
+  public void propagate_invalidation_to_the_cluster() {
+    HazelcastClient hazelcastClient = mock(HazelcastClient.class);
+    when(hazelcastClient.getUUID()).thenReturn("local");
+    when(hazelcastClient.addMessageListener(eq(PERMISSION_CACHE_INVALIDATION_TOPIC), any())).thenReturn("registration");
+    PermissionCache underTest = new PermissionCache(settings.asConfig(), hazelcastClient);
+    underTest.start();
+
+    underTest.invalidate();
+    underTest.stop();
+
+    verify(hazelcastClient).publish(PERMISSION_CACHE_INVALIDATION_TOPIC, "local");
+    verify(hazelcastClient).removeMessageListener(PERMISSION_CACHE_INVALIDATION_TOPIC, "registration");
+  }
+
+  @Test
+  public void invalidate_when_notified_by_another_node() {
+    HazelcastClient hazelcastClient = mock(HazelcastClient.class);
+    when(hazelcastClient.getUUID()).thenReturn("local");
+    PermissionCache underTest = new PermissionCache(settings.asConfig(), hazelcastClient);
+    underTest.start();
+    ArgumentCaptor<Consumer> listener = ArgumentCaptor.forClass(Consumer.class);
+    verify(hazelcastClient).addMessageListener(eq(PERMISSION_CACHE_INVALIDATION_TOPIC), listener.capture());
+    underTest.getProjectPermissions(1, "P1", this::load);
+
+    listener.getValue().accept("local");
+    underTest.getProjectPermissions(1, "P1", this::load);
+    assertThat(loads.get()).isEqualTo(1);
+
+    listener.getValue().accept("other");
+    underTest.getProjectPermissions(1, "P1", this::load);
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  private Set<String> load() {
+    loads.incrementAndGet();
+    return PERMISSIONS;
+  }
+}
@@ -25,6 +25,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
 import org.sonar.db.DbClient;
@@ -546,8 +547,43 @@ public class ServerUserSessionTest {
     assertThat(hasComponentPermissionByDtoOrUuid(underTest, "p1", fileInBranch)).isTrue();
   }
 
+  @Test
+  public void permissions_are_shared_by_sessions_until_cache_is_invalidated() {
+    PermissionCache permissionCache = new PermissionCache(new MapSettings().asConfig());
+    assertThat(newUserSession(user, permissionCache).hasComponentPermission("p1", privateProject)).isFalse();
+    assertThat(newUserSession(user, permissionCache).hasPermission(PROVISION_PROJECTS, organization)).isFalse();
+
+    db.users().insertProjectPermissionOnUser(user, "p1", privateProject);
+    db.users().insertPermissionOnUser(organization, user, PROVISION_PROJECTS);
+
+    assertThat(newUserSession(user, permissionCache).hasComponentPermission("p1", privateProject)).isFalse();
+    assertThat(newUserSession(user, permissionCache).hasPermission(PROVISION_PROJECTS, organization)).isFalse();
+
+    permissionCache.invalidate();
+
+    assertThat(newUserSession(user, permissionCache).hasComponentPermission("p1", privateProject)).isTrue();
+    assertThat(newUserSession(user, permissionCache).hasPermission(PROVISION_PROJECTS, organization)).isTrue();
+  }
+
+  @Test
+  public void permissions_on_project_which_does_not_exist_yet_are_not_cached() {
+    PermissionCache permissionCache = new PermissionCache(new MapSettings().asConfig());
+    ComponentDto project = ComponentTesting.newPrivateProjectDto(organization);
+    assertThat(newUserSession(user, permissionCache).hasComponentPermission("p1", project)).isFalse();
+
+    db.components().insertComponent(project);
+    db.users().insertProjectPermissionOnUser(user, "p1", project);
+
+    assertThat(newUserSession(user, permissionCache).hasComponentPermission("p1", project)).isTrue();
+  }
+
   private ServerUserSession newUserSession(@Nullable UserDto userDto) {
-    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, userDto);
+    // cache is not shared, so that sessions see the permissions updated by tests
+    return newUserSession(userDto, new PermissionCache(new MapSettings().asConfig()));
+  }
+
+  private ServerUserSession newUserSession(@Nullable UserDto userDto, PermissionCache permissionCache) {
+    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, permissionCache, userDto);
   }
 
   private ServerUserSession newAnonymousSession() {
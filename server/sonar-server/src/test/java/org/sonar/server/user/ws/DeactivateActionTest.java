@@ -44,7 +44,11 @@ import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.exceptions.UnauthorizedException;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
+import org.sonar.server.organization.TestOrganizationFlags;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.PermissionCache;
+import org.sonar.server.user.UserSessionFactory;
+import org.sonar.server.user.UserSessionFactoryImpl;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
@@ -82,13 +86,14 @@ public class DeactivateActionTest {
   public UserSessionRule userSession = UserSessionRule.standalone();
 
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
+  private PermissionCache permissionCache = new PermissionCache(new MapSettings().asConfig());
   private UserIndex index = new UserIndex(esTester.client());
   private DbClient dbClient = db.getDbClient();
   private UserIndexer userIndexer = new UserIndexer(dbClient, esTester.client());
   private DbSession dbSession = db.getSession();
 
   private WsActionTester ws = new WsActionTester(new DeactivateAction(
-    dbClient, userIndexer, userSession, new UserJsonWriter(userSession), defaultOrganizationProvider));
+    dbClient, userIndexer, userSession, new UserJsonWriter(userSession), defaultOrganizationProvider, permissionCache));
 
   @Test
   public void deactivate_user_and_delete_his_related_data() {
@@ -341,6 +346,20 @@ public class DeactivateActionTest {
     return user;
   }
 
+  @Test
+  public void permissions_of_deactivated_user_are_revoked_on_next_request() {
+    UserDto user = db.users().insertUser();
+    ComponentDto project = db.components().insertPrivateProject();
+    db.users().insertProjectPermissionOnUser(user, USER, project);
+    UserSessionFactory userSessionFactory = new UserSessionFactoryImpl(dbClient, defaultOrganizationProvider, TestOrganizationFlags.standalone(), permissionCache);
+    assertThat(userSessionFactory.create(user).hasComponentPermission(USER, project)).isTrue();
+    logInAsSystemAdministrator();
+
+    deactivate(user.getLogin());
+
+    assertThat(userSessionFactory.create(user).hasComponentPermission(USER, project)).isFalse();
+  }
+
   private void logInAsSystemAdministrator() {
     userSession.logIn().setSystemAdministrator();
   }
@@ -0,0 +1,159 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.System2;
+import org.sonar.core.util.CloseableIterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecordFormatTest {
+
+  private static final RecordCodec<String> STRING_CODEC = new RecordCodec<String>() {
+    @Override
+    public void encode(String object, RecordOutput output) {
+      if (object.equals("fail")) {
+        output.writeString("partial");
+        throw new UnsupportedOperationException("expected error");
+      }
+      output.writeString(object);
+    }
+
+    @Override
+    public String decode(RecordInput input) {
+      return input.readString();
+    }
+  };
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void write_and_read_uncompressed() throws Exception {
+    verifyWriteAndRead(new RecordFormat<>(STRING_CODEC, false));
+  }
+
+  @Test
+  public void write_and_read_compressed() throws Exception {
+    verifyWriteAndRead(new RecordFormat<>(STRING_CODEC, true));
+  }
+
+  @Test
+  public void read_blocks_larger_than_mapped_window() throws Exception {
+    verifyWriteAndRead(new RecordFormat<>(STRING_CODEC, false, 100L));
+    verifyWriteAndRead(new RecordFormat<>(STRING_CODEC, true, 100L));
+  }
+
+  @Test
+  public void read_records_spread_over_multiple_blocks_and_windows() throws Exception {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new RecordFormat<>(STRING_CODEC, true, 50_000L));
+    List<String> expected = new ArrayList<>();
+    try (DiskCache<String>.DiskAppender appender = cache.newAppender()) {
+      for (int i = 0; i < 20_000; i++) {
+        String s = "record " + i + StringUtils.repeat("x", i % 100);
+        expected.add(s);
+        appender.append(s);
+      }
+    }
+
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactlyElementsOf(expected);
+    }
+  }
+
+  @Test
+  public void multiple_appenders_can_be_opened_sequentially() throws Exception {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new RecordFormat<>(STRING_CODEC, true));
+    cache.newAppender().append("foo").close();
+    cache.newAppender().append("bar").append("baz").close();
+
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar", "baz");
+    }
+  }
+
+  @Test
+  public void record_is_discarded_if_encoding_fails() throws Exception {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new RecordFormat<>(STRING_CODEC, false));
+    try (DiskCache<String>.DiskAppender appender = cache.newAppender()) {
+      appender.append("foo");
+      try {
+        appender.append("fail");
+      } catch (UnsupportedOperationException e) {
+        assertThat(e).hasMessage("expected error");
+      }
+      appender.append("bar");
+    }
+
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar");
+    }
+  }
+
+  @Test
+  public void fail_if_file_is_not_writable() throws Exception {
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to write into file");
+
+    new DiskCache<>(temp.newFolder(), System2.INSTANCE, new RecordFormat<>(STRING_CODEC, false));
+  }
+
+  @Test
+  public void fail_to_traverse_file_with_unsupported_format() throws Exception {
+    File file = temp.newFile();
+    DiskCache<String> cache = new DiskCache<>(file, System2.INSTANCE, new RecordFormat<>(STRING_CODEC, false));
+    FileUtils.write(file, "not a cache");
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Unsupported format of file");
+
+    cache.traverse();
+  }
+
+  private void verifyWriteAndRead(RecordFormat<String> format) throws IOException {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, format);
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).isEmpty();
+    }
+
+    String large = StringUtils.repeat("a", 3 * RecordFormat.BLOCK_SIZE);
+    cache.newAppender()
+      .append("foo")
+      .append("")
+      .append(large)
+      .append("bar")
+      .close();
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "", large, "bar");
+    }
+  }
+}
@@ -44,6 +44,10 @@ import javax.annotation.Nullable;
  * <p>
  * Note that this implementation currently does not support deletion, however it's possible to implement.
  * </p>
+ * <p>
+ * Queries do not modify the index, so once all blocks are inserted they can be executed concurrently.
+ * Insertions must not be concurrent with any other operation.
+ * </p>
  */
 public class PackedMemoryCloneIndex extends AbstractCloneIndex {
 
@@ -58,7 +62,7 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
   /**
    * Indicates that index requires sorting to perform queries.
    */
-  private boolean sorted;
+  private volatile boolean sorted;
 
   /**
    * Current number of blocks in index.
@@ -70,8 +74,6 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
 
   private int[] resourceIdsIndex;
 
-  private final Block.Builder blockBuilder = Block.builder();
-
   public PackedMemoryCloneIndex() {
     this(8, DEFAULT_INITIAL_CAPACITY);
   }
@@ -100,24 +102,30 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
   public Collection<Block> getByResourceId(String resourceId) {
     ensureSorted();
 
-    // prepare resourceId for binary search
-    resourceIds[size] = resourceId;
-    resourceIdsIndex[size] = size;
-
-    int index = DataUtils.binarySearch(byResourceId);
+    int lower = 0;
+    int upper = size;
+    while (lower < upper) {
+      int mid = (lower + upper) >>> 1;
+      if (FastStringComparator.INSTANCE.compare(resourceIds[resourceIdsIndex[mid]], resourceId) < 0) {
+        lower = mid + 1;
+      } else {
+        upper = mid;
+      }
+    }
 
+    Block.Builder blockBuilder = Block.builder();
     List<Block> result = new ArrayList<>();
-    int realIndex = resourceIdsIndex[index];
-    while (index < size && FastStringComparator.INSTANCE.compare(resourceIds[realIndex], resourceId) == 0) {
-      result.add(getBlock(realIndex, resourceId));
-
-      index++;
-      realIndex = resourceIdsIndex[index];
+    for (int index = lower; index < size; index++) {
+      int realIndex = resourceIdsIndex[index];
+      if (FastStringComparator.INSTANCE.compare(resourceIds[realIndex], resourceId) != 0) {
+        break;
+      }
+      result.add(getBlock(blockBuilder, realIndex, resourceId));
     }
     return result;
   }
 
-  private Block createBlock(int index, String resourceId, @Nullable ByteArray byteHash) {
+  private Block createBlock(Block.Builder blockBuilder, int index, String resourceId, @Nullable ByteArray byteHash) {
     int offset = index * blockInts;
     ByteArray blockHash;
 
@@ -147,11 +155,12 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
       .build();
   }
 
-  private Block getBlock(int index, String resourceId) {
-    return createBlock(index, resourceId, null);
+  private Block getBlock(Block.Builder blockBuilder, int index, String resourceId) {
+    return createBlock(blockBuilder, index, resourceId, null);
   }
 
   private class ResourceIterator implements Iterator<ResourceBlocks> {
+    private final Block.Builder blockBuilder = Block.builder();
     private int index = 0;
 
     @Override
@@ -170,7 +179,7 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
 
       // while we are at the same resource, keep going
       do {
-        blocks.add(getBlock(resourceIdsIndex[index], resourceId));
+        blocks.add(getBlock(blockBuilder, resourceIdsIndex[index], resourceId));
         index++;
       } while (hasNext() && FastStringComparator.INSTANCE.compare(resourceIds[resourceIdsIndex[index]], resourceId) == 0);
 
@@ -217,28 +226,41 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
   public Collection<Block> getBySequenceHash(ByteArray sequenceHash) {
     ensureSorted();
 
-    // prepare hash for binary search
     int[] hash = sequenceHash.toIntArray();
     if (hash.length != hashInts) {
       throw new IllegalArgumentException("Expected " + hashInts + " ints in hash, but got " + hash.length);
     }
-    int offset = size * blockInts;
-    for (int i = 0; i < hashInts; i++) {
-      blockData[offset++] = hash[i];
-    }
 
-    int index = DataUtils.binarySearch(byBlockHash);
+    int lower = 0;
+    int upper = size;
+    while (lower < upper) {
+      int mid = (lower + upper) >>> 1;
+      if (compareHash(mid, hash) < 0) {
+        lower = mid + 1;
+      } else {
+        upper = mid;
+      }
+    }
 
+    Block.Builder blockBuilder = Block.builder();
     List<Block> result = new ArrayList<>();
-    while (index < size && !isLessByHash(size, index)) {
+    for (int index = lower; index < size && compareHash(index, hash) == 0; index++) {
       // extract block (note that there is no need to extract hash)
-      String resourceId = resourceIds[index];
-      result.add(createBlock(index, resourceId, sequenceHash));
-      index++;
+      result.add(createBlock(blockBuilder, index, resourceIds[index], sequenceHash));
     }
     return result;
   }
 
+  private int compareHash(int index, int[] hash) {
+    int offset = index * blockInts;
+    for (int k = 0; k < hashInts; k++, offset++) {
+      if (blockData[offset] != hash[k]) {
+        return blockData[offset] < hash[k] ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
   /**
    * {@inheritDoc}
    * <p>
@@ -297,6 +319,15 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
     if (sorted) {
       return;
     }
+    synchronized (this) {
+      sort();
+    }
+  }
+
+  private void sort() {
+    if (sorted) {
+      return;
+    }
 
     ensureCapacity();
 
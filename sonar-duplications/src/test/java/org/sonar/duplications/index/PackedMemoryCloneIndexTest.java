@@ -28,6 +28,10 @@ import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -142,6 +146,43 @@ public class PackedMemoryCloneIndexTest {
     index.getBySequenceHash(new ByteArray(1L));
   }
 
+  /**
+   * Given: sorted index.
+   * Expected: queries executed concurrently return the same results as sequential ones.
+   */
+  @Test
+  public void should_support_concurrent_queries() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      index.insert(newBlock("r" + (i % 10), i % 100 - 50));
+    }
+    index.noResources();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(() -> {
+          for (long hash = -50; hash < 50; hash++) {
+            if (index.getBySequenceHash(new ByteArray(hash)).size() != 10) {
+              return false;
+            }
+          }
+          for (int r = 0; r < 10; r++) {
+            if (index.getByResourceId("r" + r).size() != 100) {
+              return false;
+            }
+          }
+          return index.getBySequenceHash(new ByteArray(50L)).isEmpty();
+        }));
+      }
+      for (Future<Boolean> future : futures) {
+        assertThat(future.get()).isTrue();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   private static Block newBlock(String resourceId, long hash) {
     return Block.builder()
         .setResourceId(resourceId)
@@ -0,0 +1,205 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.batch.fs.internal.FileMetadata.LineHashConsumer;
+
+/**
+ * Computes metadata and line hashes directly on the bytes of a file, without decoding it.
+ * <p/>
+ * Only applies to files that contain nothing but ASCII bytes and that are read with a charset
+ * in which ASCII bytes are decoded to the same chars. Each byte is then a single char, whose UTF-8
+ * encoding is the byte itself, so that the results are exactly the ones of the
+ * {@link org.sonar.api.batch.fs.internal.charhandler.CharHandler}s. Other files must be read
+ * again from {@link #asStream()} by the char-based implementation.
+ */
+final class AsciiFileScanner {
+  private static final byte LINE_FEED = '\n';
+  private static final byte CARRIAGE_RETURN = '\r';
+  private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_RETAINED_BUFFER_SIZE = 16 * 1024 * 1024;
+  private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+  private static final boolean[] WHITESPACES = new boolean[128];
+
+  static {
+    for (int i = 0; i < WHITESPACES.length; i++) {
+      WHITESPACES[i] = Character.isWhitespace((char) i);
+    }
+  }
+
+  /**
+   * Files are indexed concurrently, so each thread reuses its own buffer
+   */
+  private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+
+  private final byte[] content;
+  private final int length;
+
+  private AsciiFileScanner(byte[] content, int length) {
+    this.content = content;
+    this.length = length;
+  }
+
+  static boolean supports(Charset charset) {
+    return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset) || StandardCharsets.ISO_8859_1.equals(charset);
+  }
+
+  /**
+   * Reads and closes the stream. The returned scanner is backed by a buffer of the current thread,
+   * so it must not be used after another file has been read by the same thread.
+   */
+  static AsciiFileScanner read(InputStream stream, Charset encoding, String filePath) {
+    try (InputStream input = stream) {
+      byte[] buffer = BUFFER.get();
+      int length = 0;
+      while (true) {
+        if (length == buffer.length) {
+          buffer = grow(buffer);
+        }
+        int read = input.read(buffer, length, buffer.length - length);
+        if (read == -1) {
+          break;
+        }
+        length += read;
+      }
+      if (buffer.length <= MAX_RETAINED_BUFFER_SIZE) {
+        BUFFER.set(buffer);
+      }
+      return new AsciiFileScanner(buffer, length);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
+    }
+  }
+
+  private static byte[] grow(byte[] buffer) {
+    if (buffer.length >= MAX_BUFFER_SIZE) {
+      throw new IllegalStateException("File is too big: " + buffer.length);
+    }
+    return Arrays.copyOf(buffer, (int) Math.min(MAX_BUFFER_SIZE, 2L * buffer.length));
+  }
+
+  boolean isAscii() {
+    for (int i = 0; i < length; i++) {
+      if (content[i] < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  InputStream asStream() {
+    return new ByteArrayInputStream(content, 0, length);
+  }
+
+  /**
+   * Same as {@link FileMetadata#readMetadata(InputStream, Charset, String)}. Line ends are
+   * hashed as a single {@code '\n'}, which for LF is the byte itself, so that most lines are
+   * hashed in place.
+   */
+  Metadata metadata() {
+    MessageDigest digest = DigestUtils.getMd5Digest();
+    int[] lineOffsets = new int[16];
+    int lines = 1;
+    int nonBlankLines = 0;
+    boolean blankLine = true;
+    int hashStart = 0;
+    int i = 0;
+    while (i < length) {
+      byte b = content[i];
+      if (b == LINE_FEED || b == CARRIAGE_RETURN) {
+        i++;
+        if (b == CARRIAGE_RETURN) {
+          digest.update(content, hashStart, i - 1 - hashStart);
+          digest.update(LINE_FEED);
+          if (i < length && content[i] == LINE_FEED) {
+            i++;
+          }
+          hashStart = i;
+        }
+        if (lines == lineOffsets.length) {
+          lineOffsets = Arrays.copyOf(lineOffsets, lines + (lines >> 1));
+        }
+        lineOffsets[lines] = i;
+        lines++;
+        if (!blankLine) {
+          nonBlankLines++;
+        }
+        blankLine = true;
+      } else {
+        if (!WHITESPACES[b]) {
+          blankLine = false;
+        }
+        i++;
+      }
+    }
+    digest.update(content, hashStart, length - hashStart);
+    if (!blankLine) {
+      nonBlankLines++;
+    }
+    return new Metadata(lines, nonBlankLines, Hex.encodeHexString(digest.digest()), Arrays.copyOf(lineOffsets, lines), length);
+  }
+
+  /**
+   * Same as {@link FileMetadata#computeLineHashesForIssueTracking(org.sonar.api.batch.fs.InputFile, LineHashConsumer)}
+   */
+  void computeLineHashes(LineHashConsumer consumer) {
+    MessageDigest digest = DigestUtils.getMd5Digest();
+    int line = 1;
+    boolean emptyLine = true;
+    int runStart = 0;
+    for (int i = 0; i < length; i++) {
+      byte b = content[i];
+      if (b == LINE_FEED || b == CARRIAGE_RETURN || WHITESPACES[b]) {
+        if (i > runStart) {
+          digest.update(content, runStart, i - runStart);
+          emptyLine = false;
+        }
+        if (b == LINE_FEED || b == CARRIAGE_RETURN) {
+          if (!emptyLine) {
+            consumer.consume(line, digest.digest());
+          }
+          if (b == CARRIAGE_RETURN && i + 1 < length && content[i + 1] == LINE_FEED) {
+            i++;
+          }
+          line++;
+          emptyLine = true;
+        }
+        runStart = i + 1;
+      }
+    }
+    if (length > runStart) {
+      digest.update(content, runStart, length - runStart);
+      emptyLine = false;
+    }
+    if (!emptyLine) {
+      consumer.consume(line, digest.digest());
+    }
+  }
+}
@@ -50,9 +50,20 @@ public class FileMetadata {
 
   /**
    * Compute hash of a file ignoring line ends differences.
-   * Maximum performance is needed.
+   * Maximum performance is needed, so pure ASCII files are read without decoding when no other handler is given.
    */
   public Metadata readMetadata(InputStream stream, Charset encoding, String filePath, @Nullable CharHandler otherHandler) {
+    if (otherHandler == null && AsciiFileScanner.supports(encoding)) {
+      AsciiFileScanner scanner = AsciiFileScanner.read(stream, encoding, filePath);
+      if (scanner.isAscii()) {
+        return scanner.metadata();
+      }
+      return readMetadataFromChars(scanner.asStream(), encoding, filePath, null);
+    }
+    return readMetadataFromChars(stream, encoding, filePath, otherHandler);
+  }
+
+  private static Metadata readMetadataFromChars(InputStream stream, Charset encoding, String filePath, @Nullable CharHandler otherHandler) {
     LineCounter lineCounter = new LineCounter(filePath, encoding);
     FileHashComputer fileHashComputer = new FileHashComputer(filePath);
     LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
@@ -155,7 +166,16 @@ public class FileMetadata {
    */
   public static void computeLineHashesForIssueTracking(InputFile f, LineHashConsumer consumer) {
     try {
-      readFile(f.inputStream(), f.charset(), f.absolutePath(), new CharHandler[] {new LineHashComputer(consumer, f.file())});
+      InputStream stream = f.inputStream();
+      if (AsciiFileScanner.supports(f.charset())) {
+        AsciiFileScanner scanner = AsciiFileScanner.read(stream, f.charset(), f.absolutePath());
+        if (scanner.isAscii()) {
+          scanner.computeLineHashes(consumer);
+          return;
+        }
+        stream = scanner.asStream();
+      }
+      readFile(stream, f.charset(), f.absolutePath(), new CharHandler[] {new LineHashComputer(consumer, f.file())});
     } catch (IOException e) {
       throw new IllegalStateException("Failed to compute line hashes for " + f.absolutePath(), e);
     }
@@ -0,0 +1,133 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.sonar.api.batch.fs.internal.charhandler.CharHandler;
+import org.sonar.api.batch.fs.internal.charhandler.LineHashComputer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsciiFileScannerTest {
+
+  private static final String ALPHABET = "ab \t\r\n\f\u000b\u001c";
+
+  @Test
+  public void supports_only_ascii_compatible_charsets() {
+    assertThat(AsciiFileScanner.supports(StandardCharsets.UTF_8)).isTrue();
+    assertThat(AsciiFileScanner.supports(StandardCharsets.US_ASCII)).isTrue();
+    assertThat(AsciiFileScanner.supports(StandardCharsets.ISO_8859_1)).isTrue();
+    assertThat(AsciiFileScanner.supports(StandardCharsets.UTF_16)).isFalse();
+    assertThat(AsciiFileScanner.supports(StandardCharsets.UTF_16LE)).isFalse();
+  }
+
+  @Test
+  public void detect_non_ascii_content() {
+    assertThat(read("foo\nbar", StandardCharsets.UTF_8).isAscii()).isTrue();
+    assertThat(read("", StandardCharsets.UTF_8).isAscii()).isTrue();
+    assertThat(read("foo\nbér", StandardCharsets.UTF_8).isAscii()).isFalse();
+  }
+
+  @Test
+  public void read_files_bigger_than_buffer() {
+    byte[] content = new byte[300_000];
+    Arrays.fill(content, (byte) 'a');
+    content[1_000] = '\n';
+
+    Metadata metadata = new FileMetadata().readMetadata(new ByteArrayInputStream(content), StandardCharsets.UTF_8, "foo");
+
+    assertThat(metadata.lines()).isEqualTo(2);
+    assertThat(metadata.originalLineOffsets()).containsExactly(0, 1_001);
+    assertThat(metadata.lastValidOffset()).isEqualTo(300_000);
+  }
+
+  @Test
+  public void non_ascii_files_are_read_by_char_handlers() {
+    String content = "föö\r\nbàr";
+
+    assertSameMetadata(content, StandardCharsets.UTF_8);
+    assertSameMetadata(content, StandardCharsets.ISO_8859_1);
+  }
+
+  @Test
+  public void same_results_as_char_handlers() {
+    assertSameResults("");
+    assertSameResults("\r");
+    assertSameResults("\r\r\n\n");
+    assertSameResults("foo\r\nbar\r\nbaz");
+    assertSameResults("foo\rbar\rbaz\r");
+    assertSameResults("  \t\n foo bar \n\f\u000b");
+
+    Random random = new Random(0);
+    for (int i = 0; i < 10_000; i++) {
+      StringBuilder content = new StringBuilder();
+      int length = random.nextInt(50);
+      for (int j = 0; j < length; j++) {
+        content.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+      }
+      assertSameResults(content.toString());
+    }
+  }
+
+  private static void assertSameResults(String content) {
+    for (Charset charset : Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1)) {
+      assertSameMetadata(content, charset);
+      assertSameLineHashes(content, charset);
+    }
+  }
+
+  private static void assertSameMetadata(String content, Charset charset) {
+    byte[] bytes = content.getBytes(charset);
+    Metadata fromBytes = new FileMetadata().readMetadata(new ByteArrayInputStream(bytes), charset, "foo");
+    // any other handler forces the char-based implementation
+    Metadata fromChars = new FileMetadata().readMetadata(new ByteArrayInputStream(bytes), charset, "foo", new CharHandler() {
+    });
+
+    assertThat(fromBytes.lines()).as(content).isEqualTo(fromChars.lines());
+    assertThat(fromBytes.nonBlankLines()).as(content).isEqualTo(fromChars.nonBlankLines());
+    assertThat(fromBytes.hash()).as(content).isEqualTo(fromChars.hash());
+    assertThat(fromBytes.originalLineOffsets()).as(content).isEqualTo(fromChars.originalLineOffsets());
+    assertThat(fromBytes.lastValidOffset()).as(content).isEqualTo(fromChars.lastValidOffset());
+  }
+
+  private static void assertSameLineHashes(String content, Charset charset) {
+    byte[] bytes = content.getBytes(charset);
+    List<String> fromBytes = new ArrayList<>();
+    List<String> fromChars = new ArrayList<>();
+
+    read(content, charset).computeLineHashes((line, hash) -> fromBytes.add(line + ":" + Arrays.toString(hash)));
+    FileMetadata.readFile(new ByteArrayInputStream(bytes), charset, "foo",
+      new CharHandler[] {new LineHashComputer((line, hash) -> fromChars.add(line + ":" + Arrays.toString(hash)), new File("foo"))});
+
+    assertThat(fromBytes).as(content).isEqualTo(fromChars);
+  }
+
+  private static AsciiFileScanner read(String content, Charset charset) {
+    return AsciiFileScanner.read(new ByteArrayInputStream(content.getBytes(charset)), charset, "foo");
+  }
+}
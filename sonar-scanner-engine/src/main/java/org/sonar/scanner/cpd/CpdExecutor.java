@@ -22,14 +22,21 @@ package org.sonar.scanner.cpd;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
@@ -62,6 +69,8 @@ public class CpdExecutor {
   private static final int TIMEOUT = 5 * 60 * 1000;
   static final int MAX_CLONE_GROUP_PER_FILE = 100;
   static final int MAX_CLONE_PART_PER_GROUP = 100;
+  // number of files which duplications can be kept in memory, waiting for the duplications of a previous file to be saved
+  private static final int MAX_PENDING_FILES_PER_THREAD = 4;
 
   private final SonarCpdBlockIndex index;
   private final ReportPublisher publisher;
@@ -97,16 +106,12 @@ public class CpdExecutor {
     if (filesWithoutBlocks > 0) {
       LOG.info("{} {} had no CPD blocks", filesWithoutBlocks, pluralize(filesWithoutBlocks));
     }
+    int threads = settings.getThreads();
     progressReport.start(String.format("Calculating CPD for %d %s", total, pluralize(total)));
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    ExecutorService executorService = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("CPD computation %d").setDaemon(true).build());
     try {
-      Iterator<ResourceBlocks> it = index.iterator();
-
-      while (it.hasNext()) {
-        ResourceBlocks resourceBlocks = it.next();
-        runCpdAnalysis(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks(), timeout);
-        count++;
-      }
+      new Detections(executorService, threads, timeout).run(index.iterator());
       progressReport.stop("CPD calculation finished");
     } catch (Exception e) {
       progressReport.stop("");
@@ -120,40 +125,116 @@ public class CpdExecutor {
     return files == 1 ? "file" : "files";
   }
 
-  @VisibleForTesting
-  void runCpdAnalysis(ExecutorService executorService, String componentKey, final Collection<Block> fileBlocks, long timeout) {
-    DefaultInputComponent component = (DefaultInputComponent) componentStore.getByKey(componentKey);
-    if (component == null) {
-      LOG.error("Resource not found in component store: {}. Skipping CPD computation for it", componentKey);
-      return;
+  /**
+   * Detects duplications of up to {@code threads} files concurrently. Duplications are saved by the calling thread, in the
+   * order of the index, so that the report does not depend on the number of threads.
+   */
+  private class Detections {
+    private final CompletionService<List<CloneGroup>> completionService;
+    private final int threads;
+    private final long timeout;
+    private final Deque<FileDetection> pending = new ArrayDeque<>();
+    private final Map<Future<List<CloneGroup>>, FileDetection> running = new HashMap<>();
+
+    private Detections(ExecutorService executorService, int threads, long timeout) {
+      this.completionService = new ExecutorCompletionService<>(executorService);
+      this.threads = threads;
+      this.timeout = timeout;
     }
 
-    InputFile inputFile = (InputFile) component;
-    LOG.debug("Detection of duplications for {}", inputFile.absolutePath());
-    progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
+    void run(Iterator<ResourceBlocks> it) {
+      try {
+        while (it.hasNext() || !pending.isEmpty()) {
+          while (running.size() < threads && pending.size() < MAX_PENDING_FILES_PER_THREAD * threads && it.hasNext()) {
+            ResourceBlocks resourceBlocks = it.next();
+            submit(resourceBlocks.resourceId(), resourceBlocks.blocks());
+          }
+          if (!running.isEmpty()) {
+            awaitCompletionOrTimeout();
+          }
+          saveCompleted();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted during CPD computation", e);
+      } finally {
+        for (FileDetection detection : pending) {
+          detection.future.cancel(true);
+        }
+      }
+    }
 
-    List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
-    try {
-      duplications = futureResult.get(timeout, TimeUnit.MILLISECONDS);
-    } catch (TimeoutException e) {
-      LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
-      futureResult.cancel(true);
-      return;
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
+    private void submit(String componentKey, Collection<Block> fileBlocks) {
+      DefaultInputComponent component = (DefaultInputComponent) componentStore.getByKey(componentKey);
+      if (component == null) {
+        LOG.error("Resource not found in component store: {}. Skipping CPD computation for it", componentKey);
+        count++;
+        return;
+      }
+
+      InputFile inputFile = (InputFile) component;
+      LOG.debug("Detection of duplications for {}", inputFile.absolutePath());
+      Future<List<CloneGroup>> future = completionService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
+      FileDetection detection = new FileDetection(component, future, System.currentTimeMillis() + timeout);
+      pending.add(detection);
+      running.put(future, detection);
+    }
+
+    private void awaitCompletionOrTimeout() throws InterruptedException {
+      FileDetection first = running.values().stream().min(Comparator.comparingLong(d -> d.deadline)).get();
+      long remaining = first.deadline - System.currentTimeMillis();
+      Future<List<CloneGroup>> completed = completionService.poll(Math.max(0L, remaining), TimeUnit.MILLISECONDS);
+      if (completed != null) {
+        // futures of cancelled detections are returned too, but they are no longer running
+        running.remove(completed);
+      } else if (first.future.cancel(true)) {
+        first.timedOut = true;
+        running.remove(first.future);
+      }
+    }
+
+    private void saveCompleted() {
+      while (!pending.isEmpty() && pending.peek().future.isDone()) {
+        FileDetection detection = pending.poll();
+        InputFile inputFile = (InputFile) detection.component;
+        progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
+        count++;
+        if (detection.timedOut) {
+          LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
+          continue;
+        }
+
+        List<CloneGroup> duplications;
+        try {
+          duplications = detection.future.get();
+        } catch (Exception e) {
+          throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
+        }
+        saveDuplications(detection.component, filter(inputFile, duplications));
+      }
     }
+  }
+
+  private static class FileDetection {
+    private final DefaultInputComponent component;
+    private final Future<List<CloneGroup>> future;
+    private final long deadline;
+    private boolean timedOut = false;
 
-    List<CloneGroup> filtered;
-    if (!"java".equalsIgnoreCase(inputFile.language())) {
-      int minTokens = settings.getMinimumTokens(inputFile.language());
-      Predicate<CloneGroup> minimumTokensPredicate = DuplicationPredicates.numberOfUnitsNotLessThan(minTokens);
-      filtered = from(duplications).filter(minimumTokensPredicate).toList();
-    } else {
-      filtered = duplications;
+    private FileDetection(DefaultInputComponent component, Future<List<CloneGroup>> future, long deadline) {
+      this.component = component;
+      this.future = future;
+      this.deadline = deadline;
     }
+  }
 
-    saveDuplications(component, filtered);
+  private List<CloneGroup> filter(InputFile inputFile, List<CloneGroup> duplications) {
+    if ("java".equalsIgnoreCase(inputFile.language())) {
+      return duplications;
+    }
+    int minTokens = settings.getMinimumTokens(inputFile.language());
+    Predicate<CloneGroup> minimumTokensPredicate = DuplicationPredicates.numberOfUnitsNotLessThan(minTokens);
+    return from(duplications).filter(minimumTokensPredicate).toList();
   }
 
   @VisibleForTesting
@@ -25,7 +25,12 @@ import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.config.Configuration;
 import org.sonar.duplications.block.BlockChunker;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 public class CpdSettings {
+  static final String THREADS_PROPERTY = "sonar.cpd.threads";
+  private static final int DEFAULT_MAX_THREADS = 4;
+
   private final Configuration settings;
   private final String branch;
 
@@ -49,4 +54,14 @@ public class CpdSettings {
   int getMinimumTokens(String languageKey) {
     return settings.getInt("sonar.cpd." + languageKey + ".minimumTokens").orElse(100);
   }
+
+  /**
+   * Number of files for which duplications are detected concurrently. By default, the number of available processors,
+   * up to {@value #DEFAULT_MAX_THREADS}.
+   */
+  int getThreads() {
+    int threads = settings.getInt(THREADS_PROPERTY).orElse(Math.min(DEFAULT_MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+    checkArgument(threads > 0, "Property %s must be greater than 0, got %s", THREADS_PROPERTY, threads);
+    return threads;
+  }
 }
@@ -35,6 +35,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.internal.pmd.TokenizerBridge;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 
 public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
@@ -45,12 +46,14 @@ public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
   private final FileSystem fs;
   private final Configuration settings;
   private final SonarCpdBlockIndex index;
+  private final CpdBlockCache blockCache;
 
-  public DefaultCpdBlockIndexer(CpdMappings mappings, FileSystem fs, Configuration settings, SonarCpdBlockIndex index) {
+  public DefaultCpdBlockIndexer(CpdMappings mappings, FileSystem fs, Configuration settings, SonarCpdBlockIndex index, CpdBlockCache blockCache) {
     this.mappings = mappings;
     this.fs = fs;
     this.settings = settings;
     this.index = index;
+    this.blockCache = blockCache;
   }
 
   @Override
@@ -82,22 +85,27 @@ public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
   }
 
   private void populateIndex(String languageKey, List<InputFile> sourceFiles, CpdMapping mapping) {
-    TokenizerBridge bridge = new TokenizerBridge(mapping.getTokenizer(), getBlockSize(languageKey));
+    int blockSize = getBlockSize(languageKey);
+    TokenizerBridge bridge = new TokenizerBridge(mapping.getTokenizer(), blockSize);
+    String cacheVariant = "tokenizer:" + mapping.getTokenizer().getClass().getName() + ":" + blockSize;
     for (InputFile inputFile : sourceFiles) {
       if (!index.isIndexed(inputFile)) {
-        LOG.debug("Populating index from {}", inputFile.absolutePath());
-        String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
-        List<Block> blocks;
-        try (InputStreamReader isr = new InputStreamReader(inputFile.inputStream(), inputFile.charset())) {
-          blocks = bridge.chunk(resourceEffectiveKey, inputFile.absolutePath(), isr);
-        } catch (IOException e) {
-          throw new IllegalStateException("Unable to read content of file " + inputFile.absolutePath(), e);
-        }
+        List<Block> blocks = blockCache.computeIfAbsent(inputFile, cacheVariant, () -> chunk(inputFile, bridge));
         index.insert(inputFile, blocks);
       }
     }
   }
 
+  private static List<Block> chunk(InputFile inputFile, TokenizerBridge bridge) {
+    LOG.debug("Populating index from {}", inputFile.absolutePath());
+    String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
+    try (InputStreamReader isr = new InputStreamReader(inputFile.inputStream(), inputFile.charset())) {
+      return bridge.chunk(resourceEffectiveKey, inputFile.absolutePath(), isr);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read content of file " + inputFile.absolutePath(), e);
+    }
+  }
+
   @VisibleForTesting
   int getBlockSize(String languageKey) {
     return settings.getInt("sonar.cpd." + languageKey + ".minimumLines").orElse(getDefaultBlockSize(languageKey));
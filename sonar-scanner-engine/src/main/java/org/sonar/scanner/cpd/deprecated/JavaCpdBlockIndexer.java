@@ -41,6 +41,7 @@ import org.sonar.duplications.java.JavaTokenProducer;
 import org.sonar.duplications.statement.Statement;
 import org.sonar.duplications.statement.StatementChunker;
 import org.sonar.duplications.token.TokenChunker;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 
 public class JavaCpdBlockIndexer extends CpdBlockIndexer {
@@ -48,15 +49,18 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
   private static final Logger LOG = Loggers.get(JavaCpdBlockIndexer.class);
 
   private static final int BLOCK_SIZE = 10;
+  private static final String CACHE_VARIANT = "java-statements:" + BLOCK_SIZE;
 
   private final FileSystem fs;
   private final Configuration settings;
   private final SonarCpdBlockIndex index;
+  private final CpdBlockCache blockCache;
 
-  public JavaCpdBlockIndexer(FileSystem fs, Configuration settings, SonarCpdBlockIndex index) {
+  public JavaCpdBlockIndexer(FileSystem fs, Configuration settings, SonarCpdBlockIndex index, CpdBlockCache blockCache) {
     this.fs = fs;
     this.settings = settings;
     this.index = index;
+    this.blockCache = blockCache;
   }
 
   @Override
@@ -85,27 +89,30 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
     BlockChunker blockChunker = new BlockChunker(BLOCK_SIZE);
 
     for (InputFile inputFile : sourceFiles) {
-      LOG.debug("Populating index from {}", inputFile);
-      String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
+      List<Block> blocks = blockCache.computeIfAbsent(inputFile, CACHE_VARIANT, () -> chunk(inputFile, tokenChunker, statementChunker, blockChunker));
+      index.insert(inputFile, blocks);
+    }
+  }
 
-      List<Statement> statements;
+  private static List<Block> chunk(InputFile inputFile, TokenChunker tokenChunker, StatementChunker statementChunker, BlockChunker blockChunker) {
+    LOG.debug("Populating index from {}", inputFile);
+    String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
 
-      try (InputStream is = inputFile.inputStream();
-        Reader reader = new InputStreamReader(is, inputFile.charset())) {
-        statements = statementChunker.chunk(tokenChunker.chunk(reader));
-      } catch (FileNotFoundException e) {
-        throw new IllegalStateException("Cannot find file " + inputFile.file(), e);
-      } catch (IOException e) {
-        throw new IllegalStateException("Exception handling file: " + inputFile.file(), e);
-      }
+    List<Statement> statements;
 
-      List<Block> blocks;
-      try {
-        blocks = blockChunker.chunk(resourceEffectiveKey, statements);
-      } catch (Exception e) {
-        throw new IllegalStateException("Cannot process file " + inputFile.file(), e);
-      }
-      index.insert(inputFile, blocks);
+    try (InputStream is = inputFile.inputStream();
+      Reader reader = new InputStreamReader(is, inputFile.charset())) {
+      statements = statementChunker.chunk(tokenChunker.chunk(reader));
+    } catch (FileNotFoundException e) {
+      throw new IllegalStateException("Cannot find file " + inputFile.file(), e);
+    } catch (IOException e) {
+      throw new IllegalStateException("Exception handling file: " + inputFile.file(), e);
+    }
+
+    try {
+      return blockChunker.chunk(resourceEffectiveKey, statements);
+    } catch (Exception e) {
+      throw new IllegalStateException("Cannot process file " + inputFile.file(), e);
     }
   }
 }
@@ -0,0 +1,268 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import org.picocontainer.Startable;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.platform.PluginInfo;
+import org.sonar.core.platform.PluginRepository;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Blocks of the files indexed by the previous analysis, stored in the working directory of the project, so that
+ * the files which did not change are not tokenized and chunked again.
+ * <p>
+ * Blocks are keyed by the path of the file, the hash of its content and a description of the way they were computed
+ * (for example the chunker and the block size). The whole cache is ignored when the version of SonarQube or of any
+ * plugin changes. The file of the previous analysis is loaded in memory and blocks are decoded on demand. It is not
+ * memory-mapped, as a mapped file can not be replaced on Windows as long as the mapping is not garbage collected. The
+ * blocks of the files indexed by the current analysis are written to a new file, which replaces the previous one at
+ * the end of the analysis.
+ * </p>
+ */
+public class CpdBlockCache implements Startable {
+  public static final String FILE_NAME = "cpd-blocks.cache";
+  static final String ENABLED_PROPERTY = "sonar.cpd.cache.enabled";
+
+  private static final Logger LOG = Loggers.get(CpdBlockCache.class);
+  private static final int MAGIC = 0x43504431;
+
+  private final boolean enabled;
+  private final Path file;
+  private final Path newFile;
+  private final String fingerprint;
+  private final Map<String, Entry> previousEntries = new HashMap<>();
+  private ByteBuffer previous;
+  private DataOutputStream output;
+  private int hits = 0;
+  private int misses = 0;
+
+  public CpdBlockCache(InputModuleHierarchy moduleHierarchy, Configuration settings, PluginRepository pluginRepository, SonarRuntime runtime) {
+    this.enabled = settings.getBoolean(ENABLED_PROPERTY).orElse(true);
+    this.file = moduleHierarchy.root().getWorkDir().resolve(FILE_NAME);
+    this.newFile = moduleHierarchy.root().getWorkDir().resolve(FILE_NAME + ".new");
+    this.fingerprint = fingerprint(pluginRepository, runtime);
+  }
+
+  private static String fingerprint(PluginRepository pluginRepository, SonarRuntime runtime) {
+    Map<String, String> versionsByPlugin = new TreeMap<>();
+    for (PluginInfo pluginInfo : pluginRepository.getPluginInfos()) {
+      versionsByPlugin.put(pluginInfo.getKey(), String.valueOf(pluginInfo.getVersion()));
+    }
+    return runtime.getApiVersion() + " " + versionsByPlugin;
+  }
+
+  @Override
+  public void start() {
+    if (!enabled || !Files.isRegularFile(file)) {
+      return;
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+      if (readHeader(buffer)) {
+        readEntries(buffer);
+        previous = buffer;
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Fail to read CPD block cache " + file + ", it is ignored", e);
+      previousEntries.clear();
+    }
+  }
+
+  private boolean readHeader(ByteBuffer buffer) {
+    return buffer.remaining() >= 4 && buffer.getInt() == MAGIC && fingerprint.equals(readString(buffer));
+  }
+
+  private void readEntries(ByteBuffer buffer) {
+    while (buffer.hasRemaining()) {
+      int start = buffer.position();
+      String path = readString(buffer);
+      String hash = readString(buffer);
+      String variant = readString(buffer);
+      int blockCount = buffer.getInt();
+      int blocksStart = buffer.position();
+      for (int i = 0; i < blockCount; i++) {
+        int hashLength = buffer.getInt();
+        buffer.position(buffer.position() + hashLength + 5 * 4);
+      }
+      previousEntries.put(path, new Entry(hash, variant, start, blocksStart, blockCount, buffer.position()));
+    }
+  }
+
+  /**
+   * Returns the blocks of the specified file which were computed by the previous analysis if the file did not change,
+   * otherwise computes them with {@code blocksSupplier}. In both cases, blocks are stored for the next analysis.
+   *
+   * @param variant description of the way blocks are computed, for example the name of the chunker and the size of blocks
+   */
+  public List<Block> computeIfAbsent(InputFile inputFile, String variant, Supplier<List<Block>> blocksSupplier) {
+    if (!enabled) {
+      return blocksSupplier.get();
+    }
+    DefaultInputFile defaultInputFile = (DefaultInputFile) inputFile;
+    String path = defaultInputFile.getProjectRelativePath();
+    String hash = defaultInputFile.hash();
+    if (path == null || hash == null) {
+      return blocksSupplier.get();
+    }
+    try {
+      Entry entry = previousEntries.get(path);
+      if (entry != null && entry.hash.equals(hash) && entry.variant.equals(variant)) {
+        List<Block> blocks = readBlocks(entry, defaultInputFile.key());
+        copyToOutput(entry);
+        hits++;
+        return blocks;
+      }
+      misses++;
+      List<Block> blocks = blocksSupplier.get();
+      write(path, hash, variant, blocks);
+      return blocks;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write CPD block cache " + newFile, e);
+    }
+  }
+
+  private List<Block> readBlocks(Entry entry, String resourceId) {
+    ByteBuffer buffer = previous.duplicate();
+    buffer.position(entry.blocksStart);
+    List<Block> blocks = new ArrayList<>(entry.blockCount);
+    Block.Builder builder = Block.builder().setResourceId(resourceId);
+    for (int i = 0; i < entry.blockCount; i++) {
+      byte[] hash = new byte[buffer.getInt()];
+      buffer.get(hash);
+      blocks.add(builder
+        .setBlockHash(new ByteArray(hash))
+        .setIndexInFile(buffer.getInt())
+        .setLines(buffer.getInt(), buffer.getInt())
+        .setUnit(buffer.getInt(), buffer.getInt())
+        .build());
+    }
+    return blocks;
+  }
+
+  private void copyToOutput(Entry entry) throws IOException {
+    ByteBuffer buffer = previous.duplicate();
+    buffer.position(entry.start);
+    byte[] bytes = new byte[entry.end - entry.start];
+    buffer.get(bytes);
+    openOutput().write(bytes);
+  }
+
+  private void write(String path, String hash, String variant, List<Block> blocks) throws IOException {
+    DataOutputStream out = openOutput();
+    writeString(out, path);
+    writeString(out, hash);
+    writeString(out, variant);
+    out.writeInt(blocks.size());
+    for (Block block : blocks) {
+      byte[] blockHash = block.getBlockHash().getBytes();
+      out.writeInt(blockHash.length);
+      out.write(blockHash);
+      out.writeInt(block.getIndexInFile());
+      out.writeInt(block.getStartLine());
+      out.writeInt(block.getEndLine());
+      out.writeInt(block.getStartUnit());
+      out.writeInt(block.getEndUnit());
+    }
+  }
+
+  private DataOutputStream openOutput() throws IOException {
+    if (output == null) {
+      output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(newFile)));
+      output.writeInt(MAGIC);
+      writeString(output, fingerprint);
+    }
+    return output;
+  }
+
+  @Override
+  public void stop() {
+    previous = null;
+    previousEntries.clear();
+    if (output == null) {
+      return;
+    }
+    LOG.debug("CPD block cache: {} file(s) reused, {} file(s) chunked", hits, misses);
+    try {
+      output.close();
+      output = null;
+      Files.move(newFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOG.warn("Fail to save CPD block cache " + file, e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static class Entry {
+    private final String hash;
+    private final String variant;
+    private final int start;
+    private final int blocksStart;
+    private final int blockCount;
+    private final int end;
+
+    private Entry(String hash, String variant, int start, int blocksStart, int blockCount, int end) {
+      this.hash = hash;
+      this.variant = variant;
+      this.start = start;
+      this.blocksStart = blocksStart;
+      this.blockCount = blockCount;
+      this.end = end;
+    }
+  }
+}
@@ -22,21 +22,55 @@ package org.sonar.scanner.issue.ignore.pattern;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
 import org.sonar.api.rule.RuleKey;
 
+/**
+ * Patterns of issues to ignore, by component. Patterns of a component are also indexed by rule key, so that
+ * only the patterns of the rule of an issue and the patterns with wildcards in their rule are evaluated.
+ */
 public class PatternMatcher {
 
+  private static final String WILDCARD_CHARS = "*?/\\";
+
   private Multimap<String, IssuePattern> excludePatternByComponent = LinkedHashMultimap.create();
+  private Map<String, ComponentPatterns> indexByComponent = new HashMap<>();
 
+  /**
+   * @return the first pattern added for the component that matches the issue, or {@code null} if none
+   */
   @CheckForNull
   public IssuePattern getMatchingPattern(String componentKey, RuleKey ruleKey, @Nullable Integer line) {
-    for (IssuePattern pattern : getPatternsForComponent(componentKey)) {
-      if (pattern.match(componentKey, ruleKey, line)) {
-        return pattern;
+    ComponentPatterns patterns = indexByComponent.get(componentKey);
+    if (patterns == null) {
+      return null;
+    }
+    IndexedPattern byRule = findFirst(patterns.byRuleKey.get(ruleKey.toString()), componentKey, ruleKey, line);
+    IndexedPattern withWildcard = findFirst(patterns.withWildcard, componentKey, ruleKey, line);
+    if (byRule == null) {
+      return withWildcard == null ? null : withWildcard.pattern;
+    }
+    if (withWildcard == null || byRule.order < withWildcard.order) {
+      return byRule.pattern;
+    }
+    return withWildcard.pattern;
+  }
+
+  @CheckForNull
+  private static IndexedPattern findFirst(@Nullable List<IndexedPattern> patterns, String componentKey, RuleKey ruleKey, @Nullable Integer line) {
+    if (patterns != null) {
+      for (IndexedPattern indexed : patterns) {
+        if (indexed.pattern.match(componentKey, ruleKey, line)) {
+          return indexed;
+        }
       }
     }
     return null;
@@ -48,7 +82,9 @@ public class PatternMatcher {
   }
 
   public void addPatternForComponent(String componentKey, IssuePattern pattern) {
-    excludePatternByComponent.put(componentKey, pattern.forResource(componentKey));
+    IssuePattern componentPattern = pattern.forResource(componentKey);
+    excludePatternByComponent.put(componentKey, componentPattern);
+    indexByComponent.computeIfAbsent(componentKey, k -> new ComponentPatterns()).add(componentPattern);
   }
 
   public void addPatternToExcludeResource(String componentKey) {
@@ -59,4 +95,31 @@ public class PatternMatcher {
     addPatternForComponent(componentKey, new IssuePattern(componentKey, "*", lineRanges));
   }
 
+  private static class ComponentPatterns {
+    private final Map<String, List<IndexedPattern>> byRuleKey = new HashMap<>();
+    private final List<IndexedPattern> withWildcard = new ArrayList<>();
+    private int size = 0;
+
+    private void add(IssuePattern pattern) {
+      IndexedPattern indexed = new IndexedPattern(pattern, size);
+      size++;
+      String rulePattern = pattern.getRulePattern().toString();
+      if (StringUtils.containsAny(rulePattern, WILDCARD_CHARS)) {
+        withWildcard.add(indexed);
+      } else {
+        // without wildcard, the rule pattern only matches the rule key it is equal to
+        byRuleKey.computeIfAbsent(rulePattern, k -> new ArrayList<>()).add(indexed);
+      }
+    }
+  }
+
+  private static class IndexedPattern {
+    private final IssuePattern pattern;
+    private final int order;
+
+    private IndexedPattern(IssuePattern pattern, int order) {
+      this.pattern = pattern;
+      this.order = order;
+    }
+  }
 }
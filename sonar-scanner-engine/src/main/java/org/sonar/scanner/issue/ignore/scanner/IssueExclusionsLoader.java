@@ -21,6 +21,7 @@ package org.sonar.scanner.issue.ignore.scanner;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.internal.charhandler.CharHandler;
@@ -30,8 +31,9 @@ import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 
 public final class IssueExclusionsLoader {
-  private final List<java.util.regex.Pattern> allFilePatterns;
+  private final MultiRegexpMatcher allFilePatterns;
   private final List<DoubleRegexpMatcher> blockMatchers;
+  private final MultiRegexpMatcher blockStartPatterns;
   private final PatternMatcher patternMatcher;
   private final IssueExclusionPatternInitializer patternsInitializer;
   private final boolean enableCharHandler;
@@ -39,17 +41,20 @@ public final class IssueExclusionsLoader {
   public IssueExclusionsLoader(IssueExclusionPatternInitializer patternsInitializer, PatternMatcher patternMatcher) {
     this.patternsInitializer = patternsInitializer;
     this.patternMatcher = patternMatcher;
-    this.allFilePatterns = new ArrayList<>();
     this.blockMatchers = new ArrayList<>();
 
+    List<java.util.regex.Pattern> filePatterns = new ArrayList<>();
     for (String pattern : patternsInitializer.getAllFilePatterns()) {
-      allFilePatterns.add(java.util.regex.Pattern.compile(pattern));
+      filePatterns.add(java.util.regex.Pattern.compile(pattern));
     }
     for (BlockIssuePattern pattern : patternsInitializer.getBlockPatterns()) {
       blockMatchers.add(new DoubleRegexpMatcher(
         java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
         java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
     }
+    // compiled once for all the files of the module
+    this.allFilePatterns = new MultiRegexpMatcher(filePatterns);
+    this.blockStartPatterns = new MultiRegexpMatcher(blockMatchers.stream().map(DoubleRegexpMatcher::getFirstPattern).collect(Collectors.toList()));
     enableCharHandler = !allFilePatterns.isEmpty() || !blockMatchers.isEmpty();
   }
 
@@ -68,7 +73,7 @@ public final class IssueExclusionsLoader {
   @CheckForNull
   public CharHandler createCharHandlerFor(String componentKey) {
     if (enableCharHandler) {
-      return new IssueExclusionsRegexpScanner(componentKey, allFilePatterns, blockMatchers, patternMatcher);
+      return new IssueExclusionsRegexpScanner(componentKey, allFilePatterns, blockMatchers, blockStartPatterns, patternMatcher);
     }
     return null;
   }
@@ -83,8 +88,11 @@ public final class IssueExclusionsLoader {
       this.secondPattern = secondPattern;
     }
 
-    boolean matchesFirstPattern(String line) {
-      return firstPattern.matcher(line).find();
+    /**
+     * Matched by {@link MultiRegexpMatcher}, together with the first patterns of the other blocks
+     */
+    java.util.regex.Pattern getFirstPattern() {
+      return firstPattern;
     }
 
     boolean matchesSecondPattern(String line) {
@@ -0,0 +1,181 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the first of several regular expressions that matches a line, while scanning the line only once
+ * in most cases.
+ * <p/>
+ * A literal that must appear in any match is extracted from the beginning of each regular expression. All
+ * these literals are searched at once with an Aho-Corasick automaton, and only the regular expressions whose
+ * literal is found, or that have no literal, are evaluated. As most lines match none of the exclusion
+ * patterns, they are usually rejected without evaluating any regular expression.
+ */
+final class MultiRegexpMatcher {
+
+  private static final String META_CHARS = "\\^$.|?*+()[]{}";
+  private static final String QUANTIFIERS = "?*+{";
+
+  private final List<Pattern> patterns;
+  private final BitSet patternsWithoutLiteral = new BitSet();
+  private final Node root = new Node();
+  private final boolean hasLiterals;
+
+  MultiRegexpMatcher(List<Pattern> patterns) {
+    this.patterns = patterns;
+    boolean literals = false;
+    for (int i = 0; i < patterns.size(); i++) {
+      String literal = requiredLiteral(patterns.get(i));
+      if (literal.isEmpty()) {
+        patternsWithoutLiteral.set(i);
+      } else {
+        addLiteral(literal, i);
+        literals = true;
+      }
+    }
+    this.hasLiterals = literals;
+    buildFailureLinks();
+  }
+
+  boolean isEmpty() {
+    return patterns.isEmpty();
+  }
+
+  Pattern get(int index) {
+    return patterns.get(index);
+  }
+
+  /**
+   * @return the index of the first pattern, in the order of the list, that is found in the line, or -1 if none
+   */
+  int findFirst(String line) {
+    BitSet candidates = candidates(line);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      if (patterns.get(i).matcher(line).find()) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private BitSet candidates(String line) {
+    if (!hasLiterals) {
+      return patternsWithoutLiteral;
+    }
+    BitSet candidates = (BitSet) patternsWithoutLiteral.clone();
+    Node state = root;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      while (state != root && !state.next.containsKey(c)) {
+        state = state.failure;
+      }
+      state = state.next.getOrDefault(c, root);
+      if (state.output != null) {
+        candidates.or(state.output);
+      }
+    }
+    return candidates;
+  }
+
+  private void addLiteral(String literal, int patternIndex) {
+    Node node = root;
+    for (int i = 0; i < literal.length(); i++) {
+      node = node.next.computeIfAbsent(literal.charAt(i), c -> new Node());
+    }
+    if (node.output == null) {
+      node.output = new BitSet();
+    }
+    node.output.set(patternIndex);
+  }
+
+  private void buildFailureLinks() {
+    Deque<Node> queue = new ArrayDeque<>();
+    for (Node child : root.next.values()) {
+      child.failure = root;
+      queue.add(child);
+    }
+    while (!queue.isEmpty()) {
+      Node node = queue.remove();
+      for (Map.Entry<Character, Node> entry : node.next.entrySet()) {
+        Node child = entry.getValue();
+        Node failure = node.failure;
+        while (failure != root && !failure.next.containsKey(entry.getKey())) {
+          failure = failure.failure;
+        }
+        child.failure = failure.next.getOrDefault(entry.getKey(), root);
+        if (child.failure.output != null) {
+          if (child.output == null) {
+            child.output = new BitSet();
+          }
+          child.output.or(child.failure.output);
+        }
+        queue.add(child);
+      }
+    }
+  }
+
+  /**
+   * Characters at the beginning of the regular expression that any match contains, or an empty string if
+   * they can't be safely determined. Escaped punctuation is considered as literal, while character classes,
+   * groups, quantified characters and alternations end the literal.
+   */
+  static String requiredLiteral(Pattern pattern) {
+    String regexp = pattern.pattern();
+    if (pattern.flags() != 0 || regexp.indexOf('|') >= 0) {
+      return "";
+    }
+    StringBuilder literal = new StringBuilder();
+    int i = regexp.startsWith("^") ? 1 : 0;
+    while (i < regexp.length()) {
+      char c = regexp.charAt(i);
+      int next = i + 1;
+      if (c == '\\') {
+        if (next >= regexp.length() || Character.isLetterOrDigit(regexp.charAt(next))) {
+          break;
+        }
+        c = regexp.charAt(next);
+        next++;
+      } else if (META_CHARS.indexOf(c) >= 0) {
+        break;
+      }
+      if (next < regexp.length() && QUANTIFIERS.indexOf(regexp.charAt(next)) >= 0) {
+        // the character may be missing or repeated
+        break;
+      }
+      literal.append(c);
+      i = next;
+    }
+    return literal.toString();
+  }
+
+  private static class Node {
+    private final Map<Character, Node> next = new HashMap<>();
+    private Node failure;
+    private BitSet output;
+  }
+}
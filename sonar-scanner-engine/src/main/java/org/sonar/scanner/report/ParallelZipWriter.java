@@ -0,0 +1,284 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes the files of a directory as a zip archive to a stream.
+ * <p/>
+ * Zip entries are compressed independently, so files are deflated concurrently and written
+ * in the order of their paths as soon as they are ready. The archive is never stored on disk,
+ * and the number of compressed files kept in memory is bounded. Zip64 records are written
+ * when the archive contains more than 65535 entries or exceeds 4GB.
+ */
+class ParallelZipWriter {
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int ZIP64_END_SIZE = 56;
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+  private static final int END_SIZE = 22;
+  private static final int VERSION = 20;
+  private static final int ZIP64_VERSION = 45;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+  private static final int UTF8_FLAG = 1 << 11;
+  private static final int DEFLATED = 8;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+  private final int threads;
+
+  ParallelZipWriter(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Compresses the regular files of {@code dir}. The output stream is not closed.
+   *
+   * @return the size of the archive
+   */
+  long writeTo(Path dir, OutputStream output) throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(dir)) {
+      files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    }
+
+    CountingOutputStream counting = new CountingOutputStream(output);
+    int dosTime = toDosTime(LocalDateTime.now());
+    List<Entry> entries = new ArrayList<>(files.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("ReportCompressor-%d").setDaemon(true).build());
+    try {
+      Deque<Future<CompressedFile>> pending = new ArrayDeque<>();
+      int next = 0;
+      while (next < files.size() || !pending.isEmpty()) {
+        while (next < files.size() && pending.size() < 2 * threads) {
+          Path file = files.get(next);
+          String name = dir.relativize(file).toString().replace(File.separatorChar, '/');
+          pending.add(executor.submit(() -> compress(name, file)));
+          next++;
+        }
+        CompressedFile compressed = getUninterruptibly(pending.remove());
+        Entry entry = new Entry(compressed, counting.getCount());
+        writeLocalHeader(counting, entry, dosTime);
+        compressed.data.writeTo(counting);
+        entries.add(entry);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    writeCentralDirectory(counting, entries, dosTime);
+    counting.flush();
+    return counting.getCount();
+  }
+
+  private static CompressedFile compress(String name, Path file) throws IOException {
+    CRC32 crc = new CRC32();
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    long size = 0;
+    try (InputStream input = Files.newInputStream(file);
+      DeflaterOutputStream deflated = new DeflaterOutputStream(data, deflater)) {
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        crc.update(buffer, 0, read);
+        deflated.write(buffer, 0, read);
+        size += read;
+      }
+    } finally {
+      deflater.end();
+    }
+    if (size >= ZIP64_MAGIC || data.size() >= ZIP64_MAGIC) {
+      throw new IllegalStateException("File is too big to be compressed: " + file);
+    }
+    return new CompressedFile(name, crc.getValue(), size, data);
+  }
+
+  private static CompressedFile getUninterruptibly(Future<CompressedFile> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while compressing analysis report", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException("Fail to compress analysis report", e.getCause());
+    }
+  }
+
+  private static void writeLocalHeader(OutputStream output, Entry entry, int dosTime) throws IOException {
+    ByteBuffer header = newBuffer(LOCAL_HEADER_SIZE + entry.name.length);
+    header.putInt(LOCAL_HEADER_SIGNATURE);
+    header.putShort((short) VERSION);
+    header.putShort((short) UTF8_FLAG);
+    header.putShort((short) DEFLATED);
+    header.putInt(dosTime);
+    header.putInt((int) entry.crc);
+    header.putInt((int) entry.compressedSize);
+    header.putInt((int) entry.size);
+    header.putShort((short) entry.name.length);
+    header.putShort((short) 0);
+    header.put(entry.name);
+    output.write(header.array());
+  }
+
+  private static void writeCentralDirectory(CountingOutputStream output, List<Entry> entries, int dosTime) throws IOException {
+    long offset = output.getCount();
+    for (Entry entry : entries) {
+      boolean zip64 = entry.offset >= ZIP64_MAGIC;
+      ByteBuffer header = newBuffer(CENTRAL_HEADER_SIZE + entry.name.length + (zip64 ? 12 : 0));
+      header.putInt(CENTRAL_HEADER_SIGNATURE);
+      header.putShort((short) ZIP64_VERSION);
+      header.putShort((short) (zip64 ? ZIP64_VERSION : VERSION));
+      header.putShort((short) UTF8_FLAG);
+      header.putShort((short) DEFLATED);
+      header.putInt(dosTime);
+      header.putInt((int) entry.crc);
+      header.putInt((int) entry.compressedSize);
+      header.putInt((int) entry.size);
+      header.putShort((short) entry.name.length);
+      header.putShort((short) (zip64 ? 12 : 0));
+      // comment length, disk number, internal and external attributes
+      header.putShort((short) 0);
+      header.putShort((short) 0);
+      header.putShort((short) 0);
+      header.putInt(0);
+      header.putInt((int) Math.min(entry.offset, ZIP64_MAGIC));
+      header.put(entry.name);
+      if (zip64) {
+        header.putShort((short) ZIP64_EXTRA_ID);
+        header.putShort((short) 8);
+        header.putLong(entry.offset);
+      }
+      output.write(header.array());
+    }
+    long size = output.getCount() - offset;
+
+    if (entries.size() >= ZIP64_MAGIC_COUNT || offset >= ZIP64_MAGIC || size >= ZIP64_MAGIC) {
+      long zip64EndOffset = output.getCount();
+      ByteBuffer zip64End = newBuffer(ZIP64_END_SIZE + ZIP64_LOCATOR_SIZE);
+      zip64End.putInt(ZIP64_END_SIGNATURE);
+      zip64End.putLong(ZIP64_END_SIZE - 12L);
+      zip64End.putShort((short) ZIP64_VERSION);
+      zip64End.putShort((short) ZIP64_VERSION);
+      zip64End.putInt(0);
+      zip64End.putInt(0);
+      zip64End.putLong(entries.size());
+      zip64End.putLong(entries.size());
+      zip64End.putLong(size);
+      zip64End.putLong(offset);
+      zip64End.putInt(ZIP64_LOCATOR_SIGNATURE);
+      zip64End.putInt(0);
+      zip64End.putLong(zip64EndOffset);
+      zip64End.putInt(1);
+      output.write(zip64End.array());
+    }
+
+    ByteBuffer end = newBuffer(END_SIZE);
+    end.putInt(END_SIGNATURE);
+    end.putShort((short) 0);
+    end.putShort((short) 0);
+    end.putShort((short) Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+    end.putShort((short) Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+    end.putInt((int) Math.min(size, ZIP64_MAGIC));
+    end.putInt((int) Math.min(offset, ZIP64_MAGIC));
+    end.putShort((short) 0);
+    output.write(end.array());
+  }
+
+  private static ByteBuffer newBuffer(int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static int toDosTime(LocalDateTime time) {
+    return (time.getYear() - 1980) << 25
+      | time.getMonthValue() << 21
+      | time.getDayOfMonth() << 16
+      | time.getHour() << 11
+      | time.getMinute() << 5
+      | time.getSecond() >> 1;
+  }
+
+  private static class CompressedFile {
+    private final String name;
+    private final long crc;
+    private final long size;
+    private final ByteArrayOutputStream data;
+
+    private CompressedFile(String name, long crc, long size, ByteArrayOutputStream data) {
+      this.name = name;
+      this.crc = crc;
+      this.size = size;
+      this.data = data;
+    }
+  }
+
+  /**
+   * What remains of a file once written, to build the central directory
+   */
+  private static class Entry {
+    private final byte[] name;
+    private final long crc;
+    private final long size;
+    private final long compressedSize;
+    private final long offset;
+
+    private Entry(CompressedFile file, long offset) {
+      this.name = file.name.getBytes(StandardCharsets.UTF_8);
+      this.crc = file.crc;
+      this.size = file.size;
+      this.compressedSize = file.data.size();
+      this.offset = offset;
+    }
+  }
+}
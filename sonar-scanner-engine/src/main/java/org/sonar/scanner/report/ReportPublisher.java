@@ -21,7 +21,6 @@ package org.sonar.scanner.report;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
@@ -40,8 +39,6 @@ import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.platform.Server;
 import org.sonar.api.utils.MessageException;
-import org.sonar.api.utils.TempFolder;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.analysis.DefaultAnalysisMode;
@@ -68,13 +65,13 @@ public class ReportPublisher implements Startable {
   public static final String VERBOSE_KEY = "sonar.verbose";
   public static final String METADATA_DUMP_FILENAME = "report-task.txt";
   private static final String CHARACTERISTIC = "characteristic";
+  private static final String REPORT_FILENAME = "scanner-report.zip";
 
   private final Configuration settings;
   private final ScannerWsClient wsClient;
   private final AnalysisContextReportPublisher contextPublisher;
   private final InputModuleHierarchy moduleHierarchy;
   private final GlobalAnalysisMode analysisMode;
-  private final TempFolder temp;
   private final ReportPublisherStep[] publishers;
   private final Server server;
   private final BranchConfiguration branchConfiguration;
@@ -84,7 +81,7 @@ public class ReportPublisher implements Startable {
   private ScannerReportWriter writer;
 
   public ReportPublisher(Configuration settings, ScannerWsClient wsClient, Server server, AnalysisContextReportPublisher contextPublisher, DefaultAnalysisMode analysisFlags,
-    InputModuleHierarchy moduleHierarchy, GlobalAnalysisMode analysisMode, TempFolder temp, ReportPublisherStep[] publishers, BranchConfiguration branchConfiguration) {
+    InputModuleHierarchy moduleHierarchy, GlobalAnalysisMode analysisMode, ReportPublisherStep[] publishers, BranchConfiguration branchConfiguration) {
     this.settings = settings;
     this.wsClient = wsClient;
     this.server = server;
@@ -92,7 +89,6 @@ public class ReportPublisher implements Startable {
     this.analysisFlags = analysisFlags;
     this.moduleHierarchy = moduleHierarchy;
     this.analysisMode = analysisMode;
-    this.temp = temp;
     this.publishers = publishers;
     this.branchConfiguration = branchConfiguration;
   }
@@ -130,12 +126,12 @@ public class ReportPublisher implements Startable {
     // If this is a issues mode analysis then we should not upload reports
     String taskId = null;
     if (!analysisMode.isIssues()) {
-      File report = generateReportFile();
+      generateReport();
       if (shouldKeepReport()) {
         LOG.info("Analysis report generated in " + reportDir);
       }
       if (!analysisMode.isMediumTest()) {
-        taskId = upload(report);
+        taskId = upload();
       }
     }
     logSuccess(taskId);
@@ -145,34 +141,28 @@ public class ReportPublisher implements Startable {
     return settings.getBoolean(KEEP_REPORT_PROP_KEY).orElse(false) || settings.getBoolean(VERBOSE_KEY).orElse(false);
   }
 
-  private File generateReportFile() {
-    try {
-      long startTime = System.currentTimeMillis();
-      for (ReportPublisherStep publisher : publishers) {
-        publisher.publish(writer);
-      }
-      long stopTime = System.currentTimeMillis();
-      LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir.toFile())));
-
-      startTime = System.currentTimeMillis();
-      File reportZip = temp.newFile("scanner-report", ".zip");
-      ZipUtils.zipDir(reportDir.toFile(), reportZip);
-      stopTime = System.currentTimeMillis();
-      LOG.info("Analysis reports compressed in {}ms, zip size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(reportZip)));
-      return reportZip;
-    } catch (IOException e) {
-      throw new IllegalStateException("Unable to prepare analysis report", e);
+  private void generateReport() {
+    long startTime = System.currentTimeMillis();
+    for (ReportPublisherStep publisher : publishers) {
+      publisher.publish(writer);
     }
+    long stopTime = System.currentTimeMillis();
+    LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir.toFile())));
   }
 
   /**
-   * Uploads the report file to server and returns the generated task id
+   * Uploads the report to server and returns the generated task id. The report directory is compressed
+   * while being uploaded, so that no zip file is written on disk.
    */
   @VisibleForTesting
-  String upload(File report) {
+  String upload() {
     LOG.debug("Upload report");
     long startTime = System.currentTimeMillis();
-    PostRequest.Part filePart = new PostRequest.Part(MediaTypes.ZIP, report);
+    ParallelZipWriter zipWriter = new ParallelZipWriter(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    PostRequest.Part filePart = new PostRequest.Part(MediaTypes.ZIP, REPORT_FILENAME, output -> {
+      long zipSize = zipWriter.writeTo(reportDir, output);
+      LOG.info("Analysis report compressed, zip size={}", FileUtils.byteCountToDisplaySize(zipSize));
+    });
     PostRequest post = new PostRequest("api/ce/submit")
       .setMediaType(MediaTypes.PROTOBUF)
       .setParam("organization", settings.get(ORGANIZATION).orElse(null))
@@ -19,21 +19,26 @@
  */
 package org.sonar.scanner.scan;
 
+import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.Set;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.core.util.FileUtils;
 import org.sonar.home.cache.DirectoryLock;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 
 /**
  * Clean and create working directories of each module.
  * Be careful that sub module work dir might be nested in parent working directory.
  */
 public class WorkDirectoriesInitializer {
+  // files which are used by the next analysis
+  private static final Set<String> KEPT_FILE_NAMES = ImmutableSet.of(DirectoryLock.LOCK_FILE_NAME, CpdBlockCache.FILE_NAME);
 
   private InputModuleHierarchy moduleHierarchy;
 
@@ -79,6 +84,6 @@ public class WorkDirectoriesInitializer {
   }
 
   private static DirectoryStream<Path> list(Path dir) throws IOException {
-    return Files.newDirectoryStream(dir, entry -> !DirectoryLock.LOCK_FILE_NAME.equals(entry.getFileName().toString()));
+    return Files.newDirectoryStream(dir, entry -> !KEPT_FILE_NAMES.contains(entry.getFileName().toString()));
   }
 }
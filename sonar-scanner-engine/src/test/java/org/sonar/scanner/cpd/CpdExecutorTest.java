@@ -85,6 +85,7 @@ public class CpdExecutorTest {
 
     branchConfig = mock(BranchConfiguration.class);
     settings = mock(CpdSettings.class);
+    when(settings.getThreads()).thenReturn(1);
     publisher = mock(ReportPublisher.class);
     when(publisher.getWriter()).thenReturn(new ScannerReportWriter(outputDir));
 
@@ -205,9 +206,61 @@ public class CpdExecutorTest {
 
   @Test
   public void failOnMissingComponent() {
-    executor.runCpdAnalysis(null, "unknown", Collections.emptyList(), 1);
+    DefaultInputFile unknown = new TestInputFileBuilder("foo", "src/Unknown.php").setModuleBaseDir(baseDir.toPath()).setLines(5).build();
+    index.insert(unknown, Collections.singletonList(newBlock(unknown, 1, 1L)));
+
+    executor.execute(1000);
+
     readDuplications(0);
-    assertThat(logTester.logs(LoggerLevel.ERROR)).contains("Resource not found in component store: unknown. Skipping CPD computation for it");
+    assertThat(logTester.logs(LoggerLevel.ERROR)).contains("Resource not found in component store: foo:src/Unknown.php. Skipping CPD computation for it");
+  }
+
+  @Test
+  public void saveDuplicationsOfAllFilesWithOneThread() {
+    saveDuplicationsOfAllFiles(1);
+  }
+
+  @Test
+  public void saveDuplicationsOfAllFilesWithConcurrentThreads() {
+    saveDuplicationsOfAllFiles(4);
+  }
+
+  private void saveDuplicationsOfAllFiles(int threads) {
+    when(settings.getThreads()).thenReturn(threads);
+    List<DefaultInputFile> files = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      DefaultInputFile file = createComponent("src/Dup" + i + ".php", 100);
+      List<Block> blocks = new ArrayList<>();
+      for (int j = 0; j < 10; j++) {
+        // blocks 0 to 4 are common to all the files, the others are unique
+        blocks.add(newBlock(file, j, j < 5 ? j : (1000L + 100 * i + j)));
+      }
+      index.insert(file, blocks);
+      files.add(file);
+    }
+
+    executor.execute(60_000);
+
+    for (DefaultInputFile file : files) {
+      List<Duplication> duplications = new ArrayList<>();
+      try (CloseableIterator<Duplication> it = reader.readComponentDuplications(file.batchId())) {
+        it.forEachRemaining(duplications::add);
+      }
+      assertThat(duplications).hasSize(1);
+      assertThat(duplications.get(0).getOriginPosition().getStartLine()).isEqualTo(1);
+      assertThat(duplications.get(0).getOriginPosition().getEndLine()).isEqualTo(6);
+      assertThat(duplications.get(0).getDuplicateList()).hasSize(19);
+    }
+  }
+
+  private static Block newBlock(DefaultInputFile file, int indexInFile, long hash) {
+    return Block.builder()
+      .setResourceId(file.key())
+      .setIndexInFile(indexInFile)
+      .setLines(indexInFile + 1, indexInFile + 2)
+      .setUnit(indexInFile, indexInFile + 1)
+      .setBlockHash(new ByteArray(hash))
+      .build();
   }
 
   @Test
@@ -59,4 +59,19 @@ public class CpdSettingsTest {
     assertThat(cpdSettings.getMinimumTokens("java")).isEqualTo(42);
     assertThat(cpdSettings.getMinimumTokens("php")).isEqualTo(33);
   }
+
+  @Test
+  public void threads() {
+    when(configuration.getInt("sonar.cpd.threads")).thenReturn(Optional.of(3));
+    assertThat(cpdSettings.getThreads()).isEqualTo(3);
+
+    when(configuration.getInt("sonar.cpd.threads")).thenReturn(Optional.empty());
+    assertThat(cpdSettings.getThreads()).isBetween(1, 4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void threads_must_be_positive() {
+    when(configuration.getInt("sonar.cpd.threads")).thenReturn(Optional.of(0));
+    cpdSettings.getThreads();
+  }
 }
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Supplier;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
@@ -39,13 +40,17 @@ import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.duplications.block.Block;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 public class JavaCpdBlockIndexerTest {
   private static final String JAVA = "java";
@@ -53,6 +58,9 @@ public class JavaCpdBlockIndexerTest {
   @Mock
   private SonarCpdBlockIndex index;
 
+  @Mock
+  private CpdBlockCache blockCache;
+
   @Captor
   private ArgumentCaptor<List<Block>> blockCaptor;
 
@@ -77,13 +85,15 @@ public class JavaCpdBlockIndexerTest {
     File ioFile = file.file();
     FileUtils.copyURLToFile(this.getClass().getResource("ManyStatements.java"), ioFile);
 
+    when(blockCache.computeIfAbsent(eq(file), anyString(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArguments()[2]).get());
+
     settings = new MapSettings();
-    engine = new JavaCpdBlockIndexer(fs, settings.asConfig(), index);
+    engine = new JavaCpdBlockIndexer(fs, settings.asConfig(), index, blockCache);
   }
 
   @Test
   public void languageSupported() {
-    JavaCpdBlockIndexer engine = new JavaCpdBlockIndexer(mock(FileSystem.class), new MapSettings().asConfig(), index);
+    JavaCpdBlockIndexer engine = new JavaCpdBlockIndexer(mock(FileSystem.class), new MapSettings().asConfig(), index, blockCache);
     assertThat(engine.isLanguageSupported(JAVA)).isTrue();
     assertThat(engine.isLanguageSupported("php")).isFalse();
   }
@@ -103,5 +113,6 @@ public class JavaCpdBlockIndexerTest {
     List<Block> blockList = blockCaptor.getValue();
 
     assertThat(blockList).hasSize(26);
+    verify(blockCache).computeIfAbsent(eq(file), eq("java-statements:10"), any());
   }
 }
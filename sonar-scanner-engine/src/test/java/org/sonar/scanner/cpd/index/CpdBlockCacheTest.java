@@ -0,0 +1,194 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
+import org.sonar.core.platform.PluginInfo;
+import org.sonar.core.platform.PluginRepository;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CpdBlockCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path workDir;
+  private InputModuleHierarchy hierarchy = mock(InputModuleHierarchy.class);
+  private PluginRepository pluginRepository = mock(PluginRepository.class);
+  private SonarRuntime runtime = SonarRuntimeImpl.forSonarQube(Version.parse("6.6"), SonarQubeSide.SCANNER);
+  private MapSettings settings = new MapSettings();
+  private AtomicInteger chunkings = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    workDir = temp.newFolder().toPath();
+    DefaultInputModule root = mock(DefaultInputModule.class);
+    when(root.getWorkDir()).thenReturn(workDir);
+    when(hierarchy.root()).thenReturn(root);
+    when(pluginRepository.getPluginInfos()).thenReturn(javaPlugin("4.0"));
+  }
+
+  @Test
+  public void reuse_blocks_of_unchanged_files_computed_by_previous_analysis() {
+    InputFile file1 = newFile("src/Foo.php", "hash1");
+    InputFile file2 = newFile("src/Bar.php", "hash2");
+    analyze("v1", file1, file2);
+
+    assertThat(Files.exists(workDir.resolve(CpdBlockCache.FILE_NAME))).isTrue();
+    assertThat(chunkings.get()).isEqualTo(2);
+
+    // the key of the file, which is the id of blocks, changes but not its path
+    InputFile sameFile1 = new TestInputFileBuilder("other", "src/Foo.php").setHash("hash1").build();
+    List<Block> blocks = analyze("v1", sameFile1).get(0);
+
+    assertThat(chunkings.get()).isEqualTo(2);
+    assertThat(blocks).isEqualTo(blocks(sameFile1));
+    assertThat(blocks.get(2).getStartUnit()).isEqualTo(20);
+    assertThat(blocks.get(2).getEndUnit()).isEqualTo(30);
+  }
+
+  @Test
+  public void compute_blocks_of_changed_files() {
+    analyze("v1", newFile("src/Foo.php", "hash1"));
+
+    analyze("v1", newFile("src/Foo.php", "hash2"));
+
+    assertThat(chunkings.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void compute_blocks_if_the_way_of_computing_them_changed() {
+    InputFile file = newFile("src/Foo.php", "hash1");
+    analyze("v1", file);
+
+    analyze("v2", file);
+
+    assertThat(chunkings.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void ignore_cache_if_versions_of_plugins_changed() {
+    InputFile file = newFile("src/Foo.php", "hash1");
+    analyze("v1", file);
+    when(pluginRepository.getPluginInfos()).thenReturn(javaPlugin("4.1"));
+
+    analyze("v1", file);
+
+    assertThat(chunkings.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void ignore_corrupted_cache() throws IOException {
+    Files.write(workDir.resolve(CpdBlockCache.FILE_NAME), new byte[] {0x43, 0x50, 0x44, 0x31, 0x7F, 0, 0, 0, 1});
+
+    List<Block> blocks = analyze("v1", newFile("src/Foo.php", "hash1")).get(0);
+
+    assertThat(chunkings.get()).isEqualTo(1);
+    assertThat(blocks).hasSize(3);
+  }
+
+  @Test
+  public void files_which_are_not_analyzed_anymore_are_removed_from_cache() {
+    InputFile file1 = newFile("src/Foo.php", "hash1");
+    InputFile file2 = newFile("src/Bar.php", "hash2");
+    analyze("v1", file1, file2);
+    analyze("v1", file1);
+
+    analyze("v1", file1, file2);
+
+    assertThat(chunkings.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void do_not_use_cache_if_disabled() {
+    settings.setProperty("sonar.cpd.cache.enabled", false);
+    InputFile file = newFile("src/Foo.php", "hash1");
+    analyze("v1", file);
+    analyze("v1", file);
+
+    assertThat(chunkings.get()).isEqualTo(2);
+    assertThat(Files.exists(workDir.resolve(CpdBlockCache.FILE_NAME))).isFalse();
+  }
+
+  /**
+   * Executes an analysis of the specified files and returns their blocks
+   */
+  private List<List<Block>> analyze(String variant, InputFile... files) {
+    CpdBlockCache underTest = new CpdBlockCache(hierarchy, settings.asConfig(), pluginRepository, runtime);
+    underTest.start();
+    List<List<Block>> result = new ArrayList<>();
+    for (InputFile file : files) {
+      result.add(underTest.computeIfAbsent(file, variant, () -> {
+        chunkings.incrementAndGet();
+        return blocks(file);
+      }));
+    }
+    underTest.stop();
+    return result;
+  }
+
+  private static List<PluginInfo> javaPlugin(String version) {
+    return Collections.singletonList(new PluginInfo("java").setVersion(org.sonar.updatecenter.common.Version.create(version)));
+  }
+
+  private static InputFile newFile(String relativePath, String hash) {
+    return new TestInputFileBuilder("foo", relativePath).setHash(hash).build();
+  }
+
+  private static List<Block> blocks(InputFile file) {
+    Block[] blocks = new Block[3];
+    for (int i = 0; i < blocks.length; i++) {
+      blocks[i] = Block.builder()
+        .setResourceId(((DefaultInputFile) file).key())
+        .setBlockHash(new ByteArray((long) i))
+        .setIndexInFile(i)
+        .setLines(i + 1, i + 10)
+        .setUnit(i * 10, (i + 1) * 10)
+        .build();
+    }
+    return Arrays.asList(blocks);
+  }
+}
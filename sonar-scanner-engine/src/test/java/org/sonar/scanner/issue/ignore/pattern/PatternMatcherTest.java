@@ -25,6 +25,7 @@ import java.util.Set;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rules.Rule;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -96,6 +97,22 @@ public class PatternMatcherTest {
     assertThat(patternMatcher.getMatchingPattern(JAVA_FILE, CHECKSTYLE_RULE.ruleKey(), 5)).isNull();
   }
 
+  @Test
+  public void shouldReturnFirstMatchingPatternWhateverItsRulePattern() {
+    IssuePattern allLines = createPattern("org.foo.Hello", "checkstyle:*", createRanges(1, 200));
+    IssuePattern someLines = createPattern("org.foo.Hello", "checkstyle:MagicNumber", createRanges(100, 200));
+    IssuePattern otherRule = createPattern("org.foo.Hello", "checkstyle:Other", null);
+    patternMatcher.addPatternForComponent(JAVA_FILE, someLines);
+    patternMatcher.addPatternForComponent(JAVA_FILE, allLines);
+    patternMatcher.addPatternForComponent(JAVA_FILE, otherRule);
+
+    assertThat(patternMatcher.getMatchingPattern(JAVA_FILE, CHECKSTYLE_RULE.ruleKey(), 150).getRulePattern().toString()).isEqualTo("checkstyle:MagicNumber");
+    assertThat(patternMatcher.getMatchingPattern(JAVA_FILE, CHECKSTYLE_RULE.ruleKey(), 50).getRulePattern().toString()).isEqualTo("checkstyle:*");
+    assertThat(patternMatcher.getMatchingPattern(JAVA_FILE, RuleKey.of("checkstyle", "Other"), 50).getRulePattern().toString()).isEqualTo("checkstyle:*");
+    assertThat(patternMatcher.getMatchingPattern(JAVA_FILE, RuleKey.of("pmd", "Other"), 50)).isNull();
+    assertThat(patternMatcher.getMatchingPattern("org.foo.Other", CHECKSTYLE_RULE.ruleKey(), 150)).isNull();
+  }
+
   private IssuePattern createPattern(String resourcePattern, String rulePattern, @Nullable Set<LineRange> lineRanges) {
     if (lineRanges != null) {
       return new IssuePattern(resourcePattern, rulePattern, lineRanges);
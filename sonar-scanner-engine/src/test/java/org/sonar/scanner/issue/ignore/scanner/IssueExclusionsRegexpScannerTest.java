@@ -31,6 +31,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -70,7 +71,8 @@ public class IssueExclusionsRegexpScannerTest {
     allFilePatterns = Collections.singletonList(Pattern.compile("@SONAR-IGNORE-ALL"));
 
     javaFile = "org.sonar.test.MyFile";
-    regexpScanner = new IssueExclusionsRegexpScanner(javaFile, allFilePatterns, blockPatterns, patternMatcher);
+    regexpScanner = new IssueExclusionsRegexpScanner(javaFile, new MultiRegexpMatcher(allFilePatterns), blockPatterns,
+      new MultiRegexpMatcher(blockPatterns.stream().map(DoubleRegexpMatcher::getFirstPattern).collect(Collectors.toList())), patternMatcher);
   }
 
   @Test
@@ -0,0 +1,100 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MultiRegexpMatcherTest {
+
+  @Test
+  public void find_first_matching_pattern_in_order_of_list() {
+    MultiRegexpMatcher underTest = new MultiRegexpMatcher(Arrays.asList(
+      Pattern.compile("// SONAR-OFF"),
+      Pattern.compile("@Generated\\(.*\\)"),
+      Pattern.compile("[A-Z]+_OFF"),
+      Pattern.compile("OFF")));
+
+    assertThat(underTest.findFirst("int i = 0; // SONAR-OFF")).isEqualTo(0);
+    assertThat(underTest.findFirst("@Generated(\"foo\")")).isEqualTo(1);
+    assertThat(underTest.findFirst("@Generated")).isEqualTo(-1);
+    assertThat(underTest.findFirst("FOO_OFF")).isEqualTo(2);
+    assertThat(underTest.findFirst("// SONAR-ON // OFF")).isEqualTo(3);
+    assertThat(underTest.findFirst("// SONAR-ON")).isEqualTo(-1);
+    assertThat(underTest.findFirst("")).isEqualTo(-1);
+    assertThat(underTest.get(1).pattern()).isEqualTo("@Generated\\(.*\\)");
+  }
+
+  @Test
+  public void find_literals_sharing_characters() {
+    MultiRegexpMatcher underTest = new MultiRegexpMatcher(Arrays.asList(
+      Pattern.compile("abcd"),
+      Pattern.compile("bce"),
+      Pattern.compile("c")));
+
+    assertThat(underTest.findFirst("xabce")).isEqualTo(1);
+    assertThat(underTest.findFirst("abcd")).isEqualTo(0);
+    assertThat(underTest.findFirst("xxc")).isEqualTo(2);
+    assertThat(underTest.findFirst("abxbd")).isEqualTo(-1);
+  }
+
+  @Test
+  public void evaluate_patterns_without_literal() {
+    MultiRegexpMatcher underTest = new MultiRegexpMatcher(Arrays.asList(
+      Pattern.compile("(?i)sonar-off"),
+      Pattern.compile("FOO|BAR")));
+
+    assertThat(underTest.findFirst("// Sonar-Off")).isEqualTo(0);
+    assertThat(underTest.findFirst("BAR")).isEqualTo(1);
+    assertThat(underTest.findFirst("baz")).isEqualTo(-1);
+  }
+
+  @Test
+  public void empty_list_of_patterns() {
+    MultiRegexpMatcher underTest = new MultiRegexpMatcher(Collections.emptyList());
+
+    assertThat(underTest.isEmpty()).isTrue();
+    assertThat(underTest.findFirst("foo")).isEqualTo(-1);
+  }
+
+  @Test
+  public void extract_required_literal() {
+    assertThat(literal("// SONAR-OFF")).isEqualTo("// SONAR-OFF");
+    assertThat(literal("^@SONAR-IGNORE-ALL")).isEqualTo("@SONAR-IGNORE-ALL");
+    assertThat(literal("@Generated\\(.*")).isEqualTo("@Generated(");
+    assertThat(literal("//\\s*NOSONAR")).isEqualTo("//");
+    assertThat(literal("abc?d")).isEqualTo("ab");
+    assertThat(literal("ab+")).isEqualTo("a");
+    assertThat(literal("ab{2}")).isEqualTo("a");
+    assertThat(literal("[a-z]oo")).isEmpty();
+    assertThat(literal("(foo)")).isEmpty();
+    assertThat(literal("foo|bar")).isEmpty();
+    assertThat(literal("\\Qfoo\\E")).isEmpty();
+    assertThat(MultiRegexpMatcher.requiredLiteral(Pattern.compile("foo", Pattern.CASE_INSENSITIVE))).isEmpty();
+  }
+
+  private static String literal(String regexp) {
+    return MultiRegexpMatcher.requiredLiteral(Pattern.compile(regexp));
+  }
+}
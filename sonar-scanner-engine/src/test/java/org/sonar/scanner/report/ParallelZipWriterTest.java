@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.ZipUtils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelZipWriterTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private ParallelZipWriter underTest = new ParallelZipWriter(3);
+
+  @Test
+  public void zip_files_of_directory_in_order() throws IOException {
+    File dir = temp.newFolder();
+    for (int i = 0; i < 20; i++) {
+      FileUtils.write(new File(dir, "issues-" + i + ".pb"), "issues of " + i, UTF_8);
+    }
+    FileUtils.write(new File(dir, "metadata.pb"), "", UTF_8);
+    FileUtils.write(new File(dir, "sub/source-1.txt"), "line 1\nline 2", UTF_8);
+
+    File zip = write(dir);
+
+    try (ZipFile zipFile = new ZipFile(zip)) {
+      List<String> names = Collections.list(zipFile.entries()).stream().map(ZipEntry::getName).collect(Collectors.toList());
+      assertThat(names).hasSize(22).isSorted().contains("metadata.pb", "sub/source-1.txt");
+    }
+    File unzipped = ZipUtils.unzip(zip, temp.newFolder());
+    assertThat(FileUtils.readFileToString(new File(unzipped, "issues-12.pb"), UTF_8)).isEqualTo("issues of 12");
+    assertThat(FileUtils.readFileToString(new File(unzipped, "metadata.pb"), UTF_8)).isEmpty();
+    assertThat(FileUtils.readFileToString(new File(unzipped, "sub/source-1.txt"), UTF_8)).isEqualTo("line 1\nline 2");
+  }
+
+  @Test
+  public void zip_empty_directory() throws IOException {
+    File zip = write(temp.newFolder());
+
+    try (ZipFile zipFile = new ZipFile(zip)) {
+      assertThat(zipFile.size()).isZero();
+    }
+  }
+
+  @Test
+  public void write_zip64_records_when_more_than_65535_entries() throws IOException {
+    File dir = temp.newFolder();
+    for (int i = 0; i < 70_000; i++) {
+      FileUtils.write(new File(dir, "component-" + i + ".pb"), String.valueOf(i), UTF_8);
+    }
+
+    File zip = write(dir);
+
+    try (ZipFile zipFile = new ZipFile(zip)) {
+      assertThat(zipFile.size()).isEqualTo(70_000);
+    }
+    File unzipped = ZipUtils.unzip(zip, temp.newFolder());
+    assertThat(unzipped.list()).hasSize(70_000);
+    assertThat(FileUtils.readFileToString(new File(unzipped, "component-69999.pb"), UTF_8)).isEqualTo("69999");
+  }
+
+  private File write(File dir) throws IOException {
+    File zip = temp.newFile();
+    try (OutputStream output = new FileOutputStream(zip)) {
+      long size = underTest.writeTo(dir.toPath(), output);
+      assertThat(size).isPositive();
+    }
+    assertThat(zip.length()).isPositive();
+    return zip;
+  }
+}
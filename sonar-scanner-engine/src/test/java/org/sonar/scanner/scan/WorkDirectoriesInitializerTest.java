@@ -29,6 +29,7 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.home.cache.DirectoryLock;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -81,6 +82,16 @@ public class WorkDirectoriesInitializerTest {
     assertThat(rootWorkDir.list()).containsOnly(DirectoryLock.LOCK_FILE_NAME);
   }
 
+  @Test
+  public void cleanShouldKeepCpdBlockCache() throws IOException {
+    File cache = new File(rootWorkDir, CpdBlockCache.FILE_NAME);
+    cache.createNewFile();
+
+    initializer.execute();
+
+    assertThat(rootWorkDir.list()).containsOnly(DirectoryLock.LOCK_FILE_NAME, CpdBlockCache.FILE_NAME);
+  }
+
   @Test
   public void cleaningRootModuleShouldNotDeleteChildrenWorkDir() throws IOException {
     DefaultInputModule moduleA = mock(DefaultInputModule.class);
@@ -51,6 +51,14 @@ public class FileStructure {
       this.filePrefix = filePrefix;
       this.fileSuffix = fileSuffix;
     }
+
+    public String getFilePrefix() {
+      return filePrefix;
+    }
+
+    public String getFileSuffix() {
+      return fileSuffix;
+    }
   }
 
   private final File dir;
@@ -19,6 +19,7 @@
  */
 package org.sonarqube.ws.client;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.Proxy;
 import java.util.Map;
@@ -35,6 +36,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSink;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -42,6 +44,7 @@ import static com.google.common.base.Strings.nullToEmpty;
 import static java.lang.String.format;
 import static java.net.HttpURLConnection.HTTP_MOVED_PERM;
 import static java.net.HttpURLConnection.HTTP_MOVED_TEMP;
+import static java.util.Objects.requireNonNull;
 import static okhttp3.internal.http.StatusLine.HTTP_PERM_REDIRECT;
 import static okhttp3.internal.http.StatusLine.HTTP_TEMP_REDIRECT;
 
@@ -145,8 +148,8 @@ public class HttpConnector implements WsConnector {
         PostRequest.Part part = param.getValue();
         bodyBuilder.addFormDataPart(
           param.getKey(),
-          part.getFile().getName(),
-          RequestBody.create(MediaType.parse(part.getMediaType()), part.getFile()));
+          part.getFileName(),
+          createPartBody(part));
       });
       body = bodyBuilder.build();
     }
@@ -156,6 +159,27 @@ public class HttpConnector implements WsConnector {
     return new OkHttpResponse(response);
   }
 
+  private static RequestBody createPartBody(PostRequest.Part part) {
+    MediaType mediaType = MediaType.parse(part.getMediaType());
+    File file = part.getFile();
+    if (file != null) {
+      return RequestBody.create(mediaType, file);
+    }
+    PostRequest.ContentWriter contentWriter = requireNonNull(part.getContentWriter());
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return mediaType;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        // length is unknown, so the body is sent with chunked transfer encoding
+        contentWriter.writeTo(sink.outputStream());
+      }
+    };
+  }
+
   private HttpUrl.Builder prepareUrlBuilder(WsRequest wsRequest) {
     String path = wsRequest.getPath();
     return baseUrl
@@ -20,8 +20,11 @@
 package org.sonarqube.ws.client;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 
 /**
  * @since 5.3
@@ -51,19 +54,68 @@ public class PostRequest extends BaseRequest<PostRequest> {
   public static class Part {
     private final String mediaType;
     private final File file;
+    private final String fileName;
+    private final ContentWriter contentWriter;
 
     public Part(String mediaType, File file) {
       this.mediaType = mediaType;
       this.file = file;
+      this.fileName = file.getName();
+      this.contentWriter = null;
+    }
+
+    /**
+     * Part whose content is streamed when the request is sent, without knowing its length
+     * in advance. The writer may be called several times, for example when the request
+     * is redirected.
+     *
+     * @since 6.6
+     */
+    public Part(String mediaType, String fileName, ContentWriter contentWriter) {
+      this.mediaType = mediaType;
+      this.file = null;
+      this.fileName = fileName;
+      this.contentWriter = contentWriter;
     }
 
     public String getMediaType() {
       return mediaType;
     }
 
+    /**
+     * @return {@code null} if the content is streamed by {@link #getContentWriter()}
+     */
+    @CheckForNull
     public File getFile() {
       return file;
     }
+
+    /**
+     * @since 6.6
+     */
+    public String getFileName() {
+      return fileName;
+    }
+
+    /**
+     * @return {@code null} if the content is the file {@link #getFile()}
+     * @since 6.6
+     */
+    @CheckForNull
+    public ContentWriter getContentWriter() {
+      return contentWriter;
+    }
+  }
+
+  /**
+   * @since 6.6
+   */
+  @FunctionalInterface
+  public interface ContentWriter {
+    /**
+     * Writes the content of the part. The output stream must not be closed.
+     */
+    void writeTo(OutputStream output) throws IOException;
   }
 
 }
@@ -42,6 +42,7 @@ import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonarqube.ws.MediaTypes;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static okhttp3.Credentials.basic;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
@@ -358,6 +359,29 @@ public class HttpConnectorTest {
       .contains("the report content");
   }
 
+  @Test
+  public void upload_streamed_part() throws Exception {
+    answerHelloWorld();
+    PostRequest request = new PostRequest("api/report/upload")
+      .setParam("project", "theKey")
+      .setPart("report", new PostRequest.Part(MediaTypes.TXT, "report.txt", output -> output.write("the streamed content".getBytes(UTF_8))))
+      .setMediaType(MediaTypes.PROTOBUF);
+
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+    WsResponse response = underTest.call(request);
+
+    assertThat(response.hasContent()).isTrue();
+    RecordedRequest recordedRequest = server.takeRequest();
+    assertThat(recordedRequest.getMethod()).isEqualTo("POST");
+    assertThat(recordedRequest.getPath()).isEqualTo("/api/report/upload?project=theKey");
+    assertThat(recordedRequest.getHeader("Transfer-Encoding")).isEqualTo("chunked");
+    String body = IOUtils.toString(recordedRequest.getBody().inputStream());
+    assertThat(body)
+      .contains("Content-Disposition: form-data; name=\"report\"; filename=\"report.txt\"")
+      .contains("Content-Type: text/plain")
+      .contains("the streamed content");
+  }
+
   @Test
   public void http_error() throws Exception {
     server.enqueue(new MockResponse().setResponseCode(404));
@@ -57,4 +57,17 @@ public class PostRequestTest {
     assertThat(part.getMediaType()).isEqualTo(MediaTypes.JSON);
     assertThat(part.getFile()).isSameAs(reportFile);
   }
+
+  @Test
+  public void add_streamed_part() {
+    PostRequest request = new PostRequest("api/issues/search");
+    PostRequest.ContentWriter writer = output -> output.write(1);
+    request.setPart("report", new PostRequest.Part(MediaTypes.ZIP, "report.zip", writer));
+
+    PostRequest.Part part = request.getParts().get("report");
+    assertThat(part.getMediaType()).isEqualTo(MediaTypes.ZIP);
+    assertThat(part.getFileName()).isEqualTo("report.zip");
+    assertThat(part.getFile()).isNull();
+    assertThat(part.getContentWriter()).isSameAs(writer);
+  }
 }